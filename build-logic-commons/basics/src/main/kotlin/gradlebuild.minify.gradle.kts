@@ -44,6 +44,9 @@ val keepPatterns = mapOf(
         "it.unimi.dsi.fastutil.longs.Long2ObjectMap",
         "it.unimi.dsi.fastutil.longs.Long2ObjectMaps",
         "it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap",
+        // For the log-structured indexed cache
+        "it.unimi.dsi.fastutil.longs.Long2LongMap",
+        "it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap",
         // For the configuration cache module
         "it.unimi.dsi.fastutil.objects.ReferenceArrayList",
         "it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet",
@@ -73,13 +73,17 @@ sealed class CachedBuildState(
 
 /**
  * A build in the tree whose projects were loaded. May or may not have work scheduled.
+ *
+ * The state of all projects is only decoded on first access, see [CachedProjectIndex].
  */
 internal
 sealed class BuildWithProjects(
     identityPath: Path,
     val rootProjectName: String,
-    val projects: List<CachedProjectState>
-) : CachedBuildState(identityPath)
+    projects: Lazy<List<CachedProjectState>>
+) : CachedBuildState(identityPath) {
+    val projects: List<CachedProjectState> by projects
+}
 
 
 /**
@@ -90,7 +94,7 @@ class BuildWithWork(
     identityPath: Path,
     val build: ConfigurationCacheBuild,
     rootProjectName: String,
-    projects: List<CachedProjectState>,
+    projects: Lazy<List<CachedProjectState>>,
     val workGraph: ScheduledWork
 ) : BuildWithProjects(identityPath, rootProjectName, projects)
 
@@ -102,7 +106,7 @@ internal
 class BuildWithNoWork(
     identityPath: Path,
     rootProjectName: String,
-    projects: List<ProjectWithNoWork>
+    projects: Lazy<List<CachedProjectState>>
 ) : BuildWithProjects(identityPath, rootProjectName, projects)
 
 
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl
+
+import org.gradle.internal.serialize.graph.readFile
+import org.gradle.internal.serialize.graph.writeFile
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.util.Path
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+
+
+/**
+ * The identity of every project of a build, in a compact form that is only decoded when needed.
+ *
+ * Only the projects with work scheduled are needed to run the cached work graph. The identity of all projects
+ * is only needed to describe the build structure, so it is kept encoded on load, which avoids decoding
+ * the state of every project of a large build on a hit that only runs the tasks of a few of them.
+ */
+internal
+class CachedProjectIndex(
+    private val bytes: ByteArray
+) {
+
+    companion object {
+
+        fun of(projects: List<CachedProjectState>): CachedProjectIndex {
+            val bytes = ByteArrayOutputStream()
+            KryoBackedEncoder(bytes).use { encoder ->
+                encoder.writeSmallInt(projects.size)
+                for (project in projects) {
+                    encoder.writeString(project.path.path)
+                    encoder.writeFile(project.projectDir)
+                    encoder.writeFile(project.buildFile)
+                }
+            }
+            return CachedProjectIndex(bytes.toByteArray())
+        }
+    }
+
+    fun toByteArray(): ByteArray =
+        bytes
+
+    /**
+     * Decodes the projects in the index, in the order they were stored, using the given state for projects with work.
+     */
+    fun projects(projectsWithWork: Map<Path, ProjectWithWork> = emptyMap()): List<CachedProjectState> =
+        KryoBackedDecoder(ByteArrayInputStream(bytes)).use { decoder ->
+            val count = decoder.readSmallInt()
+            List(count) {
+                val path = Path.path(decoder.readString())
+                val projectDir = decoder.readFile()
+                val buildFile = decoder.readFile()
+                projectsWithWork[path] ?: ProjectWithNoWork(path, projectDir, buildFile)
+            }
+        }
+}
@@ -95,7 +95,7 @@ typealias BuildTreeWorkGraphBuilder = BuildTreeWorkGraph.Builder.(BuildState) ->
 
 
 internal
-enum class StateType(val encryptable: Boolean = false) {
+enum class StateType(val encryptable: Boolean = false, val compressible: Boolean = true) {
     /**
      * Contains the state for the entire build.
      */
@@ -129,15 +129,16 @@ enum class StateType(val encryptable: Boolean = false) {
     ProjectFingerprint(true),
 
     /**
-     * The index file that points to all of these things
+     * The index file that points to all of these things.
+     * Never compressed, since it records the compression used by the rest of the entry.
      */
-    Entry(false),
+    Entry(false, false),
 
     /**
      * The per cache-key file that lists all known configuration cache entries
      * for that key.
      */
-    Candidates(false)
+    Candidates(false, false)
 }
 
 
@@ -214,7 +215,8 @@ class ConfigurationCacheState(
         eventEmitter.emitNowForCurrent(BuildIdentifiedProgressDetails { identityPath })
 
         if (state is BuildWithProjects) {
-            val projects = convertProjects(state.projects, state.rootProjectName)
+            // Only decode the state of all projects when the build structure is queried
+            val projects by lazy { convertProjects(state.projects, state.rootProjectName) }
             eventEmitter.emitNowForCurrent(object : ProjectsIdentifiedProgressDetails {
                 override fun getBuildPath() = identityPath
                 override fun getRootProject() = projects
@@ -436,9 +438,11 @@ class ConfigurationCacheState(
             if (state.isProjectsCreated) {
                 writeBoolean(true)
                 writeString(state.projects.rootProject.name)
-                writeCollection(state.projects.allProjects) { project ->
-                    write(ProjectWithNoWork(project.projectPath, project.projectDir, project.mutableModel.buildFile))
-                }
+                writeProjectIndex(
+                    state.projects.allProjects.map { project ->
+                        ProjectWithNoWork(project.projectPath, project.projectDir, project.mutableModel.buildFile)
+                    }
+                )
             } else {
                 writeBoolean(false)
             }
@@ -452,8 +456,8 @@ class ConfigurationCacheState(
             val hasProjects = readBoolean()
             if (hasProjects) {
                 val rootProjectName = readString()
-                val projects: List<ProjectWithNoWork> = readList().uncheckedCast()
-                BuildWithNoWork(identityPath, rootProjectName, projects)
+                val projectIndex = readProjectIndex()
+                BuildWithNoWork(identityPath, rootProjectName, lazy { projectIndex.projects() })
             } else {
                 BuildWithNoProjects(identityPath)
             }
@@ -491,17 +495,18 @@ class ConfigurationCacheState(
         val gradle = build.gradle
         if (readBoolean()) {
             readGradleState(build)
-            val projects = readProjects(gradle, build)
+            val (projectsWithWork, projectIndex) = readProjects(gradle, build)
 
             build.createProjects()
             gradle.serviceOf<ProjectRefResolver>().projectsReady()
 
-            applyProjectStates(projects, gradle)
+            applyProjectStates(projectsWithWork, gradle)
             readRequiredBuildServicesOf(gradle)
 
             val workGraph = readWorkGraph(gradle)
             readFlowScopeOf(gradle)
             readBuildOutputCleanupRegistrations(gradle)
+            val projects = lazy { projectIndex.projects(projectsWithWork.associateBy { it.path }) }
             return BuildWithWork(build.state.identityPath, build, gradle.rootProject.name, projects, workGraph)
         } else {
             return BuildWithNoProjects(build.state.identityPath)
@@ -576,9 +581,9 @@ class ConfigurationCacheState(
     }
 
     private
-    fun applyProjectStates(projects: List<CachedProjectState>, gradle: GradleInternal) {
+    fun applyProjectStates(projects: List<ProjectWithWork>, gradle: GradleInternal) {
         for (project in projects) {
-            if (project is ProjectWithWork && project.normalizationState != null) {
+            if (project.normalizationState != null) {
                 val projectState = gradle.owner.projects.getProject(project.path)
                 projectState.mutableModel.normalization.configureFromCachedState(project.normalizationState)
             }
@@ -850,32 +855,44 @@ class ConfigurationCacheState(
         }
     }
 
+    /**
+     * Writes the full state of the projects with work, followed by the [index][CachedProjectIndex] of all projects.
+     */
     private
     suspend fun WriteContext.writeProjects(gradle: GradleInternal, projects: List<CachedProjectState>) {
         writeString(gradle.rootProject.name)
         withGradleIsolate(gradle, userTypesCodec) {
-            writeCollection(projects)
+            writeCollection(projects.filterIsInstance<ProjectWithWork>())
         }
+        writeProjectIndex(projects)
     }
 
     private
-    suspend fun ReadContext.readProjects(gradle: GradleInternal, build: ConfigurationCacheBuild): List<CachedProjectState> {
-        withGradleIsolate(gradle, userTypesCodec) {
-            val rootProjectName = readString()
-            return readList {
-                val project = readNonNull<CachedProjectState>()
-                if (project is ProjectWithWork) {
-                    if (project.path == Path.ROOT) {
-                        build.registerRootProject(rootProjectName, project.projectDir, project.buildDir)
-                    } else {
-                        build.registerProject(project.path, project.projectDir, project.buildDir)
-                    }
+    suspend fun ReadContext.readProjects(gradle: GradleInternal, build: ConfigurationCacheBuild): Pair<List<ProjectWithWork>, CachedProjectIndex> {
+        val rootProjectName = readString()
+        val projectsWithWork = withGradleIsolate(gradle, userTypesCodec) {
+            readList {
+                val project = readNonNull<ProjectWithWork>()
+                if (project.path == Path.ROOT) {
+                    build.registerRootProject(rootProjectName, project.projectDir, project.buildDir)
+                } else {
+                    build.registerProject(project.path, project.projectDir, project.buildDir)
                 }
                 project
             }
         }
+        return projectsWithWork to readProjectIndex()
     }
 
+    private
+    fun WriteContext.writeProjectIndex(projects: List<CachedProjectState>) {
+        writeBinary(CachedProjectIndex.of(projects).toByteArray())
+    }
+
+    private
+    fun ReadContext.readProjectIndex(): CachedProjectIndex =
+        CachedProjectIndex(readBinary())
+
     private
     fun stateFileFor(buildDefinition: BuildDefinition) =
         stateFile.stateFileForIncludedBuild(buildDefinition)
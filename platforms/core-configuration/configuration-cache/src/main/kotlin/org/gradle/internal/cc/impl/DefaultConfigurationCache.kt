@@ -540,6 +540,8 @@ class DefaultConfigurationCache internal constructor(
     private
     fun ConfigurationCacheRepository.Layout.checkedFingerprint(candidateEntry: CandidateEntry): EntrySearchResult =
         cacheIO.readCacheEntryDetailsFrom(fileFor(StateType.Entry))
+            // entries stored with a different compression cannot be read back, not even their fingerprint
+            ?.takeIf { entryDetails -> entryDetails.compression == startParameter.compression }
             ?.let { entryDetails ->
                 // TODO:configuration-cache read only rootDirs at this point
                 EntrySearchResult(entryDetails.buildInvocationScopeId, checkFingerprint(candidateEntry, entryDetails.rootDirs))
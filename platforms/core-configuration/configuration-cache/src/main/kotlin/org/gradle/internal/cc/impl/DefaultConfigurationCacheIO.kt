@@ -29,6 +29,7 @@ import org.gradle.internal.cc.base.serialize.withGradleIsolate
 import org.gradle.internal.cc.impl.cacheentry.EntryDetails
 import org.gradle.internal.cc.impl.cacheentry.ModelKey
 import org.gradle.internal.cc.impl.initialization.ConfigurationCacheStartParameter
+import org.gradle.internal.cc.impl.io.StateCompression
 import org.gradle.internal.cc.impl.io.safeWrap
 import org.gradle.internal.cc.impl.problems.ConfigurationCacheProblems
 import org.gradle.internal.cc.impl.serialize.Codecs
@@ -123,6 +124,7 @@ class DefaultConfigurationCacheIO internal constructor(
         val rootDirs = collectRootDirs(buildStateRegistry)
         withWriteContextFor(stateFile, { "entry details" }) {
             write(buildInvocationScopeId.id.asString())
+            writeString(startParameter.compression.id)
             writeCollection(rootDirs) { writeFile(it) }
             val addressSerializer = BlockAddressSerializer()
             writeCollection(intermediateModels.entries) { entry ->
@@ -145,6 +147,7 @@ class DefaultConfigurationCacheIO internal constructor(
         }
         return withReadContextFor(stateFile) {
             val buildInvocationScopeId = readNonNull<String>()
+            val compression = StateCompression.of(readString())
             val rootDirs = readList { readFile() }
             val addressSerializer = BlockAddressSerializer()
             val intermediateModels = mutableMapOf<ModelKey, BlockAddress>()
@@ -162,7 +165,7 @@ class DefaultConfigurationCacheIO internal constructor(
             val sideEffects = readList {
                 addressSerializer.read(this)
             }
-            EntryDetails(buildInvocationScopeId, rootDirs, intermediateModels, metadata, sideEffects)
+            EntryDetails(buildInvocationScopeId, compression, rootDirs, intermediateModels, metadata, sideEffects)
         }
     }
 
@@ -423,19 +426,27 @@ class DefaultConfigurationCacheIO internal constructor(
             else KryoBackedDecoder(stream)
         }
 
+    /**
+     * State is compressed before being encrypted, as encrypted bytes no longer compress.
+     */
     private
     fun outputStreamFor(stateType: StateType, outputStream: () -> OutputStream) =
-        maybeEncrypt(stateType, outputStream, encryptionService::outputStream)
+        maybeCompress(stateType, { maybeEncrypt(stateType, outputStream, encryptionService::outputStream) }, startParameter.compression::outputStream)
 
     private
     fun inputStreamFor(stateType: StateType, inputStream: () -> InputStream) =
-        maybeEncrypt(stateType, inputStream, encryptionService::inputStream)
+        maybeCompress(stateType, { maybeEncrypt(stateType, inputStream, encryptionService::inputStream) }, startParameter.compression::inputStream)
 
     private
     fun <I : Closeable, O : I> maybeEncrypt(stateType: StateType, inner: () -> I, outer: (I) -> O): I =
         if (stateType.encryptable) safeWrap(inner, outer)
         else inner()
 
+    private
+    fun <I : Closeable, O : I> maybeCompress(stateType: StateType, inner: () -> I, outer: (I) -> O): I =
+        if (stateType.compressible && startParameter.compression != StateCompression.None) safeWrap(inner, outer)
+        else inner()
+
     /**
      * For the [work graph state][StateType.Work], we use the parallel string deduplication strategy since it spans multiple files,
      * for everything else we use the sequential, per encoder/decoder, deduplication strategy.
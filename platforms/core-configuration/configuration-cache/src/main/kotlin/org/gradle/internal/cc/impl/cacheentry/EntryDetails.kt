@@ -17,6 +17,7 @@
 package org.gradle.internal.cc.impl.cacheentry
 
 import org.gradle.cache.internal.streams.BlockAddress
+import org.gradle.internal.cc.impl.io.StateCompression
 import org.gradle.util.Path
 import java.io.File
 
@@ -27,6 +28,10 @@ import java.io.File
 internal
 class EntryDetails(
     val buildInvocationScopeId: String,
+    /**
+     * The compression used for the other state files of the entry.
+     */
+    val compression: StateCompression,
     val rootDirs: List<File>,
     val intermediateModels: Map<ModelKey, BlockAddress>,
     val projectMetadata: Map<Path, BlockAddress>,
@@ -38,6 +38,8 @@ import org.gradle.internal.util.NumberUtil.ordinal
 import org.gradle.util.Path
 import java.io.File
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.function.Consumer
 
 
@@ -68,9 +70,56 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
         fun instantiateValueSourceOf(obtainedValue: ObtainedValue): ValueSource<Any, ValueSourceParameters>
         fun isRemoteScriptUpToDate(uri: URI): Boolean
         fun hasValidBuildSrc(candidateBuildSrc: File): Boolean
+
+        /**
+         * Whether inputs should be checked concurrently, using [checkConcurrently].
+         */
+        val isCheckingConcurrently: Boolean
+
+        /**
+         * Runs the given batches of checks concurrently, returning once all of them completed.
+         */
+        fun checkConcurrently(batches: List<CheckBatch>)
+    }
+
+    /**
+     * A batch of fingerprint checks of the same [category] that can run concurrently with other batches.
+     */
+    class CheckBatch(
+        val category: InputCategory,
+        val displayName: String,
+        val action: () -> Unit
+    )
+
+    /**
+     * The kinds of inputs checked in separate batches. Inputs of the same category are checked sequentially within a batch.
+     *
+     * Only the categories whose checks are cheap and free of side effects are [checked concurrently][isCheckedConcurrently].
+     * The inputs of the other categories are checked afterwards, in stored order, and only when no input stored before them is out-of-date,
+     * as in a sequential check.
+     */
+    enum class InputCategory(val displayName: String, val maxBatchSize: Int, val isCheckedConcurrently: Boolean) {
+        FileSystem("file system", 256, true),
+        WorkInputs("work inputs", 16, true),
+        Environment("environment", Int.MAX_VALUE, true),
+
+        /**
+         * Checking a remote script can access the network.
+         */
+        RemoteScripts("remote scripts", Int.MAX_VALUE, false),
+
+        /**
+         * Value sources run build logic.
+         */
+        ValueSources("value sources", Int.MAX_VALUE, false)
     }
 
-    suspend fun ReadContext.checkBuildScopedFingerprint(): InvalidationReason? {
+    suspend fun ReadContext.checkBuildScopedFingerprint(): InvalidationReason? =
+        if (host.isCheckingConcurrently) checkBuildScopedFingerprintConcurrently()
+        else checkBuildScopedFingerprintSequentially()
+
+    private
+    suspend fun ReadContext.checkBuildScopedFingerprintSequentially(): InvalidationReason? {
         // TODO: log some debug info
         while (true) {
             when (val input = read()) {
@@ -89,14 +138,180 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
         return null
     }
 
-    @Suppress("NestedBlockDepth")
-    suspend fun ReadContext.checkProjectScopedFingerprint(): CheckedFingerprint.InvalidProjects? {
+    /**
+     * Checks the build scoped inputs concurrently, in batches, and returns the reason of the first input,
+     * in the stored order, that is out-of-date. This is the same reason as reported by a sequential check.
+     *
+     * Once an out-of-date input is found, no input stored after it is checked anymore. The inputs that are not
+     * [checked concurrently][InputCategory.isCheckedConcurrently] are checked last, in stored order.
+     */
+    private
+    suspend fun ReadContext.checkBuildScopedFingerprintConcurrently(): InvalidationReason? {
+        val inputs = readBuildScopedInputs()
+        val (concurrentIndices, sequentialIndices) = inputs.indices.partition { categoryOf(inputs[it]).isCheckedConcurrently }
+        val firstInvalidIndex = AtomicInteger(Int.MAX_VALUE)
+        val reasons = ConcurrentHashMap<Int, InvalidationReason>()
+        host.checkConcurrently(
+            batchesOf(concurrentIndices) { inputs[it] }.map { (category, indices) ->
+                CheckBatch(category, "Check ${category.displayName} fingerprint inputs") {
+                    for (index in indices) {
+                        if (index > firstInvalidIndex.get()) {
+                            // An earlier input is already out-of-date
+                            break
+                        }
+                        val reason = check(inputs[index])
+                        if (reason != null) {
+                            reasons[index] = reason
+                            firstInvalidIndex.accumulateAndGet(index, ::minOf)
+                            break
+                        }
+                    }
+                }
+            }
+        )
+        for (index in sequentialIndices) {
+            if (index > firstInvalidIndex.get()) {
+                break
+            }
+            val reason = check(inputs[index])
+            if (reason != null) {
+                reasons[index] = reason
+                firstInvalidIndex.set(index)
+                break
+            }
+        }
+        return reasons[firstInvalidIndex.get()]
+    }
+
+    private
+    suspend fun ReadContext.readBuildScopedInputs(): List<ConfigurationCacheFingerprint> {
+        val inputs = mutableListOf<ConfigurationCacheFingerprint>()
+        while (true) {
+            when (val input = read()) {
+                null -> break
+                is ConfigurationCacheFingerprint -> inputs.add(input)
+                else -> error("Unexpected configuration cache fingerprint: $input")
+            }
+        }
+        return inputs
+    }
+
+    /**
+     * Groups the given inputs into batches by category, preserving the stored order within each batch.
+     */
+    private
+    fun <T> batchesOf(items: List<T>, inputOf: (T) -> ConfigurationCacheFingerprint): List<Pair<InputCategory, List<T>>> =
+        items.groupBy { categoryOf(inputOf(it)) }.flatMap { (category, itemsOfCategory) ->
+            itemsOfCategory.chunked(category.maxBatchSize).map { category to it }
+        }
+
+    private
+    fun valueOf(entry: ProjectSpecificFingerprint): ConfigurationCacheFingerprint =
+        (entry as ProjectSpecificFingerprint.ProjectFingerprint).value
+
+    private
+    fun categoryOf(input: ConfigurationCacheFingerprint): InputCategory = when (input) {
+        is ConfigurationCacheFingerprint.InputFile,
+        is ConfigurationCacheFingerprint.DirectoryChildren,
+        is ConfigurationCacheFingerprint.InputFileSystemEntry,
+        is ConfigurationCacheFingerprint.InitScripts,
+        is ConfigurationCacheFingerprint.MissingBuildSrcDir -> InputCategory.FileSystem
+
+        is ConfigurationCacheFingerprint.WorkInputs -> InputCategory.WorkInputs
+
+        is ConfigurationCacheFingerprint.GradleEnvironment,
+        is ConfigurationCacheFingerprint.UndeclaredSystemProperty,
+        is ConfigurationCacheFingerprint.UndeclaredEnvironmentVariable,
+        is ConfigurationCacheFingerprint.SystemPropertiesPrefixedBy,
+        is ConfigurationCacheFingerprint.EnvironmentVariablesPrefixedBy,
+        is ConfigurationCacheFingerprint.ChangingDependencyResolutionValue -> InputCategory.Environment
+
+        is ConfigurationCacheFingerprint.RemoteScript -> InputCategory.RemoteScripts
+
+        is ConfigurationCacheFingerprint.ValueSource -> InputCategory.ValueSources
+    }
+
+    suspend fun ReadContext.checkProjectScopedFingerprint(): CheckedFingerprint.InvalidProjects? =
+        if (host.isCheckingConcurrently) checkProjectScopedFingerprintConcurrently()
+        else checkProjectScopedFingerprintSequentially()
+
+    /**
+     * Checks the values of all projects concurrently, then replays the stored entries in order using the results,
+     * so that the propagation of invalidations through project dependencies is the same as in a sequential check.
+     *
+     * The values that are not [checked concurrently][InputCategory.isCheckedConcurrently] are checked after the others,
+     * in stored order, and only when no earlier value of the same project is out-of-date.
+     */
+    private
+    suspend fun ReadContext.checkProjectScopedFingerprintConcurrently(): CheckedFingerprint.InvalidProjects? {
+        val entries = mutableListOf<ProjectSpecificFingerprint>()
+        while (true) {
+            when (val input = read()) {
+                null -> break
+                is ProjectSpecificFingerprint -> entries.add(input)
+                else -> error("Unexpected configuration cache fingerprint: $input")
+            }
+        }
+
+        val valueIndices = entries.indices.filter { entries[it] is ProjectSpecificFingerprint.ProjectFingerprint }
+        val (concurrentIndices, sequentialIndices) = valueIndices.partition { categoryOf(valueOf(entries[it])).isCheckedConcurrently }
+        val reasons = ConcurrentHashMap<Int, InvalidationReason>()
+        // Index of the first out-of-date value of each project, later values of the project are not checked
+        val firstInvalidIndexOfProject = ConcurrentHashMap<Path, Int>()
+        val checkValue = { index: Int ->
+            val entry = entries[index] as ProjectSpecificFingerprint.ProjectFingerprint
+            if (index < (firstInvalidIndexOfProject[entry.projectIdentityPath] ?: Int.MAX_VALUE)) {
+                val reason = check(entry.value)
+                if (reason != null) {
+                    reasons[index] = reason
+                    firstInvalidIndexOfProject.merge(entry.projectIdentityPath, index, ::minOf)
+                }
+            }
+        }
+        host.checkConcurrently(
+            batchesOf(concurrentIndices) { valueOf(entries[it]) }.map { (category, indices) ->
+                CheckBatch(category, "Check project ${category.displayName} fingerprint inputs") {
+                    indices.forEach(checkValue)
+                }
+            }
+        )
+        sequentialIndices.forEach(checkValue)
+
+        val projects = ProjectScopedInvalidation()
+        entries.forEachIndexed { index, entry ->
+            projects.accept(entry) { reasons[index] }
+        }
+        return projects.result()
+    }
+
+    private
+    suspend fun ReadContext.checkProjectScopedFingerprintSequentially(): CheckedFingerprint.InvalidProjects? {
         // TODO: log some debug info
-        var firstInvalidatedPath: Path? = null
-        val projects = hashMapOf<Path, ProjectInvalidationState>()
+        val projects = ProjectScopedInvalidation()
         while (true) {
             when (val input = read()) {
                 null -> break
+                is ProjectSpecificFingerprint -> projects.accept(input) { check(it) }
+                else -> error("Unexpected configuration cache fingerprint: $input")
+            }
+        }
+        return projects.result()
+    }
+
+    /**
+     * Tracks the invalidation of projects while visiting the project scoped entries in the stored order.
+     */
+    private
+    inner class ProjectScopedInvalidation {
+
+        private
+        var firstInvalidatedPath: Path? = null
+
+        private
+        val projects = hashMapOf<Path, ProjectInvalidationState>()
+
+        inline fun accept(input: ProjectSpecificFingerprint, check: (ConfigurationCacheFingerprint) -> InvalidationReason?) {
+            when (input) {
                 is ProjectSpecificFingerprint.ProjectIdentity -> {
                     val state = projects.entryFor(input.identityPath)
                     state.buildPath = input.buildPath
@@ -132,18 +347,18 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
                         referrer.consumedBy(target)
                     }
                 }
-
-                else -> error("Unexpected configuration cache fingerprint: $input")
             }
         }
-        return firstInvalidatedPath?.let { path ->
-            CheckedFingerprint.InvalidProjects(
-                path,
-                projects
-                    .filterValues { it.isInvalid }
-                    .mapValues { it.value.toProjectInvalidationData() }
-            )
-        }
+
+        fun result(): CheckedFingerprint.InvalidProjects? =
+            firstInvalidatedPath?.let { path ->
+                CheckedFingerprint.InvalidProjects(
+                    path,
+                    projects
+                        .filterValues { it.isInvalid }
+                        .mapValues { it.value.toProjectInvalidationData() }
+                )
+            }
     }
 
     suspend fun ReadContext.visitEntriesForProjects(reusedProjects: Set<Path>, consumer: Consumer<ProjectSpecificFingerprint>) {
@@ -56,6 +56,12 @@ import org.gradle.internal.fingerprint.DirectorySensitivity
 import org.gradle.internal.fingerprint.LineEndingSensitivity
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.instrumentation.agent.AgentStatus
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.MultipleBuildOperationFailures
+import org.gradle.internal.operations.RunnableBuildOperation
 import org.gradle.internal.scripts.ProjectScopedScriptResolution
 import org.gradle.internal.scripts.ScriptFileResolverListeners
 import org.gradle.internal.serialize.graph.CloseableWriteContext
@@ -101,6 +107,7 @@ class ConfigurationCacheFingerprintController internal constructor(
     private val encryptionService: EncryptionService,
     private val configurationTimeBarrier: ConfigurationTimeBarrier,
     private val buildStateRegistry: BuildStateRegistry,
+    private val buildOperationExecutor: BuildOperationExecutor,
 ) : Stoppable, ProjectScopedScriptResolution {
 
     interface Host {
@@ -522,8 +529,38 @@ class ConfigurationCacheFingerprintController internal constructor(
         override fun hasValidBuildSrc(candidateBuildSrc: File): Boolean {
             return BuildSrcDetector.isValidBuildSrcBuild(candidateBuildSrc)
         }
+
+        override val isCheckingConcurrently: Boolean
+            get() = startParameter.isParallelFingerprintCheck
+
+        override fun checkConcurrently(batches: List<ConfigurationCacheFingerprintChecker.CheckBatch>) {
+            try {
+                buildOperationExecutor.runAllWithAccessToProjectState { queue: BuildOperationQueue<RunnableBuildOperation> ->
+                    batches.forEach { batch ->
+                        queue.add(object : RunnableBuildOperation {
+                            override fun description(): BuildOperationDescriptor.Builder =
+                                BuildOperationDescriptor.displayName(batch.displayName)
+                                    .details(FingerprintCheckBatchDetails(batch.category.displayName))
+
+                            override fun run(context: BuildOperationContext) {
+                                batch.action()
+                            }
+                        })
+                    }
+                }
+            } catch (e: MultipleBuildOperationFailures) {
+                throw e.causes.singleOrNull() ?: e
+            }
+        }
     }
 
+    /**
+     * Details of the build operation checking a batch of fingerprint inputs, so the time spent checking each category of inputs
+     * can be told apart in the build operation trace.
+     */
+    private
+    data class FingerprintCheckBatchDetails(val category: String)
+
     private
     val rootDirectory
         get() = startParameter.rootDirectory
@@ -27,8 +27,10 @@ import org.gradle.internal.buildoption.InternalOptions
 import org.gradle.internal.buildtree.BuildModelParameters
 import org.gradle.internal.cc.impl.ConfigurationCacheLoggingParameters
 import org.gradle.internal.cc.impl.Workarounds
+import org.gradle.internal.cc.impl.io.StateCompression
 import org.gradle.internal.deprecation.DeprecationLogger
 import org.gradle.internal.extensions.core.getInternalFlag
+import org.gradle.internal.extensions.core.getInternalString
 import org.gradle.internal.extensions.stdlib.unsafeLazy
 import org.gradle.internal.service.scopes.Scope
 import org.gradle.internal.service.scopes.ServiceScope
@@ -104,6 +106,15 @@ class ConfigurationCacheStartParameter internal constructor(
      */
     val isSharingObjects: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.share-objects", true)
 
+    /**
+     * The compression applied to configuration cache state before it is encrypted and written to disk,
+     * one of `none`, `lz` or `deflate`.
+     *
+     * The default is `none`.
+     */
+    internal
+    val compression: StateCompression = StateCompression.of(options.getInternalString("org.gradle.configuration-cache.internal.compression", StateCompression.None.id)!!)
+
     /**
      * Whether configuration cache storing/loading should be done in parallel.
      *
@@ -133,6 +144,13 @@ class ConfigurationCacheStartParameter internal constructor(
      */
     val isParallelLoad = options.getInternalFlag("org.gradle.configuration-cache.internal.parallel-load", true)
 
+    /**
+     * Whether the inputs of the configuration cache fingerprint should be checked in parallel, in batches.
+     *
+     * The default is `false`.
+     */
+    val isParallelFingerprintCheck = options.getInternalFlag("org.gradle.configuration-cache.internal.parallel-fingerprint-check", false)
+
     val gradleProperties: Map<String, Any?>
         get() = startParameter.projectProperties
             .filterKeys { !Workarounds.isIgnoredStartParameterProperty(it) }
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl.io
+
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.FilterOutputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+
+/**
+ * The compression applied to configuration cache state streams, between the encoder and the encryption layer.
+ */
+internal
+enum class StateCompression(val id: String) {
+
+    None("none") {
+        override fun outputStream(outputStream: OutputStream): OutputStream = outputStream
+        override fun inputStream(inputStream: InputStream): InputStream = inputStream
+    },
+
+    /**
+     * A fast LZ77 codec that trades compression ratio for speed, see [LzBlockOutputStream].
+     */
+    Lz("lz") {
+        override fun outputStream(outputStream: OutputStream): OutputStream = LzBlockOutputStream(outputStream)
+        override fun inputStream(inputStream: InputStream): InputStream = LzBlockInputStream(inputStream)
+    },
+
+    Deflate("deflate") {
+        override fun outputStream(outputStream: OutputStream): OutputStream {
+            val deflater = Deflater(Deflater.BEST_SPEED)
+            return object : DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE) {
+                override fun close() {
+                    try {
+                        super.close()
+                    } finally {
+                        deflater.end()
+                    }
+                }
+            }
+        }
+
+        override fun inputStream(inputStream: InputStream): InputStream {
+            val inflater = Inflater()
+            return object : InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+                override fun close() {
+                    try {
+                        super.close()
+                    } finally {
+                        inflater.end()
+                    }
+                }
+            }
+        }
+    };
+
+    abstract fun outputStream(outputStream: OutputStream): OutputStream
+
+    abstract fun inputStream(inputStream: InputStream): InputStream
+
+    companion object {
+        private
+        const val BUFFER_SIZE = 64 * 1024
+
+        fun of(id: String): StateCompression =
+            entries.firstOrNull { it.id == id }
+                ?: throw IllegalArgumentException("Unknown configuration cache compression '$id', expected one of ${entries.joinToString { "'${it.id}'" }}.")
+    }
+}
+
+
+/**
+ * Compresses a stream in independent blocks with a byte-oriented LZ77 scheme in the spirit of LZ4.
+ *
+ * Each block is written as its raw length, followed by its compressed length and the compressed bytes.
+ * A negative compressed length means the block did not compress and is stored as-is.
+ * Compressed data is a sequence of tokens, each made of a run of literal bytes followed by a back-reference
+ * (offset and length) into the block decoded so far. The last token of a block only holds literals.
+ */
+internal
+class LzBlockOutputStream(outputStream: OutputStream) : FilterOutputStream(outputStream) {
+
+    private
+    val output = DataOutputStream(outputStream)
+
+    private
+    val block = ByteArray(LZ_BLOCK_SIZE)
+
+    private
+    val compressed = ByteArray(maxCompressedLength(LZ_BLOCK_SIZE))
+
+    private
+    val hashTable = IntArray(1 shl HASH_BITS)
+
+    private
+    var position = 0
+
+    private
+    var closed = false
+
+    override fun write(b: Int) {
+        if (position == block.size) {
+            writeBlock()
+        }
+        block[position++] = b.toByte()
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        var offset = off
+        var remaining = len
+        while (remaining > 0) {
+            if (position == block.size) {
+                writeBlock()
+            }
+            val count = minOf(remaining, block.size - position)
+            System.arraycopy(b, offset, block, position, count)
+            position += count
+            offset += count
+            remaining -= count
+        }
+    }
+
+    /**
+     * Only flushes the underlying stream, so that frequent flushes by the encoder do not produce tiny blocks.
+     */
+    override fun flush() {
+        output.flush()
+    }
+
+    override fun close() {
+        if (closed) {
+            return
+        }
+        closed = true
+        try {
+            writeBlock()
+            output.flush()
+        } finally {
+            output.close()
+        }
+    }
+
+    private
+    fun writeBlock() {
+        if (position == 0) {
+            return
+        }
+        val compressedLength = compress(block, position, compressed)
+        output.writeInt(position)
+        if (compressedLength < position) {
+            output.writeInt(compressedLength)
+            output.write(compressed, 0, compressedLength)
+        } else {
+            output.writeInt(-position)
+            output.write(block, 0, position)
+        }
+        position = 0
+    }
+
+    private
+    fun compress(src: ByteArray, length: Int, dst: ByteArray): Int {
+        hashTable.fill(-1)
+        var out = 0
+        var anchor = 0
+        var i = 0
+        val limit = length - MIN_MATCH
+        while (i < limit) {
+            val sequence = readInt(src, i)
+            val hash = (sequence * -0x61c88647) ushr (32 - HASH_BITS)
+            val candidate = hashTable[hash]
+            hashTable[hash] = i
+            if (candidate < 0 || i - candidate > MAX_OFFSET || readInt(src, candidate) != sequence) {
+                i++
+                continue
+            }
+            var matchLength = MIN_MATCH
+            while (i + matchLength < length && src[candidate + matchLength] == src[i + matchLength]) {
+                matchLength++
+            }
+            out = writeSequence(src, anchor, i - anchor, dst, out, i - candidate, matchLength)
+            i += matchLength
+            anchor = i
+        }
+        if (anchor < length) {
+            out = writeSequence(src, anchor, length - anchor, dst, out, 0, 0)
+        }
+        return out
+    }
+
+    private
+    fun writeSequence(src: ByteArray, literalStart: Int, literalLength: Int, dst: ByteArray, start: Int, offset: Int, matchLength: Int): Int {
+        var out = start
+        val tokenPos = out++
+        val literalNibble = minOf(literalLength, 15)
+        val matchNibble = if (matchLength == 0) 0 else minOf(matchLength - MIN_MATCH, 15)
+        dst[tokenPos] = ((literalNibble shl 4) or matchNibble).toByte()
+        if (literalNibble == 15) {
+            out = writeLength(dst, out, literalLength - 15)
+        }
+        System.arraycopy(src, literalStart, dst, out, literalLength)
+        out += literalLength
+        if (matchLength > 0) {
+            dst[out++] = offset.toByte()
+            dst[out++] = (offset ushr 8).toByte()
+            if (matchNibble == 15) {
+                out = writeLength(dst, out, matchLength - MIN_MATCH - 15)
+            }
+        }
+        return out
+    }
+
+    private
+    fun writeLength(dst: ByteArray, start: Int, length: Int): Int {
+        var out = start
+        var remaining = length
+        while (remaining >= 255) {
+            dst[out++] = 255.toByte()
+            remaining -= 255
+        }
+        dst[out++] = remaining.toByte()
+        return out
+    }
+
+    private
+    fun readInt(src: ByteArray, i: Int): Int =
+        (src[i].toInt() and 0xff) or
+            ((src[i + 1].toInt() and 0xff) shl 8) or
+            ((src[i + 2].toInt() and 0xff) shl 16) or
+            ((src[i + 3].toInt() and 0xff) shl 24)
+}
+
+
+/**
+ * Reads a stream written by [LzBlockOutputStream].
+ */
+internal
+class LzBlockInputStream(inputStream: InputStream) : InputStream() {
+
+    private
+    val input = DataInputStream(inputStream)
+
+    private
+    val block = ByteArray(LZ_BLOCK_SIZE)
+
+    private
+    val compressed = ByteArray(maxCompressedLength(LZ_BLOCK_SIZE))
+
+    private
+    var position = 0
+
+    private
+    var limit = 0
+
+    override fun read(): Int {
+        if (position == limit && !readBlock()) {
+            return -1
+        }
+        return block[position++].toInt() and 0xff
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) {
+            return 0
+        }
+        if (position == limit && !readBlock()) {
+            return -1
+        }
+        val count = minOf(len, limit - position)
+        System.arraycopy(block, position, b, off, count)
+        position += count
+        return count
+    }
+
+    override fun available(): Int =
+        limit - position
+
+    override fun close() {
+        input.close()
+    }
+
+    private
+    fun readBlock(): Boolean {
+        val rawLength = try {
+            input.readInt()
+        } catch (e: EOFException) {
+            return false
+        }
+        val compressedLength = input.readInt()
+        if (rawLength <= 0 || rawLength > block.size || compressedLength > compressed.size || (compressedLength < 0 && compressedLength != -rawLength)) {
+            throw corrupted()
+        }
+        if (compressedLength < 0) {
+            input.readFully(block, 0, rawLength)
+        } else {
+            input.readFully(compressed, 0, compressedLength)
+            decompress(compressed, compressedLength, block, rawLength)
+        }
+        position = 0
+        limit = rawLength
+        return true
+    }
+
+    /**
+     * Every read and copy is bounds checked, so that corrupted input fails with an [IOException]
+     * rather than an [ArrayIndexOutOfBoundsException].
+     */
+    private
+    fun decompress(src: ByteArray, length: Int, dst: ByteArray, rawLength: Int) {
+        var i = 0
+        var out = 0
+        while (out < rawLength) {
+            val token = readByte(src, i++, length)
+            var literalLength = token ushr 4
+            if (literalLength == 15) {
+                do {
+                    val b = readByte(src, i++, length)
+                    literalLength += b
+                } while (b == 255)
+            }
+            if (literalLength > length - i || literalLength > rawLength - out) {
+                throw corrupted()
+            }
+            System.arraycopy(src, i, dst, out, literalLength)
+            i += literalLength
+            out += literalLength
+            if (out >= rawLength) {
+                break
+            }
+            val offset = readByte(src, i, length) or (readByte(src, i + 1, length) shl 8)
+            i += 2
+            var matchLength = (token and 0x0f) + MIN_MATCH
+            if (token and 0x0f == 15) {
+                do {
+                    val b = readByte(src, i++, length)
+                    matchLength += b
+                } while (b == 255)
+            }
+            var from = out - offset
+            if (offset == 0 || from < 0 || matchLength > rawLength - out) {
+                throw corrupted()
+            }
+            // Byte by byte, as the match may overlap the bytes it produces
+            repeat(matchLength) {
+                dst[out++] = dst[from++]
+            }
+        }
+    }
+
+    private
+    fun readByte(src: ByteArray, i: Int, length: Int): Int {
+        if (i >= length) {
+            throw corrupted()
+        }
+        return src[i].toInt() and 0xff
+    }
+
+    private
+    fun corrupted() =
+        IOException("Corrupted compressed block.")
+}
+
+
+private
+const val LZ_BLOCK_SIZE = 64 * 1024
+
+
+private
+const val HASH_BITS = 14
+
+
+private
+const val MIN_MATCH = 4
+
+
+private
+const val MAX_OFFSET = 65535
+
+
+private
+fun maxCompressedLength(length: Int) =
+    length + length / 255 + 16
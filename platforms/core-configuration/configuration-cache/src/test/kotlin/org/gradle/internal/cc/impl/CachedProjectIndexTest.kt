@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl
+
+import org.gradle.util.Path
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.instanceOf
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.io.File
+
+
+class CachedProjectIndexTest {
+
+    private
+    val root = File("root").absoluteFile
+
+    @Test
+    fun `decodes projects in the order they were stored`() {
+        val projects = listOf(
+            projectWithNoWork(Path.ROOT),
+            projectWithNoWork(Path.path(":b")),
+            projectWithNoWork(Path.path(":a")),
+        )
+
+        val decoded = CachedProjectIndex(CachedProjectIndex.of(projects).toByteArray()).projects()
+
+        assertThat(decoded.map { it.path }, equalTo(projects.map { it.path }))
+        assertThat(decoded.map { it.projectDir }, equalTo(projects.map { it.projectDir }))
+        assertThat(decoded.map { it.buildFile }, equalTo(projects.map { it.buildFile }))
+        decoded.forEach {
+            assertThat(it, instanceOf(ProjectWithNoWork::class.java))
+        }
+    }
+
+    @Test
+    fun `uses the given state for projects with work`() {
+        val withWork = ProjectWithWork(Path.path(":a"), File(root, "a"), File(root, "a/build.gradle"), File(root, "a/build"), null)
+        val index = CachedProjectIndex.of(listOf(projectWithNoWork(Path.ROOT), withWork, projectWithNoWork(Path.path(":b"))))
+
+        val decoded = index.projects(mapOf(withWork.path to withWork))
+
+        assertThat(decoded.size, equalTo(3))
+        assertThat(decoded[0], instanceOf(ProjectWithNoWork::class.java))
+        assertThat(decoded[1], sameInstance(withWork))
+        assertThat(decoded[2], instanceOf(ProjectWithNoWork::class.java))
+    }
+
+    private
+    fun projectWithNoWork(path: Path): ProjectWithNoWork {
+        val dir = path.segments().fold(root) { dir, name -> File(dir, name) }
+        return ProjectWithNoWork(path, dir, File(dir, "build.gradle"))
+    }
+}
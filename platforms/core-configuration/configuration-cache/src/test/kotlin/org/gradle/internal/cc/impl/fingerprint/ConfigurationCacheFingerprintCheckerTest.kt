@@ -19,6 +19,8 @@ package org.gradle.internal.cc.impl.fingerprint
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.doReturn
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
 import org.gradle.api.Describable
 import org.gradle.api.logging.Logger
 import org.gradle.api.provider.ValueSource
@@ -47,6 +49,7 @@ import org.gradle.internal.serialize.graph.WriteIsolate
 import org.gradle.internal.serialize.graph.runReadOperation
 import org.gradle.internal.serialize.graph.runWriteOperation
 import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
 import java.io.File
@@ -260,6 +263,114 @@ class ConfigurationCacheFingerprintCheckerTest {
         )
     }
 
+    @Test
+    fun `concurrent check reports the first out-of-date input in stored order`() {
+        val unchangedFile = File("unchanged.txt")
+        val changedFile = File("changed.txt")
+        val host = mock<ConfigurationCacheFingerprintChecker.Host> {
+            on { isCheckingConcurrently } doReturn true
+            // run the batches in reverse order, so that the last stored input would be checked first
+            on { checkConcurrently(any()) }.then { invocation ->
+                invocation.getArgument<List<ConfigurationCacheFingerprintChecker.CheckBatch>>(0).reversed().forEach { it.action() }
+            }
+            on { hashCodeAndTypeOf(unchangedFile) } doReturn (TestHashCodes.hashCodeFrom(1) to FileType.RegularFile)
+            on { hashCodeAndTypeOf(changedFile) } doReturn (TestHashCodes.hashCodeFrom(3) to FileType.RegularFile)
+            on { displayNameOf(changedFile) } doReturn "displayNameOf(changedFile)"
+        }
+
+        assertThat(
+            checkFingerprintGiven(
+                host,
+                ConfigurationCacheFingerprint.InputFile(unchangedFile, TestHashCodes.hashCodeFrom(1)),
+                ConfigurationCacheFingerprint.UndeclaredSystemProperty("org.gradle.test.undefined", "value"),
+                ConfigurationCacheFingerprint.InputFile(changedFile, TestHashCodes.hashCodeFrom(2))
+            ),
+            equalTo("system property 'org.gradle.test.undefined' has changed")
+        )
+        // inputs stored after the first out-of-date input are not checked
+        verify(host, never()).hashCodeAndTypeOf(changedFile)
+    }
+
+    @Test
+    fun `concurrent check reports nothing when all inputs are up-to-date`() {
+        val inputFile = File("input.txt")
+        val host = mock<ConfigurationCacheFingerprintChecker.Host> {
+            on { isCheckingConcurrently } doReturn true
+            on { checkConcurrently(any()) }.then { invocation ->
+                invocation.getArgument<List<ConfigurationCacheFingerprintChecker.CheckBatch>>(0).forEach { it.action() }
+            }
+            on { hashCodeAndTypeOf(inputFile) } doReturn (TestHashCodes.hashCodeFrom(1) to FileType.RegularFile)
+        }
+
+        assertThat(
+            checkFingerprintGiven(
+                host,
+                ConfigurationCacheFingerprint.InputFile(inputFile, TestHashCodes.hashCodeFrom(1)),
+                ConfigurationCacheFingerprint.UndeclaredSystemProperty("org.gradle.test.undefined", null)
+            ),
+            nullValue()
+        )
+    }
+
+    @Test
+    fun `concurrent check does not run value sources stored after an out-of-date input`() {
+        val changedFile = File("changed.txt")
+        val obtainedValue = obtainedValueMock()
+        val host = mock<ConfigurationCacheFingerprintChecker.Host> {
+            on { isCheckingConcurrently } doReturn true
+            on { checkConcurrently(any()) }.then { invocation ->
+                invocation.getArgument<List<ConfigurationCacheFingerprintChecker.CheckBatch>>(0).forEach { it.action() }
+            }
+            on { hashCodeAndTypeOf(changedFile) } doReturn (TestHashCodes.hashCodeFrom(3) to FileType.RegularFile)
+            on { displayNameOf(changedFile) } doReturn "displayNameOf(changedFile)"
+        }
+
+        assertThat(
+            checkFingerprintGiven(
+                host,
+                ConfigurationCacheFingerprint.InputFile(changedFile, TestHashCodes.hashCodeFrom(2)),
+                ConfigurationCacheFingerprint.ValueSource(obtainedValue)
+            ),
+            equalTo("file 'displayNameOf(changedFile)' has changed")
+        )
+        verify(host, never()).instantiateValueSourceOf(any())
+    }
+
+    @Test
+    fun `concurrent check runs value sources after the other inputs in stored order`() {
+        val changedFile = File("changed.txt")
+        val calls = mutableListOf<String>()
+        val describableValueSource = mock<ValueSource<Any, ValueSourceParameters>>(
+            extraInterfaces = arrayOf(Describable::class)
+        ) {
+            on { (this as Describable).displayName } doReturn "my value source"
+        }
+        val obtainedValue = obtainedValueMock()
+        val host = mock<ConfigurationCacheFingerprintChecker.Host> {
+            on { isCheckingConcurrently } doReturn true
+            on { checkConcurrently(any()) }.then { invocation ->
+                calls.add("batches")
+                invocation.getArgument<List<ConfigurationCacheFingerprintChecker.CheckBatch>>(0).forEach { it.action() }
+            }
+            on { instantiateValueSourceOf(obtainedValue) }.then {
+                calls.add("value source")
+                describableValueSource
+            }
+            on { hashCodeAndTypeOf(changedFile) } doReturn (TestHashCodes.hashCodeFrom(3) to FileType.RegularFile)
+            on { displayNameOf(changedFile) } doReturn "displayNameOf(changedFile)"
+        }
+
+        assertThat(
+            checkFingerprintGiven(
+                host,
+                ConfigurationCacheFingerprint.ValueSource(obtainedValue),
+                ConfigurationCacheFingerprint.InputFile(changedFile, TestHashCodes.hashCodeFrom(2))
+            ),
+            equalTo("my value source has changed")
+        )
+        assertThat(calls, equalTo(listOf("batches", "value source")))
+    }
+
     private
     fun invalidationReasonForInitScriptsChange(
         from: Iterable<Pair<File, HashCode>>,
@@ -284,11 +395,11 @@ class ConfigurationCacheFingerprintCheckerTest {
     private
     fun checkFingerprintGiven(
         host: ConfigurationCacheFingerprintChecker.Host,
-        fingerprint: ConfigurationCacheFingerprint
+        vararg fingerprints: ConfigurationCacheFingerprint
     ): String? {
 
         val readContext = recordWritingOf {
-            write(fingerprint)
+            fingerprints.forEach { write(it) }
             write(null)
         }
 
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl.io
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.util.Random
+
+
+class StateCompressionTest {
+
+    @Test
+    fun `round trips compressible data`() {
+        val data = buildString {
+            repeat(20_000) {
+                append(":subproject").append(it % 37).append(":compileJava\n")
+            }
+        }.toByteArray()
+
+        StateCompression.entries.forEach {
+            assertRoundTrips(it, data)
+        }
+        assertTrue(compress(StateCompression.Lz, data).size < data.size / 4)
+    }
+
+    @Test
+    fun `round trips incompressible data`() {
+        val data = ByteArray(200_000).also { Random(42).nextBytes(it) }
+
+        StateCompression.entries.forEach {
+            assertRoundTrips(it, data)
+        }
+    }
+
+    @Test
+    fun `round trips data with long and overlapping matches`() {
+        val data = ByteArray(150_000) { (it % 3).toByte() } + ByteArray(1000) + "tail".toByteArray()
+
+        StateCompression.entries.forEach {
+            assertRoundTrips(it, data)
+        }
+    }
+
+    @Test
+    fun `round trips data written a byte at a time with intermediate flushes`() {
+        val data = "org.gradle.api.DefaultTask".repeat(5_000).toByteArray()
+
+        StateCompression.entries.forEach { compression ->
+            val bytes = ByteArrayOutputStream()
+            compression.outputStream(bytes).use { out ->
+                data.forEachIndexed { index, byte ->
+                    out.write(byte.toInt())
+                    if (index % 1000 == 0) {
+                        out.flush()
+                    }
+                }
+            }
+            assertArrayEquals(data, decompress(compression, bytes.toByteArray()))
+        }
+    }
+
+    @Test
+    fun `round trips empty data`() {
+        StateCompression.entries.forEach {
+            assertRoundTrips(it, ByteArray(0))
+        }
+    }
+
+    @Test
+    fun `fails with an IOException on corrupted lz blocks`() {
+        val data = buildString {
+            repeat(2_000) {
+                append(":subproject").append(it % 37).append(":compileJava\n")
+            }
+        }.toByteArray()
+        val compressed = compress(StateCompression.Lz, data)
+        val random = Random(42)
+
+        repeat(500) {
+            val corrupted = compressed.copyOf()
+            repeat(1 + random.nextInt(4)) {
+                // Leave the block header intact, so that the payload itself gets decoded
+                val index = 8 + random.nextInt(corrupted.size - 8)
+                corrupted[index] = random.nextInt(256).toByte()
+            }
+            try {
+                decompress(StateCompression.Lz, corrupted)
+            } catch (e: IOException) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    fun `fails with an IOException on truncated lz blocks`() {
+        val data = "org.gradle.api.DefaultTask".repeat(1_000).toByteArray()
+        val compressed = compress(StateCompression.Lz, data)
+        val payloadLength = compressed.size - 8
+
+        // Shrink the recorded compressed length, so that the decoder runs out of input mid-sequence
+        for (length in listOf(0, 1, payloadLength / 2, payloadLength - 1)) {
+            val corrupted = compressed.copyOf(8 + length)
+            corrupted[4] = (length ushr 24).toByte()
+            corrupted[5] = (length ushr 16).toByte()
+            corrupted[6] = (length ushr 8).toByte()
+            corrupted[7] = length.toByte()
+            try {
+                decompress(StateCompression.Lz, corrupted)
+                fail("Expected truncated block of $length bytes to be rejected.")
+            } catch (e: IOException) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    fun `resolves compression by id`() {
+        assertThat(StateCompression.of("none"), equalTo(StateCompression.None))
+        assertThat(StateCompression.of("lz"), equalTo(StateCompression.Lz))
+        assertThat(StateCompression.of("deflate"), equalTo(StateCompression.Deflate))
+    }
+
+    private
+    fun assertRoundTrips(compression: StateCompression, data: ByteArray) {
+        assertArrayEquals(data, decompress(compression, compress(compression, data)))
+    }
+
+    private
+    fun compress(compression: StateCompression, data: ByteArray): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        compression.outputStream(bytes).use {
+            it.write(data)
+        }
+        return bytes.toByteArray()
+    }
+
+    private
+    fun decompress(compression: StateCompression, data: ByteArray): ByteArray =
+        compression.inputStream(ByteArrayInputStream(data)).use {
+            it.readBytes()
+        }
+}
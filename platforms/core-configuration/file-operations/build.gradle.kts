@@ -44,6 +44,7 @@ packageCycles {
 
 dependencies {
     api(projects.baseServices)
+    api(projects.concurrent)
     api(projects.coreApi)
     api(projects.fileCollections)
     api(projects.fileTemp)
@@ -29,6 +29,7 @@
 import org.gradle.api.file.SyncSpec;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.file.archive.DecompressionCoordinator;
+import org.gradle.api.internal.file.archive.ParallelZipExtraction;
 import org.gradle.api.internal.file.archive.TarFileTree;
 import org.gradle.api.internal.file.archive.ZipFileTree;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
@@ -88,6 +89,7 @@ public class DefaultFileOperations implements FileOperations {
     private final ProviderFactory providers;
     private final TemporaryFileProvider temporaryFileProvider;
     private final DecompressionCoordinator decompressionCoordinator;
+    private final ParallelZipExtraction parallelZipExtraction;
 
     public DefaultFileOperations(
         FileResolver fileResolver,
@@ -104,7 +106,8 @@ public DefaultFileOperations(
         TaskDependencyFactory taskDependencyFactory,
         ProviderFactory providers,
         DecompressionCoordinator decompressionCoordinator,
-        TemporaryFileProvider temporaryFileProvider
+        TemporaryFileProvider temporaryFileProvider,
+        ParallelZipExtraction parallelZipExtraction
     ) {
         this.fileCollectionFactory = fileCollectionFactory;
         this.fileResolver = fileResolver;
@@ -131,6 +134,7 @@ public DefaultFileOperations(
         this.fileSystem = fileSystem;
         this.deleter = deleter;
         this.decompressionCoordinator = decompressionCoordinator;
+        this.parallelZipExtraction = parallelZipExtraction;
     }
 
     @Override
@@ -180,7 +184,7 @@ public ConfigurableFileTree fileTree(Map<String, ?> args) {
     @Override
     public FileTreeInternal zipTree(Object zipPath) {
         Provider<File> fileProvider = asFileProvider(zipPath);
-        return new FileTreeAdapter(new ZipFileTree(fileProvider, fileSystem, directoryFileTreeFactory, fileHasher, decompressionCoordinator, temporaryFileProvider), taskDependencyFactory, patternSetFactory);
+        return new FileTreeAdapter(new ZipFileTree(fileProvider, fileSystem, directoryFileTreeFactory, fileHasher, decompressionCoordinator, temporaryFileProvider, parallelZipExtraction), taskDependencyFactory, patternSetFactory);
     }
 
     @Override
@@ -198,7 +202,7 @@ public void exclusiveAccessTo(File expandedDir, Runnable action) {
             }
         };
 
-        return new FileTreeAdapter(new ZipFileTree(fileProvider, fileSystem, directoryFileTreeFactory, fileHasher, nonLockingCache, temporaryFileProvider), taskDependencyFactory, patternSetFactory);
+        return new FileTreeAdapter(new ZipFileTree(fileProvider, fileSystem, directoryFileTreeFactory, fileHasher, nonLockingCache, temporaryFileProvider, parallelZipExtraction), taskDependencyFactory, patternSetFactory);
     }
 
     @Override
@@ -324,6 +328,7 @@ public static DefaultFileOperations createSimple(FileResolver fileResolver, File
         TaskDependencyFactory taskDependencyFactory = services.get(TaskDependencyFactory.class);
         DecompressionCoordinator decompressionCoordinator = services.get(DecompressionCoordinator.class);
         TemporaryFileProvider temporaryFileProvider = services.get(TemporaryFileProvider.class);
+        ParallelZipExtraction parallelZipExtraction = services.get(ParallelZipExtraction.class);
 
         DefaultResourceHandler.Factory resourceHandlerFactory = DefaultResourceHandler.Factory.from(
             fileResolver,
@@ -348,7 +353,8 @@ public static DefaultFileOperations createSimple(FileResolver fileResolver, File
             taskDependencyFactory,
             providers,
             decompressionCoordinator,
-            temporaryFileProvider
+            temporaryFileProvider,
+            parallelZipExtraction
         );
     }
 }
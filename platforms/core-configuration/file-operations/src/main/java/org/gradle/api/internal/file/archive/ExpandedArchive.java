@@ -0,0 +1,282 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FilePermissions;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFilePermissions;
+import org.gradle.internal.file.Chmod;
+import org.gradle.internal.file.PathTraversalChecker;
+import org.gradle.util.internal.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * The entries of an archive that has been completely extracted to its expanded directory.
+ *
+ * <p>Once every entry of an archive has been extracted, the entries are written to a marker file next to the expanded directory.
+ * The archive can then be visited from the expanded directory, without reading the archive again. The marker also records the length and
+ * last modified time of each extracted file. When one of the extracted files has been deleted or changed since, the marker and the changed files
+ * are deleted, and the archive is visited as usual, reading the entries from the archive and extracting the files again.</p>
+ *
+ * <p>Should only be used while holding {@link DecompressionCoordinator#exclusiveAccessTo(File, Runnable) exclusive access} to the expanded directory.</p>
+ */
+class ExpandedArchive {
+    private static final int FORMAT_VERSION = 2;
+
+    private final File expandedDir;
+    private final List<Entry> entries;
+
+    private ExpandedArchive(File expandedDir, List<Entry> entries) {
+        this.expandedDir = expandedDir;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the entries of the archive expanded to the given directory, or null when the archive has not been completely expanded.
+     */
+    @Nullable
+    static ExpandedArchive load(File expandedDir) {
+        File marker = markerFor(expandedDir);
+        if (!marker.isFile()) {
+            return null;
+        }
+        List<Entry> entries;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(marker)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int count = input.readInt();
+            entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(new Entry(input.readUTF(), input.readUTF(), input.readBoolean(), input.readLong(), input.readLong(), input.readInt(), input.readLong(), input.readLong()));
+            }
+        } catch (IOException e) {
+            // An unreadable marker is the same as no marker, the archive is expanded again
+            return null;
+        }
+        boolean unchanged = true;
+        for (Entry entry : entries) {
+            File file = new File(expandedDir, entry.path);
+            if (entry.directory) {
+                unchanged &= file.isDirectory();
+            } else if (file.isFile() && (file.length() != entry.fileLength || file.lastModified() != entry.fileLastModified)) {
+                // The file no longer has the content of the entry, so extract it again
+                GFileUtils.deleteQuietly(file);
+                unchanged = false;
+            } else {
+                unchanged &= file.isFile();
+            }
+        }
+        if (!unchanged) {
+            GFileUtils.deleteQuietly(marker);
+            return null;
+        }
+        return new ExpandedArchive(expandedDir, entries);
+    }
+
+    /**
+     * Visits the entries of the archive, in the order they were visited when the archive was expanded.
+     *
+     * @param displayNameForEntry the display name of an entry, given the name of the entry in the archive
+     */
+    void visit(FileVisitor visitor, Function<String, String> displayNameForEntry, Chmod chmod) {
+        AtomicBoolean stopFlag = new AtomicBoolean();
+        for (Entry entry : entries) {
+            if (stopFlag.get()) {
+                break;
+            }
+            ExpandedEntryDetails details = new ExpandedEntryDetails(chmod, new File(expandedDir, entry.path), displayNameForEntry.apply(entry.name), entry, stopFlag);
+            if (entry.directory) {
+                visitor.visitDir(details);
+            } else {
+                visitor.visitFile(details);
+            }
+        }
+    }
+
+    private static File markerFor(File expandedDir) {
+        return new File(expandedDir.getParentFile(), expandedDir.getName() + ".entries");
+    }
+
+    /**
+     * Collects the entries of an archive while it is visited, to mark it as expanded once they have all been extracted.
+     */
+    static class Recorder {
+        private final File expandedDir;
+        private final List<Entry> entries = new ArrayList<>();
+        private boolean hasUnsafeEntries;
+
+        Recorder(File expandedDir) {
+            this.expandedDir = expandedDir;
+        }
+
+        void record(AbstractArchiveFileTreeElement details) {
+            if (PathTraversalChecker.isUnsafePathName(details.getEntryName())) {
+                // Reported when the visitor uses the entry, and never extracted
+                hasUnsafeEntries = true;
+                return;
+            }
+            entries.add(new Entry(details.getEntryName(), details.safeEntryName(), details.isDirectory(), details.getSize(), details.getLastModified(), details.getPermissions().toUnixNumeric(), 0, 0));
+        }
+
+        /**
+         * Writes the marker of the expanded archive when all the recorded entries have been extracted. Should only be called once all the entries of the archive have been recorded.
+         */
+        void markExpandedIfComplete() {
+            if (hasUnsafeEntries) {
+                return;
+            }
+            List<Entry> extractedEntries = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                File file = new File(expandedDir, entry.path);
+                if (entry.directory ? !file.isDirectory() : !file.isFile()) {
+                    return;
+                }
+                extractedEntries.add(entry.directory ? entry : entry.withExtractedFile(file));
+            }
+            File marker = markerFor(expandedDir);
+            File tmpMarker = new File(marker.getParentFile(), marker.getName() + ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpMarker)))) {
+                    output.writeInt(FORMAT_VERSION);
+                    output.writeInt(extractedEntries.size());
+                    for (Entry entry : extractedEntries) {
+                        output.writeUTF(entry.name);
+                        output.writeUTF(entry.path);
+                        output.writeBoolean(entry.directory);
+                        output.writeLong(entry.size);
+                        output.writeLong(entry.lastModified);
+                        output.writeInt(entry.mode);
+                        output.writeLong(entry.fileLength);
+                        output.writeLong(entry.fileLastModified);
+                    }
+                }
+                Files.move(tmpMarker.toPath(), marker.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final String name;
+        private final String path;
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+        private final int mode;
+        private final long fileLength;
+        private final long fileLastModified;
+
+        Entry(String name, String path, boolean directory, long size, long lastModified, int mode, long fileLength, long fileLastModified) {
+            this.name = name;
+            this.path = path;
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.mode = mode;
+            this.fileLength = fileLength;
+            this.fileLastModified = fileLastModified;
+        }
+
+        /**
+         * Returns this entry with the length and last modified time of its extracted file.
+         */
+        Entry withExtractedFile(File file) {
+            return new Entry(name, path, directory, size, lastModified, mode, file.length(), file.lastModified());
+        }
+    }
+
+    private static class ExpandedEntryDetails extends AbstractFileTreeElement implements FileVisitDetails {
+        private final File file;
+        private final String displayName;
+        private final Entry entry;
+        private final AtomicBoolean stopFlag;
+
+        ExpandedEntryDetails(Chmod chmod, File file, String displayName, Entry entry, AtomicBoolean stopFlag) {
+            super(chmod);
+            this.file = file;
+            this.displayName = displayName;
+            this.entry = entry;
+            this.stopFlag = stopFlag;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public InputStream open() {
+            return GFileUtils.openInputStream(file);
+        }
+
+        @Override
+        public RelativePath getRelativePath() {
+            return new RelativePath(!entry.directory, entry.path.split("/"));
+        }
+
+        @Override
+        public long getLastModified() {
+            return entry.lastModified;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return entry.directory;
+        }
+
+        @Override
+        public long getSize() {
+            return entry.size;
+        }
+
+        @Override
+        public FilePermissions getPermissions() {
+            return new DefaultFilePermissions(entry.mode);
+        }
+
+        @Override
+        public void stopVisiting() {
+            stopFlag.set(true);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the executor that deflates the entries of zip archives on several threads, ahead of writing them to the archive.
+ *
+ * <p>The executor is shared by all the archives written during the session, so that archive tasks running in parallel
+ * do not use more threads than the max worker count between them.</p>
+ */
+@ServiceScope(Scope.CrossBuildSession.class)
+public class ParallelZipCompression implements Stoppable {
+    /**
+     * Deflates the entries as they are written.
+     */
+    public static final ParallelZipCompression DISABLED = new ParallelZipCompression(null, 1);
+
+    @Nullable
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+    @Nullable
+    private ManagedExecutor executor;
+
+    private ParallelZipCompression(@Nullable ExecutorFactory executorFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Deflates the entries on at most the given number of threads.
+     */
+    public static ParallelZipCompression withMaxThreads(ExecutorFactory executorFactory, int maxThreads) {
+        return new ParallelZipCompression(executorFactory, maxThreads);
+    }
+
+    /**
+     * Returns the executor to deflate entries with, or null when they should be deflated as they are written.
+     */
+    @Nullable
+    public synchronized Executor getExecutor() {
+        if (executorFactory == null || maxThreads <= 1) {
+            return null;
+        }
+        if (executor == null) {
+            executor = executorFactory.create("Zip entry compression", maxThreads);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+
+/**
+ * Creates the executors that extract the entries of a zip archive on several threads, ahead of the visitor of the archive.
+ *
+ * <p>Extracting ahead of the visitor only pays off when the visitor asks for the files of all the entries, which is not the case
+ * for a filtered tree, for example. So it is disabled unless enabled for the build.</p>
+ */
+@ServiceScope(Scope.CrossBuildSession.class)
+public class ParallelZipExtraction {
+    /**
+     * Extracts the entries as the visitor asks for them.
+     */
+    public static final ParallelZipExtraction DISABLED = new ParallelZipExtraction(null, 1);
+
+    @Nullable
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+
+    private ParallelZipExtraction(@Nullable ExecutorFactory executorFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Extracts the entries on at most the given number of threads.
+     */
+    public static ParallelZipExtraction withMaxThreads(ExecutorFactory executorFactory, int maxThreads) {
+        return new ParallelZipExtraction(executorFactory, maxThreads);
+    }
+
+    /**
+     * Creates an executor to extract the given number of entries, or returns null when they should be extracted as the visitor asks for them.
+     */
+    @Nullable
+    ManagedExecutor createExecutor(String displayName, int entryCount) {
+        int threads = Math.min(maxThreads, entryCount);
+        if (executorFactory == null || threads <= 1) {
+            return null;
+        }
+        return executorFactory.create(displayName, threads);
+    }
+}
@@ -94,6 +94,13 @@ public void visit(FileVisitor visitor) {
 
         File expandedDir = getExpandedDir();
         decompressionCoordinator.exclusiveAccessTo(expandedDir, () -> {
+            ExpandedArchive expandedArchive = ExpandedArchive.load(expandedDir);
+            if (expandedArchive != null) {
+                String resourceDisplayName = resource.get().getDisplayName();
+                expandedArchive.visit(visitor, entryName -> String.format("%s '%s!%s'", TAR_ENTRY_PREFIX, resourceDisplayName, entryName), chmod);
+                return;
+            }
+
             InputStream inputStream;
             try {
                 inputStream = new BufferedInputStream(resource.get().read());
@@ -126,14 +133,21 @@ private void visitImpl(FileVisitor visitor, File expandedDir, InputStream inputS
         AtomicBoolean stopFlag = new AtomicBoolean();
         DetailsImpl.NoCloseTarArchiveInputStream tar = new DetailsImpl.NoCloseTarArchiveInputStream(inputStream);
         ReadableResourceInternal resource = this.resource.get();
+        ExpandedArchive.Recorder recorder = new ExpandedArchive.Recorder(expandedDir);
         TarArchiveEntry entry;
         while (!stopFlag.get() && (entry = tar.getNextEntry()) != null) {
+            DetailsImpl details = new DetailsImpl(resource, expandedDir, entry, tar, stopFlag, chmod);
+            recorder.record(details);
             if (entry.isDirectory()) {
-                visitor.visitDir(new DetailsImpl(resource, expandedDir, entry, tar, stopFlag, chmod));
+                visitor.visitDir(details);
             } else {
-                visitor.visitFile(new DetailsImpl(resource, expandedDir, entry, tar, stopFlag, chmod));
+                visitor.visitFile(details);
             }
         }
+        if (!stopFlag.get()) {
+            // The entries of a TAR can only be read in order, so the visitor extracts them one after the other, and a later visit can use the extracted files
+            recorder.markExpandedIfComplete();
+        }
     }
 
     @Override
@@ -30,8 +30,20 @@
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.WorkResults;
 import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 public class ZipCopyAction implements CopyAction {
 
@@ -49,13 +61,30 @@ public class ZipCopyAction implements CopyAction {
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
     private final boolean preserveFileTimestamps;
+    @Nullable
+    private final Executor compressionExecutor;
 
     public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps) {
+        this(zipFile, compressor, documentationRegistry, encoding, preserveFileTimestamps, null);
+    }
+
+    /**
+     * Creates an action that deflates the entries of the archive with the given executor, when the compressor
+     * {@link ZipCompressor#canDeflateEntriesAheadOfTime() allows it}. The entries are written in the same order and the archive is the same
+     * as when they are deflated one after the other.
+     *
+     * <p>An entry that the executor has not started deflating by the time it is written is deflated by the thread writing the archive,
+     * so the executor can be shared with other archives.</p>
+     *
+     * @see ParallelZipCompression
+     */
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps, @Nullable Executor compressionExecutor) {
         this.zipFile = zipFile;
         this.compressor = compressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
         this.preserveFileTimestamps = preserveFileTimestamps;
+        this.compressionExecutor = compressionExecutor;
     }
 
     @Override
@@ -68,9 +97,12 @@ public WorkResult execute(final CopyActionProcessingStream stream) {
             throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
         }
 
+        Executor executor = compressor.canDeflateEntriesAheadOfTime() ? compressionExecutor : null;
         try {
             IoActions.withResource(zipOutStr, outputStream -> {
-                stream.process(new StreamAction(outputStream, encoding));
+                StreamAction action = executor == null ? new StreamAction(outputStream, encoding) : new ParallelStreamAction(outputStream, encoding, executor);
+                stream.process(action);
+                action.finish();
             });
         } catch (Exception e) {
             if (e.getCause() instanceof Zip64RequiredException) {
@@ -87,7 +119,7 @@ public WorkResult execute(final CopyActionProcessingStream stream) {
     }
 
     private class StreamAction implements CopyActionProcessingStreamAction {
-        private final ZipArchiveOutputStream zipOutStr;
+        protected final ZipArchiveOutputStream zipOutStr;
 
         public StreamAction(ZipArchiveOutputStream zipOutStr, String encoding) {
             this.zipOutStr = zipOutStr;
@@ -105,11 +137,15 @@ public void processFile(FileCopyDetailsInternal details) {
             }
         }
 
-        private void visitFile(FileCopyDetails fileDetails) {
+        /**
+         * Called once all the files have been processed.
+         */
+        public void finish() {
+        }
+
+        protected void visitFile(FileCopyDetails fileDetails) {
             try {
-                ZipArchiveEntry archiveEntry = new ZipArchiveEntry(fileDetails.getRelativePath().getPathString());
-                archiveEntry.setTime(getArchiveTimeFor(fileDetails));
-                archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getPermissions().toUnixNumeric());
+                ZipArchiveEntry archiveEntry = createFileEntry(fileDetails);
                 zipOutStr.putArchiveEntry(archiveEntry);
                 fileDetails.copyTo(zipOutStr);
                 zipOutStr.closeArchiveEntry();
@@ -118,7 +154,14 @@ private void visitFile(FileCopyDetails fileDetails) {
             }
         }
 
-        private void visitDir(FileCopyDetails dirDetails) {
+        protected ZipArchiveEntry createFileEntry(FileCopyDetails fileDetails) {
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(fileDetails.getRelativePath().getPathString());
+            archiveEntry.setTime(getArchiveTimeFor(fileDetails));
+            archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getPermissions().toUnixNumeric());
+            return archiveEntry;
+        }
+
+        protected void visitDir(FileCopyDetails dirDetails) {
             try {
                 // Trailing slash in name indicates that entry is a directory
                 ZipArchiveEntry archiveEntry = new ZipArchiveEntry(dirDetails.getRelativePath().getPathString() + '/');
@@ -132,6 +175,129 @@ private void visitDir(FileCopyDetails dirDetails) {
         }
     }
 
+    /**
+     * Deflates files on other threads while they are read, and writes them to the archive as raw entries in the order they were processed.
+     *
+     * <p>The content of a file is read on the thread processing the files, as the details of a file may only be valid while it is processed.
+     * To bound the memory used, large files are written as usual, and at most {@link #MAX_PENDING_BYTES} of file content are waiting to be written.</p>
+     */
+    private class ParallelStreamAction extends StreamAction {
+        private static final int MAX_PARALLEL_FILE_SIZE = 8 * 1024 * 1024;
+        private static final long MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+        private final Executor executor;
+        private final Deque<PendingEntry> pending = new ArrayDeque<>();
+        private long pendingBytes;
+
+        public ParallelStreamAction(ZipArchiveOutputStream zipOutStr, String encoding, Executor executor) {
+            super(zipOutStr, encoding);
+            this.executor = executor;
+        }
+
+        @Override
+        protected void visitFile(FileCopyDetails fileDetails) {
+            if (fileDetails.getSize() > MAX_PARALLEL_FILE_SIZE) {
+                writePendingEntries(0);
+                super.visitFile(fileDetails);
+                return;
+            }
+            byte[] content;
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) fileDetails.getSize());
+                fileDetails.copyTo(buffer);
+                content = buffer.toByteArray();
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
+            }
+            ZipArchiveEntry archiveEntry = createFileEntry(fileDetails);
+            FutureTask<DeflatedEntry> deflated = new FutureTask<>(() -> deflate(archiveEntry, content));
+            pending.add(new PendingEntry(fileDetails, content.length, deflated));
+            executor.execute(deflated);
+            pendingBytes += content.length;
+            writePendingEntries(MAX_PENDING_BYTES);
+        }
+
+        @Override
+        protected void visitDir(FileCopyDetails dirDetails) {
+            writePendingEntries(0);
+            super.visitDir(dirDetails);
+        }
+
+        @Override
+        public void finish() {
+            writePendingEntries(0);
+        }
+
+        private void writePendingEntries(long maxPendingBytes) {
+            while (!pending.isEmpty() && (pendingBytes > maxPendingBytes || pending.peek().deflated.isDone())) {
+                PendingEntry entry = pending.remove();
+                pendingBytes -= entry.size;
+                try {
+                    // Deflate the entry here when the executor has not started it yet, rather than waiting for the executor to get to it
+                    entry.deflated.run();
+                    DeflatedEntry deflated = entry.deflated.get();
+                    zipOutStr.addRawArchiveEntry(deflated.archiveEntry, new ByteArrayInputStream(deflated.content, 0, deflated.length));
+                } catch (ExecutionException e) {
+                    throw new GradleException(String.format("Could not add %s to ZIP '%s'.", entry.details, zipFile), e.getCause());
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } catch (Exception e) {
+                    throw new GradleException(String.format("Could not add %s to ZIP '%s'.", entry.details, zipFile), e);
+                }
+            }
+        }
+
+        private DeflatedEntry deflate(ZipArchiveEntry archiveEntry, byte[] content) {
+            // The same settings as the archive output stream, so that the deflated data is the same
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(content);
+                deflater.finish();
+                byte[] deflated = new byte[Math.max(64, content.length / 2)];
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == deflated.length) {
+                        deflated = Arrays.copyOf(deflated, deflated.length * 2);
+                    }
+                    length += deflater.deflate(deflated, length, deflated.length - length);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                archiveEntry.setMethod(ZipArchiveEntry.DEFLATED);
+                archiveEntry.setCrc(crc.getValue());
+                archiveEntry.setSize(content.length);
+                archiveEntry.setCompressedSize(length);
+                return new DeflatedEntry(archiveEntry, deflated, length);
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    private static class PendingEntry {
+        private final FileCopyDetails details;
+        private final int size;
+        private final FutureTask<DeflatedEntry> deflated;
+
+        private PendingEntry(FileCopyDetails details, int size, FutureTask<DeflatedEntry> deflated) {
+            this.details = details;
+            this.size = size;
+            this.deflated = deflated;
+        }
+    }
+
+    private static class DeflatedEntry {
+        private final ZipArchiveEntry archiveEntry;
+        private final byte[] content;
+        private final int length;
+
+        private DeflatedEntry(ZipArchiveEntry archiveEntry, byte[] content, int length) {
+            this.archiveEntry = archiveEntry;
+            this.content = content;
+            this.length = length;
+        }
+    }
+
     private long getArchiveTimeFor(FileCopyDetails details) {
         return preserveFileTimestamps ? details.getLastModified() : ZipEntryConstants.CONSTANT_TIME_FOR_ZIP_ENTRIES;
     }
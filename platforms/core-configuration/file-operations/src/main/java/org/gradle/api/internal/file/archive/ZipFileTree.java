@@ -27,16 +27,22 @@
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.api.provider.Provider;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.Chmod;
 import org.gradle.internal.hash.FileHasher;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.Enumeration;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.lang.String.format;
@@ -49,6 +55,7 @@ public class ZipFileTree extends AbstractArchiveFileTree {
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final FileHasher fileHasher;
     private final TemporaryFileProvider temporaryExtractionDir;
+    private final ParallelZipExtraction parallelExtraction;
 
     public ZipFileTree(
         Provider<File> zipFile,
@@ -56,7 +63,8 @@ public ZipFileTree(
         DirectoryFileTreeFactory directoryFileTreeFactory,
         FileHasher fileHasher,
         DecompressionCoordinator decompressionCoordinator,
-        TemporaryFileProvider temporaryExtractionDir
+        TemporaryFileProvider temporaryExtractionDir,
+        ParallelZipExtraction parallelExtraction
     ) {
         super(decompressionCoordinator);
         this.fileProvider = zipFile;
@@ -64,6 +72,7 @@ public ZipFileTree(
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.fileHasher = fileHasher;
         this.temporaryExtractionDir = temporaryExtractionDir;
+        this.parallelExtraction = parallelExtraction;
     }
 
     @Override
@@ -93,19 +102,37 @@ public void visit(FileVisitor visitor) {
 
         File expandedDir = getExpandedDir();
         decompressionCoordinator.exclusiveAccessTo(expandedDir, () -> {
+            ExpandedArchive expandedArchive = ExpandedArchive.load(expandedDir);
+            if (expandedArchive != null) {
+                expandedArchive.visit(visitor, entryName -> format("%s '%s!%s'", ZIP_ENTRY_PREFIX, zipFile, entryName), chmod);
+                return;
+            }
+
             AtomicBoolean stopFlag = new AtomicBoolean();
             try (ZipFile zip = ZipFile.builder().setFile(zipFile).get()) {
                 // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
                 // to us. So, collect the entries in a map and iterate over them in alphabetical order.
-                Iterator<ZipArchiveEntry> sortedEntries = entriesSortedByName(zip);
-                while (!stopFlag.get() && sortedEntries.hasNext()) {
-                    ZipArchiveEntry entry = sortedEntries.next();
-                    DetailsImpl details = new DetailsImpl(zipFile, expandedDir, entry, zip, stopFlag, chmod);
-                    if (entry.isDirectory()) {
-                        visitor.visitDir(details);
-                    } else {
-                        visitor.visitFile(details);
+                Collection<ZipArchiveEntry> sortedEntries = entriesSortedByName(zip);
+                ExpandedArchive.Recorder recorder = new ExpandedArchive.Recorder(expandedDir);
+                ParallelExpansion expansion = new ParallelExpansion(zipFile, expandedDir, zip, sortedEntries, stopFlag);
+                try {
+                    for (ZipArchiveEntry entry : sortedEntries) {
+                        if (stopFlag.get()) {
+                            break;
+                        }
+                        DetailsImpl details = new DetailsImpl(zipFile, expandedDir, entry, zip, stopFlag, chmod, expansion);
+                        recorder.record(details);
+                        if (entry.isDirectory()) {
+                            visitor.visitDir(details);
+                        } else {
+                            visitor.visitFile(details);
+                        }
+                    }
+                    if (!stopFlag.get() && expansion.awaitCompletion()) {
+                        recorder.markExpandedIfComplete();
                     }
+                } finally {
+                    expansion.stop();
                 }
             } catch (GradleException e) {
                 throw e; // Gradle exceptions are already meant to be human-readable, so just rethrow it
@@ -115,14 +142,14 @@ public void visit(FileVisitor visitor) {
         });
     }
 
-    private Iterator<ZipArchiveEntry> entriesSortedByName(ZipFile zip) {
+    private Collection<ZipArchiveEntry> entriesSortedByName(ZipFile zip) {
         Map<String, ZipArchiveEntry> entriesByName = new TreeMap<>();
         Enumeration<ZipArchiveEntry> entries = zip.getEntries();
         while (entries.hasMoreElements()) {
             ZipArchiveEntry entry = entries.nextElement();
             entriesByName.put(entry.getName(), entry);
         }
-        return entriesByName.values().iterator();
+        return entriesByName.values();
     }
 
     @Override
@@ -136,16 +163,106 @@ private File getExpandedDir() {
         return temporaryExtractionDir.newTemporaryDirectory(".cache", "expanded", expandedDirName);
     }
 
+    /**
+     * Extracts all the entries of the archive on several threads, reading them from the same {@link ZipFile}, once the visitor asks for the first
+     * extracted file, when {@link ParallelZipExtraction enabled}. Visitors that ask for the file of an entry usually ask for the files of all the
+     * entries, and the archive is then marked as expanded for later visits. The entries are no longer extracted once the visit stops.
+     */
+    private class ParallelExpansion {
+        private final File originalFile;
+        private final File expandedDir;
+        private final ZipFile zip;
+        private final Collection<ZipArchiveEntry> entries;
+        private final AtomicBoolean stopFlag;
+        private final Map<String, Future<?>> extractions = new HashMap<>();
+        private boolean started;
+        @Nullable
+        private ManagedExecutor executor;
+
+        ParallelExpansion(File originalFile, File expandedDir, ZipFile zip, Collection<ZipArchiveEntry> entries, AtomicBoolean stopFlag) {
+            this.originalFile = originalFile;
+            this.expandedDir = expandedDir;
+            this.zip = zip;
+            this.entries = entries;
+            this.stopFlag = stopFlag;
+        }
+
+        /**
+         * Waits for the given entry to be extracted, starting the extraction of all the entries when needed.
+         */
+        void awaitExtraction(ZipArchiveEntry entry) {
+            if (!started) {
+                started = true;
+                executor = parallelExtraction.createExecutor("Expand " + getDisplayName(), entries.size());
+                if (executor != null) {
+                    for (ZipArchiveEntry extractedEntry : entries) {
+                        DetailsImpl details = new DetailsImpl(originalFile, expandedDir, extractedEntry, zip, new AtomicBoolean(), chmod, null);
+                        extractions.put(extractedEntry.getName(), executor.submit(() -> extract(details)));
+                    }
+                }
+            }
+            Future<?> extraction = extractions.get(entry.getName());
+            if (extraction == null) {
+                return;
+            }
+            try {
+                extraction.get();
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        /**
+         * Waits for the extraction of all the entries, when started, and returns whether they were all extracted.
+         */
+        boolean awaitCompletion() {
+            boolean succeeded = true;
+            for (Future<?> extraction : extractions.values()) {
+                try {
+                    extraction.get();
+                } catch (ExecutionException e) {
+                    // The entry was extracted ahead of the visitor, which did not ask for it, so the failure is not reported
+                    succeeded = false;
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            return succeeded;
+        }
+
+        private void extract(DetailsImpl details) {
+            if (!stopFlag.get()) {
+                details.getFile();
+            }
+        }
+
+        void stop() {
+            // Entries that are already being extracted are completed, but no other entry is extracted
+            stopFlag.set(true);
+            if (executor != null) {
+                for (Future<?> extraction : extractions.values()) {
+                    extraction.cancel(false);
+                }
+                executor.stop();
+            }
+        }
+    }
+
     private static final class DetailsImpl extends AbstractArchiveFileTreeElement {
         private final File originalFile;
         private final ZipArchiveEntry entry;
         private final ZipFile zip;
+        @Nullable
+        private final ParallelExpansion expansion;
 
-        public DetailsImpl(File originalFile, File expandedDir, ZipArchiveEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod) {
+        public DetailsImpl(File originalFile, File expandedDir, ZipArchiveEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod, @Nullable ParallelExpansion expansion) {
             super(chmod, expandedDir, stopFlag);
             this.originalFile = originalFile;
             this.entry = entry;
             this.zip = zip;
+            this.expansion = expansion;
         }
 
         @Override
@@ -163,10 +280,22 @@ protected ZipArchiveEntry getArchiveEntry() {
             return entry;
         }
 
+        @Override
+        public File getFile() {
+            if (expansion != null) {
+                expansion.awaitExtraction(entry);
+            }
+            return super.getFile();
+        }
+
         @Override
         public InputStream open() {
             try {
-                return zip.getInputStream(entry);
+                // Locating the data of an entry may move the position of the archive channel, whereas the returned stream reads at absolute positions
+                // and can be read concurrently with the streams of other entries
+                synchronized (zip) {
+                    return zip.getInputStream(entry);
+                }
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
@@ -30,6 +30,7 @@
 import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.DefaultConfigurableFilePermissions;
 import org.gradle.api.internal.file.DefaultExpandDetails;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.api.internal.provider.PropertyFactory;
 import org.gradle.api.provider.Provider;
 import org.gradle.internal.Actions;
@@ -37,6 +38,7 @@
 import org.gradle.internal.file.Chmod;
 import org.gradle.internal.reflect.Instantiator;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.FilterReader;
@@ -94,6 +96,16 @@ public File getFile() {
         }
     }
 
+    @Nullable
+    @Override
+    public File getUnfilteredSourceFile() {
+        // The elements of other trees, such as archives, may have to be extracted or generated to get a file
+        if (filterChain.hasFilters() || !(fileDetails instanceof DefaultFileTreeElement)) {
+            return null;
+        }
+        return fileDetails.getFile();
+    }
+
     @Override
     public boolean isDirectory() {
         return fileDetails.isDirectory();
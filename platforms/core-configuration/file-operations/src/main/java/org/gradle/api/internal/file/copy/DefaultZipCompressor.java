@@ -46,4 +46,10 @@ public ZipArchiveOutputStream createArchiveOutputStream(File destination) throws
         }
     }
 
+    @Override
+    public boolean canDeflateEntriesAheadOfTime() {
+        // A raw entry has no Zip64 extra field in its local header, whereas an entry written with an unknown size has one when Zip64 is allowed
+        return entryCompressionMethod == ZipArchiveOutputStream.DEFLATED && zip64Mode == Zip64Mode.Never;
+    }
+
 }
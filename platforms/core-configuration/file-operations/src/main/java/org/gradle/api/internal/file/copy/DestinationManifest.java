@@ -0,0 +1,185 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The files copied to a destination directory by the previous execution of a copy, used to only copy the files that changed since then.
+ *
+ * <p>A file is copied again unless it was copied by the previous execution from a source with the same content and permissions, and the
+ * copy in the destination still has the length and modification time it had after that execution. Only files copied unchanged from the
+ * file system are tracked: the contents of filtered files and of archive entries are always copied.</p>
+ *
+ * <p>The hash of a source file is looked up by its length and modification time, so it usually comes from the hashes computed when the
+ * inputs of the copy were snapshotted.</p>
+ */
+public class DestinationManifest {
+    private static final int FORMAT_VERSION = 1;
+
+    private final File manifestFile;
+    private final File destinationDir;
+    private final FileHasher fileHasher;
+    private final Map<String, CopiedFile> previous;
+    private final Map<String, CopiedFile> current = new HashMap<>();
+
+    private DestinationManifest(File manifestFile, File destinationDir, FileHasher fileHasher, Map<String, CopiedFile> previous) {
+        this.manifestFile = manifestFile;
+        this.destinationDir = destinationDir;
+        this.fileHasher = fileHasher;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads the manifest written by the previous execution, if any, for a copy to the given destination directory.
+     *
+     * <p>The manifest file is deleted until {@link #store()} is called, so that a failed copy is followed by a full copy.</p>
+     */
+    public static DestinationManifest load(File manifestFile, File destinationDir, FileHasher fileHasher) {
+        Map<String, CopiedFile> previous = Collections.emptyMap();
+        if (manifestFile.isFile()) {
+            previous = read(manifestFile, destinationDir);
+            if (!manifestFile.delete()) {
+                throw new UncheckedIOException("Could not delete " + manifestFile);
+            }
+        }
+        return new DestinationManifest(manifestFile, destinationDir, fileHasher, previous);
+    }
+
+    private static Map<String, CopiedFile> read(File manifestFile, File destinationDir) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile)))) {
+            if (input.readInt() != FORMAT_VERSION || !input.readUTF().equals(destinationDir.getAbsolutePath())) {
+                return Collections.emptyMap();
+            }
+            int count = input.readInt();
+            Map<String, CopiedFile> files = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String path = input.readUTF();
+                byte[] hash = new byte[input.readUnsignedByte()];
+                input.readFully(hash);
+                files.put(path, new CopiedFile(HashCode.fromBytes(hash), input.readInt(), input.readLong(), input.readLong()));
+            }
+            return files;
+        } catch (IOException e) {
+            // An unreadable manifest is the same as no manifest, all the files are copied
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Returns the source of the given file when it can be tracked, or null when it always needs to be copied.
+     */
+    @Nullable
+    Source sourceOf(FileCopyDetailsInternal details) {
+        if (details.isDirectory()) {
+            return null;
+        }
+        File sourceFile = details.getUnfilteredSourceFile();
+        if (sourceFile == null) {
+            return null;
+        }
+        HashCode hash = fileHasher.hash(sourceFile, details.getSize(), details.getLastModified());
+        return new Source(hash, details.getPermissions().toUnixNumeric());
+    }
+
+    /**
+     * Returns whether the target was copied from the same source by the previous execution, and was not changed since.
+     */
+    boolean isUpToDate(String path, Source source, File target) {
+        CopiedFile copied = previous.get(path);
+        return copied != null
+            && copied.sourceHash.equals(source.hash)
+            && copied.mode == source.mode
+            && copied.targetLength == target.length()
+            && copied.targetLastModified == target.lastModified()
+            && target.isFile();
+    }
+
+    /**
+     * Records that the target is a copy of the given source, once it has been copied.
+     */
+    void recordCopied(String path, Source source, File target) {
+        current.put(path, new CopiedFile(source.hash, source.mode, target.length(), target.lastModified()));
+    }
+
+    /**
+     * Writes the files copied by this execution, for the next execution. Should only be called once the copy succeeded.
+     */
+    public void store() {
+        File tmpFile = new File(manifestFile.getParentFile(), manifestFile.getName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(destinationDir.getAbsolutePath());
+                output.writeInt(current.size());
+                for (Map.Entry<String, CopiedFile> entry : current.entrySet()) {
+                    CopiedFile copied = entry.getValue();
+                    byte[] hash = copied.sourceHash.toByteArray();
+                    output.writeUTF(entry.getKey());
+                    output.writeByte(hash.length);
+                    output.write(hash);
+                    output.writeInt(copied.mode);
+                    output.writeLong(copied.targetLength);
+                    output.writeLong(copied.targetLastModified);
+                }
+            }
+            if (!tmpFile.renameTo(manifestFile)) {
+                throw new IOException("Could not rename " + tmpFile + " to " + manifestFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static class Source {
+        private final HashCode hash;
+        private final int mode;
+
+        private Source(HashCode hash, int mode) {
+            this.hash = hash;
+            this.mode = mode;
+        }
+    }
+
+    private static class CopiedFile {
+        private final HashCode sourceHash;
+        private final int mode;
+        private final long targetLength;
+        private final long targetLastModified;
+
+        private CopiedFile(HashCode sourceHash, int mode, long targetLength, long targetLastModified) {
+            this.sourceHash = sourceHash;
+            this.mode = mode;
+            this.targetLength = targetLength;
+            this.targetLastModified = targetLastModified;
+        }
+    }
+}
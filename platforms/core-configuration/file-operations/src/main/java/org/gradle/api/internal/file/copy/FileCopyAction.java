@@ -21,21 +21,35 @@
 import org.gradle.internal.FileUtils;
 import org.gradle.internal.file.PathToFileResolver;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Objects;
 
 public class FileCopyAction implements CopyAction {
 
     private final PathToFileResolver fileResolver;
+    @Nullable
+    private final DestinationManifest manifest;
 
     public FileCopyAction(PathToFileResolver fileResolver) {
+        this(fileResolver, null);
+    }
+
+    /**
+     * Creates an action that only copies the files that changed since they were recorded in the given manifest.
+     */
+    public FileCopyAction(PathToFileResolver fileResolver, @Nullable DestinationManifest manifest) {
         this.fileResolver = fileResolver;
+        this.manifest = manifest;
     }
 
     @Override
     public WorkResult execute(CopyActionProcessingStream stream) {
         FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
         stream.process(action);
+        if (manifest != null) {
+            manifest.store();
+        }
         return WorkResults.didWork(action.didWork);
     }
 
@@ -44,12 +58,21 @@ private class FileCopyDetailsInternalAction implements CopyActionProcessingStrea
 
         @Override
         public void processFile(FileCopyDetailsInternal details) {
-            File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            String path = details.getRelativePath().getPathString();
+            File target = fileResolver.resolve(path);
+            DestinationManifest.Source source = manifest == null ? null : manifest.sourceOf(details);
+            if (source != null && manifest.isUpToDate(path, source, target)) {
+                manifest.recordCopied(path, source, target);
+                return;
+            }
             renameIfCaseChanged(target);
             boolean copied = details.copyTo(target);
             if (copied) {
                 didWork = true;
             }
+            if (source != null) {
+                manifest.recordCopied(path, source, target);
+            }
         }
 
         private void renameIfCaseChanged(File target) {
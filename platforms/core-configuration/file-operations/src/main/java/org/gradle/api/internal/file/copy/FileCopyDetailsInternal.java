@@ -18,9 +18,19 @@
 
 import org.gradle.api.file.FileCopyDetails;
 
+import javax.annotation.Nullable;
+import java.io.File;
+
 public interface FileCopyDetailsInternal extends FileCopyDetails {
 
     boolean isIncludeEmptyDirs();
 
     boolean isDefaultDuplicatesStrategy();
+
+    /**
+     * Returns the file on the file system whose contents are copied unchanged, or null when the contents do not come from such a file
+     * or are filtered.
+     */
+    @Nullable
+    File getUnfilteredSourceFile();
 }
@@ -31,6 +31,7 @@
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.file.Chmod;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FilterReader;
 import java.io.InputStream;
@@ -130,6 +131,12 @@ public File getFile() {
             throw new UnsupportedOperationException();
         }
 
+        @Nullable
+        @Override
+        public File getUnfilteredSourceFile() {
+            return null;
+        }
+
         @Override
         public boolean isDirectory() {
             return !path.isFile();
@@ -26,4 +26,12 @@ public interface ZipCompressor extends ArchiveOutputStreamFactory {
     @Override
     ZipArchiveOutputStream createArchiveOutputStream(File destination) throws IOException;
 
+    /**
+     * Whether the entries written to the archives created by this compressor can instead be deflated ahead of time with a {@link java.util.zip.Deflater}
+     * using the default compression level, and copied to the archive as raw entries, producing exactly the same archive.
+     */
+    default boolean canDeflateEntriesAheadOfTime() {
+        return false;
+    }
+
 }
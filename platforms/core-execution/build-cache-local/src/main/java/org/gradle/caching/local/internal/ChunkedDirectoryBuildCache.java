@@ -0,0 +1,247 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.NonNullApi;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.PrimitiveHasher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A directory build cache that stores the content of entries as content-defined chunks, so that content shared between entries is stored once.
+ *
+ * Each chunk is stored in a file named after the hash of its content.
+ * An entry is stored as a manifest listing its chunks, and is rebuilt from the chunks when loaded.
+ * Entries compressed with GZIP are chunked uncompressed, as compression hides the content shared with other entries,
+ * and are compressed again when loaded.
+ *
+ * Manifests and chunks are kept next to each other in the cache directory, so least recently used cleanup removes them individually.
+ * Whenever a manifest is accessed, its chunks are marked as accessed, too, so a chunk is never removed before the manifests referencing it.
+ * Entries stored without chunks in the same directory can still be loaded.
+ */
+@NonNullApi
+public class ChunkedDirectoryBuildCache extends DirectoryBuildCache {
+    private static final int MANIFEST_FORMAT_VERSION = 1;
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String CHUNK_SUFFIX = ".chunk";
+
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker(4 * 1024, 14, 64 * 1024);
+
+    public ChunkedDirectoryBuildCache(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        super(persistentCache, fileAccessTracker, failedFileSuffix);
+    }
+
+    @Override
+    protected void loadInsideLock(HashCode key, Consumer<? super File> reader) {
+        File manifestFile = getManifestFile(key);
+        if (!manifestFile.exists()) {
+            super.loadInsideLock(key, reader);
+            return;
+        }
+
+        Manifest manifest;
+        try {
+            manifest = Manifest.read(manifestFile);
+        } catch (IOException e) {
+            markFailed(manifestFile);
+            throw new UncheckedIOException(String.format("Couldn't read manifest of cache entry '%s': %s", key, e), e);
+        }
+        List<File> chunkFiles = new ArrayList<>(manifest.chunks.size());
+        for (HashCode chunk : manifest.chunks) {
+            File chunkFile = getChunkFile(chunk);
+            if (!chunkFile.exists()) {
+                // A chunk of the entry has been removed, so the entry is not in the cache anymore
+                return;
+            }
+            chunkFiles.add(chunkFile);
+        }
+
+        FileAccessTracker fileAccessTracker = getFileAccessTracker();
+        fileAccessTracker.markAccessed(manifestFile);
+        chunkFiles.forEach(fileAccessTracker::markAccessed);
+
+        getTempFileStore().withTempFile(key, entryFile -> {
+            try {
+                assemble(chunkFiles, manifest.compressed, entryFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Couldn't rebuild cache entry '%s' from its chunks: %s", key, e), e);
+            }
+            try {
+                reader.accept(entryFile);
+            } catch (Exception e) {
+                markFailed(manifestFile);
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        });
+    }
+
+    private static void assemble(List<File> chunkFiles, boolean compressed, File entryFile) throws IOException {
+        try (OutputStream fileOutput = new BufferedOutputStream(new FileOutputStream(entryFile));
+             OutputStream output = compressed ? new GZIPOutputStream(fileOutput) : fileOutput) {
+            for (File chunkFile : chunkFiles) {
+                Files.copy(chunkFile.toPath(), output);
+            }
+        }
+    }
+
+    @Override
+    protected void storeInsideLock(HashCode key, File sourceFile) {
+        Manifest manifest;
+        try {
+            manifest = storeChunks(sourceFile, isCompressed(sourceFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Couldn't store chunks of cache entry '%s' in local cache: %s", key, e), e);
+        }
+
+        File manifestFile = getManifestFile(key);
+        getTempFileStore().withTempFile(key, tempManifestFile -> {
+            try {
+                manifest.write(tempManifestFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Couldn't write manifest of cache entry '%s': %s", key, e), e);
+            }
+            moveIntoCache(key, tempManifestFile, manifestFile);
+        });
+        getFileAccessTracker().markAccessed(manifestFile);
+        FileUtils.deleteQuietly(sourceFile);
+    }
+
+    private Manifest storeChunks(File sourceFile, boolean compressed) throws IOException {
+        if (compressed) {
+            try {
+                return storeChunks(sourceFile, input -> new GZIPInputStream(input), true);
+            } catch (ZipException | EOFException e) {
+                // Not a valid GZIP stream after all, store it as it is
+            }
+        }
+        return storeChunks(sourceFile, input -> input, false);
+    }
+
+    private Manifest storeChunks(File sourceFile, StreamDecorator decorator, boolean compressed) throws IOException {
+        List<HashCode> chunks = new ArrayList<>();
+        try (InputStream fileInput = new BufferedInputStream(new FileInputStream(sourceFile));
+             InputStream input = decorator.decorate(fileInput)) {
+            chunker.chunk(input, (buffer, length) -> {
+                PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+                hasher.putBytes(buffer, 0, length);
+                HashCode chunk = hasher.hash();
+                storeChunk(chunk, buffer, length);
+                chunks.add(chunk);
+            });
+        }
+        return new Manifest(compressed, chunks);
+    }
+
+    private void storeChunk(HashCode chunk, byte[] buffer, int length) {
+        File chunkFile = getChunkFile(chunk);
+        if (!chunkFile.exists()) {
+            getTempFileStore().withTempFile(chunk, tempChunkFile -> {
+                try (OutputStream output = new FileOutputStream(tempChunkFile)) {
+                    output.write(buffer, 0, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                moveIntoCache(chunk, tempChunkFile, chunkFile);
+            });
+        }
+        getFileAccessTracker().markAccessed(chunkFile);
+    }
+
+    private static boolean isCompressed(File file) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            return input.read() == (GZIPInputStream.GZIP_MAGIC & 0xff)
+                && input.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+        }
+    }
+
+    private File getManifestFile(HashCode key) {
+        return new File(getBaseDir(), key + MANIFEST_SUFFIX);
+    }
+
+    private File getChunkFile(HashCode chunk) {
+        return new File(getBaseDir(), chunk + CHUNK_SUFFIX);
+    }
+
+    private interface StreamDecorator {
+        InputStream decorate(InputStream input) throws IOException;
+    }
+
+    private static class Manifest {
+        final boolean compressed;
+        final List<HashCode> chunks;
+
+        Manifest(boolean compressed, List<HashCode> chunks) {
+            this.compressed = compressed;
+            this.chunks = chunks;
+        }
+
+        static Manifest read(File file) throws IOException {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int version = input.readInt();
+                if (version != MANIFEST_FORMAT_VERSION) {
+                    throw new IOException("Unsupported manifest format version " + version);
+                }
+                boolean compressed = input.readBoolean();
+                int chunkCount = input.readInt();
+                List<HashCode> chunks = new ArrayList<>(chunkCount);
+                for (int i = 0; i < chunkCount; i++) {
+                    byte[] hash = new byte[input.readUnsignedByte()];
+                    input.readFully(hash);
+                    chunks.add(HashCode.fromBytes(hash));
+                }
+                return new Manifest(compressed, chunks);
+            }
+        }
+
+        void write(File file) throws IOException {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                output.writeInt(MANIFEST_FORMAT_VERSION);
+                output.writeBoolean(compressed);
+                output.writeInt(chunks.size());
+                for (HashCode chunk : chunks) {
+                    byte[] hash = chunk.toByteArray();
+                    output.writeByte(hash.length);
+                    output.write(hash);
+                }
+            }
+        }
+    }
+}
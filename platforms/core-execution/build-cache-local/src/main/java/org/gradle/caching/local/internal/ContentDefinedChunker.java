@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.gradle.api.NonNullApi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Splits a stream into chunks at positions determined by the content, using a gear based rolling hash.
+ *
+ * A chunk ends where the rolling hash of the preceding bytes matches a mask, so an insertion or a deletion
+ * in the stream only changes the chunks around it, and identical content in different streams results in mostly identical chunks.
+ */
+@NonNullApi
+class ContentDefinedChunker {
+    private static final long[] GEAR = createGearTable();
+
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long mask;
+
+    /**
+     * Creates a chunker producing chunks of at least {@code minChunkSize} and at most {@code maxChunkSize} bytes.
+     * On average, chunks are {@code 2^averageChunkSizeBits} bytes larger than the minimum.
+     */
+    ContentDefinedChunker(int minChunkSize, int averageChunkSizeBits, int maxChunkSize) {
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        // Use the most significant bits, as they depend on the most bytes of the rolling hash
+        this.mask = -1L << (64 - averageChunkSizeBits);
+    }
+
+    interface ChunkConsumer {
+        void accept(byte[] buffer, int length) throws IOException;
+    }
+
+    /**
+     * Reads the stream to its end, passing each chunk to the consumer. The buffer passed to the consumer is reused for the next chunk.
+     */
+    void chunk(InputStream input, ChunkConsumer consumer) throws IOException {
+        byte[] chunk = new byte[maxChunkSize];
+        byte[] readBuffer = new byte[8192];
+        int length = 0;
+        long hash = 0;
+        int read;
+        while ((read = input.read(readBuffer)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = readBuffer[i];
+                chunk[length++] = b;
+                hash = (hash << 1) + GEAR[b & 0xff];
+                if ((length >= minChunkSize && (hash & mask) == 0) || length == maxChunkSize) {
+                    consumer.accept(chunk, length);
+                    length = 0;
+                    hash = 0;
+                }
+            }
+        }
+        if (length > 0) {
+            consumer.accept(chunk, length);
+        }
+    }
+
+    private static long[] createGearTable() {
+        // The sequence of java.util.Random is specified, so chunk boundaries are stable across JVMs
+        Random random = new Random(0x9E3779B97F4A7C15L);
+        long[] gear = new long[256];
+        for (int i = 0; i < gear.length; i++) {
+            gear[i] = random.nextLong();
+        }
+        return gear;
+    }
+}
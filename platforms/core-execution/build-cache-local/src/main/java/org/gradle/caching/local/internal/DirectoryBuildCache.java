@@ -99,7 +99,7 @@ public void loadLocally(HashCode key, Consumer<? super File> reader) {
         });
     }
 
-    private void loadInsideLock(HashCode key, Consumer<? super File> reader) {
+    protected void loadInsideLock(HashCode key, Consumer<? super File> reader) {
         File file = getCacheEntryFile(key);
         if (!file.exists()) {
             return;
@@ -110,17 +110,22 @@ private void loadInsideLock(HashCode key, Consumer<? super File> reader) {
         try {
             reader.accept(file);
         } catch (Exception e) {
-            // Try to move the file out of the way in case its permanently corrupt
-            // Don't delete, so that it can be potentially used for debugging
-            File failedFile = new File(file.getAbsolutePath() + failedFileSuffix);
-            FileUtils.deleteQuietly(failedFile);
-            //noinspection ResultOfMethodCallIgnored
-            file.renameTo(failedFile);
-
+            markFailed(file);
             throw UncheckedException.throwAsUncheckedException(e);
         }
     }
 
+    /**
+     * Moves the file out of the way in case it's permanently corrupt.
+     * The file is not deleted, so that it can be potentially used for debugging.
+     */
+    protected void markFailed(File file) {
+        File failedFile = new File(file.getAbsolutePath() + failedFileSuffix);
+        FileUtils.deleteQuietly(failedFile);
+        //noinspection ResultOfMethodCallIgnored
+        file.renameTo(failedFile);
+    }
+
     @Override
     public void store(HashCode key, IoConsumer<OutputStream> result) {
         tempFileStore.withTempFile(key, file -> {
@@ -155,8 +160,13 @@ public void storeLocally(HashCode key, File file) {
         });
     }
 
-    private void storeInsideLock(HashCode key, File sourceFile) {
+    protected void storeInsideLock(HashCode key, File sourceFile) {
         File targetFile = getCacheEntryFile(key);
+        moveIntoCache(key, sourceFile, targetFile);
+        fileAccessTracker.markAccessed(targetFile);
+    }
+
+    protected static void moveIntoCache(HashCode key, File sourceFile, File targetFile) {
         try {
             Files.move(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
         } catch (FileAlreadyExistsException ignore) {
@@ -167,7 +177,6 @@ private void storeInsideLock(HashCode key, File sourceFile) {
         } catch (IOException e) {
             throw new UncheckedIOException(String.format("Couldn't move cache entry '%s' into local cache: %s", key, e), e);
         }
-        fileAccessTracker.markAccessed(targetFile);
     }
 
     @Override
@@ -180,7 +189,19 @@ public void close() {
         persistentCache.close();
     }
 
-    private File getCacheEntryFile(HashCode key) {
-        return new File(persistentCache.getBaseDir(), key.toString());
+    protected File getCacheEntryFile(HashCode key) {
+        return new File(getBaseDir(), key.toString());
+    }
+
+    protected File getBaseDir() {
+        return persistentCache.getBaseDir();
+    }
+
+    protected FileAccessTracker getFileAccessTracker() {
+        return fileAccessTracker;
+    }
+
+    protected BuildCacheTempFileStore getTempFileStore() {
+        return tempFileStore;
     }
 }
@@ -37,7 +37,16 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private final DirectoryBuildCache cache;
 
     public DirectoryBuildCacheService(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
-        this.cache = new DirectoryBuildCache(persistentCache, fileAccessTracker, failedFileSuffix);
+        this(persistentCache, fileAccessTracker, failedFileSuffix, false);
+    }
+
+    /**
+     * @param chunked whether to store the content of entries as chunks shared between entries, see {@link ChunkedDirectoryBuildCache}.
+     */
+    public DirectoryBuildCacheService(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix, boolean chunked) {
+        this.cache = chunked
+            ? new ChunkedDirectoryBuildCache(persistentCache, fileAccessTracker, failedFileSuffix)
+            : new DirectoryBuildCache(persistentCache, fileAccessTracker, failedFileSuffix);
     }
 
     @Override
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.file.FileAccessTracker
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+@UsesNativeServices
+@CleanupTestDirectory
+class ChunkedDirectoryBuildCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.createDir("cache")
+    def persistentCache = Mock(PersistentCache) {
+        getBaseDir() >> cacheDir
+        withFileLock(_) >> { Runnable r -> r.run() }
+    }
+    def fileAccessTracker = Mock(FileAccessTracker)
+    def cache = new ChunkedDirectoryBuildCache(persistentCache, fileAccessTracker, ".failed")
+    def key = TestHashCodes.hashCodeFrom(12345678)
+    def otherKey = TestHashCodes.hashCodeFrom(87654321)
+
+    def "loads stored entries #description"() {
+        def content = content(200_000, 1)
+
+        when:
+        cache.store(key) { output -> output.write(encode(content)) }
+        byte[] loaded = null
+        def found = cache.load(key) { input -> loaded = input.bytes }
+
+        then:
+        found
+        decode(loaded) == content
+
+        where:
+        description        | encode                | decode
+        "as they are"      | { it }                | { it }
+        "compressed"       | { gzip(it) }          | { gunzip(it) }
+    }
+
+    def "stores content shared between entries once"() {
+        def shared = content(500_000, 1)
+        def first = shared + content(10_000, 2)
+        def second = content(10_000, 3) + shared
+
+        when:
+        cache.store(key) { output -> output.write(gzip(first)) }
+        def chunksOfFirstEntry = chunkFiles()
+        cache.store(otherKey) { output -> output.write(gzip(second)) }
+        def addedChunks = chunkFiles() - chunksOfFirstEntry
+
+        then:
+        addedChunks.sum { it.length() } < 100_000
+        loadFromCache(key) == first
+        loadFromCache(otherKey) == second
+    }
+
+    def "marks manifest and chunks accessed"() {
+        def accessedWhenStoring = []
+        def accessedWhenLoading = []
+
+        when:
+        cache.store(key) { output -> output.write(content(100_000, 1)) }
+
+        then:
+        _ * fileAccessTracker.markAccessed(_) >> { File file -> accessedWhenStoring << file }
+
+        when:
+        loadFromCache(key)
+
+        then:
+        _ * fileAccessTracker.markAccessed(_) >> { File file -> accessedWhenLoading << file }
+
+        and:
+        def manifestAndChunks = [new File(cacheDir, "${key}.manifest")] + chunkFiles()
+        manifestAndChunks.size() > 2
+        accessedWhenStoring as Set == manifestAndChunks as Set
+        accessedWhenLoading as Set == manifestAndChunks as Set
+    }
+
+    def "entry is missing when a chunk has been removed"() {
+        cache.store(key) { output -> output.write(content(100_000, 1)) }
+        chunkFiles().first().delete()
+
+        expect:
+        !cache.load(key) { assert false }
+    }
+
+    def "loads entries stored without chunks"() {
+        new File(cacheDir, key.toString()).bytes = "plain".bytes
+
+        expect:
+        loadFromCache(key) == "plain".bytes
+    }
+
+    private byte[] loadFromCache(key) {
+        byte[] loaded = null
+        assert cache.load(key) { input -> loaded = input.bytes }
+        gunzipIfNecessary(loaded)
+    }
+
+    private List<File> chunkFiles() {
+        cacheDir.listFiles().findAll { it.name.endsWith(".chunk") }
+    }
+
+    private static byte[] content(int size, long seed) {
+        def bytes = new byte[size]
+        new Random(seed).nextBytes(bytes)
+        bytes
+    }
+
+    private static byte[] gzip(byte[] content) {
+        def output = new ByteArrayOutputStream()
+        new GZIPOutputStream(output).withStream { it.write(content) }
+        output.toByteArray()
+    }
+
+    private static byte[] gunzip(byte[] content) {
+        new GZIPInputStream(new ByteArrayInputStream(content)).bytes
+    }
+
+    private static byte[] gunzipIfNecessary(byte[] content) {
+        content.length > 2 && content[0] == (byte) 0x1f && content[1] == (byte) 0x8b ? gunzip(content) : content
+    }
+}
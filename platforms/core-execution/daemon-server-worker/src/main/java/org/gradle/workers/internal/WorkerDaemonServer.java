@@ -29,6 +29,7 @@
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.archive.DecompressionCoordinator;
 import org.gradle.api.internal.file.archive.DefaultDecompressionCoordinator;
+import org.gradle.api.internal.file.archive.ParallelZipExtraction;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.api.internal.project.IsolatedAntBuilder;
 import org.gradle.api.internal.project.antbuilder.DefaultIsolatedAntBuilder;
@@ -202,6 +203,11 @@ protected BuildTreeScopedCacheBuilderFactory createBuildTreeScopedCache(Unscoped
         protected DecompressionCoordinator createDecompressionCoordinator(BuildTreeScopedCacheBuilderFactory cacheBuilderFactory) {
             return new DefaultDecompressionCoordinator(cacheBuilderFactory);
         }
+
+        @Provides
+        protected ParallelZipExtraction createParallelZipExtraction() {
+            return ParallelZipExtraction.DISABLED;
+        }
     }
 
     static class WorkerProjectServices implements ServiceRegistrationProvider {
@@ -15,30 +15,88 @@
  */
 package org.gradle.internal.hash;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.MappedByteBuffers;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
+/**
+ * Hashes the content of files.
+ *
+ * Files at least as large as the mapping threshold are memory mapped and hashed without copying their content into a buffer,
+ * which produces the same hash as reading them as a stream.
+ * Mapped files may stay locked on Windows until the mapping is released, so mapping should only be enabled for files that are not deleted soon after.
+ *
+ * When an executor for chunks is given, mapped files larger than two chunks are hashed in parallel chunks, and the hash of the file is the hash of the chunk hashes.
+ * This tree hash is different from the hash of the content as a stream, so it must be used consistently wherever hashes are compared.
+ * Chunks the executor has not started yet when their hash is needed are hashed by the calling thread.
+ */
 public class DefaultFileHasher implements FileHasher {
+    /**
+     * Disables memory mapping.
+     */
+    public static final long NO_MAPPING = Long.MAX_VALUE;
+    private static final HashCode TREE_SIGNATURE = Hashing.signature("TREE:" + DefaultFileHasher.class.getName());
+    private static final long DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
     private final StreamHasher streamHasher;
+    private final long mappingThreshold;
+    @Nullable
+    private final Executor chunkExecutor;
+    private final long chunkSize;
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, NO_MAPPING);
+    }
+
+    public DefaultFileHasher(StreamHasher streamHasher, long mappingThreshold) {
+        this(streamHasher, mappingThreshold, null);
+    }
+
+    public DefaultFileHasher(StreamHasher streamHasher, long mappingThreshold, @Nullable Executor chunkExecutor) {
+        this(streamHasher, mappingThreshold, chunkExecutor, DEFAULT_CHUNK_SIZE);
+    }
+
+    @VisibleForTesting
+    DefaultFileHasher(StreamHasher streamHasher, long mappingThreshold, @Nullable Executor chunkExecutor, long chunkSize) {
         this.streamHasher = streamHasher;
+        this.mappingThreshold = mappingThreshold;
+        this.chunkExecutor = chunkExecutor;
+        this.chunkSize = chunkSize;
     }
 
     @Override
     public HashCode hash(File file) {
-        InputStream inputStream;
+        FileInputStream inputStream;
         try {
             inputStream = new FileInputStream(file);
         } catch (FileNotFoundException e) {
             throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
         }
         try {
+            if (mappingThreshold != NO_MAPPING) {
+                FileChannel channel = inputStream.getChannel();
+                long size = channel.size();
+                if (size >= mappingThreshold) {
+                    return chunkExecutor != null && size > 2 * chunkSize
+                        ? hashChunks(channel, size, chunkExecutor)
+                        : streamHasher.hashMapped(channel);
+                }
+            }
             return streamHasher.hash(inputStream);
         } catch (IOException e) {
             throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s'", file), e);
@@ -51,6 +109,45 @@ public HashCode hash(File file) {
         }
     }
 
+    private HashCode hashChunks(FileChannel channel, long size, Executor executor) throws IOException {
+        List<FutureTask<HashCode>> chunkHashes = new ArrayList<>();
+        for (long position = 0; position < size; position += chunkSize) {
+            long chunkPosition = position;
+            long currentChunkSize = Math.min(chunkSize, size - position);
+            FutureTask<HashCode> chunkHash = new FutureTask<>(() -> hashChunk(channel, chunkPosition, currentChunkSize));
+            executor.execute(chunkHash);
+            chunkHashes.add(chunkHash);
+        }
+        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+        hasher.putHash(TREE_SIGNATURE);
+        hasher.putLong(size);
+        for (FutureTask<HashCode> chunkHash : chunkHashes) {
+            // Hash the chunk here if the executor did not start it yet
+            chunkHash.run();
+            try {
+                hasher.putHash(Uninterruptibles.getUninterruptibly(chunkHash));
+            } catch (ExecutionException e) {
+                Throwables.propagateIfPossible(e.getCause(), IOException.class);
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return hasher.hash();
+    }
+
+    private static HashCode hashChunk(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        try {
+            PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+            hasher.putBytes(buffer);
+            return hasher.hash();
+        } catch (InternalError e) {
+            // Reading a mapping beyond the end of a file truncated concurrently faults, which the JVM reports as an internal error
+            throw new IOException("File was truncated while hashing its content.", e);
+        } finally {
+            MappedByteBuffers.unmap(buffer);
+        }
+    }
+
     @Override
     public HashCode hash(File file, long length, long lastModified) {
         return hash(file);
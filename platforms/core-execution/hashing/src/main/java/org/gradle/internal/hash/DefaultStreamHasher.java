@@ -16,15 +16,20 @@
 package org.gradle.internal.hash;
 
 import com.google.common.io.ByteStreams;
+import org.gradle.internal.MappedByteBuffers;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
 public class DefaultStreamHasher implements StreamHasher {
     private static final HashCode SIGNATURE = Hashing.signature(DefaultStreamHasher.class);
+    // A single mapping cannot be larger than 2 GB
+    private static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE;
 
     private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
 
@@ -38,6 +43,25 @@ public HashCode hashCopy(InputStream inputStream, OutputStream outputStream) thr
         return doHash(inputStream, outputStream);
     }
 
+    @Override
+    public HashCode hashMapped(FileChannel channel) throws IOException {
+        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+        hasher.putHash(SIGNATURE);
+        long size = channel.size();
+        for (long position = 0; position < size; position += MAX_MAPPING_SIZE) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPING_SIZE, size - position));
+            try {
+                hasher.putBytes(buffer);
+            } catch (InternalError e) {
+                // Reading a mapping beyond the end of a file truncated concurrently faults, which the JVM reports as an internal error
+                throw new IOException("File was truncated while hashing its content.", e);
+            } finally {
+                MappedByteBuffers.unmap(buffer);
+            }
+        }
+        return hasher.hash();
+    }
+
     private HashCode doHash(InputStream inputStream, OutputStream outputStream) throws IOException {
         byte[] buffer = takeBuffer();
         try {
@@ -18,6 +18,7 @@
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 @ServiceScope({Scope.UserHome.class, Scope.BuildSession.class})
@@ -31,4 +32,14 @@ public interface FileHasher {
      * Returns the hash of the current content of the given file, assuming the given file metadata. The provided file must exist and be a file (rather than, say, a directory).
      */
     HashCode hash(File file, long length, long lastModified);
+
+    /**
+     * Returns the hash of the given file if it is already known for the given file metadata, without reading the file.
+     *
+     * Returns {@code null} when the file would need to be hashed.
+     */
+    @Nullable
+    default HashCode hashIfKnown(File file, long length, long lastModified) {
+        return null;
+    }
 }
@@ -21,6 +21,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 @ServiceScope(Scope.Global.class)
 public interface StreamHasher {
@@ -34,4 +35,11 @@ public interface StreamHasher {
      * The method will not close either stream.
      */
     HashCode hashCopy(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the hash of the content of the given file channel, which is the same as the hash of a stream with the same content.
+     * The content is memory mapped and fed to the hash function without copying it into a buffer first.
+     * The channel will not be closed by the method.
+     */
+    HashCode hashMapped(FileChannel channel) throws IOException;
 }
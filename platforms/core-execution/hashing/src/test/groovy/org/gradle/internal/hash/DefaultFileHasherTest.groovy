@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import org.gradle.api.UncheckedIOException
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+
+class DefaultFileHasherTest extends Specification {
+    @TempDir
+    File tempDir
+
+    def streamHasher = new DefaultStreamHasher()
+
+    def "mapped files have the same hash as streamed files (#size bytes)"() {
+        def file = file(size)
+
+        expect:
+        new DefaultFileHasher(streamHasher, 0).hash(file) == new DefaultFileHasher(streamHasher).hash(file)
+        new DefaultFileHasher(streamHasher, 0).hash(file) == streamHasher.hash(new ByteArrayInputStream(file.bytes))
+
+        where:
+        size << [0, 1, 8192, 100_000]
+    }
+
+    def "hashes content in parallel chunks"() {
+        def executor = Executors.newFixedThreadPool(4)
+        def file = file(10_000)
+        def sameContent = file(10_000)
+        def differentContent = file(10_000)
+        def bytes = differentContent.bytes
+        bytes[9_999]++
+        differentContent.bytes = bytes
+        def hasher = new DefaultFileHasher(streamHasher, 0, executor, 1000)
+
+        expect:
+        hasher.hash(file) == hasher.hash(sameContent)
+        hasher.hash(file) != hasher.hash(differentContent)
+        hasher.hash(file) != new DefaultFileHasher(streamHasher).hash(file)
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "hashes chunks not started by the executor on the calling thread"() {
+        def executor = Executors.newFixedThreadPool(4)
+        def file = file(10_000)
+        def discardingExecutor = { Runnable chunk -> } as Executor
+
+        expect:
+        new DefaultFileHasher(streamHasher, 0, discardingExecutor, 1000).hash(file) == new DefaultFileHasher(streamHasher, 0, executor, 1000).hash(file)
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "does not hash small files in chunks"() {
+        def executor = Executors.newFixedThreadPool(4)
+        def file = file(1500)
+
+        expect:
+        new DefaultFileHasher(streamHasher, 0, executor, 1000).hash(file) == new DefaultFileHasher(streamHasher).hash(file)
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "does not hash streamed files in chunks"() {
+        def executor = Executors.newFixedThreadPool(4)
+        def file = file(10_000)
+
+        expect:
+        new DefaultFileHasher(streamHasher, DefaultFileHasher.NO_MAPPING, executor, 1000).hash(file) == new DefaultFileHasher(streamHasher).hash(file)
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "reports missing files"() {
+        def file = new File(tempDir, "missing.bin")
+
+        when:
+        new DefaultFileHasher(streamHasher, 0).hash(file)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create MD5 hash for file '${file}' as it does not exist."
+    }
+
+    // Files of the same size have the same content
+    private File file(int size) {
+        def file = File.createTempFile("content", ".bin", tempDir)
+        def content = new byte[size]
+        new Random(size).nextBytes(content)
+        file.bytes = content
+        file
+    }
+}
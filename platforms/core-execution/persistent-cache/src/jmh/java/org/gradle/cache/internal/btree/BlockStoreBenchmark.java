@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares lookups in a large {@link BTreePersistentIndexedCache} backed by {@link FileBackedBlockStore} and by {@link MappedFileBlockStore}.
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BlockStoreBenchmark {
+    private static final String VALUE = "some value of a typical size for a file hash or execution history entry";
+
+    @Param({"file", "mapped"})
+    String store;
+
+    @Param({"1000000"})
+    int entries;
+
+    File cacheFile;
+    BTreePersistentIndexedCache<String, String> cache;
+    Random random = new Random(1234L);
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File dir = Files.createTempDirectory("block-store-benchmark").toFile();
+        cacheFile = new File(dir, "cache.bin");
+        BTreePersistentIndexedCache<String, String> writer = createCache(new FileBackedBlockStore(cacheFile));
+        for (int i = 0; i < entries; i++) {
+            writer.put("key" + i, VALUE);
+        }
+        writer.close();
+        cache = createCache("mapped".equals(store) ? new MappedFileBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+        cacheFile.delete();
+        cacheFile.getParentFile().delete();
+    }
+
+    @Benchmark
+    public void getExisting(Blackhole bh) {
+        bh.consume(cache.get("key" + random.nextInt(entries)));
+    }
+
+    @Benchmark
+    public void getMissing(Blackhole bh) {
+        bh.consume(cache.get("missing" + random.nextInt(entries)));
+    }
+
+    private BTreePersistentIndexedCache<String, String> createCache(BlockStore store) {
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, (short) 512, 512, store);
+    }
+}
@@ -19,9 +19,10 @@
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
-public class CleaningInMemoryCacheDecoratorFactory extends DefaultInMemoryCacheDecoratorFactory {
+public class CleaningInMemoryCacheDecoratorFactory extends DefaultInMemoryCacheDecoratorFactory implements HeapPressureListener {
     private final List<WeakReference<InMemoryCacheController>> inMemoryCaches = new ArrayList<>();
 
     public CleaningInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
@@ -29,14 +30,32 @@ public CleaningInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBui
     }
 
     public void clearCaches(Predicate<InMemoryCacheController> predicate) {
+        visitCaches(cache -> {
+            if (predicate.test(cache)) {
+                cache.clearInMemoryCache();
+            }
+        });
+    }
+
+    @Override
+    public void onHeapPressure(HeapPressure pressure) {
+        // The backing caches hold all entries, so the in-memory entries are cheap to recreate
+        if (pressure == HeapPressure.HIGH) {
+            visitCaches(InMemoryCacheController::clearInMemoryCache);
+        } else {
+            visitCaches(InMemoryCacheController::shrinkInMemoryCache);
+        }
+    }
+
+    private void visitCaches(Consumer<InMemoryCacheController> action) {
         synchronized (inMemoryCaches) {
             for (Iterator<WeakReference<InMemoryCacheController>> iterator = inMemoryCaches.iterator(); iterator.hasNext();) {
                 WeakReference<InMemoryCacheController> ref = iterator.next();
                 InMemoryCacheController cache = ref.get();
                 if (cache == null) {
                     iterator.remove();
-                } else if (predicate.test(cache)) {
-                    cache.clearInMemoryCache();
+                } else {
+                    action.accept(cache);
                 }
             }
         }
@@ -32,6 +32,7 @@
 import org.gradle.cache.MultiProcessSafeIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
+import org.gradle.cache.internal.logstore.LogStructuredPersistentIndexedCache;
 import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -71,6 +72,7 @@ public class DefaultCacheCoordinator implements CacheCreationCoordinator, Exclus
 
     private ManagedExecutor cacheUpdateExecutor;
     private ExclusiveCacheAccessingWorker cacheAccessWorker;
+    private ManagedExecutor compactionExecutor;
     private final Lock stateLock = new ReentrantLock(); // protects the following state
     private final Condition condition = stateLock.newCondition();
 
@@ -81,6 +83,7 @@ public class DefaultCacheCoordinator implements CacheCreationCoordinator, Exclus
     private Runnable fileLockHeldByOwner;
     private int cacheClosedCount;
     private boolean alreadyCleaned;
+    private boolean alreadyCompacted;
 
     public DefaultCacheCoordinator(String cacheDisplayName, File lockTarget, LockOptions lockOptions, File baseDir, FileLockManager lockManager, CacheInitializationAction initializationAction, CacheCleanupExecutor cleanupAction, ExecutorFactory executorFactory) {
         this.cacheDisplayName = cacheDisplayName;
@@ -148,6 +151,7 @@ public void cleanup() {
 
             withOwnershipNow(this::doCleanup);
         }
+        compactInBackground();
     }
 
     private void doCleanup() {
@@ -159,6 +163,56 @@ private void doCleanup() {
         }
     }
 
+    /**
+     * Reclaims the space of stale records of the log-structured caches on a separate thread, so that the thread cleaning up the cache
+     * does not wait for it. The compaction takes the cache lock like any other use of the cache.
+     */
+    private synchronized void compactInBackground() {
+        if (alreadyCompacted || !hasLogStructuredCaches()) {
+            return;
+        }
+        alreadyCompacted = true;
+        if (compactionExecutor == null) {
+            compactionExecutor = executorFactory.create("Compaction of " + cacheDisplayName);
+        }
+        compactionExecutor.execute(() -> {
+            try {
+                useCache(this::compactLogStructuredCaches);
+            } catch (Exception e) {
+                LOG.debug("Cache {} could not be compacted", cacheDisplayName, e);
+            }
+        });
+    }
+
+    private boolean hasLogStructuredCaches() {
+        stateLock.lock();
+        try {
+            for (IndexedCacheEntry<?, ?> entry : caches.values()) {
+                if (entry.isLogStructured()) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void compactLogStructuredCaches() {
+        List<IndexedCacheEntry<?, ?>> entries;
+        stateLock.lock();
+        try {
+            entries = new ArrayList<>(caches.values());
+        } finally {
+            stateLock.unlock();
+        }
+        for (IndexedCacheEntry<?, ?> entry : entries) {
+            if (entry.isLogStructured()) {
+                entry.getBackingCache().compact();
+            }
+        }
+    }
+
     @Override
     public synchronized void close() {
         if (cacheAccessWorker != null) {
@@ -169,6 +223,21 @@ public synchronized void close() {
             cacheUpdateExecutor.stop();
             cacheUpdateExecutor = null;
         }
+        if (compactionExecutor != null) {
+            // Waits for a running compaction to complete
+            compactionExecutor.stop();
+            compactionExecutor = null;
+        }
+
+        // If compaction has not already run (e.g. at the end of the build session), compact now while the cache can still be locked
+        if (!alreadyCompacted && hasLogStructuredCaches()) {
+            alreadyCompacted = true;
+            try {
+                useCache(this::compactLogStructuredCaches);
+            } catch (Exception e) {
+                LOG.debug("Cache {} could not be compacted", cacheDisplayName, e);
+            }
+        }
 
         withOwnershipNow(() -> {
             try {
@@ -311,9 +380,10 @@ public <K, V> MultiProcessSafeIndexedCache<K, V> newCache(final IndexedCachePara
             if (entry == null) {
                 File cacheFile = findCacheFile(parameters);
                 LOG.debug("Creating new cache for {}, path {}, access {}", parameters.getCacheName(), cacheFile, this);
-                Supplier<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                Supplier<PersistentIndexedCache<K, V>> indexedCacheFactory = createIndexedCacheFactory(cacheFile, parameters);
 
-                MultiProcessSafeIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafeIndexedCache<>(indexedCacheFactory, fileAccess);
+                DefaultMultiProcessSafeIndexedCache<K, V> backingCache = new DefaultMultiProcessSafeIndexedCache<>(indexedCacheFactory, fileAccess);
+                MultiProcessSafeIndexedCache<K, V> indexedCache = backingCache;
                 CacheDecorator decorator = parameters.getCacheDecorator();
                 if (decorator != null) {
                     indexedCache = decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), indexedCache, crossProcessCacheAccess, getCacheAccessWorker());
@@ -323,7 +393,7 @@ public <K, V> MultiProcessSafeIndexedCache<K, V> newCache(final IndexedCachePara
                         });
                     }
                 }
-                entry = new IndexedCacheEntry<>(parameters, indexedCache);
+                entry = new IndexedCacheEntry<>(parameters, indexedCache, backingCache);
                 caches.put(parameters.getCacheName(), entry);
                 if (fileLock != null) {
                     indexedCache.afterLockAcquire(stateAtOpen);
@@ -338,6 +408,9 @@ public <K, V> MultiProcessSafeIndexedCache<K, V> newCache(final IndexedCachePara
     }
 
     private <K, V> File findCacheFile(IndexedCacheParameters<K, V> parameters) {
+        if (parameters.getStorageLayout() == IndexedCacheParameters.StorageLayout.LOG_STRUCTURED) {
+            return new File(baseDir, parameters.getCacheName() + ".log");
+        }
         return new File(baseDir, parameters.getCacheName() + ".bin");
     }
 
@@ -346,6 +419,18 @@ public <K, V> boolean cacheExists(IndexedCacheParameters<K, V> parameters) {
         return findCacheFile(parameters).exists();
     }
 
+    private <K, V> Supplier<PersistentIndexedCache<K, V>> createIndexedCacheFactory(File cacheFile, IndexedCacheParameters<K, V> parameters) {
+        if (parameters.getStorageLayout() == IndexedCacheParameters.StorageLayout.LOG_STRUCTURED) {
+            return doCreateLogStructuredCacheFactory(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+        }
+        return () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+    }
+
+    <K, V> Supplier<PersistentIndexedCache<K, V>> doCreateLogStructuredCacheFactory(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        // Reopens the same cache on each lock cycle, so that its index is not read again
+        return LogStructuredPersistentIndexedCache.reopeningFactory(cacheFile, keySerializer, valueSerializer);
+    }
+
     <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         return new BTreePersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer);
     }
@@ -486,17 +571,27 @@ FileAccess getFileAccess() {
 
     private static class IndexedCacheEntry<K, V> {
         private final MultiProcessSafeIndexedCache<K, V> cache;
+        private final DefaultMultiProcessSafeIndexedCache<K, V> backingCache;
         private final IndexedCacheParameters<K, V> parameters;
 
-        IndexedCacheEntry(IndexedCacheParameters<K, V> parameters, MultiProcessSafeIndexedCache<K, V> cache) {
+        IndexedCacheEntry(IndexedCacheParameters<K, V> parameters, MultiProcessSafeIndexedCache<K, V> cache, DefaultMultiProcessSafeIndexedCache<K, V> backingCache) {
             this.parameters = parameters;
             this.cache = cache;
+            this.backingCache = backingCache;
         }
 
         public MultiProcessSafeIndexedCache<K, V> getCache() {
             return cache;
         }
 
+        public DefaultMultiProcessSafeIndexedCache<K, V> getBackingCache() {
+            return backingCache;
+        }
+
+        public boolean isLogStructured() {
+            return parameters.getStorageLayout() == IndexedCacheParameters.StorageLayout.LOG_STRUCTURED;
+        }
+
         void assertCompatibleCacheParameters(IndexedCacheParameters<K, V> parameters) {
             List<String> faultMessages = new ArrayList<>();
 
@@ -504,6 +599,7 @@ void assertCompatibleCacheParameters(IndexedCacheParameters<K, V> parameters) {
             checkCompatibleKeySerializer(faultMessages, parameters.getKeySerializer());
             checkCompatibleValueSerializer(faultMessages, parameters.getValueSerializer());
             checkCompatibleCacheDecorator(faultMessages, parameters.getCacheDecorator());
+            checkCompatibleStorageLayout(faultMessages, parameters.getStorageLayout());
 
             if (!faultMessages.isEmpty()) {
                 String lineSeparator = System.lineSeparator();
@@ -546,6 +642,14 @@ private void checkCompatibleCacheDecorator(Collection<String> faultMessages, Cac
                         cacheDecorator, parameters.getCacheDecorator()));
             }
         }
+
+        private void checkCompatibleStorageLayout(Collection<String> faultMessages, IndexedCacheParameters.StorageLayout storageLayout) {
+            if (storageLayout != parameters.getStorageLayout()) {
+                faultMessages.add(
+                    String.format(" * Requested storage layout (%s) doesn't match current storage layout (%s)",
+                        storageLayout, parameters.getStorageLayout()));
+            }
+        }
     }
 
     @VisibleForTesting
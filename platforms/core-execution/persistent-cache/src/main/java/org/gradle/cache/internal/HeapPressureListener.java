@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.service.scopes.EventScope;
+import org.gradle.internal.service.scopes.Scope;
+
+/**
+ * Notified between builds when the heap of a long-lived process is filling up,
+ * so that in-memory state that can be recreated is released before the process has to be stopped.
+ */
+@NonNullApi
+@EventScope(Scope.Global.class)
+public interface HeapPressureListener {
+
+    @NonNullApi
+    enum HeapPressure {
+        /**
+         * The heap is getting full. Release state that is unlikely to be used by the next build, or that is cheap to recreate.
+         */
+        MODERATE,
+
+        /**
+         * The heap is close to full. Release everything that can be recreated.
+         */
+        HIGH
+    }
+
+    void onHeapPressure(HeapPressure pressure);
+}
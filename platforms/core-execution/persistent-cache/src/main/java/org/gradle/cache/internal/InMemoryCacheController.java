@@ -18,4 +18,9 @@
 public interface InMemoryCacheController {
     String getCacheId();
     void clearInMemoryCache();
+
+    /**
+     * Discards about half of the entries held in memory.
+     */
+    void shrinkInMemoryCache();
 }
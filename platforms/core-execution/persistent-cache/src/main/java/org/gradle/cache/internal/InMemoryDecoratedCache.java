@@ -25,6 +25,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Iterator;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -151,4 +152,17 @@ public String getCacheId() {
     public void clearInMemoryCache() {
         inMemoryCache.invalidateAll();
     }
+
+    @Override
+    public void shrinkInMemoryCache() {
+        // The cache does not expose the access order, so discard every other entry
+        boolean discard = false;
+        for (Iterator<Object> iterator = inMemoryCache.asMap().keySet().iterator(); iterator.hasNext(); ) {
+            iterator.next();
+            if (discard) {
+                iterator.remove();
+            }
+            discard = !discard;
+        }
+    }
 }
@@ -28,7 +28,7 @@
 /**
  * Allows a stream of bytes to be read from a particular location of some backing byte stream.
  */
-class ByteInput {
+class ByteInput implements BlockInput {
     private final RandomAccessFile file;
     private final ResettableBufferedInputStream bufferedInputStream;
     private CountingInputStream countingInputStream;
@@ -38,9 +38,7 @@ public ByteInput(RandomAccessFile file) {
         bufferedInputStream = new ResettableBufferedInputStream(new RandomAccessFileInputStream(file));
     }
 
-    /**
-     * Starts reading from the given offset.
-     */
+    @Override
     public DataInputStream start(long offset) throws IOException {
         file.seek(offset);
         bufferedInputStream.clear();
@@ -48,20 +46,20 @@ public DataInputStream start(long offset) throws IOException {
         return new DataInputStream(countingInputStream);
     }
 
-    /**
-     * Returns the number of bytes read since {@link #start(long)} was called.
-     */
+    @Override
     public long getBytesRead() {
         return countingInputStream.getCount();
     }
 
-    /**
-     * Finishes reading, resetting any buffered state.
-     */
+    @Override
     public void done() {
         countingInputStream = null;
     }
 
+    @Override
+    public void release() {
+    }
+
     private static class ResettableBufferedInputStream extends BufferedInputStream {
         ResettableBufferedInputStream(InputStream input) {
             super(input);
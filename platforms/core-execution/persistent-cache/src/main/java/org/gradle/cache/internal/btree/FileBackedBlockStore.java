@@ -28,7 +28,7 @@ public class FileBackedBlockStore implements BlockStore {
     private final File cacheFile;
     private RandomAccessFile file;
     private ByteOutput output;
-    private ByteInput input;
+    private BlockInput input;
     private long nextBlock;
     private Factory factory;
     private long currentFileSize;
@@ -49,7 +49,7 @@ public void open(Runnable runnable, Factory factory) {
             cacheFile.getParentFile().mkdirs();
             file = openRandomAccessFile();
             output = new ByteOutput(file);
-            input = new ByteInput(file);
+            input = createInput(file);
             currentFileSize = file.length();
             nextBlock = currentFileSize;
             if (currentFileSize == 0) {
@@ -60,6 +60,13 @@ public void open(Runnable runnable, Factory factory) {
         }
     }
 
+    /**
+     * Creates the input that blocks are read from.
+     */
+    BlockInput createInput(RandomAccessFile file) {
+        return new ByteInput(file);
+    }
+
     private RandomAccessFile openRandomAccessFile() throws FileNotFoundException {
         try {
             return randomAccessFile("rw");
@@ -75,6 +82,7 @@ private RandomAccessFile randomAccessFile(String mode) throws FileNotFoundExcept
     @Override
     public void close() {
         try {
+            input.release();
             file.close();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -84,6 +92,7 @@ public void close() {
     @Override
     public void clear() {
         try {
+            input.release();
             file.setLength(0);
             currentFileSize = 0;
         } catch (IOException e) {
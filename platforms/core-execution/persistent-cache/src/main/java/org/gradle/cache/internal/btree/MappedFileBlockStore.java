@@ -0,0 +1,164 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.MappedByteBuffers;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link FileBackedBlockStore} that reads blocks directly from memory-mapped regions of the cache file, instead of seeking
+ * and reading through the {@link RandomAccessFile}. Both stores use the same on-disk format, and blocks are still written through the file.
+ *
+ * <p>The file is mapped lazily in fixed-size regions, and a region is mapped again when a block extends past its end because the file
+ * has grown. Like the file backed store, this store is not thread-safe: the B-tree serializes all access to it. The mappings are released
+ * before the file is truncated or closed, so no block may be read concurrently with {@link #clear()} or {@link #close()}.</p>
+ */
+@NonNullApi
+public class MappedFileBlockStore extends FileBackedBlockStore {
+    static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+
+    private final int regionSize;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileBlockStore(File cacheFile, int regionSize) {
+        super(cacheFile);
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    BlockInput createInput(RandomAccessFile file) {
+        return new MappedInput(file.getChannel(), regionSize);
+    }
+
+    @NonNullApi
+    private static class MappedInput implements BlockInput {
+        private final FileChannel channel;
+        private final int regionSize;
+        private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+        private CountingInputStream countingInputStream;
+
+        MappedInput(FileChannel channel, int regionSize) {
+            this.channel = channel;
+            this.regionSize = regionSize;
+        }
+
+        @Override
+        public DataInputStream start(long offset) {
+            countingInputStream = new CountingInputStream(new RegionInputStream(offset));
+            return new DataInputStream(countingInputStream);
+        }
+
+        @Override
+        public long getBytesRead() {
+            return countingInputStream.getCount();
+        }
+
+        @Override
+        public void done() {
+            countingInputStream = null;
+        }
+
+        @Override
+        public void release() {
+            for (MappedByteBuffer region : regions) {
+                if (region != null) {
+                    MappedByteBuffers.unmap(region);
+                }
+            }
+            regions.clear();
+        }
+
+        /**
+         * Returns the given region, mapped so that it contains the given offset if the file is large enough.
+         */
+        private MappedByteBuffer region(int index, long offset) throws IOException {
+            while (regions.size() <= index) {
+                regions.add(null);
+            }
+            MappedByteBuffer region = regions.get(index);
+            long start = (long) index * regionSize;
+            if (region == null || start + region.capacity() <= offset) {
+                if (region != null) {
+                    MappedByteBuffers.unmap(region);
+                }
+                long length = Math.max(0, Math.min(regionSize, channel.size() - start));
+                region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                regions.set(index, region);
+            }
+            return region;
+        }
+
+        /**
+         * Reads the bytes of the file from the mapped regions, starting at a given offset.
+         */
+        @NonNullApi
+        private class RegionInputStream extends InputStream {
+            private long pos;
+
+            RegionInputStream(long pos) {
+                this.pos = pos;
+            }
+
+            @Override
+            public int read() throws IOException {
+                MappedByteBuffer region = currentRegion();
+                int positionInRegion = (int) (pos % regionSize);
+                if (positionInRegion >= region.capacity()) {
+                    return -1;
+                }
+                pos++;
+                return region.get(positionInRegion) & 0xff;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                MappedByteBuffer region = currentRegion();
+                int positionInRegion = (int) (pos % regionSize);
+                if (positionInRegion >= region.capacity()) {
+                    return -1;
+                }
+                int count = Math.min(length, region.capacity() - positionInRegion);
+                ByteBuffer view = region.duplicate();
+                view.position(positionInRegion);
+                view.get(bytes, offset, count);
+                pos += count;
+                return count;
+            }
+
+            private MappedByteBuffer currentRegion() throws IOException {
+                return region((int) (pos / regionSize), pos);
+            }
+        }
+    }
+}
@@ -0,0 +1,820 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.logstore;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.NonNullApi;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.PersistentIndexedCache;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link PersistentIndexedCache} that appends every update to a log of segment files and keeps an in-memory hash index
+ * from key to the location of its latest record. Lookups take a single positioned read and updates are sequential appends.
+ *
+ * <p>Each record holds the serialized key and value (or a tombstone for removed entries) and a checksum, so that a torn write
+ * at the end of the log is detected and discarded when the log is next opened. A corrupt record found anywhere else discards the
+ * whole log, in the same way as the B-tree store discards a corrupt cache file. The index maps the hash of a key to the location
+ * of its record, and lookups compare the key stored in the record. A key whose hash is already used by another live key is kept
+ * in a separate map by its full serialized form.</p>
+ *
+ * <p>The index is saved next to the segments from time to time, and is kept in memory while the cache is closed between two uses
+ * of the cache lock. Each segment starts with a random identifier, so that reopening the cache can check that the segments known
+ * to the index are still the same and only scan the records appended since then, for example by another process.</p>
+ *
+ * <p>Stale records are reclaimed by {@link #compact()}, which copies the live records of the oldest segments to the end of the log
+ * and deletes these segments. Only the oldest segments are removed, so that a tombstone is never deleted while an older record of
+ * the same key remains.</p>
+ */
+@NonNullApi
+public class LogStructuredPersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+
+    private static final int SEGMENT_MAGIC = 0x474c5332;
+    private static final int INDEX_MAGIC = 0x474c4932;
+    private static final int SEGMENT_HEADER_SIZE = 12; // magic, segment identifier
+    private static final int RECORD_HEADER_SIZE = 8; // key length, value length
+    private static final int RECORD_TAIL_SIZE = 4; // checksum
+    private static final int TOMBSTONE = -1;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final String INDEX_FILE = "index.bin";
+
+    private static final long DEFAULT_MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int MIN_RECORDS_TO_SAVE_INDEX = 1000;
+    private static final double COMPACTION_STALE_RATIO = 0.5;
+
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    private final File dir;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final long maxSegmentSize;
+    private final Long2LongMap index = new Long2LongOpenHashMap();
+    private final Map<ByteBuffer, Long> collidingKeys = new HashMap<ByteBuffer, Long>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+    private long recordCount;
+    private long unsavedRecords;
+
+    public LogStructuredPersistentIndexedCache(File dir, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(dir, keySerializer, valueSerializer, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    public LogStructuredPersistentIndexedCache(File dir, Serializer<K> keySerializer, Serializer<V> valueSerializer, long maxSegmentSize) {
+        this.dir = dir;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.maxSegmentSize = maxSegmentSize;
+        this.index.defaultReturnValue(-1);
+        reopen();
+    }
+
+    /**
+     * Returns a factory that creates the cache the first time it is called and reopens the same cache afterwards, so that the index
+     * is kept in memory between uses of the cache lock.
+     */
+    public static <K, V> Supplier<PersistentIndexedCache<K, V>> reopeningFactory(File dir, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return new ReopeningFactory<K, V>(dir, keySerializer, valueSerializer);
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + dir.getName() + " (" + dir + ")";
+    }
+
+    /**
+     * Opens the cache again after it has been closed, reusing the index kept in memory if the segments it covers have not changed.
+     */
+    public void reopen() {
+        LOGGER.debug("Opening {}", this);
+        try {
+            try {
+                doOpen();
+            } catch (CorruptedLogException e) {
+                LOGGER.warn("{} is corrupt. Discarding.", this);
+                discard();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    private void doOpen() throws IOException {
+        dir.mkdirs();
+        List<Segment> found = openSegmentFiles();
+        if (!covers(segments, found)) {
+            resetIndex();
+            readIndex(found);
+        }
+        for (Segment foundSegment : found) {
+            Segment segment = segments.get(foundSegment.id);
+            if (segment == null) {
+                segment = new Segment(foundSegment.id, foundSegment.nonce);
+                segments.put(segment.id, segment);
+            }
+            segment.file = foundSegment.file;
+        }
+        for (Segment foundSegment : found) {
+            Segment segment = segments.get(foundSegment.id);
+            if (foundSegment.size > segment.size) {
+                scan(segment, foundSegment.size);
+            }
+        }
+        if (segments.isEmpty()) {
+            startSegment(1);
+        }
+    }
+
+    /**
+     * Opens the segment files in the cache directory, in order. The size of the returned segments is the length of their file.
+     */
+    private List<Segment> openSegmentFiles() throws IOException {
+        List<Integer> segmentIds = new ArrayList<Integer>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        segmentIds.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        // Not a segment
+                    }
+                }
+            }
+        }
+        Collections.sort(segmentIds);
+        List<Segment> found = new ArrayList<Segment>(segmentIds.size());
+        List<RandomAccessFile> openFiles = new ArrayList<RandomAccessFile>(segmentIds.size());
+        try {
+            for (Integer segmentId : segmentIds) {
+                RandomAccessFile file = new RandomAccessFile(segmentFile(segmentId), "rw");
+                openFiles.add(file);
+                long length = file.length();
+                if (length < SEGMENT_HEADER_SIZE || file.readInt() != SEGMENT_MAGIC) {
+                    throw new CorruptedLogException();
+                }
+                Segment segment = new Segment(segmentId, file.readLong());
+                segment.size = length;
+                segment.file = file;
+                found.add(segment);
+            }
+        } catch (IOException e) {
+            for (RandomAccessFile file : openFiles) {
+                file.close();
+            }
+            throw e;
+        }
+        return found;
+    }
+
+    /**
+     * Returns true when the given known segments are still present, unchanged apart from records appended to the last one.
+     */
+    private static boolean covers(TreeMap<Integer, Segment> known, List<Segment> found) {
+        if (known.isEmpty() || known.size() > found.size()) {
+            return false;
+        }
+        int i = 0;
+        for (Segment segment : known.values()) {
+            Segment foundSegment = found.get(i++);
+            if (segment.id != foundSegment.id || segment.nonce != foundSegment.nonce) {
+                return false;
+            }
+            boolean last = i == known.size();
+            if (last ? foundSegment.size < segment.size : foundSegment.size != segment.size) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private File segmentFile(int segmentId) {
+        return new File(dir, SEGMENT_PREFIX + segmentId + SEGMENT_SUFFIX);
+    }
+
+    private Segment activeSegment() {
+        return segments.lastEntry().getValue();
+    }
+
+    private void startSegment(int segmentId) throws IOException {
+        Segment segment = new Segment(segmentId, ThreadLocalRandom.current().nextLong());
+        segment.file = new RandomAccessFile(segmentFile(segmentId), "rw");
+        segment.file.setLength(0);
+        segment.file.writeInt(SEGMENT_MAGIC);
+        segment.file.writeLong(segment.nonce);
+        segments.put(segmentId, segment);
+    }
+
+    /**
+     * Adds the records of the given segment, from its known size up to the given length, to the index.
+     * A torn or corrupt record at the end of the last segment is discarded.
+     */
+    private void scan(Segment segment, long length) throws IOException {
+        long offset = segment.size;
+        FileInputStream fileInput = new FileInputStream(segmentFile(segment.id));
+        try {
+            fileInput.getChannel().position(offset);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(fileInput));
+            CRC32 checksum = new CRC32();
+            while (offset < length) {
+                int keyLength = input.readInt();
+                int valueLength = input.readInt();
+                if (keyLength < 0 || valueLength < TOMBSTONE || offset + recordSize(keyLength, valueLength) > length) {
+                    break;
+                }
+                byte[] keyBytes = new byte[keyLength];
+                input.readFully(keyBytes);
+                byte[] valueBytes = new byte[Math.max(valueLength, 0)];
+                input.readFully(valueBytes);
+                if (input.readInt() != checksum(checksum, keyLength, valueLength, keyBytes, valueBytes)) {
+                    break;
+                }
+                long hash = hash(keyBytes);
+                if (valueLength == TOMBSTONE) {
+                    unindex(hash, keyBytes);
+                } else {
+                    index(hash, keyBytes, ownsHash(hash, keyBytes), location(segment.id, offset));
+                }
+                segment.records++;
+                recordCount++;
+                unsavedRecords++;
+                offset += recordSize(keyLength, valueLength);
+            }
+        } catch (EOFException e) {
+            // Incomplete record
+        } finally {
+            fileInput.close();
+        }
+        segment.size = offset;
+        if (offset < length) {
+            if (segment.id != segments.lastKey()) {
+                throw new CorruptedLogException();
+            }
+            LOGGER.debug("Discarding incomplete records at the end of {}", segmentFile(segment.id));
+            segment.file.setLength(offset);
+        }
+    }
+
+    private void readIndex(List<Segment> found) {
+        File indexFile = new File(dir, INDEX_FILE);
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (input.readInt() != INDEX_MAGIC) {
+                    return;
+                }
+                int segmentCount = input.readInt();
+                for (int i = 0; i < segmentCount; i++) {
+                    Segment segment = new Segment(input.readInt(), input.readLong());
+                    segment.size = input.readLong();
+                    segment.records = input.readLong();
+                    segments.put(segment.id, segment);
+                    recordCount += segment.records;
+                }
+                if (!covers(segments, found)) {
+                    resetIndex();
+                    return;
+                }
+                int entries = input.readInt();
+                for (int i = 0; i < entries; i++) {
+                    index.put(input.readLong(), input.readLong());
+                }
+                int collidingEntries = input.readInt();
+                for (int i = 0; i < collidingEntries; i++) {
+                    byte[] keyBytes = new byte[input.readInt()];
+                    input.readFully(keyBytes);
+                    collidingKeys.put(ByteBuffer.wrap(keyBytes), input.readLong());
+                }
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not read index of {}. Rebuilding it.", this, e);
+            resetIndex();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        File indexFile = new File(dir, INDEX_FILE);
+        File tempFile = new File(dir, INDEX_FILE + ".tmp");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(segments.size());
+            for (Segment segment : segments.values()) {
+                output.writeInt(segment.id);
+                output.writeLong(segment.nonce);
+                output.writeLong(segment.size);
+                output.writeLong(segment.records);
+            }
+            output.writeInt(index.size());
+            for (Long2LongMap.Entry entry : index.long2LongEntrySet()) {
+                output.writeLong(entry.getLongKey());
+                output.writeLong(entry.getLongValue());
+            }
+            output.writeInt(collidingKeys.size());
+            for (Map.Entry<ByteBuffer, Long> entry : collidingKeys.entrySet()) {
+                byte[] keyBytes = entry.getKey().array();
+                output.writeInt(keyBytes.length);
+                output.write(keyBytes);
+                output.writeLong(entry.getValue());
+            }
+        } finally {
+            output.close();
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                throw new IOException("Could not write index file " + indexFile);
+            }
+        }
+        unsavedRecords = 0;
+    }
+
+    private void resetIndex() {
+        index.clear();
+        collidingKeys.clear();
+        segments.clear();
+        recordCount = 0;
+        unsavedRecords = 0;
+    }
+
+    @Override
+    @Nullable
+    public V get(K key) {
+        try {
+            byte[] keyBytes = serialize(keySerializer, key);
+            long location = index.get(hash(keyBytes));
+            byte[] valueBytes = location < 0 ? null : readValue(location, keyBytes);
+            if (valueBytes == null && !collidingKeys.isEmpty()) {
+                Long collidingLocation = collidingKeys.get(ByteBuffer.wrap(keyBytes));
+                if (collidingLocation != null) {
+                    valueBytes = readValue(collidingLocation, keyBytes);
+                }
+            }
+            if (valueBytes == null) {
+                return null;
+            }
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(valueBytes)));
+        } catch (CorruptedLogException | EOFException e) {
+            rebuild();
+            return null;
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    /**
+     * Reads the value of the record at the given location, or returns null when the record belongs to a different key with the same hash.
+     */
+    @Nullable
+    private byte[] readValue(long location, byte[] keyBytes) throws IOException {
+        RandomAccessFile file = seek(location);
+        int keyLength = file.readInt();
+        int valueLength = file.readInt();
+        if (keyLength != keyBytes.length) {
+            return null;
+        }
+        byte[] recordKey = new byte[keyLength];
+        file.readFully(recordKey);
+        if (!Arrays.equals(recordKey, keyBytes)) {
+            return null;
+        }
+        if (valueLength < 0 || offsetOf(location) + recordSize(keyLength, valueLength) > file.length()) {
+            throw new CorruptedLogException();
+        }
+        byte[] valueBytes = new byte[valueLength];
+        file.readFully(valueBytes);
+        if (file.readInt() != checksum(new CRC32(), keyLength, valueLength, keyBytes, valueBytes)) {
+            throw new CorruptedLogException();
+        }
+        return valueBytes;
+    }
+
+    /**
+     * Positions the segment file holding the given location at the start of its record.
+     */
+    private RandomAccessFile seek(long location) throws IOException {
+        Segment segment = segments.get(segmentOf(location));
+        if (segment == null || segment.file == null || offsetOf(location) >= segment.size) {
+            throw new CorruptedLogException();
+        }
+        segment.file.seek(offsetOf(location));
+        return segment.file;
+    }
+
+    /**
+     * Returns true when the record at the given location belongs to the given key.
+     */
+    private boolean hasKey(long location, byte[] keyBytes) throws IOException {
+        RandomAccessFile file = seek(location);
+        if (file.readInt() != keyBytes.length) {
+            return false;
+        }
+        file.readInt();
+        byte[] recordKey = new byte[keyBytes.length];
+        file.readFully(recordKey);
+        return Arrays.equals(recordKey, keyBytes);
+    }
+
+    /**
+     * Returns true when the given key is, or can become, the key indexed under its hash.
+     */
+    private boolean ownsHash(long hash, byte[] keyBytes) throws IOException {
+        long location = index.get(hash);
+        return location < 0 || hasKey(location, keyBytes);
+    }
+
+    private void index(long hash, byte[] keyBytes, boolean ownsHash, long location) {
+        if (ownsHash) {
+            index.put(hash, location);
+            if (!collidingKeys.isEmpty()) {
+                collidingKeys.remove(ByteBuffer.wrap(keyBytes));
+            }
+        } else {
+            collidingKeys.put(ByteBuffer.wrap(keyBytes), location);
+        }
+    }
+
+    /**
+     * Removes the given key from the index, returning false when it is not present.
+     */
+    private boolean unindex(long hash, byte[] keyBytes) throws IOException {
+        long location = index.get(hash);
+        if (location >= 0 && hasKey(location, keyBytes)) {
+            index.remove(hash);
+            return true;
+        }
+        return !collidingKeys.isEmpty() && collidingKeys.remove(ByteBuffer.wrap(keyBytes)) != null;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        try {
+            byte[] keyBytes = serialize(keySerializer, key);
+            byte[] valueBytes = serialize(valueSerializer, value);
+            long hash = hash(keyBytes);
+            boolean ownsHash;
+            try {
+                ownsHash = ownsHash(hash, keyBytes);
+            } catch (CorruptedLogException | EOFException e) {
+                rebuild();
+                ownsHash = true;
+            }
+            long location = append(record(keyBytes, valueBytes));
+            index(hash, keyBytes, ownsHash, location);
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        try {
+            byte[] keyBytes = serialize(keySerializer, key);
+            long hash = hash(keyBytes);
+            long location = index.get(hash);
+            boolean present = (location >= 0 && hasKey(location, keyBytes)) || (!collidingKeys.isEmpty() && collidingKeys.containsKey(ByteBuffer.wrap(keyBytes)));
+            if (present) {
+                append(record(keyBytes, null));
+                unindex(hash, keyBytes);
+            }
+        } catch (CorruptedLogException | EOFException e) {
+            rebuild();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    private static byte[] record(byte[] keyBytes, @Nullable byte[] valueBytes) throws IOException {
+        int valueLength = valueBytes == null ? TOMBSTONE : valueBytes.length;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) recordSize(keyBytes.length, valueLength));
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeInt(keyBytes.length);
+        output.writeInt(valueLength);
+        output.write(keyBytes);
+        if (valueBytes != null) {
+            output.write(valueBytes);
+        }
+        output.writeInt(checksum(new CRC32(), keyBytes.length, valueLength, keyBytes, valueBytes == null ? new byte[0] : valueBytes));
+        return buffer.toByteArray();
+    }
+
+    private long append(byte[] record) throws IOException {
+        Segment segment = activeSegment();
+        if (segment.size > SEGMENT_HEADER_SIZE && segment.size + record.length > maxSegmentSize) {
+            startSegment(segment.id + 1);
+            segment = activeSegment();
+        }
+        long offset = segment.size;
+        segment.file.seek(offset);
+        segment.file.write(record);
+        segment.size += record.length;
+        segment.records++;
+        recordCount++;
+        unsavedRecords++;
+        return location(segment.id, offset);
+    }
+
+    private int liveRecordCount() {
+        return index.size() + collidingKeys.size();
+    }
+
+    /**
+     * Returns the proportion of records in the log that are no longer live.
+     */
+    double getStaleRatio() {
+        if (recordCount == 0) {
+            return 0;
+        }
+        return 1 - (double) liveRecordCount() / recordCount;
+    }
+
+    /**
+     * Reclaims the space of stale records when most records are stale, by moving the live records of the oldest segments to the end
+     * of the log and deleting these segments. Each call copies about one segment worth of live records at most, so several calls may
+     * be needed to compact the whole log.
+     */
+    @Override
+    public void compact() {
+        if (getStaleRatio() <= COMPACTION_STALE_RATIO) {
+            return;
+        }
+        try {
+            doCompact();
+        } catch (CorruptedLogException | EOFException e) {
+            rebuild();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not compact %s.", this), e);
+        }
+    }
+
+    private void doCompact() throws IOException {
+        Map<Integer, Long> liveRecords = new HashMap<Integer, Long>();
+        for (Long2LongMap.Entry entry : index.long2LongEntrySet()) {
+            liveRecords.merge(segmentOf(entry.getLongValue()), 1L, Long::sum);
+        }
+        for (long location : collidingKeys.values()) {
+            liveRecords.merge(segmentOf(location), 1L, Long::sum);
+        }
+
+        // Select the oldest segments, until the estimated size of their live records reaches the size of a segment
+        int activeSegment = segments.lastKey();
+        List<Segment> compacted = new ArrayList<Segment>();
+        long liveBytes = 0;
+        for (Segment segment : segments.values()) {
+            if (segment.id == activeSegment) {
+                break;
+            }
+            long segmentLiveBytes = segment.records == 0 ? 0 : (segment.size - SEGMENT_HEADER_SIZE) * liveRecords.getOrDefault(segment.id, 0L) / segment.records;
+            if (!compacted.isEmpty() && liveBytes + segmentLiveBytes > maxSegmentSize) {
+                break;
+            }
+            compacted.add(segment);
+            liveBytes += segmentLiveBytes;
+        }
+        if (compacted.isEmpty()) {
+            return;
+        }
+        int lastCompacted = compacted.get(compacted.size() - 1).id;
+        LOGGER.debug("Compacting {} segments of {} ({} live entries out of {} records)", compacted.size(), this, liveRecordCount(), recordCount);
+
+        Long2LongMap movedEntries = new Long2LongOpenHashMap();
+        for (Long2LongMap.Entry entry : index.long2LongEntrySet()) {
+            if (segmentOf(entry.getLongValue()) <= lastCompacted) {
+                movedEntries.put(entry.getLongKey(), append(readRecord(entry.getLongValue())));
+            }
+        }
+        index.putAll(movedEntries);
+        for (Map.Entry<ByteBuffer, Long> entry : collidingKeys.entrySet()) {
+            if (segmentOf(entry.getValue()) <= lastCompacted) {
+                entry.setValue(append(readRecord(entry.getValue())));
+            }
+        }
+
+        // The moved records must be on disk before the segments that held them are deleted
+        for (Segment segment : segments.tailMap(activeSegment, true).values()) {
+            segment.file.getFD().sync();
+        }
+        for (Segment segment : compacted) {
+            segments.remove(segment.id);
+            segment.file.close();
+            recordCount -= segment.records;
+        }
+        writeIndex();
+        for (Segment segment : compacted) {
+            if (!segmentFile(segment.id).delete()) {
+                LOGGER.debug("Could not delete compacted segment {}", segmentFile(segment.id));
+            }
+        }
+    }
+
+    private byte[] readRecord(long location) throws IOException {
+        RandomAccessFile file = seek(location);
+        int keyLength = file.readInt();
+        int valueLength = file.readInt();
+        if (keyLength < 0 || valueLength < TOMBSTONE || offsetOf(location) + recordSize(keyLength, valueLength) > file.length()) {
+            throw new CorruptedLogException();
+        }
+        byte[] record = new byte[(int) recordSize(keyLength, valueLength)];
+        file.seek(offsetOf(location));
+        file.readFully(record);
+        return record;
+    }
+
+    /**
+     * Discards the whole log after a corrupt record has been found, in the same way as the B-tree store discards a corrupt cache file.
+     * The entries are produced again by the users of the cache.
+     */
+    private void rebuild() {
+        LOGGER.warn("{} is corrupt. Discarding.", this);
+        clear();
+    }
+
+    public void clear() {
+        try {
+            discard();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void discard() throws IOException {
+        closeSegments();
+        resetIndex();
+        FileUtils.cleanDirectory(dir);
+        startSegment(1);
+    }
+
+    /**
+     * Closes the segment files. The index is kept in memory, so that the cache can be reopened cheaply with {@link #reopen()}.
+     */
+    @Override
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        try {
+            if (unsavedRecords >= MIN_RECORDS_TO_SAVE_INDEX) {
+                writeIndex();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not write index of {}.", this, e);
+        } finally {
+            try {
+                closeSegments();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void closeSegments() throws IOException {
+        for (Segment segment : segments.values()) {
+            if (segment.file != null) {
+                segment.file.close();
+                segment.file = null;
+            }
+        }
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @VisibleForTesting
+    long hash(byte[] keyBytes) {
+        return Hashing.murmur3_128().hashBytes(keyBytes).asLong();
+    }
+
+    private static int checksum(CRC32 checksum, int keyLength, int valueLength, byte[] keyBytes, byte[] valueBytes) {
+        checksum.reset();
+        updateInt(checksum, keyLength);
+        updateInt(checksum, valueLength);
+        checksum.update(keyBytes, 0, keyBytes.length);
+        checksum.update(valueBytes, 0, valueBytes.length);
+        return (int) checksum.getValue();
+    }
+
+    private static void updateInt(CRC32 checksum, int value) {
+        checksum.update(value >>> 24);
+        checksum.update(value >>> 16);
+        checksum.update(value >>> 8);
+        checksum.update(value);
+    }
+
+    private static long recordSize(int keyLength, int valueLength) {
+        return RECORD_HEADER_SIZE + (long) keyLength + Math.max(valueLength, 0) + RECORD_TAIL_SIZE;
+    }
+
+    private static long location(int segmentId, long offset) {
+        return ((long) segmentId << OFFSET_BITS) | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> OFFSET_BITS);
+    }
+
+    private static long offsetOf(long location) {
+        return location & OFFSET_MASK;
+    }
+
+    /**
+     * A segment file of the log, with the number of records and the size it had when it was last indexed.
+     */
+    @NonNullApi
+    private static class Segment {
+        private final int id;
+        private final long nonce;
+        private long size = SEGMENT_HEADER_SIZE;
+        private long records;
+        @Nullable
+        private RandomAccessFile file;
+
+        Segment(int id, long nonce) {
+            this.id = id;
+            this.nonce = nonce;
+        }
+    }
+
+    @NonNullApi
+    private static class ReopeningFactory<K, V> implements Supplier<PersistentIndexedCache<K, V>> {
+        private final File dir;
+        private final Serializer<K> keySerializer;
+        private final Serializer<V> valueSerializer;
+        private LogStructuredPersistentIndexedCache<K, V> cache;
+
+        ReopeningFactory(File dir, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+            this.dir = dir;
+            this.keySerializer = keySerializer;
+            this.valueSerializer = valueSerializer;
+        }
+
+        @Override
+        public PersistentIndexedCache<K, V> get() {
+            if (cache == null) {
+                cache = new LogStructuredPersistentIndexedCache<K, V>(dir, keySerializer, valueSerializer);
+            } else {
+                cache.reopen();
+            }
+            return cache;
+        }
+    }
+
+    @NonNullApi
+    private static class CorruptedLogException extends IOException {
+    }
+}
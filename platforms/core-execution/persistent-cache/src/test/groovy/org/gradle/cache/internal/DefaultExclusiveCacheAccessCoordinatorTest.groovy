@@ -51,6 +51,7 @@ class DefaultExclusiveCacheAccessCoordinatorTest extends ConcurrentSpec {
     final File cacheDir = tmpDir.file('caches')
     final FileLock lock = Mock()
     final BTreePersistentIndexedCache<String, Integer> backingCache = Mock()
+    final PersistentIndexedCache<String, Integer> logStructuredCache = Mock()
 
     private DefaultCacheCoordinator newAccess(FileLockManager.LockMode lockMode) {
         new DefaultCacheCoordinator("<display-name>", lockFile, mode(lockMode), cacheDir, lockManager, initializationAction, cleanupExecutor, executorFactory) {
@@ -58,6 +59,11 @@ class DefaultExclusiveCacheAccessCoordinatorTest extends ConcurrentSpec {
             <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
                 return backingCache
             }
+
+            @Override
+            <K, V> Supplier<PersistentIndexedCache<K, V>> doCreateLogStructuredCacheFactory(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+                return { logStructuredCache } as Supplier
+            }
         }
     }
 
@@ -701,6 +707,64 @@ class DefaultExclusiveCacheAccessCoordinatorTest extends ConcurrentSpec {
         1 * cleanupExecutor.cleanup()
     }
 
+    def "compacts log-structured caches in the background when cleaned up"() {
+        def access = newAccess(OnDemand)
+        def compactingThread = null
+
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "", _) >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open()
+        access.newCache(IndexedCacheParameters.of('cache', String.class, Integer.class).withStorageLayout(IndexedCacheParameters.StorageLayout.LOG_STRUCTURED))
+
+        when:
+        access.cleanup()
+        access.close()
+
+        then:
+        1 * cleanupExecutor.cleanup()
+        1 * logStructuredCache.compact() >> { compactingThread = Thread.currentThread() }
+        compactingThread != null
+        compactingThread != Thread.currentThread()
+    }
+
+    def "compacts log-structured caches on close when not cleaned up"() {
+        def access = newAccess(OnDemand)
+
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "", _) >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open()
+        access.newCache(IndexedCacheParameters.of('cache', String.class, Integer.class).withStorageLayout(IndexedCacheParameters.StorageLayout.LOG_STRUCTURED))
+
+        when:
+        access.close()
+
+        then:
+        1 * logStructuredCache.compact()
+
+        then:
+        1 * logStructuredCache.close()
+        1 * lock.close()
+        1 * cleanupExecutor.cleanup()
+    }
+
+    def "does not compact caches with the default storage layout"() {
+        def access = newAccess(OnDemand)
+
+        given:
+        access.open()
+        access.newCache(IndexedCacheParameters.of('cache', String.class, Integer.class))
+
+        when:
+        access.cleanup()
+        access.close()
+
+        then:
+        0 * backingCache.compact()
+        0 * lockManager._
+    }
+
     def "returns the same cache object when using same cache parameters"() {
         def access = newAccess(OnDemand)
 
@@ -192,4 +192,15 @@ class InMemoryDecoratedCacheTest extends ConcurrentSpec {
         instant.one_done > instant.two
         instant.two_done > instant.one
     }
+
+    def "discards about half of the entries when shrunk"() {
+        given:
+        10.times { cache.putLater("key$it", "value", Stub(Runnable)) }
+
+        when:
+        cache.shrinkInMemoryCache()
+
+        then:
+        (0..<10).count { cache.get("key$it") != null } == 5
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileBlockStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheFile = tmpDir.file("cache.bin")
+
+    def "can read and write entries spanning multiple regions"() {
+        given:
+        def cache = mappedCache(64)
+
+        when:
+        (0..<500).each { cache.put("key$it", "value$it" * (it % 7)) }
+
+        then:
+        (0..<500).every { cache.get("key$it") == "value$it" * (it % 7) }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "reads entries written by file backed store"() {
+        given:
+        def fileBacked = cache(new FileBackedBlockStore(cacheFile))
+        (0..<200).each { fileBacked.put("key$it", "value$it") }
+        fileBacked.close()
+
+        when:
+        def mapped = mappedCache(256)
+
+        then:
+        (0..<200).every { mapped.get("key$it") == "value$it" }
+        mapped.get("unknown") == null
+
+        cleanup:
+        mapped?.close()
+    }
+
+    def "sees entries added after the file has been mapped"() {
+        given:
+        def cache = mappedCache(4096)
+        cache.put("first", "1")
+        assert cache.get("first") == "1"
+
+        when:
+        (0..<100).each { cache.put("key$it", "value$it") }
+
+        then:
+        cache.get("first") == "1"
+        (0..<100).every { cache.get("key$it") == "value$it" }
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "file backed store reads entries written by mapped store"() {
+        given:
+        def mapped = mappedCache(128)
+        (0..<200).each { mapped.put("key$it", "value$it") }
+        mapped.close()
+
+        when:
+        def fileBacked = cache(new FileBackedBlockStore(cacheFile))
+
+        then:
+        (0..<200).every { fileBacked.get("key$it") == "value$it" }
+
+        cleanup:
+        fileBacked?.close()
+    }
+
+    def "can clear store"() {
+        given:
+        def cache = mappedCache(64)
+        (0..<50).each { cache.put("key$it", "value$it") }
+
+        when:
+        cache.clear()
+
+        then:
+        cache.get("key1") == null
+
+        when:
+        cache.put("key1", "other")
+
+        then:
+        cache.get("key1") == "other"
+
+        cleanup:
+        cache?.close()
+    }
+
+    private BTreePersistentIndexedCache<String, String> mappedCache(int regionSize) {
+        return cache(new MappedFileBlockStore(cacheFile, regionSize))
+    }
+
+    private BTreePersistentIndexedCache<String, String> cache(BlockStore store) {
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, (short) 4, 100, store)
+    }
+}
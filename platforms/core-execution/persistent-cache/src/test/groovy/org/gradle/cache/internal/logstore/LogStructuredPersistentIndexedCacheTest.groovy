@@ -0,0 +1,315 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstore
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class LogStructuredPersistentIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = tmpDir.file("cache.log")
+    LogStructuredPersistentIndexedCache<String, String> cache
+
+    def cleanup() {
+        cache?.close()
+    }
+
+    def "returns null for unknown entry"() {
+        given:
+        openCache()
+
+        expect:
+        cache.get("unknown") == null
+    }
+
+    def "persists added, updated and removed entries"() {
+        given:
+        openCache()
+        (0..<100).each { cache.put("key$it", "value$it") }
+        cache.put("key1", "updated")
+        cache.remove("key2")
+
+        when:
+        reopenCache()
+
+        then:
+        cache.get("key0") == "value0"
+        cache.get("key1") == "updated"
+        cache.get("key2") == null
+        cache.get("key99") == "value99"
+    }
+
+    def "rebuilds index from segments when index file is missing"() {
+        given:
+        openCache()
+        (0..<100).each { cache.put("key$it", "value$it") }
+        cache.remove("key3")
+        cache.close()
+        cacheDir.file("index.bin").delete()
+
+        when:
+        openCache()
+
+        then:
+        cache.get("key3") == null
+        (0..<100).findAll { it != 3 }.every { cache.get("key$it") == "value$it" }
+    }
+
+    def "picks up entries appended after the index was written"() {
+        given:
+        openCache()
+        cache.put("key1", "value1")
+        cache.close()
+        openCache()
+        cache.put("key2", "value2")
+        // Do not close, so the index is not updated
+
+        when:
+        def other = new LogStructuredPersistentIndexedCache<String, String>(cacheDir, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, 1024)
+
+        then:
+        other.get("key1") == "value1"
+        other.get("key2") == "value2"
+
+        cleanup:
+        other?.close()
+    }
+
+    def "discards incomplete record at end of log"() {
+        given:
+        openCache()
+        cache.put("key1", "value1")
+        cache.close()
+        lastSegment() << ([0, 0, 0, 4, 0, 0] as byte[])
+
+        when:
+        openCache()
+
+        then:
+        cache.get("key1") == "value1"
+
+        when:
+        cache.put("key2", "value2")
+        reopenCache()
+
+        then:
+        cache.get("key1") == "value1"
+        cache.get("key2") == "value2"
+    }
+
+    def "discards log when a record is corrupt"() {
+        given:
+        openCache()
+        cache.put("key1", "value1")
+        cache.put("key2", "value2")
+        corruptFirstValue(lastSegment())
+
+        expect:
+        cache.get("key1") == null
+        cache.get("key2") == null
+
+        when:
+        cache.put("key1", "again")
+        reopenCache()
+
+        then:
+        cache.get("key1") == "again"
+        cache.get("key2") == null
+    }
+
+    def "compaction keeps live entries and removes oldest segments"() {
+        given:
+        openCache()
+        (0..<200).each { cache.put("key$it", "value$it") }
+        (0..<200).each { cache.put("key$it", "other$it") }
+        (0..<100).each { cache.remove("key$it") }
+        def segmentsBefore = segments()
+
+        when:
+        20.times { cache.compact() }
+
+        then:
+        cache.staleRatio <= 0.5
+        segments().every { it.length() <= 1024 }
+        !segmentsBefore.min { segmentId(it) }.exists()
+        (100..<200).every { cache.get("key$it") == "other$it" }
+        cache.get("key1") == null
+
+        when:
+        reopenCache()
+
+        then:
+        (100..<200).every { cache.get("key$it") == "other$it" }
+        cache.get("key1") == null
+
+        when:
+        cacheDir.file("index.bin").delete()
+        reopenCache()
+
+        then:
+        (100..<200).every { cache.get("key$it") == "other$it" }
+        cache.get("key1") == null
+    }
+
+    def "keeps entries whose keys have the same hash"() {
+        given:
+        cache = collidingCache()
+        cache.put("key1", "value1")
+        cache.put("key2", "value2")
+        cache.put("key3", "value3")
+        cache.put("key2", "updated")
+        cache.remove("key1")
+
+        expect:
+        cache.get("key1") == null
+        cache.get("key2") == "updated"
+        cache.get("key3") == "value3"
+
+        when:
+        cache.close()
+        cache = collidingCache()
+
+        then:
+        cache.get("key1") == null
+        cache.get("key2") == "updated"
+        cache.get("key3") == "value3"
+
+        when:
+        cache.put("key1", "again")
+
+        then:
+        cache.get("key1") == "again"
+        cache.get("key2") == "updated"
+    }
+
+    def "reopened cache sees entries written by another instance"() {
+        given:
+        def factory = LogStructuredPersistentIndexedCache.reopeningFactory(cacheDir, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER)
+        def first = factory.get()
+        first.put("key1", "value1")
+        first.put("key2", "value2")
+        first.close()
+        openCache()
+        cache.put("key3", "value3")
+        cache.remove("key1")
+        cache.close()
+
+        when:
+        def reopened = factory.get()
+
+        then:
+        reopened.is(first)
+        reopened.get("key1") == null
+        reopened.get("key2") == "value2"
+        reopened.get("key3") == "value3"
+
+        when:
+        reopened.close()
+        openCache()
+        cache.clear()
+        cache.put("key4", "value4")
+        cache.close()
+        reopened = factory.get()
+
+        then:
+        reopened.get("key2") == null
+        reopened.get("key4") == "value4"
+
+        cleanup:
+        reopened?.close()
+    }
+
+    def "rolls over to new segment when segment is full"() {
+        given:
+        openCache()
+
+        when:
+        (0..<200).each { cache.put("key$it", "value$it") }
+
+        then:
+        segments().size() > 1
+        (0..<200).every { cache.get("key$it") == "value$it" }
+    }
+
+    def "can clear cache"() {
+        given:
+        openCache()
+        cache.put("key1", "value1")
+
+        when:
+        cache.clear()
+
+        then:
+        cache.get("key1") == null
+
+        when:
+        cache.put("key1", "value2")
+        reopenCache()
+
+        then:
+        cache.get("key1") == "value2"
+    }
+
+    private void openCache() {
+        cache = new LogStructuredPersistentIndexedCache<String, String>(cacheDir, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, 1024)
+    }
+
+    private void reopenCache() {
+        cache.close()
+        openCache()
+    }
+
+    private LogStructuredPersistentIndexedCache<String, String> collidingCache() {
+        return new LogStructuredPersistentIndexedCache<String, String>(cacheDir, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, 1024) {
+            @Override
+            long hash(byte[] keyBytes) {
+                return 42
+            }
+        }
+    }
+
+    private List<File> segments() {
+        return cacheDir.listFiles().findAll { it.name.startsWith("segment-") }
+    }
+
+    private File lastSegment() {
+        return segments().max { segmentId(it) }
+    }
+
+    private static void corruptFirstValue(File segment) {
+        def file = new RandomAccessFile(segment, "rw")
+        try {
+            // Skip the segment header and the record header, then the key
+            file.seek(12)
+            def keyLength = file.readInt()
+            file.readInt()
+            file.seek(file.filePointer + keyLength)
+            def value = file.read()
+            file.seek(file.filePointer - 1)
+            file.write(value ^ 0xff)
+        } finally {
+            file.close()
+        }
+    }
+
+    private static int segmentId(File segment) {
+        return (segment.name =~ /\d+/)[0] as int
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the list based and the compact representation of the children of {@link DirectorySnapshot}s
+ * for a tree with a million files.
+ *
+ * The heap retained by the {@link SnapshotHierarchy} is printed at the end of each trial,
+ * the benchmarks measure the cost of looking up and visiting snapshots with each representation.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class SnapshotHierarchyFootprintBenchmark {
+
+    @Param({"list", "compact"})
+    String representation;
+
+    @Param({"1000000"})
+    int fileCount;
+
+    @Param({"100"})
+    int filesPerDirectory;
+
+    SnapshotHierarchy hierarchy;
+    String[] filePaths;
+    long retainedBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        long usedBefore = usedHeapAfterGc();
+        filePaths = new String[fileCount];
+        String rootPath = "/home/user/project";
+        List<FileSystemLocationSnapshot> directories = new ArrayList<>();
+        for (int directory = 0; directory * filesPerDirectory < fileCount; directory++) {
+            String directoryName = "module" + directory;
+            String directoryPath = rootPath + "/" + directoryName;
+            List<FileSystemLocationSnapshot> files = new ArrayList<>();
+            for (int file = 0; file < filesPerDirectory && directory * filesPerDirectory + file < fileCount; file++) {
+                String fileName = String.format("SourceFile%05d.java", file);
+                String filePath = directoryPath + "/" + fileName;
+                // A separate instance, so the path retained by the snapshot is not shared with the benchmark
+                filePaths[directory * filesPerDirectory + file] = directoryPath + "/" + fileName;
+                files.add(new RegularFileSnapshot(filePath, fileName, Hashing.hashString(filePath), DefaultFileMetadata.file(1700000000000L + file, 1000 + file, AccessType.DIRECT)));
+            }
+            directories.add(directory(directoryPath, directoryName, files));
+        }
+        directories.sort((left, right) -> PathUtil.getPathComparator(CaseSensitivity.CASE_SENSITIVE).compare(left.getName(), right.getName()));
+        DirectorySnapshot root = directory(rootPath, "project", directories);
+        hierarchy = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)
+            .store(rootPath, root, SnapshotHierarchy.NodeDiffListener.NOOP);
+        // The paths are only needed by the benchmark, so they do not count as retained by the hierarchy
+        retainedBytes = usedHeapAfterGc() - usedBefore - estimatedSizeOfPaths();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println();
+        System.out.println(representation + ": ~" + retainedBytes / (1024 * 1024) + " MB retained for " + fileCount + " files");
+    }
+
+    @Benchmark
+    public void findSnapshot(Blackhole blackhole) {
+        Random random = new Random(1234L);
+        for (int i = 0; i < 10000; i++) {
+            blackhole.consume(hierarchy.findSnapshot(filePaths[random.nextInt(fileCount)]));
+        }
+    }
+
+    @Benchmark
+    public void visitAll(Blackhole blackhole) {
+        hierarchy.rootSnapshots().forEach(snapshot -> snapshot.accept(new FileSystemSnapshotHierarchyVisitor() {
+            @Override
+            public SnapshotVisitResult visitEntry(FileSystemLocationSnapshot snapshot) {
+                blackhole.consume(snapshot.getHash());
+                return SnapshotVisitResult.CONTINUE;
+            }
+        }));
+    }
+
+    private DirectorySnapshot directory(String path, String name, List<FileSystemLocationSnapshot> children) {
+        HashCode hash = Hashing.hashString(path);
+        List<ChildMap.Entry<FileSystemLocationSnapshot>> entries = children.stream()
+            .map(child -> new ChildMap.Entry<>(child.getName(), child))
+            .collect(Collectors.toList());
+        ChildMap<FileSystemLocationSnapshot> childMap = representation.equals("compact")
+            ? CompactChildMap.fromSorted(path, entries)
+            : ChildMapFactory.childMapFromSorted(entries);
+        return new DirectorySnapshot(path, name, AccessType.DIRECT, hash, childMap);
+    }
+
+    private long estimatedSizeOfPaths() {
+        long size = 16L + 4L * filePaths.length;
+        for (String path : filePaths) {
+            size += 24 + 16 + path.length();
+        }
+        return size;
+    }
+
+    @SuppressWarnings("CallToSystemGC")
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The children of a {@link DirectorySnapshot} with the regular files packed into primitive arrays.
+ *
+ * A {@link RegularFileSnapshot} retains its absolute path, its hash and its metadata as separate objects.
+ * For directories with many files, this map only keeps the name of each file and packs the content hash,
+ * the length, the modification time and the access type into arrays shared by all children.
+ * The absolute path of a file is derived from the path of the directory.
+ * Snapshots of regular files are re-created whenever they are accessed, so they are equal, but not identical between accesses.
+ *
+ * Children other than regular files are kept as they are.
+ */
+public class CompactChildMap implements ChildMap<FileSystemLocationSnapshot> {
+    /**
+     * Below this number of regular files the overhead of the arrays outweighs the savings.
+     */
+    private static final int MINIMUM_REGULAR_FILE_COUNT = 8;
+
+    private final String parentPath;
+    private final String[] names;
+    // Null for regular files packed into the arrays below
+    private final FileSystemLocationSnapshot[] unpackedChildren;
+    private final int hashLength;
+    private final byte[] hashes;
+    private final long[] lengths;
+    private final long[] lastModifiedTimes;
+    private final BitSet accessedViaSymlink;
+
+    private CompactChildMap(
+        String parentPath,
+        String[] names,
+        FileSystemLocationSnapshot[] unpackedChildren,
+        int hashLength,
+        byte[] hashes,
+        long[] lengths,
+        long[] lastModifiedTimes,
+        BitSet accessedViaSymlink
+    ) {
+        this.parentPath = parentPath;
+        this.names = names;
+        this.unpackedChildren = unpackedChildren;
+        this.hashLength = hashLength;
+        this.hashes = hashes;
+        this.lengths = lengths;
+        this.lastModifiedTimes = lastModifiedTimes;
+        this.accessedViaSymlink = accessedViaSymlink;
+    }
+
+    /**
+     * Creates the children for the directory at the given path, using the compact form if the directory contains enough regular files.
+     */
+    public static ChildMap<FileSystemLocationSnapshot> fromSorted(String parentPath, List<Entry<FileSystemLocationSnapshot>> sortedEntries) {
+        int size = sortedEntries.size();
+        int hashLength = -1;
+        int packableCount = 0;
+        boolean[] packable = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Entry<FileSystemLocationSnapshot> entry = sortedEntries.get(i);
+            FileSystemLocationSnapshot child = entry.getValue();
+            if (!isPackable(parentPath, entry.getPath(), child)) {
+                continue;
+            }
+            int childHashLength = child.getHash().length();
+            if (hashLength == -1) {
+                hashLength = childHashLength;
+            } else if (hashLength != childHashLength) {
+                continue;
+            }
+            packable[i] = true;
+            packableCount++;
+        }
+        if (packableCount < MINIMUM_REGULAR_FILE_COUNT) {
+            return ChildMapFactory.childMapFromSorted(sortedEntries);
+        }
+
+        String[] names = new String[size];
+        FileSystemLocationSnapshot[] unpackedChildren = new FileSystemLocationSnapshot[size];
+        byte[] hashes = new byte[size * hashLength];
+        long[] lengths = new long[size];
+        long[] lastModifiedTimes = new long[size];
+        BitSet accessedViaSymlink = new BitSet();
+        for (int i = 0; i < size; i++) {
+            Entry<FileSystemLocationSnapshot> entry = sortedEntries.get(i);
+            names[i] = entry.getPath();
+            if (packable[i]) {
+                RegularFileSnapshot child = (RegularFileSnapshot) entry.getValue();
+                System.arraycopy(child.getHash().toByteArray(), 0, hashes, i * hashLength, hashLength);
+                FileMetadata metadata = child.getMetadata();
+                lengths[i] = metadata.getLength();
+                lastModifiedTimes[i] = metadata.getLastModified();
+                if (metadata.getAccessType() == AccessType.VIA_SYMLINK) {
+                    accessedViaSymlink.set(i);
+                }
+            } else {
+                unpackedChildren[i] = entry.getValue();
+            }
+        }
+        return new CompactChildMap(parentPath, names, unpackedChildren, hashLength, hashes, lengths, lastModifiedTimes, accessedViaSymlink);
+    }
+
+    /**
+     * Returns the children with every child kept as a separate object, for operations relying on the identity of the children.
+     */
+    public static ChildMap<FileSystemLocationSnapshot> expand(ChildMap<FileSystemLocationSnapshot> children) {
+        return children instanceof CompactChildMap
+            ? ((CompactChildMap) children).toListChildMap()
+            : children;
+    }
+
+    private static boolean isPackable(String parentPath, String childPath, FileSystemLocationSnapshot child) {
+        if (!(child instanceof RegularFileSnapshot)) {
+            return false;
+        }
+        // Only the default metadata can be re-created without changing the equality of the snapshot
+        if (((RegularFileSnapshot) child).getMetadata().getClass() != DefaultFileMetadata.class) {
+            return false;
+        }
+        String name = child.getName();
+        String absolutePath = child.getAbsolutePath();
+        return childPath.equals(name)
+            && absolutePath.equals(absolutePath(parentPath, name));
+    }
+
+    private static String absolutePath(String parentPath, String name) {
+        return parentPath.endsWith(File.separator)
+            ? parentPath + name
+            : parentPath + File.separatorChar + name;
+    }
+
+    private FileSystemLocationSnapshot child(int index) {
+        FileSystemLocationSnapshot unpacked = unpackedChildren[index];
+        if (unpacked != null) {
+            return unpacked;
+        }
+        String name = names[index];
+        HashCode hash = HashCode.fromBytes(Arrays.copyOfRange(hashes, index * hashLength, (index + 1) * hashLength));
+        AccessType accessType = accessedViaSymlink.get(index) ? AccessType.VIA_SYMLINK : AccessType.DIRECT;
+        FileMetadata metadata = DefaultFileMetadata.file(lastModifiedTimes[index], lengths[index], accessType);
+        return new RegularFileSnapshot(absolutePath(parentPath, name), name, hash, metadata);
+    }
+
+    private Entry<FileSystemLocationSnapshot> entry(int index) {
+        return new Entry<>(names[index], child(index));
+    }
+
+    private ChildMap<FileSystemLocationSnapshot> toListChildMap() {
+        return ChildMapFactory.childMapFromSorted(stream().collect(Collectors.toList()));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public Stream<Entry<FileSystemLocationSnapshot>> stream() {
+        return IntStream.range(0, names.length)
+            .mapToObj(this::entry);
+    }
+
+    @Override
+    public <RESULT> RESULT withNode(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, NodeHandler<FileSystemLocationSnapshot, RESULT> handler) {
+        int childIndex = SearchUtil.binarySearch(
+            Arrays.asList(names),
+            candidate -> targetPath.compareToFirstSegment(candidate, caseSensitivity)
+        );
+        if (childIndex >= 0) {
+            return entry(childIndex).withNode(targetPath, caseSensitivity, handler);
+        }
+        return handler.handleUnrelatedToAnyChild();
+    }
+
+    @Override
+    public <RESULT> ChildMap<RESULT> invalidate(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, InvalidationHandler<FileSystemLocationSnapshot, RESULT> handler) {
+        return toListChildMap().invalidate(targetPath, caseSensitivity, handler);
+    }
+
+    @Override
+    public ChildMap<FileSystemLocationSnapshot> store(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, StoreHandler<FileSystemLocationSnapshot> storeHandler) {
+        return toListChildMap().store(targetPath, caseSensitivity, storeHandler);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CompactChildMap that = (CompactChildMap) o;
+
+        return parentPath.equals(that.parentPath)
+            && hashLength == that.hashLength
+            && Arrays.equals(names, that.names)
+            && Arrays.equals(unpackedChildren, that.unpackedChildren)
+            && Arrays.equals(hashes, that.hashes)
+            && Arrays.equals(lengths, that.lengths)
+            && Arrays.equals(lastModifiedTimes, that.lastModifiedTimes)
+            && accessedViaSymlink.equals(that.accessedViaSymlink);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = parentPath.hashCode();
+        result = 31 * result + Arrays.hashCode(names);
+        result = 31 * result + Arrays.hashCode(hashes);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return stream().collect(Collectors.toList()).toString();
+    }
+}
@@ -72,7 +72,10 @@ protected Optional<DirectorySnapshot> relocateDirectAccess(String targetPath, St
         if (alreadyFoundASymlink.get()) {
             return Optional.empty();
         }
-        return Optional.of(new DirectorySnapshot(targetPath, name, getAccessType(), contentHash, childMapFromSorted(relocatedChildren.build())));
+        ChildMap<FileSystemLocationSnapshot> relocatedChildMap = children instanceof CompactChildMap
+            ? CompactChildMap.fromSorted(targetPath, relocatedChildren.build())
+            : childMapFromSorted(relocatedChildren.build());
+        return Optional.of(new DirectorySnapshot(targetPath, name, getAccessType(), contentHash, relocatedChildMap));
     }
 
     @Override
@@ -174,6 +177,8 @@ protected FileSystemNode getChildNode(VfsRelativePath targetPath, CaseSensitivit
 
     @Override
     public Optional<FileSystemNode> invalidate(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, SnapshotHierarchy.NodeDiffListener diffListener) {
+        // The handler below relies on the identity of the children
+        ChildMap<FileSystemLocationSnapshot> children = CompactChildMap.expand(this.children);
         ChildMap<FileSystemNode> newChildren = children.invalidate(targetPath, caseSensitivity, new ChildMap.InvalidationHandler<FileSystemLocationSnapshot, FileSystemNode>() {
             @Override
             public Optional<FileSystemNode> handleAsDescendantOfChild(VfsRelativePath pathInChild, FileSystemLocationSnapshot child) {
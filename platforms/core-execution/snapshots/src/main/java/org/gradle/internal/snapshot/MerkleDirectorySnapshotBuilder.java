@@ -26,6 +26,7 @@
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.gradle.internal.snapshot.DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.EXCLUDE_EMPTY_DIRS;
 
@@ -36,24 +37,35 @@
  * For the hash to be reproducible, the children must be sorted in a consistent order.
  * The implementation uses {@link FileSystemLocationSnapshot#BY_NAME} ordering.
  * If you already provide the children in sorted order, use {@link #noSortingRequired()} to avoid the overhead of sorting again.
+ * Use {@link #sortingRequired(boolean)} to pack the regular file children of the built directories into a {@link CompactChildMap}.
  */
 public class MerkleDirectorySnapshotBuilder implements DirectorySnapshotBuilder {
     private static final HashCode DIR_SIGNATURE = Hashing.signature("DIR");
 
     private final Deque<Directory> directoryStack = new ArrayDeque<>();
     private final boolean sortingRequired;
+    private final boolean compactChildren;
     private FileSystemLocationSnapshot result;
 
     public static DirectorySnapshotBuilder sortingRequired() {
         return new MerkleDirectorySnapshotBuilder(true);
     }
 
+    public static DirectorySnapshotBuilder sortingRequired(boolean compactChildren) {
+        return new MerkleDirectorySnapshotBuilder(true, compactChildren);
+    }
+
     public static DirectorySnapshotBuilder noSortingRequired() {
         return new MerkleDirectorySnapshotBuilder(false);
     }
 
     protected MerkleDirectorySnapshotBuilder(boolean sortingRequired) {
+        this(sortingRequired, false);
+    }
+
+    protected MerkleDirectorySnapshotBuilder(boolean sortingRequired, boolean compactChildren) {
         this.sortingRequired = sortingRequired;
+        this.compactChildren = compactChildren;
     }
 
     @Override
@@ -128,6 +140,12 @@ public DirectorySnapshot fold() {
                 hasher.putString(child.getName());
                 hasher.putHash(child.getHash());
             }
+            if (compactChildren) {
+                List<ChildMap.Entry<FileSystemLocationSnapshot>> entries = children.stream()
+                    .map(child -> new ChildMap.Entry<>(child.getName(), child))
+                    .collect(Collectors.toList());
+                return new DirectorySnapshot(absolutePath, name, accessType, hasher.hash(), CompactChildMap.fromSorted(absolutePath, entries));
+            }
             return new DirectorySnapshot(absolutePath, name, accessType, hasher.hash(), children);
         }
     }
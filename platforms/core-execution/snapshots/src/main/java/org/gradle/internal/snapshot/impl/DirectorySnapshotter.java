@@ -17,10 +17,12 @@
 package org.gradle.internal.snapshot.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.gradle.internal.file.FileMetadata;
 import org.gradle.internal.file.FileMetadata.AccessType;
 import org.gradle.internal.file.FileType;
@@ -56,9 +58,13 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import static org.gradle.internal.snapshot.DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS;
 
@@ -89,12 +95,31 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final Executor hashingExecutor;
+    private final boolean compactChildren;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null, false);
+    }
+
+    /**
+     * Creates a snapshotter which hashes the files of a directory concurrently on the given executor, if any.
+     *
+     * The directory is still walked on the calling thread. Building the snapshot is deferred until the walk finished and
+     * all files have been hashed, and then replays the same steps as a sequential walk, so the resulting snapshots are the same.
+     * Only files whose hash is not already known to the hasher are submitted to the executor.
+     * The executor does not need to run every submitted task: tasks it has not started by the time the walk finished are run by the calling thread.
+     *
+     * With {@code compactChildren}, the regular file children of the snapshotted directories are packed into a {@link org.gradle.internal.snapshot.CompactChildMap}.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable Executor hashingExecutor, boolean compactChildren) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.hashingExecutor = hashingExecutor;
+        this.compactChildren = compactChildren;
     }
 
     /**
@@ -122,7 +147,7 @@ public FileSystemLocationSnapshot snapshot(
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, hashingExecutor, compactChildren, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             FileSystemLocationSnapshot result = visitor.getResult();
             if (!hasBeenFiltered.get()) {
@@ -259,6 +284,12 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
         private final AtomicBoolean hasBeenFiltered;
         private final FileHasher hasher;
+        @Nullable
+        private final Executor hashingExecutor;
+        private final boolean compactChildren;
+        // Calls to the builder waiting for files to be hashed, null when hashing on the walking thread
+        @Nullable
+        private final List<Runnable> deferredBuilderCalls;
         private final Interner<String> stringInterner;
         private final DefaultExcludes defaultExcludes;
         private final SymbolicLinkMapping symbolicLinkMapping;
@@ -271,6 +302,8 @@ public PathVisitor(
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
             AtomicBoolean hasBeenFiltered,
             FileHasher hasher,
+            @Nullable Executor hashingExecutor,
+            boolean compactChildren,
             Interner<String> stringInterner,
             DefaultExcludes defaultExcludes,
             DirectorySnapshotterStatistics.Collector statisticsCollector,
@@ -279,10 +312,13 @@ public PathVisitor(
             Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
         ) {
             super(statisticsCollector);
-            this.builder = FilteredTrackingMerkleDirectorySnapshotBuilder.sortingRequired(this::recordUnfilteredSnapshot);
+            this.builder = FilteredTrackingMerkleDirectorySnapshotBuilder.sortingRequired(this::recordUnfilteredSnapshot, compactChildren);
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
             this.hasher = hasher;
+            this.hashingExecutor = hashingExecutor;
+            this.compactChildren = compactChildren;
+            this.deferredBuilderCalls = hashingExecutor == null ? null : new ArrayList<>();
             this.stringInterner = stringInterner;
             this.defaultExcludes = defaultExcludes;
             this.symbolicLinkMapping = symbolicLinkMapping;
@@ -290,6 +326,17 @@ public PathVisitor(
             this.unfilteredSnapshotRecorder = unfilteredSnapshotRecorder;
         }
 
+        /**
+         * Runs the given call to the builder, or defers it until all files have been hashed.
+         */
+        private void build(Runnable builderCall) {
+            if (deferredBuilderCalls == null) {
+                builderCall.run();
+            } else {
+                deferredBuilderCalls.add(builderCall);
+            }
+        }
+
         private void recordUnfilteredSnapshot(FileSystemLocationSnapshot snapshot) {
             if (snapshot.getType() != FileType.Directory || !filteredDirectorySnapshots.contains(snapshot)) {
                 unfilteredSnapshotRecorder.accept(snapshot);
@@ -307,7 +354,7 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
                 if (predicate == null) {
                     FileSystemLocationSnapshot previouslyKnownSnapshot = previouslyKnownSnapshots.get(internedRemappedAbsolutePath);
                     if (previouslyKnownSnapshot instanceof DirectorySnapshot) {
-                        builder.visitDirectory((DirectorySnapshot) previouslyKnownSnapshot);
+                        build(() -> builder.visitDirectory((DirectorySnapshot) previouslyKnownSnapshot));
                         pathTracker.leave();
                         return FileVisitResult.SKIP_SUBTREE;
                     } else if (previouslyKnownSnapshot != null) {
@@ -315,7 +362,7 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
                     }
                 }
 
-                builder.enterDirectory(AccessType.DIRECT, internedRemappedAbsolutePath, fileName, INCLUDE_EMPTY_DIRS);
+                build(() -> builder.enterDirectory(AccessType.DIRECT, internedRemappedAbsolutePath, fileName, INCLUDE_EMPTY_DIRS));
                 parentDirectories.addFirst(dir.toString());
                 return FileVisitResult.CONTINUE;
             } else {
@@ -333,11 +380,13 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
-            boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
-            FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
-            if (!currentLevelComplete) {
-                filteredDirectorySnapshots.add(currentLevel);
-            }
+            build(() -> {
+                boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
+                FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
+                if (!currentLevelComplete) {
+                    filteredDirectorySnapshots.add(currentLevel);
+                }
+            });
             parentDirectories.removeFirst();
             return FileVisitResult.CONTINUE;
         }
@@ -360,11 +409,15 @@ protected FileVisitResult doVisitFile(Path file, BasicFileAttributes attrs) {
                                 targetSnapshot.getHash(),
                                 targetSnapshot.getChildren()
                             );
-                            builder.visitDirectory(directorySnapshotAccessedViaSymlink);
                             boolean symlinkFiltered = symlinkHasBeenFiltered.get();
+                            build(() -> {
+                                builder.visitDirectory(directorySnapshotAccessedViaSymlink);
+                                if (symlinkFiltered) {
+                                    filteredDirectorySnapshots.add(directorySnapshotAccessedViaSymlink);
+                                    builder.markCurrentLevelAsFiltered();
+                                }
+                            });
                             if (symlinkFiltered) {
-                                filteredDirectorySnapshots.add(directorySnapshotAccessedViaSymlink);
-                                builder.markCurrentLevelAsFiltered();
                                 hasBeenFiltered.set(true);
                             }
                         }
@@ -390,6 +443,8 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         predicate,
                         symlinkHasBeenFiltered,
                         hasher,
+                        hashingExecutor,
+                        compactChildren,
                         stringInterner,
                         defaultExcludes,
                         collector,
@@ -413,7 +468,8 @@ private boolean introducesCycle(String targetDirString) {
         private void visitResolvedFile(Path file, BasicFileAttributes targetAttributes, AccessType accessType) {
             String internedName = intern(file.getFileName().toString());
             if (shouldVisitFile(file, internedName)) {
-                builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                Supplier<FileSystemLeafSnapshot> snapshot = snapshotFile(file, internedName, targetAttributes, accessType);
+                build(() -> builder.visitLeafElement(snapshot.get()));
             }
         }
 
@@ -435,25 +491,50 @@ private static BasicFileAttributes readAttributesOfSymlinkTarget(Path symlink, B
             }
         }
 
-        private FileSystemLeafSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
+        /**
+         * Snapshots the file, hashing it on the hashing executor if there is one and its hash is not known yet.
+         */
+        private Supplier<FileSystemLeafSnapshot> snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
             String internedRemappedAbsoluteFilePath = intern(symbolicLinkMapping.remapAbsolutePath(absoluteFilePath));
             FileSystemLocationSnapshot previouslyKnownSnapshot = previouslyKnownSnapshots.get(internedRemappedAbsoluteFilePath);
             if (previouslyKnownSnapshot != null) {
                 if (!(previouslyKnownSnapshot instanceof FileSystemLeafSnapshot)) {
                     throw new IllegalStateException("Expected a previously known leaf snapshot at " + internedRemappedAbsoluteFilePath + ", but found " + previouslyKnownSnapshot);
                 }
-                return (FileSystemLeafSnapshot) previouslyKnownSnapshot;
+                return () -> (FileSystemLeafSnapshot) previouslyKnownSnapshot;
             }
             if (attrs.isSymbolicLink()) {
-                return new MissingFileSnapshot(internedRemappedAbsoluteFilePath, internedName, accessType);
+                MissingFileSnapshot missingFileSnapshot = new MissingFileSnapshot(internedRemappedAbsoluteFilePath, internedName, accessType);
+                return () -> missingFileSnapshot;
             } else if (!attrs.isRegularFile()) {
                 throw new UncheckedIOException(new IOException(String.format("Cannot snapshot %s: not a regular file", internedRemappedAbsoluteFilePath)));
             }
             long lastModified = attrs.lastModifiedTime().toMillis();
             long fileLength = attrs.size();
             FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
-            HashCode hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
-            return new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, hash, metadata);
+            File file = absoluteFilePath.toFile();
+            HashCode knownHash = hashingExecutor == null ? null : hasher.hashIfKnown(file, fileLength, lastModified);
+            if (hashingExecutor == null || knownHash != null) {
+                HashCode hash = knownHash != null ? knownHash : hasher.hash(file, fileLength, lastModified);
+                RegularFileSnapshot regularFileSnapshot = new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, hash, metadata);
+                return () -> regularFileSnapshot;
+            }
+            FutureTask<HashCode> hash = new FutureTask<>(() -> hasher.hash(file, fileLength, lastModified));
+            hashingExecutor.execute(hash);
+            return () -> new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, join(hash), metadata);
+        }
+
+        /**
+         * Waits for the hash, computing it on the current thread if the hashing executor did not start it yet.
+         */
+        private static HashCode join(FutureTask<HashCode> hash) {
+            hash.run();
+            try {
+                return Uninterruptibles.getUninterruptibly(hash);
+            } catch (ExecutionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new RuntimeException(e.getCause());
+            }
         }
 
         /**
@@ -506,7 +587,7 @@ private boolean shouldVisit(Path path, String internedName, boolean isDirectory)
             }
             boolean allowed = predicate.test(path, internedName, isDirectory, symbolicLinkMapping.getRemappedSegments(pathTracker.getSegments()));
             if (!allowed) {
-                builder.markCurrentLevelAsFiltered();
+                build(builder::markCurrentLevelAsFiltered);
                 hasBeenFiltered.set(true);
             }
             return allowed;
@@ -518,6 +599,10 @@ private String getInternedFileName(Path dir) {
         }
 
         public FileSystemLocationSnapshot getResult() {
+            if (deferredBuilderCalls != null) {
+                deferredBuilderCalls.forEach(Runnable::run);
+                deferredBuilderCalls.clear();
+            }
             return builder.getResult();
         }
     }
@@ -45,11 +45,15 @@ public class FilteredTrackingMerkleDirectorySnapshotBuilder implements Directory
     private final DirectorySnapshotBuilder delegate;
 
     public static FilteredTrackingMerkleDirectorySnapshotBuilder sortingRequired(Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer) {
-        return new FilteredTrackingMerkleDirectorySnapshotBuilder(unfilteredSnapshotConsumer);
+        return sortingRequired(unfilteredSnapshotConsumer, false);
     }
 
-    private FilteredTrackingMerkleDirectorySnapshotBuilder(Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder) {
-        this.delegate = MerkleDirectorySnapshotBuilder.sortingRequired();
+    public static FilteredTrackingMerkleDirectorySnapshotBuilder sortingRequired(Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer, boolean compactChildren) {
+        return new FilteredTrackingMerkleDirectorySnapshotBuilder(unfilteredSnapshotConsumer, compactChildren);
+    }
+
+    private FilteredTrackingMerkleDirectorySnapshotBuilder(Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder, boolean compactChildren) {
+        this.delegate = MerkleDirectorySnapshotBuilder.sortingRequired(compactChildren);
         this.unfilteredSnapshotRecorder = unfilteredSnapshotRecorder;
         // The root starts out as unfiltered.
         isCurrentLevelUnfiltered.addLast(true);
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs.impl;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
+import org.gradle.internal.snapshot.VfsRelativePath;
+import org.gradle.internal.vfs.VirtualFileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps the regular file snapshots of a {@link VirtualFileSystem} across processes.
+ *
+ * When closed, the regular file snapshots in the virtual file system are stored in a file, if a hasher has been {@link #decorate(FileHasher, TimestampInspector) decorated}.
+ * A later process restores them on first use, but does not add them to its own virtual file system,
+ * as the file system may have changed in between.
+ * Instead, the content hash of a restored regular file snapshot is reused by the {@link FileHasher} returned from {@link #decorate(FileHasher, TimestampInspector)}
+ * when the length and the modification time of the file still match the restored ones.
+ * This means unchanged files do not need to be hashed again after the process restarted, while the structure of the file system
+ * is still discovered by the usual snapshotting.
+ *
+ * The restored snapshots are only useful until the virtual file system has been populated again, so they are discarded via {@link #discardRestored()}.
+ * When several processes share the same file, the last one to close wins.
+ */
+public class PersistentSnapshotHierarchy implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentSnapshotHierarchy.class);
+
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Files modified shortly before the snapshots were stored may be modified again without a change to their modification time,
+     * given the coarse timestamp granularity of some file systems. Content hashes are not reused for such files.
+     */
+    private static final long TIMESTAMP_GRANULARITY_MILLIS = 2000;
+
+    private final File stateFile;
+    private final CaseSensitivity caseSensitivity;
+    private final VirtualFileSystem virtualFileSystem;
+    private final AtomicLong reusedHashes = new AtomicLong();
+    private volatile boolean used;
+
+    private final Object restoreLock = new Object();
+    private volatile boolean restored;
+    // Null when nothing could be restored or when the restored snapshots have been discarded
+    @Nullable
+    private volatile SnapshotHierarchy restoredHierarchy;
+    private volatile long trustedModificationTimesBefore;
+
+    public PersistentSnapshotHierarchy(File stateFile, CaseSensitivity caseSensitivity, VirtualFileSystem virtualFileSystem) {
+        this.stateFile = stateFile;
+        this.caseSensitivity = caseSensitivity;
+        this.virtualFileSystem = virtualFileSystem;
+    }
+
+    /**
+     * Returns a hasher that reuses restored content hashes of unchanged files, and delegates to the given hasher otherwise.
+     * A restored hash is only reused when the given inspector accepts the modification time of the file.
+     *
+     * The snapshots of the virtual file system are only stored when closing after this method has been called.
+     */
+    public FileHasher decorate(FileHasher delegate, TimestampInspector timestampInspector) {
+        used = true;
+        return new RestoringFileHasher(delegate, timestampInspector);
+    }
+
+    /**
+     * Returns the restored content hash of the regular file at the given location, if the file did not change since its snapshot was stored.
+     */
+    @Nullable
+    public HashCode findRestoredContentHash(String absolutePath, long length, long lastModified) {
+        SnapshotHierarchy hierarchy = restoredHierarchy();
+        if (hierarchy == null || lastModified >= trustedModificationTimesBefore) {
+            return null;
+        }
+        return hierarchy.findSnapshot(absolutePath)
+            .filter(RegularFileSnapshot.class::isInstance)
+            .map(RegularFileSnapshot.class::cast)
+            .filter(snapshot -> snapshot.getMetadata().getLength() == length && snapshot.getMetadata().getLastModified() == lastModified)
+            .map(snapshot -> {
+                reusedHashes.incrementAndGet();
+                return snapshot.getHash();
+            })
+            .orElse(null);
+    }
+
+    /**
+     * Drops the restored snapshots, once the virtual file system does not need them anymore.
+     * Does nothing until a hasher has been decorated, so that the snapshots are kept for the first build that uses them.
+     */
+    public void discardRestored() {
+        if (!used) {
+            return;
+        }
+        synchronized (restoreLock) {
+            if (restoredHierarchy != null) {
+                LOGGER.debug("Discarding restored file system snapshots, reused {} content hashes", reusedHashes.get());
+            }
+            restored = true;
+            restoredHierarchy = null;
+        }
+    }
+
+    @Nullable
+    private SnapshotHierarchy restoredHierarchy() {
+        if (!restored) {
+            synchronized (restoreLock) {
+                if (!restored) {
+                    restore();
+                    restored = true;
+                }
+            }
+        }
+        return restoredHierarchy;
+    }
+
+    private void restore() {
+        if (!stateFile.isFile()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return;
+            }
+            trustedModificationTimesBefore = input.readLong() - TIMESTAMP_GRANULARITY_MILLIS;
+            SnapshotHierarchy hierarchy = DefaultSnapshotHierarchy.empty(caseSensitivity);
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                RegularFileSnapshot snapshot = readSnapshot(input);
+                hierarchy = hierarchy.store(snapshot.getAbsolutePath(), snapshot, SnapshotHierarchy.NodeDiffListener.NOOP);
+            }
+            restoredHierarchy = hierarchy;
+            LOGGER.debug("Restored file system snapshots from {}", stateFile);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not restore file system snapshots from {}", stateFile, e);
+        }
+    }
+
+    private static RegularFileSnapshot readSnapshot(DataInputStream input) throws IOException {
+        String absolutePath = input.readUTF();
+        AccessType accessType = AccessType.values()[input.readByte()];
+        byte[] hash = new byte[input.readUnsignedByte()];
+        input.readFully(hash);
+        long length = input.readLong();
+        long lastModified = input.readLong();
+        String name = absolutePath.substring(absolutePath.lastIndexOf(File.separatorChar) + 1);
+        return new RegularFileSnapshot(absolutePath, name, HashCode.fromBytes(hash), DefaultFileMetadata.file(lastModified, length, accessType));
+    }
+
+    /**
+     * Stores the regular file snapshots of the virtual file system, unless there are none or no hasher has been decorated.
+     */
+    @Override
+    public void close() {
+        discardRestored();
+        if (!used) {
+            return;
+        }
+        List<RegularFileSnapshot> regularFiles = new ArrayList<>();
+        virtualFileSystem.findRootSnapshotsUnder(VfsRelativePath.ROOT).forEach(root -> root.accept(snapshot -> {
+            // Missing files and entries that cannot be read, for example broken symlinks, have no content hash to keep
+            if (snapshot instanceof RegularFileSnapshot) {
+                regularFiles.add((RegularFileSnapshot) snapshot);
+            }
+            return SnapshotVisitResult.CONTINUE;
+        }));
+        if (regularFiles.isEmpty()) {
+            // Keep what has been stored before, the virtual file system of this process did not retain anything
+            return;
+        }
+        try {
+            store(regularFiles, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not store file system snapshots to {}", stateFile, e);
+        }
+    }
+
+    private void store(List<RegularFileSnapshot> regularFiles, long timestamp) throws IOException {
+        File parentDir = stateFile.getParentFile();
+        Files.createDirectories(parentDir.toPath());
+        // Write to a temporary file first, so that a process reading the snapshots never sees a partially written file
+        File tempFile = File.createTempFile(stateFile.getName(), ".tmp", parentDir);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(timestamp);
+                output.writeInt(regularFiles.size());
+                for (RegularFileSnapshot snapshot : regularFiles) {
+                    writeSnapshot(output, snapshot);
+                }
+            }
+            Files.move(tempFile.toPath(), stateFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static void writeSnapshot(DataOutputStream output, RegularFileSnapshot snapshot) throws IOException {
+        output.writeUTF(snapshot.getAbsolutePath());
+        output.writeByte(snapshot.getAccessType().ordinal());
+        byte[] hash = snapshot.getHash().toByteArray();
+        output.writeByte(hash.length);
+        output.write(hash);
+        FileMetadata metadata = snapshot.getMetadata();
+        output.writeLong(metadata.getLength());
+        output.writeLong(metadata.getLastModified());
+    }
+
+    /**
+     * Decides whether the modification time of a file can be trusted to detect a change of its content.
+     */
+    @FunctionalInterface
+    public interface TimestampInspector {
+        boolean timestampCanBeUsedToDetectFileChange(String absolutePath, long lastModified);
+    }
+
+    private class RestoringFileHasher implements FileHasher {
+        private final FileHasher delegate;
+        private final TimestampInspector timestampInspector;
+
+        RestoringFileHasher(FileHasher delegate, TimestampInspector timestampInspector) {
+            this.delegate = delegate;
+            this.timestampInspector = timestampInspector;
+        }
+
+        @Override
+        public HashCode hash(File file) {
+            return delegate.hash(file);
+        }
+
+        @Override
+        public HashCode hash(File file, long length, long lastModified) {
+            HashCode restoredHash = restoredContentHash(file, length, lastModified);
+            return restoredHash != null
+                ? restoredHash
+                : delegate.hash(file, length, lastModified);
+        }
+
+        @Nullable
+        @Override
+        public HashCode hashIfKnown(File file, long length, long lastModified) {
+            HashCode restoredHash = restoredContentHash(file, length, lastModified);
+            return restoredHash != null
+                ? restoredHash
+                : delegate.hashIfKnown(file, length, lastModified);
+        }
+
+        @Nullable
+        private HashCode restoredContentHash(File file, long length, long lastModified) {
+            String absolutePath = file.getAbsolutePath();
+            return timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, lastModified)
+                ? findRestoredContentHash(absolutePath, length, lastModified)
+                : null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
+import spock.lang.Specification
+
+import static org.gradle.internal.snapshot.CaseSensitivity.CASE_SENSITIVE
+
+class CompactChildMapTest extends Specification {
+    def parentPath = new File("/root/dir").absolutePath
+
+    def "packs directories with many regular files"() {
+        def children = regularFiles(20) + [directory("sub")]
+
+        when:
+        def childMap = CompactChildMap.fromSorted(parentPath, entries(children))
+
+        then:
+        childMap instanceof CompactChildMap
+        childMap.size() == 21
+        childMap.stream().collect { it.value } == children
+        childMap.stream().collect { it.path } == children*.name
+    }
+
+    def "does not pack directories with few regular files"() {
+        expect:
+        !(CompactChildMap.fromSorted(parentPath, entries(regularFiles(3))) instanceof CompactChildMap)
+    }
+
+    def "re-creates regular file snapshots with their metadata"() {
+        def file = new RegularFileSnapshot(childPath("file"), "file", TestHashCodes.hashCodeFrom(42), DefaultFileMetadata.file(1234, 5678, FileMetadata.AccessType.VIA_SYMLINK))
+        def children = [file] + regularFiles(10)
+        def directory = compactDirectory(children)
+
+        when:
+        def found = directory.getSnapshot(pathInParent(file.absolutePath), CASE_SENSITIVE).get() as RegularFileSnapshot
+
+        then:
+        found == file
+        found.isContentAndMetadataUpToDate(file)
+        found.metadata.accessType == FileMetadata.AccessType.VIA_SYMLINK
+        found.metadata.length == 5678
+        found.metadata.lastModified == 1234
+    }
+
+    def "invalidating a packed child reports the other children as added"() {
+        def children = regularFiles(12)
+        def directory = compactDirectory(children)
+        def removedNodes = []
+        def addedNodes = []
+        def diffListener = new SnapshotHierarchy.NodeDiffListener() {
+            @Override
+            void nodeRemoved(FileSystemNode node) {
+                removedNodes.add(node)
+            }
+
+            @Override
+            void nodeAdded(FileSystemNode node) {
+                addedNodes.add(node)
+            }
+        }
+
+        when:
+        def invalidated = directory.invalidate(pathInParent(children[5].absolutePath), CASE_SENSITIVE, diffListener).get()
+
+        then:
+        removedNodes == [directory]
+        addedNodes == children - [children[5]]
+        invalidated.getSnapshot(pathInParent(children[4].absolutePath), CASE_SENSITIVE).get() == children[4]
+        !invalidated.getSnapshot(pathInParent(children[5].absolutePath), CASE_SENSITIVE).present
+    }
+
+    def "builder only packs children when asked to"() {
+        def children = regularFiles(10)
+
+        expect:
+        build(MerkleDirectorySnapshotBuilder.sortingRequired(true), children).children == children
+        childMapOf(build(MerkleDirectorySnapshotBuilder.sortingRequired(true), children)) instanceof CompactChildMap
+        !(childMapOf(build(MerkleDirectorySnapshotBuilder.sortingRequired(), children)) instanceof CompactChildMap)
+    }
+
+    def "relocating keeps the compact form"() {
+        def directory = compactDirectory(regularFiles(10))
+        def targetPath = new File("/other/dir").absolutePath
+
+        when:
+        def relocated = directory.relocate(targetPath, new StringInterner()).get() as DirectorySnapshot
+
+        then:
+        childMapOf(relocated) instanceof CompactChildMap
+        relocated.children*.absolutePath == regularFiles(10).collect { targetPath + File.separator + it.name }
+    }
+
+    private DirectorySnapshot compactDirectory(List<FileSystemLocationSnapshot> children) {
+        new DirectorySnapshot(parentPath, "dir", FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), CompactChildMap.fromSorted(parentPath, entries(children)))
+    }
+
+    private DirectorySnapshot build(DirectorySnapshotBuilder builder, List<FileSystemLocationSnapshot> children) {
+        builder.enterDirectory(FileMetadata.AccessType.DIRECT, parentPath, "dir", DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS)
+        children.each { builder.visitLeafElement(it as FileSystemLeafSnapshot) }
+        builder.leaveDirectory()
+        builder.result as DirectorySnapshot
+    }
+
+    private static ChildMap<FileSystemLocationSnapshot> childMapOf(DirectorySnapshot directory) {
+        directory.@children as ChildMap<FileSystemLocationSnapshot>
+    }
+
+    private List<FileSystemLocationSnapshot> regularFiles(int count) {
+        (0..<count).collect { String.format("file%03d.txt", it) }.collect { name ->
+            new RegularFileSnapshot(childPath(name), name, TestHashCodes.hashCodeFrom(name.hashCode()), DefaultFileMetadata.file(100 + name.length(), 200, FileMetadata.AccessType.DIRECT))
+        }
+    }
+
+    private FileSystemLocationSnapshot directory(String name) {
+        new DirectorySnapshot(childPath(name), name, FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1234), [])
+    }
+
+    private VfsRelativePath pathInParent(String absolutePath) {
+        VfsRelativePath.of(absolutePath).pathFromChild(VfsRelativePath.of(parentPath).asString)
+    }
+
+    private String childPath(String name) {
+        parentPath + File.separator + name
+    }
+
+    private static List<ChildMap.Entry<FileSystemLocationSnapshot>> entries(List<FileSystemLocationSnapshot> children) {
+        children.collect { new ChildMap.Entry<FileSystemLocationSnapshot>(it.name, it) }
+    }
+}
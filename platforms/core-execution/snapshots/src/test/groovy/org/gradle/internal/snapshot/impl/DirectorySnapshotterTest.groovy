@@ -23,6 +23,7 @@ import org.gradle.api.tasks.util.PatternSet
 import org.gradle.internal.file.FileMetadata
 import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.fingerprint.impl.PatternSetSnapshottingFilter
+import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.TestFileHasher
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.snapshot.DirectorySnapshot
@@ -42,6 +43,8 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 import java.util.function.Consumer
 
 @UsesNativeServices
@@ -530,6 +533,62 @@ class DirectorySnapshotterTest extends Specification {
         pipe.delete()
     }
 
+    def "hashing files concurrently produces the same snapshots #description"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..5).each { dir ->
+            (1..20).each { file ->
+                rootDir.file("dir${dir}/sub/file${file}.${file % 2 == 0 ? 'txt' : 'html'}") << "content ${dir} ${file}"
+            }
+        }
+        rootDir.file("empty").createDir()
+        def predicate = patterns == null ? null : directoryWalkerPredicate(patterns)
+        def executor = Executors.newFixedThreadPool(4)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, executor, false)
+        List<FileSystemLocationSnapshot> parallelUnfilteredSubsnapshots = []
+
+        when:
+        def snapshot = directorySnapshotter.snapshot(rootDir.absolutePath, predicate, [:], unfilteredSubSnapshotsCollector)
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, predicate, [:]) { parallelUnfilteredSubsnapshots.add(it) }
+
+        then:
+        parallelSnapshot.hash == snapshot.hash
+        SnapshotVisitorUtil.getRelativePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getRelativePaths(snapshot, true)
+        parallelUnfilteredSubsnapshots*.absolutePath as Set == unfilteredSubsnapshots*.absolutePath as Set
+        parallelUnfilteredSubsnapshots*.hash as Set == unfilteredSubsnapshots*.hash as Set
+
+        cleanup:
+        executor.shutdown()
+
+        where:
+        description         | patterns
+        "without filters"   | null
+        "with filters"      | new PatternSet().include("**/*.txt").exclude("dir2/**")
+    }
+
+    def "only submits files with unknown hashes to the hashing executor and hashes files not run by the executor on the calling thread"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        def knownFile = rootDir.file("known.txt") << "known"
+        def unknownFile = rootDir.file("unknown.txt") << "unknown"
+        def knownHash = TestHashCodes.hashCodeFrom(1234)
+        def hasher = Mock(FileHasher)
+        def submittedTasks = []
+        def executor = { Runnable task -> submittedTasks.add(task) } as Executor
+        def parallelSnapshotter = new DirectorySnapshotter(hasher, new StringInterner(), [], statisticsCollector, executor, false)
+
+        when:
+        def snapshot = (DirectorySnapshot) parallelSnapshotter.snapshot(rootDir.absolutePath, null, [:]) {}
+
+        then:
+        1 * hasher.hashIfKnown(knownFile, _, _) >> knownHash
+        1 * hasher.hashIfKnown(unknownFile, _, _) >> null
+        1 * hasher.hash(unknownFile, _, _) >> TestHashCodes.hashCodeFrom(5678)
+        0 * hasher._
+        submittedTasks.size() == 1
+        snapshot.children.collectEntries { [it.name, it.hash] } == ["known.txt": knownHash, "unknown.txt": TestHashCodes.hashCodeFrom(5678)]
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes() as List)
 
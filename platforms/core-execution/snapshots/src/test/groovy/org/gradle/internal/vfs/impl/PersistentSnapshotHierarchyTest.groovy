@@ -0,0 +1,185 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.hash.FileHasher
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics
+import org.gradle.internal.vfs.FileSystemAccess
+import org.gradle.internal.vfs.VirtualFileSystem
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+@CleanupTestDirectory
+class PersistentSnapshotHierarchyTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def stateFile = temporaryFolder.file("state/snapshots.bin")
+    def fileHasher = TestFiles.fileHasher()
+    def delegate = Mock(FileHasher)
+    def timestampInspector = Mock(PersistentSnapshotHierarchy.TimestampInspector) {
+        timestampCanBeUsedToDetectFileChange(_, _) >> true
+    }
+
+    def "reuses content hashes of unchanged files after restoring"() {
+        def root = temporaryFolder.createDir("root")
+        def unchanged = old(root.file("unchanged.txt").createFile() << "unchanged")
+        def nested = old(root.file("sub/nested.txt").createFile() << "nested")
+        def changed = old(root.file("changed.txt").createFile() << "before")
+        snapshotAndStore(root)
+
+        when:
+        changed.text = "after"
+        changed.lastModified = unchanged.lastModified() + 1000
+        def hasher = restored().decorate(delegate, timestampInspector)
+
+        then:
+        hasher.hash(unchanged, unchanged.length(), unchanged.lastModified()) == fileHasher.hash(unchanged)
+        hasher.hash(nested, nested.length(), nested.lastModified()) == fileHasher.hash(nested)
+        0 * delegate._
+
+        when:
+        def hash = hasher.hash(changed, changed.length(), changed.lastModified())
+
+        then:
+        1 * delegate.hash(changed, changed.length(), changed.lastModified()) >> TestHashCodes.hashCodeFrom(1234)
+        hash == TestHashCodes.hashCodeFrom(1234)
+    }
+
+    def "does not reuse content hashes of files modified shortly before storing"() {
+        def root = temporaryFolder.createDir("root")
+        def recent = root.file("recent.txt").createFile() << "recent"
+        snapshotAndStore(root)
+
+        when:
+        restored().decorate(delegate, timestampInspector).hash(recent, recent.length(), recent.lastModified())
+
+        then:
+        1 * delegate.hash(recent, recent.length(), recent.lastModified())
+    }
+
+    def "does not reuse content hashes of files whose timestamp cannot be used to detect changes"() {
+        def root = temporaryFolder.createDir("root")
+        def file = old(root.file("file.txt").createFile() << "content")
+        snapshotAndStore(root)
+        def untrustedTimestamps = Mock(PersistentSnapshotHierarchy.TimestampInspector)
+
+        when:
+        restored().decorate(delegate, untrustedTimestamps).hash(file, file.length(), file.lastModified())
+
+        then:
+        1 * untrustedTimestamps.timestampCanBeUsedToDetectFileChange(file.absolutePath, file.lastModified()) >> false
+        1 * delegate.hash(file, file.length(), file.lastModified())
+    }
+
+    def "stores regular files next to broken symlinks"() {
+        def root = temporaryFolder.createDir("root")
+        def file = old(root.file("file.txt").createFile() << "content")
+        root.file("broken").createLink(root.file("missing.txt"))
+        snapshotAndStore(root)
+
+        expect:
+        restored().findRestoredContentHash(file.absolutePath, file.length(), file.lastModified()) == fileHasher.hash(file)
+    }
+
+    def "does not store anything when no hasher has been decorated"() {
+        def root = temporaryFolder.createDir("root")
+        old(root.file("file.txt").createFile() << "content")
+        VirtualFileSystem virtualFileSystem = snapshot(root)
+
+        when:
+        new PersistentSnapshotHierarchy(stateFile, CaseSensitivity.CASE_SENSITIVE, virtualFileSystem).close()
+
+        then:
+        !stateFile.exists()
+    }
+
+    def "does not reuse content hashes once discarded"() {
+        def root = temporaryFolder.createDir("root")
+        def file = old(root.file("file.txt").createFile() << "content")
+        snapshotAndStore(root)
+        def persistentSnapshotHierarchy = restored()
+        persistentSnapshotHierarchy.decorate(delegate, timestampInspector)
+
+        expect:
+        persistentSnapshotHierarchy.findRestoredContentHash(file.absolutePath, file.length(), file.lastModified()) == fileHasher.hash(file)
+
+        when:
+        persistentSnapshotHierarchy.discardRestored()
+
+        then:
+        persistentSnapshotHierarchy.findRestoredContentHash(file.absolutePath, file.length(), file.lastModified()) == null
+    }
+
+    def "keeps stored snapshots when closing with an empty virtual file system"() {
+        def root = temporaryFolder.createDir("root")
+        def file = old(root.file("file.txt").createFile() << "content")
+        snapshotAndStore(root)
+
+        when:
+        def empty = new PersistentSnapshotHierarchy(stateFile, CaseSensitivity.CASE_SENSITIVE, TestFiles.virtualFileSystem())
+        empty.decorate(delegate, timestampInspector)
+        empty.close()
+
+        then:
+        restored().findRestoredContentHash(file.absolutePath, file.length(), file.lastModified()) == fileHasher.hash(file)
+    }
+
+    def "restores nothing from a corrupt file"() {
+        def file = old(temporaryFolder.createFile("file.txt") << "content")
+        stateFile.createFile() << "corrupt"
+
+        expect:
+        restored().findRestoredContentHash(file.absolutePath, file.length(), file.lastModified()) == null
+    }
+
+    private void snapshotAndStore(File root) {
+        def persistentSnapshotHierarchy = new PersistentSnapshotHierarchy(stateFile, CaseSensitivity.CASE_SENSITIVE, snapshot(root))
+        persistentSnapshotHierarchy.decorate(delegate, timestampInspector)
+        persistentSnapshotHierarchy.close()
+    }
+
+    private VirtualFileSystem snapshot(File root) {
+        VirtualFileSystem virtualFileSystem = TestFiles.virtualFileSystem()
+        def fileSystemAccess = new DefaultFileSystemAccess(
+            fileHasher,
+            new StringInterner(),
+            TestFiles.fileSystem()::stat,
+            virtualFileSystem,
+            Mock(FileSystemAccess.WriteListener),
+            Mock(DirectorySnapshotterStatistics.Collector)
+        )
+        fileSystemAccess.read(root.absolutePath)
+        virtualFileSystem
+    }
+
+    private PersistentSnapshotHierarchy restored() {
+        new PersistentSnapshotHierarchy(stateFile, CaseSensitivity.CASE_SENSITIVE, TestFiles.virtualFileSystem())
+    }
+
+    private static TestFile old(TestFile file) {
+        file.lastModified = System.currentTimeMillis() - 60_000
+        file
+    }
+}
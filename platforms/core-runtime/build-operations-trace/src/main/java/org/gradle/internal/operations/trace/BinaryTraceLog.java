@@ -0,0 +1,386 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of the build operation log.
+ *
+ * Each record is the stream of JSON tokens of a serialized operation, so a binary log can be converted to the JSON log without loss.
+ * Numbers are encoded as variable length integers, and field names and short strings are written once and then referenced by their index.
+ */
+class BinaryTraceLog {
+    private static final int MAGIC = 0x47424f54; // GBOT
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int END_OF_RECORD = 0;
+    private static final int START_OBJECT = 1;
+    private static final int END_OBJECT = 2;
+    private static final int START_ARRAY = 3;
+    private static final int END_ARRAY = 4;
+    private static final int FIELD_NAME = 5;
+    private static final int STRING = 6;
+    private static final int INTEGER = 7;
+    private static final int DOUBLE = 8;
+    private static final int TRUE = 9;
+    private static final int FALSE = 10;
+    private static final int NULL = 11;
+    private static final int BIG_INTEGER = 12;
+    private static final int BIG_DECIMAL = 13;
+    private static final int BINARY = 14;
+
+    // Marks a string that is added to the string table
+    private static final int NEW_SHARED_STRING = 0;
+    // Marks a string that is not added to the string table
+    private static final int UNSHARED_STRING = 1;
+    // References to the string table start after the markers
+    private static final int FIRST_STRING_REFERENCE = 2;
+
+    private static final int MAX_SHARED_STRING_LENGTH = 128;
+    private static final int MAX_SHARED_STRINGS = 1 << 16;
+
+    private BinaryTraceLog() {
+    }
+
+    /**
+     * Writes records to a binary log. Not thread safe.
+     */
+    static class Writer implements Closeable {
+        private final OutputStream output;
+        private final Map<String, Integer> sharedStrings = new HashMap<>();
+
+        Writer(File file) throws IOException {
+            this.output = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+            writeInt(MAGIC);
+            writeInt(FORMAT_VERSION);
+        }
+
+        /**
+         * Writes the tokens of the given buffer as a record.
+         */
+        void write(TokenBuffer record) throws IOException {
+            try (JsonParser parser = record.asParser()) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    writeToken(parser, token);
+                }
+            }
+            output.write(END_OF_RECORD);
+        }
+
+        private void writeToken(JsonParser parser, JsonToken token) throws IOException {
+            switch (token) {
+                case START_OBJECT:
+                    output.write(START_OBJECT);
+                    break;
+                case END_OBJECT:
+                    output.write(END_OBJECT);
+                    break;
+                case START_ARRAY:
+                    output.write(START_ARRAY);
+                    break;
+                case END_ARRAY:
+                    output.write(END_ARRAY);
+                    break;
+                case FIELD_NAME:
+                    output.write(FIELD_NAME);
+                    writeString(parser.getCurrentName());
+                    break;
+                case VALUE_STRING:
+                    output.write(STRING);
+                    writeString(parser.getText());
+                    break;
+                case VALUE_NUMBER_INT:
+                    if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                        output.write(BIG_INTEGER);
+                        writeString(parser.getBigIntegerValue().toString());
+                    } else {
+                        output.write(INTEGER);
+                        writeSignedVarLong(parser.getLongValue());
+                    }
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+                        output.write(BIG_DECIMAL);
+                        writeString(parser.getDecimalValue().toString());
+                    } else {
+                        output.write(DOUBLE);
+                        writeLong(Double.doubleToLongBits(parser.getDoubleValue()));
+                    }
+                    break;
+                case VALUE_TRUE:
+                    output.write(TRUE);
+                    break;
+                case VALUE_FALSE:
+                    output.write(FALSE);
+                    break;
+                case VALUE_NULL:
+                    output.write(NULL);
+                    break;
+                case VALUE_EMBEDDED_OBJECT:
+                    Object embedded = parser.getEmbeddedObject();
+                    if (embedded instanceof byte[]) {
+                        byte[] bytes = (byte[]) embedded;
+                        output.write(BINARY);
+                        writeVarLong(bytes.length);
+                        output.write(bytes);
+                    } else if (embedded == null) {
+                        output.write(NULL);
+                    } else {
+                        output.write(STRING);
+                        writeString(embedded.toString());
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected token " + token);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            Integer index = sharedStrings.get(value);
+            if (index != null) {
+                writeVarLong(FIRST_STRING_REFERENCE + index);
+                return;
+            }
+            if (value.length() <= MAX_SHARED_STRING_LENGTH && sharedStrings.size() < MAX_SHARED_STRINGS) {
+                sharedStrings.put(value, sharedStrings.size());
+                writeVarLong(NEW_SHARED_STRING);
+            } else {
+                writeVarLong(UNSHARED_STRING);
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            output.write(bytes);
+        }
+
+        private void writeSignedVarLong(long value) throws IOException {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                output.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            output.write((int) value);
+        }
+
+        private void writeInt(int value) throws IOException {
+            output.write(value >>> 24);
+            output.write(value >>> 16);
+            output.write(value >>> 8);
+            output.write(value);
+        }
+
+        private void writeLong(long value) throws IOException {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+
+    /**
+     * Reads the records of a binary log. Not thread safe.
+     */
+    static class Reader implements Closeable {
+        private final InputStream input;
+        private final ObjectCodec codec;
+        private final List<String> sharedStrings = new ArrayList<>();
+
+        Reader(File file, ObjectCodec codec) throws IOException {
+            this.input = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+            this.codec = codec;
+            if (readInt() != MAGIC) {
+                input.close();
+                throw new IOException("Not a binary build operation trace: " + file);
+            }
+            int version = readInt();
+            if (version != FORMAT_VERSION) {
+                input.close();
+                throw new IOException("Unsupported binary build operation trace format version " + version + ": " + file);
+            }
+        }
+
+        /**
+         * Reads the tokens of the next record, or returns {@code null} when there are no more complete records.
+         * The last record may be incomplete when the writing process did not stop cleanly.
+         */
+        @Nullable
+        TokenBuffer readRecord() throws IOException {
+            TokenBuffer record = new TokenBuffer(codec, false);
+            int tag = input.read();
+            if (tag < 0) {
+                return null;
+            }
+            try {
+                while (tag != END_OF_RECORD) {
+                    readToken(tag, record);
+                    tag = readByte();
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+            return record;
+        }
+
+        private void readToken(int tag, JsonGenerator generator) throws IOException {
+            switch (tag) {
+                case START_OBJECT:
+                    generator.writeStartObject();
+                    break;
+                case END_OBJECT:
+                    generator.writeEndObject();
+                    break;
+                case START_ARRAY:
+                    generator.writeStartArray();
+                    break;
+                case END_ARRAY:
+                    generator.writeEndArray();
+                    break;
+                case FIELD_NAME:
+                    generator.writeFieldName(readString());
+                    break;
+                case STRING:
+                    generator.writeString(readString());
+                    break;
+                case INTEGER:
+                    long value = readSignedVarLong();
+                    if (value == (int) value) {
+                        generator.writeNumber((int) value);
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                    break;
+                case DOUBLE:
+                    generator.writeNumber(Double.longBitsToDouble(readLong()));
+                    break;
+                case TRUE:
+                    generator.writeBoolean(true);
+                    break;
+                case FALSE:
+                    generator.writeBoolean(false);
+                    break;
+                case NULL:
+                    generator.writeNull();
+                    break;
+                case BIG_INTEGER:
+                    generator.writeNumber(new BigInteger(readString()));
+                    break;
+                case BIG_DECIMAL:
+                    generator.writeNumber(new BigDecimal(readString()));
+                    break;
+                case BINARY:
+                    generator.writeBinary(readBytes((int) readVarLong()));
+                    break;
+                default:
+                    throw new IOException("Unexpected tag " + tag + " in binary build operation trace");
+            }
+        }
+
+        private String readString() throws IOException {
+            int marker = (int) readVarLong();
+            if (marker >= FIRST_STRING_REFERENCE) {
+                return sharedStrings.get(marker - FIRST_STRING_REFERENCE);
+            }
+            String value = new String(readBytes((int) readVarLong()), StandardCharsets.UTF_8);
+            if (marker == NEW_SHARED_STRING) {
+                sharedStrings.add(value);
+            }
+            return value;
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = input.read(bytes, offset, length - offset);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            return bytes;
+        }
+
+        private long readSignedVarLong() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        private int readByte() throws IOException {
+            int b = input.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        private int readInt() throws IOException {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        private long readLong() throws IOException {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.gradle.StartParameter;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.buildoption.StringInternalOption;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.BuildOperationType;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.util.internal.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a latency histogram per build operation type, for all build operations of the session.
+ * <p>
+ * The type of an operation is the {@link BuildOperationType} that declares the details type of the operation,
+ * for example {@code org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType}.
+ * Operations with details that are not declared by a build operation type are grouped by the class of their details,
+ * and operations without details are grouped as {@value #UNTYPED}.
+ * <p>
+ * The metrics are only collected when enabled, as the listener adds some overhead to every build operation.
+ * With {@code -Dorg.gradle.internal.operations.metrics=«path»}, the metrics are written to a JSON file when the session ends.
+ * The file contains the count, total, max and percentiles of the durations for each type,
+ * and the non-empty histogram buckets, which can be merged to compute percentiles over many builds.
+ * With {@code -Dorg.gradle.internal.operations.metrics=true}, the metrics are collected without being written to a file.
+ * <p>
+ * The metrics are also available to Tooling API clients as the {@code BuildOperationMetrics} model.
+ * Collection is enabled from the start of the build when the model is requested directly,
+ * and otherwise from when the model is first built.
+ */
+@ServiceScope(Scope.CrossBuildSession.class)
+public class BuildOperationLatencyMetrics implements BuildOperationListener, Stoppable {
+
+    public static final String SYSPROP = "org.gradle.internal.operations.metrics";
+
+    public static final String UNTYPED = "untyped";
+
+    private static final StringInternalOption METRICS_OPTION = new StringInternalOption(SYSPROP, null);
+
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] REPORTED_PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private static final ClassValue<String> OPERATION_TYPES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> detailsType) {
+            Class<?> operationType = findOperationType(detailsType);
+            return operationType != null ? operationType.getName() : detailsType.getName();
+        }
+    };
+
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    @Nullable
+    private final File outputFile;
+    private final Map<Long, Long> runningOperationStartTimes = new ConcurrentHashMap<>();
+    private final Map<String, OperationTypeStats> operationTypes = new ConcurrentHashMap<>();
+    private final AtomicBoolean collecting = new AtomicBoolean();
+
+    public BuildOperationLatencyMetrics(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+        String value = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs()).getOption(METRICS_OPTION).get();
+        boolean enabled = value != null && !value.equals(Boolean.FALSE.toString());
+        this.outputFile = !enabled || value.equals(Boolean.TRUE.toString()) ? null : new File(value).getAbsoluteFile();
+        if (enabled) {
+            startCollecting();
+        }
+    }
+
+    /**
+     * Starts collecting the metrics of the operations that start from now on, if not already collecting.
+     */
+    public void startCollecting() {
+        if (collecting.compareAndSet(false, true)) {
+            buildOperationListenerManager.addListener(this);
+        }
+    }
+
+    @Override
+    public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+        runningOperationStartTimes.put(buildOperation.getId().getId(), System.nanoTime());
+    }
+
+    @Override
+    public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+    }
+
+    @Override
+    public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        Long startTime = runningOperationStartTimes.remove(buildOperation.getId().getId());
+        if (startTime == null) {
+            // Started before the listener was registered
+            return;
+        }
+        long duration = System.nanoTime() - startTime;
+        Object details = buildOperation.getDetails();
+        String operationType = details == null ? UNTYPED : OPERATION_TYPES.get(details.getClass());
+        operationTypes.computeIfAbsent(operationType, OperationTypeStats::new).record(duration, finishEvent.getFailure() != null);
+    }
+
+    /**
+     * Returns the metrics of the operations that have finished so far, ordered by operation type.
+     */
+    public List<OperationTypeMetrics> getMetrics() {
+        List<OperationTypeMetrics> metrics = new ArrayList<>(operationTypes.size());
+        for (OperationTypeStats stats : operationTypes.values()) {
+            metrics.add(new OperationTypeMetrics(stats.operationType, stats.failures.sum(), stats.durations.snapshot()));
+        }
+        metrics.sort(Comparator.comparing(OperationTypeMetrics::getOperationType));
+        return Collections.unmodifiableList(metrics);
+    }
+
+    @Override
+    public void stop() {
+        if (collecting.get()) {
+            buildOperationListenerManager.removeListener(this);
+        }
+        if (outputFile != null) {
+            try {
+                write(outputFile);
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private void write(File file) throws IOException {
+        GFileUtils.mkdirs(file.getParentFile());
+        try (JsonGenerator generator = new JsonFactory().createGenerator(file, JsonEncoding.UTF8)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("operationTypes");
+            for (OperationTypeMetrics metrics : getMetrics()) {
+                LatencyHistogram.Snapshot durations = metrics.getDurations();
+                generator.writeStartObject();
+                generator.writeStringField("operationType", metrics.getOperationType());
+                generator.writeNumberField("count", durations.getCount());
+                generator.writeNumberField("failureCount", metrics.getFailureCount());
+                generator.writeNumberField("totalNanos", durations.getTotalNanos());
+                generator.writeNumberField("maxNanos", durations.getMaxNanos());
+                generator.writeObjectFieldStart("percentileNanos");
+                for (int i = 0; i < REPORTED_PERCENTILES.length; i++) {
+                    generator.writeNumberField(REPORTED_PERCENTILE_NAMES[i], durations.getValueAtPercentile(REPORTED_PERCENTILES[i]));
+                }
+                generator.writeEndObject();
+                generator.writeArrayFieldStart("buckets");
+                durations.visitBuckets((lowestNanos, highestNanos, count) -> {
+                    try {
+                        generator.writeStartArray();
+                        generator.writeNumber(lowestNanos);
+                        generator.writeNumber(highestNanos);
+                        generator.writeNumber(count);
+                        generator.writeEndArray();
+                    } catch (IOException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Finds the build operation type that declares the given details type, or one of its super types.
+     */
+    @Nullable
+    private static Class<?> findOperationType(Class<?> detailsType) {
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        Set<Class<?>> seen = new HashSet<>();
+        queue.add(detailsType);
+        while (!queue.isEmpty()) {
+            Class<?> type = queue.removeFirst();
+            if (!seen.add(type)) {
+                continue;
+            }
+            Class<?> enclosingClass = type.getEnclosingClass();
+            if (enclosingClass != null && BuildOperationType.class.isAssignableFrom(enclosingClass)) {
+                return enclosingClass;
+            }
+            if (type.getSuperclass() != null) {
+                queue.add(type.getSuperclass());
+            }
+            Collections.addAll(queue, type.getInterfaces());
+        }
+        return null;
+    }
+
+    private static class OperationTypeStats {
+        private final String operationType;
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        OperationTypeStats(String operationType) {
+            this.operationType = operationType;
+        }
+
+        void record(long durationNanos, boolean failed) {
+            durations.record(durationNanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+    }
+
+    public static class OperationTypeMetrics {
+        private final String operationType;
+        private final long failureCount;
+        private final LatencyHistogram.Snapshot durations;
+
+        OperationTypeMetrics(String operationType, long failureCount, LatencyHistogram.Snapshot durations) {
+            this.operationType = operationType;
+            this.failureCount = failureCount;
+            this.durations = durations;
+        }
+
+        public String getOperationType() {
+            return operationType;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public LatencyHistogram.Snapshot getDurations() {
+            return durations;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.internal.operations.trace;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.BeanDescription;
@@ -29,6 +30,7 @@
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
 import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.common.base.Throwables;
@@ -42,6 +44,8 @@
 import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.buildoption.StringInternalOption;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationListener;
@@ -61,6 +65,7 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -78,6 +83,8 @@
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -105,6 +112,11 @@
  * <p>
  * The generation of trees can be very memory hungry and thus can be disabled with
  * {@code -Dorg.gradle.internal.operations.trace.tree=false}.
+ * <p>
+ * With {@code -Dorg.gradle.internal.operations.trace.binary=true}, the log is written to «path-base»-log.bin instead, in a compact binary format.
+ * Events are still captured as JSON tokens when they happen, but encoded and written by a background thread, so tracing slows the build down much less.
+ * The build waits for the writer when too many events are queued.
+ * The binary log can be converted to the JSON log and trees with {@link #convertBinaryLog(String)}.
  * </p>
  * The "trace" produced here is different to the trace produced by Gradle Profiler.
  * There, the focus is analyzing the performance profile.
@@ -140,6 +152,20 @@ public class BuildOperationTrace implements Stoppable {
 
     private static final InternalFlag TRACE_TREE_OPTION = new InternalFlag(TREE_SYSPROP, true);
 
+    /**
+     * A flag controlling whether the log is written in the binary format by a background thread ({@code false} by default).
+     */
+    public static final String BINARY_SYSPROP = SYSPROP + ".binary";
+
+    private static final InternalFlag TRACE_BINARY_OPTION = new InternalFlag(BINARY_SYSPROP, false);
+
+    /**
+     * The maximum number of events waiting to be written to the binary log.
+     */
+    private static final int BINARY_LOG_QUEUE_CAPACITY = 10_000;
+
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<Map<String, Object>>() {};
+
     /**
      * Delimiter for entries in {@link #FILTER_SYSPROP}.
      */
@@ -152,16 +178,20 @@ public class BuildOperationTrace implements Stoppable {
     private final String basePath;
 
     private final OutputStream logOutputStream;
+    private final BinaryLogWriter binaryLogWriter;
+    private final ManagedExecutor binaryLogExecutor;
     private final ObjectMapper objectMapper;
     private final BuildOperationListenerManager buildOperationListenerManager;
 
-    public BuildOperationTrace(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager) {
+    public BuildOperationTrace(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager, ExecutorFactory executorFactory) {
         this.buildOperationListenerManager = buildOperationListenerManager;
 
         InternalOptions internalOptions = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
         this.basePath = internalOptions.getOption(TRACE_OPTION).get();
         if (this.basePath == null || basePath.equals(Boolean.FALSE.toString())) {
             this.logOutputStream = null;
+            this.binaryLogWriter = null;
+            this.binaryLogExecutor = null;
             this.outputTree = false;
             this.listener = null;
             this.objectMapper = null;
@@ -170,25 +200,40 @@ public BuildOperationTrace(StartParameter startParameter, BuildOperationListener
 
         this.objectMapper = createObjectMapper();
 
+        boolean binary = internalOptions.getOption(TRACE_BINARY_OPTION).get();
+        Consumer<SerializedOperation> consumer = binary ? this::writeBinary : this::write;
         Set<String> filter = getFilter(internalOptions);
         if (filter != null) {
             this.outputTree = false;
-            this.listener = new FilteringBuildOperationListener(new SerializingBuildOperationListener(this::write), filter);
+            this.listener = new FilteringBuildOperationListener(new SerializingBuildOperationListener(consumer), filter);
         } else {
             this.outputTree = internalOptions.getOption(TRACE_TREE_OPTION).get();
-            this.listener = new SerializingBuildOperationListener(this::write);
+            this.listener = new SerializingBuildOperationListener(consumer);
         }
 
         try {
             File logFile = logFile(basePath);
+            File binaryLogFile = binaryLogFile(basePath);
             GFileUtils.mkdirs(logFile.getParentFile());
-            if (logFile.isFile()) {
-                GFileUtils.forceDelete(logFile);
+            // Remove the log of an earlier build, which may have used the other format
+            for (File file : Arrays.asList(logFile, binaryLogFile)) {
+                if (file.isFile()) {
+                    GFileUtils.forceDelete(file);
+                }
             }
-            //noinspection ResultOfMethodCallIgnored
-            logFile.createNewFile();
 
-            this.logOutputStream = new BufferedOutputStream(new FileOutputStream(logFile));
+            if (binary) {
+                this.logOutputStream = null;
+                this.binaryLogWriter = new BinaryLogWriter(new BinaryTraceLog.Writer(binaryLogFile));
+                this.binaryLogExecutor = executorFactory.create("Build operation trace writer", 1);
+                binaryLogExecutor.execute(binaryLogWriter);
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                logFile.createNewFile();
+                this.logOutputStream = new BufferedOutputStream(new FileOutputStream(logFile));
+                this.binaryLogWriter = null;
+                this.binaryLogExecutor = null;
+            }
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
@@ -209,16 +254,26 @@ private static Set<String> getFilter(InternalOptions internalOptions) {
     @Override
     public void stop() {
         buildOperationListenerManager.removeListener(listener);
-        if (logOutputStream != null) {
+        if (logOutputStream != null || binaryLogWriter != null) {
             try {
-                synchronized (logOutputStream) {
-                    logOutputStream.close();
+                if (logOutputStream != null) {
+                    synchronized (logOutputStream) {
+                        logOutputStream.close();
+                    }
+                } else {
+                    try {
+                        binaryLogWriter.endOfLog();
+                        // Waits for the queued events to be written
+                        binaryLogExecutor.stop();
+                    } finally {
+                        binaryLogWriter.close();
+                    }
                 }
 
                 if (outputTree) {
-                    List<BuildOperationRecord> roots = readLogToTreeRoots(logFile(basePath), false);
-                    writeDetailTree(roots);
-                    writeSummaryTree(roots);
+                    List<BuildOperationRecord> roots = readLogToTreeRoots(basePath, false);
+                    writeDetailTree(basePath, objectMapper, roots);
+                    writeSummaryTree(basePath, objectMapper, roots);
                 }
             } catch (IOException e) {
                 throw UncheckedException.throwAsUncheckedException(e);
@@ -226,6 +281,44 @@ public void stop() {
         }
     }
 
+    /**
+     * Converts the binary log recorded with the given «path-base» to the JSON log, and writes the JSON and the simplified trees.
+     *
+     * @param basePath The same path used for {@link #SYSPROP} when the trace was recorded.
+     */
+    public static void convertBinaryLog(String basePath) {
+        ObjectMapper objectMapper = createObjectMapper();
+        try {
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(logFile(basePath)))) {
+                visitBinaryLogRecords(binaryLogFile(basePath), objectMapper, record -> {
+                    try {
+                        output.write(objectMapper.writeValueAsString(record).getBytes(StandardCharsets.UTF_8));
+                        output.write(NEWLINE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            List<BuildOperationRecord> roots = readLogToTreeRoots(basePath, false);
+            writeDetailTree(basePath, objectMapper, roots);
+            writeSummaryTree(basePath, objectMapper, roots);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void writeBinary(SerializedOperation operation) {
+        // Capture the operation as JSON tokens right away, as details and results may change once the listener returns.
+        // Encoding and writing the tokens happens on the writer thread.
+        TokenBuffer record = new TokenBuffer(objectMapper, false);
+        try {
+            objectMapper.writeValue(record, operation.toMap());
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        binaryLogWriter.enqueue(record);
+    }
+
     private void write(SerializedOperation operation) {
         try {
             String json = objectMapper.writeValueAsString(operation.toMap());
@@ -239,13 +332,13 @@ private void write(SerializedOperation operation) {
         }
     }
 
-    private void writeDetailTree(List<BuildOperationRecord> roots) throws IOException {
+    private static void writeDetailTree(String basePath, ObjectMapper objectMapper, List<BuildOperationRecord> roots) throws IOException {
         File outputFile = file(basePath, "-tree.json");
         objectMapper.writerWithDefaultPrettyPrinter()
             .writeValue(outputFile, BuildOperationTree.serialize(roots));
     }
 
-    private void writeSummaryTree(final List<BuildOperationRecord> roots) throws IOException {
+    private static void writeSummaryTree(String basePath, ObjectMapper objectMapper, final List<BuildOperationRecord> roots) throws IOException {
         Path outputPath = Paths.get(basePath + "-tree.txt");
         try (BufferedWriter writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
             Deque<Queue<BuildOperationRecord>> stack = new ArrayDeque<>(Collections.singleton(new ArrayDeque<>(roots)));
@@ -319,8 +412,7 @@ private void writeSummaryTree(final List<BuildOperationRecord> roots) throws IOE
     }
 
     public static BuildOperationTree read(String basePath) {
-        File logFile = logFile(basePath);
-        List<BuildOperationRecord> roots = readLogToTreeRoots(logFile, true);
+        List<BuildOperationRecord> roots = readLogToTreeRoots(basePath, true);
         return new BuildOperationTree(roots);
     }
 
@@ -333,12 +425,13 @@ public static BuildOperationTree read(String basePath) {
      * @param basePath The same path used for {@link #SYSPROP} when the trace was recorded.
      */
     public static BuildOperationTree readPartialTree(String basePath) {
-        File logFile = logFile(basePath);
-        List<BuildOperationRecord> partialTree = readLogToTreeRoots(logFile, false);
+        List<BuildOperationRecord> partialTree = readLogToTreeRoots(basePath, false);
         return new BuildOperationTree(partialTree);
     }
 
-    private static List<BuildOperationRecord> readLogToTreeRoots(final File logFile, boolean completeTree) {
+    private static List<BuildOperationRecord> readLogToTreeRoots(String basePath, boolean completeTree) {
+        File binaryLogFile = binaryLogFile(basePath);
+        File logFile = binaryLogFile.isFile() ? binaryLogFile : logFile(basePath);
         try {
             final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -348,78 +441,83 @@ private static List<BuildOperationRecord> readLogToTreeRoots(final File logFile,
 
             final List<SerializedOperationProgress> danglingProgress = new ArrayList<>();
 
-            try (Stream<String> lines = Files.lines(logFile.toPath())) {
-                lines.forEach(line -> {
-                    Map<String, ?> map;
-                    try {
-                        map = objectMapper.readValue(line, new TypeReference<Map<String, Object>>() {});
-                    } catch (JsonProcessingException e) {
-                        throw UncheckedException.throwAsUncheckedException(e);
-                    }
+            Consumer<Map<String, ?>> recordVisitor = map -> {
+                if (map.containsKey("startTime")) {
+                    SerializedOperationStart serialized = new SerializedOperationStart(map);
+                    pendings.put(serialized.id, new PendingOperation(serialized));
+                    childrens.put(serialized.id, new LinkedList<>());
+                } else if (map.containsKey("time")) {
+                    SerializedOperationProgress serialized = new SerializedOperationProgress(map);
+                    PendingOperation pending = pendings.get(serialized.id);
+                    if (pending != null) {
+                        pending.progress.add(serialized);
+                    } else {
+                        if (completeTree) {
+                            throw new IllegalStateException("did not find owner of progress event with ID " + serialized.id);
+                        }
 
-                    if (map.containsKey("startTime")) {
-                        SerializedOperationStart serialized = new SerializedOperationStart(map);
-                        pendings.put(serialized.id, new PendingOperation(serialized));
-                        childrens.put(serialized.id, new LinkedList<>());
-                    } else if (map.containsKey("time")) {
-                        SerializedOperationProgress serialized = new SerializedOperationProgress(map);
-                        PendingOperation pending = pendings.get(serialized.id);
-                        if (pending != null) {
-                            pending.progress.add(serialized);
+                        danglingProgress.add(serialized);
+                    }
+                } else {
+                    SerializedOperationFinish finish = new SerializedOperationFinish(map);
+
+                    PendingOperation pending = pendings.remove(finish.id);
+                    assert pending != null;
+
+                    List<BuildOperationRecord> children = childrens.remove(finish.id);
+                    assert children != null;
+
+                    SerializedOperationStart start = pending.start;
+
+                    Map<String, ?> detailsMap = uncheckedCast(start.details);
+                    Map<String, ?> resultMap = uncheckedCast(finish.result);
+
+                    BuildOperationRecord record = new BuildOperationRecord(
+                        start.id,
+                        start.parentId,
+                        start.displayName,
+                        start.startTime,
+                        finish.endTime,
+                        detailsMap == null ? null : Collections.unmodifiableMap(detailsMap),
+                        start.detailsClassName,
+                        resultMap == null ? null : Collections.unmodifiableMap(resultMap),
+                        finish.resultClassName,
+                        finish.failureMsg,
+                        pending.progress,
+                        BuildOperationRecord.ORDERING.immutableSortedCopy(children)
+                    );
+
+                    if (start.parentId == null) {
+                        roots.add(record);
+                    } else {
+                        List<BuildOperationRecord> parentChildren = childrens.get(start.parentId);
+                        if (parentChildren != null) {
+                            parentChildren.add(record);
                         } else {
                             if (completeTree) {
-                                throw new IllegalStateException("did not find owner of progress event with ID " + serialized.id);
+                                throw new IllegalStateException("parentChildren != null '" + map + "' from " + logFile);
                             }
 
-                            danglingProgress.add(serialized);
-                        }
-                    } else {
-                        SerializedOperationFinish finish = new SerializedOperationFinish(map);
-
-                        PendingOperation pending = pendings.remove(finish.id);
-                        assert pending != null;
-
-                        List<BuildOperationRecord> children = childrens.remove(finish.id);
-                        assert children != null;
-
-                        SerializedOperationStart start = pending.start;
-
-                        Map<String, ?> detailsMap = uncheckedCast(start.details);
-                        Map<String, ?> resultMap = uncheckedCast(finish.result);
-
-                        BuildOperationRecord record = new BuildOperationRecord(
-                            start.id,
-                            start.parentId,
-                            start.displayName,
-                            start.startTime,
-                            finish.endTime,
-                            detailsMap == null ? null : Collections.unmodifiableMap(detailsMap),
-                            start.detailsClassName,
-                            resultMap == null ? null : Collections.unmodifiableMap(resultMap),
-                            finish.resultClassName,
-                            finish.failureMsg,
-                            pending.progress,
-                            BuildOperationRecord.ORDERING.immutableSortedCopy(children)
-                        );
-
-                        if (start.parentId == null) {
+                            // We are not expecting a complete tree, so it is possible that the parent
+                            // was never serialized. In that case, just treat this record as a root.
                             roots.add(record);
-                        } else {
-                            List<BuildOperationRecord> parentChildren = childrens.get(start.parentId);
-                            if (parentChildren != null) {
-                                parentChildren.add(record);
-                            } else {
-                                if (completeTree) {
-                                    throw new IllegalStateException("parentChildren != null '" + line + "' from " + logFile);
-                                }
-
-                                // We are not expecting a complete tree, so it is possible that the parent
-                                // was never serialized. In that case, just treat this record as a root.
-                                roots.add(record);
-                            }
                         }
                     }
-                });
+                }
+            };
+
+            if (logFile == binaryLogFile) {
+                visitBinaryLogRecords(logFile, objectMapper, recordVisitor);
+            } else {
+                try (Stream<String> lines = Files.lines(logFile.toPath())) {
+                    lines.forEach(line -> {
+                        try {
+                            recordVisitor.accept(objectMapper.readValue(line, RECORD_TYPE));
+                        } catch (JsonProcessingException e) {
+                            throw UncheckedException.throwAsUncheckedException(e);
+                        }
+                    });
+                }
             }
 
             assert pendings.isEmpty();
@@ -443,10 +541,25 @@ private static List<BuildOperationRecord> readLogToTreeRoots(final File logFile,
 
     }
 
+    private static void visitBinaryLogRecords(File binaryLogFile, ObjectMapper objectMapper, Consumer<Map<String, ?>> visitor) throws IOException {
+        try (BinaryTraceLog.Reader reader = new BinaryTraceLog.Reader(binaryLogFile, objectMapper)) {
+            TokenBuffer record;
+            while ((record = reader.readRecord()) != null) {
+                try (JsonParser parser = record.asParser()) {
+                    visitor.accept(objectMapper.readValue(parser, RECORD_TYPE));
+                }
+            }
+        }
+    }
+
     private static File logFile(String basePath) {
         return file(basePath, "-log.txt");
     }
 
+    private static File binaryLogFile(String basePath) {
+        return file(basePath, "-log.bin");
+    }
+
     private static File file(@Nullable String base, String suffix) {
         return new File((base == null || base.trim().isEmpty() ? "operations" : base) + suffix).getAbsoluteFile();
     }
@@ -548,6 +661,68 @@ public List<BeanPropertyWriter> changeProperties(
         }
     }
 
+    /**
+     * Encodes the queued events and writes them to the binary log, in the order they were queued.
+     * Runs on a single background thread until the end of the log is queued.
+     */
+    private static class BinaryLogWriter implements Runnable {
+        private static final TokenBuffer END_OF_LOG = new TokenBuffer(null, false);
+
+        private final BlockingQueue<TokenBuffer> queue = new ArrayBlockingQueue<>(BINARY_LOG_QUEUE_CAPACITY);
+        private final BinaryTraceLog.Writer writer;
+        @Nullable
+        private volatile Throwable failure;
+
+        BinaryLogWriter(BinaryTraceLog.Writer writer) {
+            this.writer = writer;
+        }
+
+        /**
+         * Queues the event, waiting while the queue is full.
+         */
+        void enqueue(TokenBuffer record) {
+            try {
+                queue.put(record);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        void endOfLog() {
+            enqueue(END_OF_LOG);
+        }
+
+        @Override
+        public void run() {
+            try {
+                TokenBuffer record;
+                while ((record = queue.take()) != END_OF_LOG) {
+                    // Keep taking events after a failure, so that the build does not wait for a full queue
+                    if (failure == null) {
+                        try {
+                            writer.write(record);
+                        } catch (Throwable t) {
+                            failure = t;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Closes the log, rethrowing any failure to write an event.
+         */
+        void close() throws IOException {
+            writer.close();
+            Throwable failure = this.failure;
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+        }
+    }
+
     private static class SerializingBuildOperationListener implements BuildOperationListener {
 
         private final Consumer<SerializedOperation> consumer;
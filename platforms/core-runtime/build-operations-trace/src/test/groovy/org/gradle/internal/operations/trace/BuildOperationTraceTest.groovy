@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.operations.trace
+
+import org.gradle.StartParameter
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.DefaultBuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class BuildOperationTraceTest extends Specification {
+    @TempDir
+    File tempDir
+
+    def executorFactory = new DefaultExecutorFactory()
+    def listenerManager = new DefaultBuildOperationListenerManager()
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "converts a binary log to the same files as the JSON log"() {
+        def jsonBasePath = new File(tempDir, "json").absolutePath
+        def binaryBasePath = new File(tempDir, "binary").absolutePath
+
+        when:
+        trace(jsonBasePath, false)
+        trace(binaryBasePath, true)
+        BuildOperationTrace.convertBinaryLog(binaryBasePath)
+
+        then:
+        new File("$binaryBasePath-log.txt").text == new File("$jsonBasePath-log.txt").text
+        new File("$binaryBasePath-tree.json").text == new File("$jsonBasePath-tree.json").text
+        new File("$binaryBasePath-tree.txt").text == new File("$jsonBasePath-tree.txt").text
+    }
+
+    def "reads the operation tree from a binary log"() {
+        def basePath = new File(tempDir, "binary").absolutePath
+
+        when:
+        trace(basePath, true)
+        def tree = BuildOperationTrace.read(basePath)
+
+        then:
+        tree.roots*.displayName == ["Build"]
+        def root = tree.roots.first()
+        root.details == [name: "build", workers: 4]
+        root.children*.displayName == ["Task :a", "Task :b"]
+
+        def first = root.children[0]
+        first.startTime == 1_000
+        first.endTime == 2_000
+        first.progress*.details == [[message: "working", bytes: 12_345_678_901]]
+        first.result == [outcome: "executed", ratio: 0.5d, flags: [true, false, null]]
+
+        def second = root.children[1]
+        second.details == [name: ":a"]
+        second.result == [outcome: "executed", ratio: 0.5d, flags: [true, false, null]]
+        second.failure == "java.lang.RuntimeException: broken"
+    }
+
+    def "records details and results of the binary log as they were when the event was emitted"() {
+        def basePath = new File(tempDir, "binary").absolutePath
+        def details = [name: "build"]
+        def result = [outcome: "executed"]
+
+        when:
+        def trace = newTrace(basePath, true)
+        def broadcaster = listenerManager.broadcaster
+        def root = BuildOperationDescriptor.displayName("Build").details(details).build(new OperationIdentifier(1), null)
+        broadcaster.started(root, new OperationStartEvent(0))
+        details.name = "changed"
+        broadcaster.finished(root, new OperationFinishEvent(0, 1, null, result))
+        result.outcome = "changed"
+        trace.stop()
+
+        then:
+        def record = BuildOperationTrace.read(basePath).roots.first()
+        record.details == [name: "build"]
+        record.result == [outcome: "executed"]
+    }
+
+    def "writes all events when the queue of the binary writer is full"() {
+        def basePath = new File(tempDir, "binary").absolutePath
+        def operationCount = 25_000
+
+        when:
+        def trace = newTrace(basePath, true)
+        def broadcaster = listenerManager.broadcaster
+        def root = BuildOperationDescriptor.displayName("Build").build(new OperationIdentifier(1), null)
+        broadcaster.started(root, new OperationStartEvent(0))
+        (2..operationCount).each { id ->
+            def child = BuildOperationDescriptor.displayName("Task $id").details([name: "task $id".toString()]).build(new OperationIdentifier(id), new OperationIdentifier(1))
+            broadcaster.started(child, new OperationStartEvent(id))
+            broadcaster.finished(child, new OperationFinishEvent(id, id + 1, null, null))
+        }
+        broadcaster.finished(root, new OperationFinishEvent(0, operationCount + 1, null, null))
+        trace.stop()
+
+        then:
+        BuildOperationTrace.read(basePath).roots.first().children.size() == operationCount - 1
+    }
+
+    private void trace(String basePath, boolean binary) {
+        def trace = newTrace(basePath, binary)
+        def broadcaster = listenerManager.broadcaster
+
+        def root = BuildOperationDescriptor.displayName("Build").details([name: "build", workers: 4]).build(new OperationIdentifier(1), null)
+        def first = BuildOperationDescriptor.displayName("Task :a").build(new OperationIdentifier(2), new OperationIdentifier(1))
+        def second = BuildOperationDescriptor.displayName("Task :b").details([name: ":a"]).build(new OperationIdentifier(3), new OperationIdentifier(1))
+        def result = [outcome: "executed", ratio: 0.5d, flags: [true, false, null]]
+
+        broadcaster.started(root, new OperationStartEvent(500))
+        broadcaster.started(first, new OperationStartEvent(1_000))
+        broadcaster.progress(first.id, new OperationProgressEvent(1_500, [message: "working", bytes: 12_345_678_901L]))
+        broadcaster.finished(first, new OperationFinishEvent(1_000, 2_000, null, result))
+        broadcaster.started(second, new OperationStartEvent(2_000))
+        broadcaster.finished(second, new OperationFinishEvent(2_000, 3_000, new RuntimeException("broken"), result))
+        broadcaster.finished(root, new OperationFinishEvent(500, 3_500, null, null))
+
+        trace.stop()
+    }
+
+    private BuildOperationTrace newTrace(String basePath, boolean binary) {
+        def startParameter = new StartParameter()
+        startParameter.systemPropertiesArgs = [
+            (BuildOperationTrace.SYSPROP): basePath,
+            (BuildOperationTrace.BINARY_SYSPROP): binary.toString()
+        ]
+        new BuildOperationTrace(startParameter, listenerManager, executorFactory)
+    }
+}
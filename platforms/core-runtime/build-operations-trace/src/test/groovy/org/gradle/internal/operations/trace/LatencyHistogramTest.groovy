@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.operations.trace
+
+import spock.lang.Specification
+
+class LatencyHistogramTest extends Specification {
+
+    def "counts small values exactly"() {
+        expect:
+        (0..<32).every { value ->
+            def bucket = LatencyHistogram.bucketOf(value)
+            bucket == value && LatencyHistogram.lowestValueOf(bucket) == value && LatencyHistogram.highestValueOf(bucket) == value
+        }
+    }
+
+    def "bucket of #value covers #lowest to #highest"() {
+        expect:
+        def bucket = LatencyHistogram.bucketOf(value)
+        LatencyHistogram.lowestValueOf(bucket) == lowest
+        LatencyHistogram.highestValueOf(bucket) == highest
+
+        where:
+        value          | lowest                 | highest
+        32             | 32                     | 32
+        63             | 63                     | 63
+        64             | 64                     | 65
+        65             | 64                     | 65
+        127            | 126                    | 127
+        128            | 128                    | 131
+        1_000_000      | 999_424                | 1_015_807
+        Long.MAX_VALUE | 0x7e00_0000_0000_0000L | Long.MAX_VALUE
+    }
+
+    def "buckets are contiguous up to the largest value"() {
+        def lastBucket = LatencyHistogram.bucketOf(Long.MAX_VALUE)
+
+        expect:
+        (0..<lastBucket).every { bucket -> LatencyHistogram.highestValueOf(bucket) + 1 == LatencyHistogram.lowestValueOf(bucket + 1) }
+    }
+
+    def "buckets are within about 3% of their values"() {
+        expect:
+        (32L..100_000L).every { value ->
+            def bucket = LatencyHistogram.bucketOf(value)
+            def lowest = LatencyHistogram.lowestValueOf(bucket)
+            def highest = LatencyHistogram.highestValueOf(bucket)
+            lowest <= value && value <= highest && highest - lowest <= value / 32
+        }
+    }
+
+    def "empty histogram reports zero"() {
+        when:
+        def snapshot = new LatencyHistogram().snapshot()
+
+        then:
+        snapshot.count == 0
+        snapshot.totalNanos == 0
+        snapshot.maxNanos == 0
+        snapshot.getValueAtPercentile(50) == 0
+        snapshot.getValueAtPercentile(100) == 0
+    }
+
+    def "records count, total and max"() {
+        def histogram = new LatencyHistogram()
+
+        when:
+        histogram.record(10)
+        histogram.record(1000)
+        histogram.record(-5)
+        def snapshot = histogram.snapshot()
+
+        then:
+        snapshot.count == 3
+        snapshot.totalNanos == 1010
+        snapshot.maxNanos == 1000
+    }
+
+    def "reports exact percentiles for small values"() {
+        def histogram = new LatencyHistogram()
+        (1..20).each { histogram.record(it) }
+
+        expect:
+        def snapshot = histogram.snapshot()
+        snapshot.getValueAtPercentile(0) == 1
+        snapshot.getValueAtPercentile(5) == 1
+        snapshot.getValueAtPercentile(50) == 10
+        snapshot.getValueAtPercentile(51) == 11
+        snapshot.getValueAtPercentile(90) == 18
+        snapshot.getValueAtPercentile(100) == 20
+        snapshot.getValueAtPercentile(150) == 20
+    }
+
+    def "reports the highest value of the bucket for percentiles, capped at the max"() {
+        def histogram = new LatencyHistogram()
+        99.times { histogram.record(1_000) }
+        histogram.record(1_000_000)
+
+        expect:
+        def snapshot = histogram.snapshot()
+        snapshot.getValueAtPercentile(50) == 1_007
+        snapshot.getValueAtPercentile(99) == 1_007
+        snapshot.getValueAtPercentile(99.9) == 1_000_000
+        snapshot.getValueAtPercentile(100) == 1_000_000
+    }
+
+    def "percentiles are within the precision of the recorded values"() {
+        def histogram = new LatencyHistogram()
+        def random = new Random(42)
+        def values = (1..10_000).collect { (long) random.nextInt(100_000_000) }.sort()
+        values.each { histogram.record(it) }
+
+        expect:
+        def snapshot = histogram.snapshot()
+        [50d, 90d, 99d, 99.9d].every { percentile ->
+            def exact = values[(int) Math.ceil(values.size() * percentile / 100) - 1]
+            def reported = snapshot.getValueAtPercentile(percentile)
+            reported >= exact && reported <= exact + exact / 32
+        }
+    }
+
+    def "visits non-empty buckets in increasing order"() {
+        def histogram = new LatencyHistogram()
+        histogram.record(100)
+        histogram.record(5)
+        histogram.record(101)
+        histogram.record(5)
+        def buckets = []
+
+        when:
+        histogram.snapshot().visitBuckets { lowest, highest, count -> buckets << [lowest, highest, count] }
+
+        then:
+        buckets == [[5L, 5L, 2L], [100L, 101L, 2L]]
+    }
+}
@@ -20,6 +20,7 @@
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.operations.BuildOperationsParameters;
 import org.gradle.internal.operations.DefaultBuildOperationsParameters;
+import org.gradle.internal.operations.trace.BuildOperationLatencyMetrics;
 import org.gradle.internal.operations.trace.BuildOperationTrace;
 import org.gradle.internal.service.Provides;
 import org.gradle.internal.service.ServiceRegistration;
@@ -54,8 +55,9 @@ public CrossBuildSessionState(ServiceRegistry parent, StartParameterInternal sta
             .parent(parent)
             .provider(new Services(startParameter))
             .build();
-        // Trigger listener to wire itself in
+        // Trigger listeners to wire themselves in
         services.get(BuildOperationTrace.class);
+        services.get(BuildOperationLatencyMetrics.class);
     }
 
     public ServiceRegistry getServices() {
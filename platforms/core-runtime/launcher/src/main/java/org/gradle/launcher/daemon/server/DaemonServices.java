@@ -61,6 +61,7 @@
 import org.gradle.launcher.daemon.server.health.DaemonHealthCheck;
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats;
 import org.gradle.launcher.daemon.server.health.HealthExpirationStrategy;
+import org.gradle.launcher.daemon.server.health.HeapPressureHandler;
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy;
 import org.gradle.launcher.daemon.server.scaninfo.DaemonScanInfo;
 import org.gradle.launcher.daemon.server.scaninfo.DefaultDaemonScanInfo;
@@ -135,6 +136,11 @@ protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonHealthSt
         return new HealthExpirationStrategy(stats, strategy);
     }
 
+    @Provides
+    protected HeapPressureHandler createHeapPressureHandler(DaemonHealthStats stats, GarbageCollectorMonitoringStrategy strategy, ListenerManager listenerManager, GradleUserHomeScopeServiceRegistry userHomeServiceRegistry) {
+        return new HeapPressureHandler(stats, strategy, listenerManager, userHomeServiceRegistry);
+    }
+
     @Provides
     protected DaemonHealthStats createDaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectorMonitoringStrategy strategy, ExecutorFactory executorFactory) {
         return new DaemonHealthStats(runningStats, strategy, executorFactory);
@@ -151,6 +157,7 @@ protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(
         DaemonContext daemonContext,
         DaemonHealthCheck healthCheck,
         DaemonHealthStats healthStats,
+        HeapPressureHandler heapPressureHandler,
         DaemonRunningStats runningStats,
         ExecutorFactory executorFactory,
         ProcessEnvironment processEnvironment,
@@ -171,7 +178,7 @@ protected ImmutableList<DaemonCommandAction> createDaemonCommandActions(
             new StartBuildOrRespondWithBusy(daemonDiagnostics), // from this point down, the daemon is 'busy'
             new EstablishBuildEnvironment(processEnvironment),
             new LogToClient(loggingManager, daemonDiagnostics), // from this point down, logging is sent back to the client
-            new LogAndCheckHealth(healthStats, healthCheck, runningStats),
+            new LogAndCheckHealth(healthStats, healthCheck, heapPressureHandler, runningStats),
             new ForwardClientInput(inputReader, eventDispatch),
             new RequestStopIfSingleUsedDaemon(),
             new ResetDeprecationLogger(),
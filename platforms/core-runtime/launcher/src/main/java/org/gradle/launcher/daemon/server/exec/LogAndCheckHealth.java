@@ -24,6 +24,7 @@
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
 import org.gradle.launcher.daemon.server.health.DaemonHealthCheck;
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats;
+import org.gradle.launcher.daemon.server.health.HeapPressureHandler;
 import org.gradle.launcher.daemon.server.stats.DaemonRunningStats;
 
 public class LogAndCheckHealth implements DaemonCommandAction {
@@ -32,17 +33,19 @@ public class LogAndCheckHealth implements DaemonCommandAction {
 
     private final DaemonHealthStats stats;
     private final DaemonHealthCheck healthCheck;
+    private final HeapPressureHandler heapPressureHandler;
     private final DaemonRunningStats runningStats;
     private final Logger logger;
 
-    public LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, DaemonRunningStats runningStats) {
-        this(stats, healthCheck, runningStats, Logging.getLogger(LogAndCheckHealth.class));
+    public LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, HeapPressureHandler heapPressureHandler, DaemonRunningStats runningStats) {
+        this(stats, healthCheck, heapPressureHandler, runningStats, Logging.getLogger(LogAndCheckHealth.class));
     }
 
     @VisibleForTesting
-    LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, DaemonRunningStats runningStats, Logger logger) {
+    LogAndCheckHealth(DaemonHealthStats stats, DaemonHealthCheck healthCheck, HeapPressureHandler heapPressureHandler, DaemonRunningStats runningStats, Logger logger) {
         this.stats = stats;
         this.healthCheck = healthCheck;
+        this.heapPressureHandler = heapPressureHandler;
         this.runningStats = runningStats;
         this.logger = logger;
     }
@@ -63,6 +66,9 @@ public void execute(DaemonCommandExecution execution) {
 
         execution.proceed();
 
+        // Release memory that can be recreated before the health check decides whether the daemon has to expire
+        heapPressureHandler.releaseMemoryIfNecessary();
+
         // Execute the health check that should send out a DaemonExpiration event
         // if the daemon is unhealthy
         healthCheck.executeHealthCheck();
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.NonNullApi;
+import org.gradle.cache.internal.HeapPressureListener;
+import org.gradle.cache.internal.HeapPressureListener.HeapPressure;
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.service.scopes.GradleUserHomeScopeServiceRegistry;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.vfs.VirtualFileSystem;
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionStats;
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Releases in-memory state of the daemon between builds when the heap usage observed by the {@link DaemonHealthStats}
+ * gets close to the threshold at which {@link HealthExpirationStrategy} would expire the daemon.
+ *
+ * Caches are shrunk under {@link HeapPressure#MODERATE moderate} pressure, and everything that can be recreated,
+ * including the virtual file system, is dropped under {@link HeapPressure#HIGH high} pressure.
+ * Memory is released at most once per garbage collection, so that the effect of a release can be observed before releasing more.
+ */
+@NonNullApi
+@ServiceScope(Scope.Global.class)
+public class HeapPressureHandler {
+
+    /**
+     * A system property which enables releasing memory under heap pressure. Defaults to false.
+     */
+    public static final String ENABLE_ADAPTIVE_MEMORY = "org.gradle.daemon.performance.adaptive-memory";
+
+    /**
+     * How many percent below the heap usage threshold the heap is considered to be under pressure.
+     */
+    @VisibleForTesting
+    static final int PRESSURE_MARGIN_PERCENT = 15;
+
+    private static final int MIN_EVENT_COUNT = 3;
+
+    private final DaemonHealthStats stats;
+    private final GarbageCollectorMonitoringStrategy strategy;
+    private final HeapPressureListener listener;
+    private final GradleUserHomeScopeServiceRegistry userHomeServiceRegistry;
+    private final Logger logger;
+
+    private long collectionCountAtLastRelease = -1;
+
+    public HeapPressureHandler(DaemonHealthStats stats, GarbageCollectorMonitoringStrategy strategy, ListenerManager listenerManager, GradleUserHomeScopeServiceRegistry userHomeServiceRegistry) {
+        this(stats, strategy, listenerManager.getBroadcaster(HeapPressureListener.class), userHomeServiceRegistry, LoggerFactory.getLogger(HeapPressureHandler.class));
+    }
+
+    @VisibleForTesting
+    HeapPressureHandler(DaemonHealthStats stats, GarbageCollectorMonitoringStrategy strategy, HeapPressureListener listener, GradleUserHomeScopeServiceRegistry userHomeServiceRegistry, Logger logger) {
+        this.stats = stats;
+        this.strategy = strategy;
+        this.listener = listener;
+        this.userHomeServiceRegistry = userHomeServiceRegistry;
+        this.logger = logger;
+    }
+
+    /**
+     * Releases memory if the heap is under pressure. Should be called between builds.
+     */
+    public void releaseMemoryIfNecessary() {
+        // We cannot check this in the constructor since system properties are copied to the daemon after initialization.
+        if (!Boolean.getBoolean(ENABLE_ADAPTIVE_MEMORY)) {
+            return;
+        }
+
+        GarbageCollectionStats heapStats = stats.getHeapStats();
+        HeapPressure pressure = determinePressure(heapStats);
+        if (pressure == null) {
+            return;
+        }
+
+        logger.info("Releasing in-memory caches of the daemon due to {} heap pressure, {}", pressure.name().toLowerCase(Locale.ROOT), stats.getHealthInfo());
+        collectionCountAtLastRelease = heapStats.getLatestCollectionCount();
+        listener.onHeapPressure(pressure);
+        if (pressure == HeapPressure.HIGH) {
+            userHomeServiceRegistry.getCurrentServices().ifPresent(services -> services.get(VirtualFileSystem.class).invalidateAll());
+        }
+    }
+
+    @Nullable
+    private HeapPressure determinePressure(GarbageCollectionStats heapStats) {
+        int threshold = strategy.getHeapUsageThreshold();
+        if (threshold < 0 || !heapStats.isValid() || heapStats.getEventCount() < MIN_EVENT_COUNT) {
+            return null;
+        }
+        if (heapStats.getLatestCollectionCount() == collectionCountAtLastRelease) {
+            // Nothing has been collected since the last release, so the stats do not reflect it yet
+            return null;
+        }
+
+        // The average lags behind when memory has just been released, the latest value is noisy on its own
+        int usedPercent = Math.min(heapStats.getUsedPercent(), heapStats.getLatestUsedPercent());
+        if (usedPercent < threshold - PRESSURE_MARGIN_PERCENT) {
+            return null;
+        }
+        if (strategy.isAboveHeapUsageThreshold(usedPercent) || strategy.isAboveGcRateThreshold(heapStats.getGcRate())) {
+            return HeapPressure.HIGH;
+        }
+        return HeapPressure.MODERATE;
+    }
+}
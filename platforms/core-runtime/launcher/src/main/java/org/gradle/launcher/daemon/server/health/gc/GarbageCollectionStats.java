@@ -27,27 +27,39 @@ public class GarbageCollectionStats {
     private final int usedPercent;
     private final long maxSizeInBytes;
     private final long eventCount;
+    private final int latestUsedPercent;
+    private final long latestCollectionCount;
 
     private GarbageCollectionStats(double gcRate, long usedSizeInBytes, long maxSizeInBytes, long eventCount) {
+        this(gcRate, usedSizeInBytes, maxSizeInBytes, eventCount, usedSizeInBytes, -1);
+    }
+
+    private GarbageCollectionStats(double gcRate, long usedSizeInBytes, long maxSizeInBytes, long eventCount, long latestUsedSizeInBytes, long latestCollectionCount) {
         this.gcRate = gcRate;
         if (maxSizeInBytes > 0) {
             this.usedPercent = NumberUtil.percentOf(usedSizeInBytes, maxSizeInBytes);
+            this.latestUsedPercent = NumberUtil.percentOf(latestUsedSizeInBytes, maxSizeInBytes);
         } else {
             this.usedPercent = 0;
+            this.latestUsedPercent = 0;
         }
         this.maxSizeInBytes = maxSizeInBytes;
         this.eventCount = eventCount;
+        this.latestCollectionCount = latestCollectionCount;
     }
 
     static GarbageCollectionStats forHeap(Collection<GarbageCollectionEvent> events) {
         if (events.isEmpty()) {
             return noData();
         } else {
+            GarbageCollectionEvent latest = Iterables.getLast(events);
             return new GarbageCollectionStats(
                     calculateRate(events),
                     calculateAverageUsage(events),
                     findMaxSize(events),
-                    events.size()
+                    events.size(),
+                    latest.getUsage().getUsed(),
+                    latest.getCount()
             );
         }
     }
@@ -56,17 +68,20 @@ static GarbageCollectionStats forNonHeap(Collection<GarbageCollectionEvent> even
         if (events.isEmpty()) {
             return noData();
         } else {
+            GarbageCollectionEvent latest = Iterables.getLast(events);
             return new GarbageCollectionStats(
                     0, // non-heap spaces are not garbage collected
                     calculateAverageUsage(events),
                     findMaxSize(events),
-                    events.size()
+                    events.size(),
+                    latest.getUsage().getUsed(),
+                    latest.getCount()
             );
         }
     }
 
     private static GarbageCollectionStats noData() {
-        return new GarbageCollectionStats(0, 0, -1, 0);
+        return new GarbageCollectionStats(0, 0, -1, 0, 0, -1);
     }
 
     /**
@@ -116,6 +131,20 @@ public long getEventCount() {
         return eventCount;
     }
 
+    /**
+     * @return the usage observed by the most recent event in the window, whereas {@link #getUsedPercent()} is the average over the window
+     */
+    public int getLatestUsedPercent() {
+        return latestUsedPercent;
+    }
+
+    /**
+     * @return the garbage collection count of the most recent event in the window, or -1 when not known
+     */
+    public long getLatestCollectionCount() {
+        return latestCollectionCount;
+    }
+
     public boolean isValid() {
         return maxSizeInBytes > 0;
     }
@@ -20,6 +20,7 @@ import org.gradle.api.logging.Logger
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution
 import org.gradle.launcher.daemon.server.health.DaemonHealthCheck
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats
+import org.gradle.launcher.daemon.server.health.HeapPressureHandler
 import org.gradle.launcher.daemon.server.stats.DaemonRunningStats
 import spock.lang.Specification
 
@@ -27,9 +28,10 @@ class LogAndCheckHealthTest extends Specification {
     def exec = Mock(DaemonCommandExecution)
     def stats = Mock(DaemonHealthStats)
     def healthCheck = Mock(DaemonHealthCheck)
+    def heapPressureHandler = Mock(HeapPressureHandler)
     def runningStats = Mock(DaemonRunningStats)
     def logger = Mock(Logger)
-    def tracker = new LogAndCheckHealth(stats, healthCheck, runningStats, logger)
+    def tracker = new LogAndCheckHealth(stats, healthCheck, heapPressureHandler, runningStats, logger)
 
     def "does not track single use daemon"() {
         when:
@@ -65,4 +67,18 @@ class LogAndCheckHealthTest extends Specification {
         1 * stats.healthInfo >> "[health info]"
         1 * logger.info("Starting 2nd build in daemon [health info]")
     }
+
+    def "releases memory before executing health check"() {
+        when:
+        tracker.execute(exec)
+
+        then:
+        1 * exec.proceed()
+
+        then:
+        1 * heapPressureHandler.releaseMemoryIfNecessary()
+
+        then:
+        1 * healthCheck.executeHealthCheck()
+    }
 }
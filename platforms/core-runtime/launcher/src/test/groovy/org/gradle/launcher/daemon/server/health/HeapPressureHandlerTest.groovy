@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.cache.internal.HeapPressureListener
+import org.gradle.internal.service.ServiceRegistry
+import org.gradle.internal.service.scopes.GradleUserHomeScopeServiceRegistry
+import org.gradle.internal.vfs.VirtualFileSystem
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionStats
+import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import org.slf4j.Logger
+import spock.lang.Specification
+
+import static org.gradle.cache.internal.HeapPressureListener.HeapPressure.HIGH
+import static org.gradle.cache.internal.HeapPressureListener.HeapPressure.MODERATE
+
+class HeapPressureHandlerTest extends Specification {
+
+    @Rule
+    SetSystemProperties props = new SetSystemProperties()
+
+    def listener = Mock(HeapPressureListener)
+    def virtualFileSystem = Mock(VirtualFileSystem)
+    def userHomeServiceRegistry = Stub(GradleUserHomeScopeServiceRegistry) {
+        getCurrentServices() >> Optional.of(Stub(ServiceRegistry) {
+            get(VirtualFileSystem) >> virtualFileSystem
+        })
+    }
+    def strategy = new GarbageCollectorMonitoringStrategy(null, null, null, 2.0, 80, 90, 5.0)
+    def heapStats = Stub(GarbageCollectionStats)
+    def handler = new HeapPressureHandler(Stub(DaemonHealthStats) { getHeapStats() >> { heapStats } }, strategy, listener, userHomeServiceRegistry, Stub(Logger))
+
+    def setup() {
+        System.setProperty(HeapPressureHandler.ENABLE_ADAPTIVE_MEMORY, "true")
+    }
+
+    def "releases memory according to heap usage and gc rate"() {
+        given:
+        heapStats = stats(averageUsage, latestUsage, rate, 10)
+
+        when:
+        handler.releaseMemoryIfNecessary()
+
+        then:
+        (pressure == null ? 0 : 1) * listener.onHeapPressure(pressure)
+        0 * listener._
+        (pressure == HIGH ? 1 : 0) * virtualFileSystem.invalidateAll()
+
+        where:
+        averageUsage | latestUsage | rate | pressure
+        50           | 50          | 0    | null
+        64           | 90          | 3.0  | null
+        65           | 65          | 0    | MODERATE
+        75           | 90          | 1.0  | MODERATE
+        90           | 75          | 1.0  | MODERATE
+        70           | 70          | 2.0  | HIGH
+        80           | 85          | 0    | HIGH
+    }
+
+    def "does not release memory again until a garbage collection has happened"() {
+        given:
+        heapStats = stats(85, 85, 0, 10)
+
+        when:
+        handler.releaseMemoryIfNecessary()
+        handler.releaseMemoryIfNecessary()
+
+        then:
+        1 * listener.onHeapPressure(HIGH)
+
+        when:
+        heapStats = stats(70, 70, 0, 11)
+        handler.releaseMemoryIfNecessary()
+
+        then:
+        1 * listener.onHeapPressure(MODERATE)
+    }
+
+    def "does not release memory without enough data"() {
+        given:
+        heapStats = Stub(GarbageCollectionStats) {
+            isValid() >> valid
+            getEventCount() >> eventCount
+            getUsedPercent() >> 95
+            getLatestUsedPercent() >> 95
+        }
+
+        when:
+        handler.releaseMemoryIfNecessary()
+
+        then:
+        0 * listener._
+
+        where:
+        valid | eventCount
+        false | 10
+        true  | 2
+    }
+
+    def "does not release memory when heap usage threshold is not known"() {
+        given:
+        def unknown = new GarbageCollectorMonitoringStrategy(null, null, null, -1, -1, -1, -1)
+        def handler = new HeapPressureHandler(Stub(DaemonHealthStats) { getHeapStats() >> stats(95, 95, 0, 10) }, unknown, listener, userHomeServiceRegistry, Stub(Logger))
+
+        when:
+        handler.releaseMemoryIfNecessary()
+
+        then:
+        0 * listener._
+    }
+
+    def "does not release memory unless enabled"() {
+        given:
+        System.clearProperty(HeapPressureHandler.ENABLE_ADAPTIVE_MEMORY)
+        heapStats = stats(95, 95, 0, 10)
+
+        when:
+        handler.releaseMemoryIfNecessary()
+
+        then:
+        0 * listener._
+        0 * virtualFileSystem._
+    }
+
+    GarbageCollectionStats stats(int averageUsage, int latestUsage, double rate, long collectionCount) {
+        return Stub(GarbageCollectionStats) {
+            isValid() >> true
+            getEventCount() >> 5
+            getUsedPercent() >> averageUsage
+            getLatestUsedPercent() >> latestUsage
+            getGcRate() >> rate
+            getLatestCollectionCount() >> collectionCount
+        }
+    }
+}
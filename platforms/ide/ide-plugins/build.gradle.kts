@@ -42,6 +42,7 @@ dependencies {
     api(libs.inject)
     api(libs.jsr305)
 
+    implementation(projects.buildOperationsTrace)
     implementation(projects.dependencyManagement)
     implementation(projects.ear)
     implementation(projects.fileCollections)
@@ -22,6 +22,7 @@
 import org.gradle.api.internal.project.ProjectTaskLister;
 import org.gradle.internal.build.BuildStateRegistry;
 import org.gradle.internal.buildtree.BuildModelParameters;
+import org.gradle.internal.operations.trace.BuildOperationLatencyMetrics;
 import org.gradle.internal.service.Provides;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistrationProvider;
@@ -54,7 +55,8 @@ protected BuildScopeToolingModelBuilderRegistryAction createIdeBuildScopeTooling
             final BuildStateRegistry buildStateRegistry,
             final ProjectStateRegistry projectStateRegistry,
             BuildModelParameters buildModelParameters,
-            IntermediateToolingModelProvider intermediateToolingModelProvider
+            IntermediateToolingModelProvider intermediateToolingModelProvider,
+            BuildOperationLatencyMetrics buildOperationLatencyMetrics
         ) {
 
             return new BuildScopeToolingModelBuilderRegistryAction() {
@@ -73,6 +75,7 @@ public void execute(ToolingModelBuilderRegistry registry) {
                     registry.register(new BuildInvocationsBuilder(taskLister));
                     registry.register(new PublicationsBuilder(projectPublicationRegistry));
                     registry.register(new BuildEnvironmentBuilder(fileCollectionFactory));
+                    registry.register(new BuildOperationMetricsBuilder(buildOperationLatencyMetrics));
                     registry.register(new IsolatedGradleProjectInternalBuilder());
                     registry.register(new IsolatedIdeaModuleInternalBuilder());
                     registry.register(new PluginApplyingBuilder());
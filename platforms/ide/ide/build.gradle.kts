@@ -24,6 +24,7 @@ dependencies {
     api(libs.jsr305)
 
     implementation(projects.baseServicesGroovy)
+    implementation(projects.buildOperationsTrace)
     implementation(projects.ear)
     implementation(projects.languageJava)
     implementation(projects.loggingApi)
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.plugins.ide.internal.tooling;
+
+import org.gradle.api.NonNullApi;
+import org.gradle.api.Project;
+import org.gradle.internal.operations.trace.BuildOperationLatencyMetrics;
+import org.gradle.internal.operations.trace.LatencyHistogram;
+import org.gradle.tooling.internal.build.DefaultBuildOperationMetrics;
+import org.gradle.tooling.internal.build.DefaultBuildOperationTypeMetrics;
+import org.gradle.tooling.provider.model.ToolingModelBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the BuildOperationMetrics model from the latency metrics collected for the session.
+ */
+@NonNullApi
+public class BuildOperationMetricsBuilder implements ToolingModelBuilder {
+    private final BuildOperationLatencyMetrics latencyMetrics;
+
+    public BuildOperationMetricsBuilder(BuildOperationLatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @Override
+    public boolean canBuild(String modelName) {
+        return modelName.equals("org.gradle.tooling.model.build.BuildOperationMetrics");
+    }
+
+    @Override
+    public Object buildAll(String modelName, Project target) {
+        // Collection is only enabled up front when the model is requested directly, so keep collecting for later requests of the session
+        latencyMetrics.startCollecting();
+        List<DefaultBuildOperationTypeMetrics> operationTypes = new ArrayList<>();
+        for (BuildOperationLatencyMetrics.OperationTypeMetrics metrics : latencyMetrics.getMetrics()) {
+            LatencyHistogram.Snapshot durations = metrics.getDurations();
+            operationTypes.add(new DefaultBuildOperationTypeMetrics(
+                metrics.getOperationType(),
+                durations.getCount(),
+                metrics.getFailureCount(),
+                durations.getTotalNanos(),
+                durations.getValueAtPercentile(50),
+                durations.getValueAtPercentile(90),
+                durations.getValueAtPercentile(99),
+                durations.getMaxNanos()
+            ));
+        }
+        return new DefaultBuildOperationMetrics(operationTypes);
+    }
+}
@@ -12,6 +12,7 @@ errorprone {
 
 dependencies {
     implementation(projects.baseServicesGroovy) // for 'Specs'
+    implementation(projects.buildOperationsTrace)
     implementation(projects.coreApi)
     implementation(projects.dependencyManagement)
     implementation(projects.launcher)
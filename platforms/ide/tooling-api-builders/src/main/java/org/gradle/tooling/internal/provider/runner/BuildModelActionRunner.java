@@ -22,17 +22,21 @@
 import org.gradle.internal.buildtree.BuildTreeModelController;
 import org.gradle.internal.buildtree.BuildTreeModelTarget;
 import org.gradle.internal.invocation.BuildAction;
+import org.gradle.internal.operations.trace.BuildOperationLatencyMetrics;
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException;
 import org.gradle.tooling.internal.provider.action.BuildModelAction;
 import org.gradle.tooling.internal.provider.serialization.PayloadSerializer;
 import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
+import org.gradle.tooling.model.build.BuildOperationMetrics;
 import org.gradle.tooling.provider.model.UnknownModelException;
 
 public class BuildModelActionRunner implements BuildActionRunner {
     private final PayloadSerializer payloadSerializer;
+    private final BuildOperationLatencyMetrics latencyMetrics;
 
-    public BuildModelActionRunner(PayloadSerializer payloadSerializer) {
+    public BuildModelActionRunner(PayloadSerializer payloadSerializer, BuildOperationLatencyMetrics latencyMetrics) {
         this.payloadSerializer = payloadSerializer;
+        this.latencyMetrics = latencyMetrics;
     }
 
     @Override
@@ -42,6 +46,10 @@ public Result run(BuildAction action, final BuildTreeLifecycleController buildCo
         }
 
         BuildModelAction buildModelAction = (BuildModelAction) action;
+        if (BuildOperationMetrics.class.getName().equals(buildModelAction.getModelName())) {
+            // Collect the metrics from the start of the build, rather than only from when the model is built
+            latencyMetrics.startCollecting();
+        }
 
         ModelCreateAction createAction = new ModelCreateAction(buildModelAction);
         try {
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.tooling.r814
+
+import org.gradle.integtests.tooling.fixture.TargetGradleVersion
+import org.gradle.integtests.tooling.fixture.ToolingApiSpecification
+import org.gradle.integtests.tooling.fixture.ToolingApiVersion
+import org.gradle.tooling.model.build.BuildOperationMetrics
+import org.gradle.tooling.model.build.BuildOperationTypeMetrics
+
+@ToolingApiVersion(">=8.14")
+@TargetGradleVersion(">=8.14")
+class BuildOperationMetricsCrossVersionSpec extends ToolingApiSpecification {
+
+    def setup() {
+        buildFile << """
+            task hello {
+                doLast {
+                    println "hello"
+                }
+            }
+        """
+    }
+
+    def "provides latency metrics per build operation type"() {
+        when:
+        def metrics = loadToolingModel(BuildOperationMetrics)
+
+        then:
+        def configureProject = metricsOf(metrics, "org.gradle.configuration.project.ConfigureProjectBuildOperationType")
+        configureProject.count == 1
+        configureProject.failureCount == 0
+        configureProject.p50DurationNanos <= configureProject.p99DurationNanos
+        configureProject.p99DurationNanos <= configureProject.maxDurationNanos
+        configureProject.maxDurationNanos <= configureProject.totalDurationNanos
+    }
+
+    def "includes the execution of tasks run before the build action"() {
+        when:
+        def metrics = withConnection {
+            it.action(new FetchBuildOperationMetricsAction())
+                .forTasks("hello")
+                .withArguments("-Dorg.gradle.internal.operations.metrics=true")
+                .run()
+        }
+
+        then:
+        metricsOf(metrics, "org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType").count == 1
+    }
+
+    def "only includes the operations that finished after the model was first requested from a build action"() {
+        when:
+        def metrics = withConnection {
+            it.action(new FetchBuildOperationMetricsAction())
+                .forTasks("hello")
+                .run()
+        }
+
+        then:
+        metrics.operationTypes.find { it.operationType == "org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType" } == null
+    }
+
+    private static BuildOperationTypeMetrics metricsOf(BuildOperationMetrics metrics, String operationType) {
+        def found = metrics.operationTypes.find { it.operationType == operationType }
+        assert found != null
+        found
+    }
+}
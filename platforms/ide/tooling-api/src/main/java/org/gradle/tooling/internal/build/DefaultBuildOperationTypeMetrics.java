@@ -0,0 +1,86 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.build;
+
+import org.gradle.api.NonNullApi;
+
+import java.io.Serializable;
+
+@NonNullApi
+public class DefaultBuildOperationTypeMetrics implements Serializable {
+
+    private final String operationType;
+    private final long count;
+    private final long failureCount;
+    private final long totalDurationNanos;
+    private final long p50DurationNanos;
+    private final long p90DurationNanos;
+    private final long p99DurationNanos;
+    private final long maxDurationNanos;
+
+    public DefaultBuildOperationTypeMetrics(
+        String operationType,
+        long count,
+        long failureCount,
+        long totalDurationNanos,
+        long p50DurationNanos,
+        long p90DurationNanos,
+        long p99DurationNanos,
+        long maxDurationNanos
+    ) {
+        this.operationType = operationType;
+        this.count = count;
+        this.failureCount = failureCount;
+        this.totalDurationNanos = totalDurationNanos;
+        this.p50DurationNanos = p50DurationNanos;
+        this.p90DurationNanos = p90DurationNanos;
+        this.p99DurationNanos = p99DurationNanos;
+        this.maxDurationNanos = maxDurationNanos;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public long getTotalDurationNanos() {
+        return totalDurationNanos;
+    }
+
+    public long getP50DurationNanos() {
+        return p50DurationNanos;
+    }
+
+    public long getP90DurationNanos() {
+        return p90DurationNanos;
+    }
+
+    public long getP99DurationNanos() {
+        return p99DurationNanos;
+    }
+
+    public long getMaxDurationNanos() {
+        return maxDurationNanos;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.model.build;
+
+import org.gradle.api.Incubating;
+import org.gradle.tooling.model.DomainObjectSet;
+import org.gradle.tooling.model.Model;
+
+/**
+ * Latency metrics of the build operations Gradle has run, grouped by the type of the operation.
+ * <p>
+ * The metrics cover the operations that have finished when the model is requested.
+ * When the model is requested directly, the metrics are collected from the start of the build.
+ * When the model is requested from a build action, the metrics are only collected from when the model is first requested,
+ * unless collection is enabled for the whole build with the {@code org.gradle.internal.operations.metrics} system property.
+ * To include the execution of tasks, request the model from a build action that runs after the tasks, for example:
+ * <pre>
+ * BuildOperationMetrics metrics = connection.action(controller -&gt; controller.getModel(BuildOperationMetrics.class))
+ *     .forTasks("build")
+ *     .withArguments("-Dorg.gradle.internal.operations.metrics=true")
+ *     .run();
+ * </pre>
+ *
+ * @since 8.14
+ */
+@Incubating
+public interface BuildOperationMetrics extends Model {
+
+    /**
+     * Returns the metrics for each type of build operation that has finished.
+     *
+     * @since 8.14
+     */
+    DomainObjectSet<? extends BuildOperationTypeMetrics> getOperationTypes();
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.model.build;
+
+import org.gradle.api.Incubating;
+
+/**
+ * Latency metrics of the build operations of a single type.
+ * <p>
+ * Percentiles are computed from a histogram with a relative precision of about 3%.
+ *
+ * @since 8.14
+ */
+@Incubating
+public interface BuildOperationTypeMetrics {
+
+    /**
+     * Returns the name of the operation type, for example {@code org.gradle.api.internal.tasks.execution.ExecuteTaskBuildOperationType}.
+     *
+     * @since 8.14
+     */
+    String getOperationType();
+
+    /**
+     * Returns the number of finished operations of this type.
+     *
+     * @since 8.14
+     */
+    long getCount();
+
+    /**
+     * Returns the number of finished operations of this type that failed.
+     *
+     * @since 8.14
+     */
+    long getFailureCount();
+
+    /**
+     * Returns the sum of the durations of the operations, in nanoseconds.
+     *
+     * @since 8.14
+     */
+    long getTotalDurationNanos();
+
+    /**
+     * Returns the median duration of the operations, in nanoseconds.
+     *
+     * @since 8.14
+     */
+    long getP50DurationNanos();
+
+    /**
+     * Returns the 90th percentile of the durations of the operations, in nanoseconds.
+     *
+     * @since 8.14
+     */
+    long getP90DurationNanos();
+
+    /**
+     * Returns the 99th percentile of the durations of the operations, in nanoseconds.
+     *
+     * @since 8.14
+     */
+    long getP99DurationNanos();
+
+    /**
+     * Returns the longest duration of the operations, in nanoseconds.
+     *
+     * @since 8.14
+     */
+    long getMaxDurationNanos();
+}
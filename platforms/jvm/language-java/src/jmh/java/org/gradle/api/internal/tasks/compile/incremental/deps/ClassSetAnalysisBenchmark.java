@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental.deps;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.tasks.compile.incremental.compilerapi.CompilerApiData;
+import org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingData;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.PreviousCompilationAccess;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.PreviousCompilationData;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.HierarchicalNameSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares finding the dependents of a few changed classes in a large class set, when the analysis is deserialized in full as it is stored in
+ * the user home compile caches, and when it is queried in place from the previous compilation data file.
+ *
+ * <p>Run with {@code -prof gc} to compare the memory allocated by each.</p>
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ClassSetAnalysisBenchmark {
+
+    @Param({"10000", "100000"})
+    int classes;
+
+    File dir;
+    File serializedFile;
+    File indexedFile;
+    Set<String> changedClasses;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<String> names = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++) {
+            names.add("org.example.module" + (i % 200) + ".pkg" + (i % 37) + ".SomeClass" + i);
+        }
+        Random random = new Random(1234L);
+        Map<String, HashCode> classHashes = new HashMap<>(classes);
+        Map<String, DependentsSet> dependents = new HashMap<>(classes);
+        for (String name : names) {
+            classHashes.put(name, Hashing.hashString(name));
+            Set<String> privateDependents = new HashSet<>();
+            for (int i = 0; i < 5; i++) {
+                privateDependents.add(names.get(random.nextInt(classes)));
+            }
+            dependents.put(name, DependentsSet.dependentClasses(privateDependents, Collections.emptySet()));
+        }
+        ClassSetAnalysisData data = new ClassSetAnalysisData(classHashes, dependents, Collections.emptyMap(), null);
+        changedClasses = new HashSet<>(names.subList(0, 10));
+
+        dir = Files.createTempDirectory("class-set-analysis-benchmark").toFile();
+        serializedFile = new File(dir, "serialized.bin");
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(serializedFile))) {
+            serializer().write(encoder, data);
+        }
+        indexedFile = new File(dir, "indexed.bin");
+        new PreviousCompilationAccess(new StringInterner()).writePreviousCompilationData(
+            new PreviousCompilationData(data, new AnnotationProcessingData(), new ClassSetAnalysisData(), CompilerApiData.unavailable()),
+            indexedFile
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        serializedFile.delete();
+        indexedFile.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public DependentsSet serialized() throws Exception {
+        ClassSetAnalysisData data;
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(serializedFile))) {
+            data = serializer().read(decoder);
+        }
+        return new ClassSetAnalysis(data).findTransitiveDependents(changedClasses, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public DependentsSet indexed() {
+        PreviousCompilationData data = new PreviousCompilationAccess(new StringInterner()).readPreviousCompilationData(indexedFile);
+        return new ClassSetAnalysis(data.getOutputSnapshot()).findTransitiveDependents(changedClasses, Collections.emptyMap());
+    }
+
+    private static ClassSetAnalysisData.Serializer serializer() {
+        HierarchicalNameSerializer hierarchicalNameSerializer = new HierarchicalNameSerializer(new StringInterner());
+        return new ClassSetAnalysisData.Serializer(() -> hierarchicalNameSerializer);
+    }
+}
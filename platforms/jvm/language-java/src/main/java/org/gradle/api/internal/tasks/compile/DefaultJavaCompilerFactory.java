@@ -20,6 +20,8 @@
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector;
 import org.gradle.api.problems.internal.InternalProblems;
 import org.gradle.initialization.layout.ProjectCacheDir;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.jvm.toolchain.internal.JavaCompilerFactory;
 import org.gradle.language.base.internal.compile.CompileSpec;
 import org.gradle.language.base.internal.compile.Compiler;
@@ -30,6 +32,9 @@
 import org.gradle.workers.internal.WorkerDaemonFactory;
 
 public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
+    // Keeps the file managers of in-process compilations open between compilations, see JavacFileManagerPool. Disabled by default
+    private static final InternalFlag REUSE_FILE_MANAGERS = new InternalFlag("org.gradle.internal.java.compile.reuse-file-managers");
+
     private final WorkerDirectoryProvider workingDirProvider;
     private final WorkerDaemonFactory workerDaemonFactory;
     private final JavaForkOptionsFactory forkOptionsFactory;
@@ -40,6 +45,7 @@ public class DefaultJavaCompilerFactory implements JavaCompilerFactory {
     private JavaHomeBasedJavaCompilerFactory javaHomeBasedJavaCompilerFactory;
     private final InternalProblems problems;
     private final ProjectCacheDir projectCacheDir;
+    private final boolean reuseFileManagers;
 
     public DefaultJavaCompilerFactory(
         WorkerDirectoryProvider workingDirProvider,
@@ -50,7 +56,8 @@ public DefaultJavaCompilerFactory(
         ClassPathRegistry classPathRegistry,
         ActionExecutionSpecFactory actionExecutionSpecFactory,
         InternalProblems problems,
-        ProjectCacheDir projectCacheDir
+        ProjectCacheDir projectCacheDir,
+        InternalOptions internalOptions
     ) {
         this.workingDirProvider = workingDirProvider;
         this.workerDaemonFactory = workerDaemonFactory;
@@ -61,6 +68,7 @@ public DefaultJavaCompilerFactory(
         this.actionExecutionSpecFactory = actionExecutionSpecFactory;
         this.problems = problems;
         this.projectCacheDir = projectCacheDir;
+        this.reuseFileManagers = internalOptions.getOption(REUSE_FILE_MANAGERS).get();
     }
 
     private JavaHomeBasedJavaCompilerFactory getJavaHomeBasedJavaCompilerFactory() {
@@ -88,9 +96,10 @@ private <T extends CompileSpec> Compiler<T> createTargetCompiler(Class<T> type)
         }
 
         if (ForkingJavaCompileSpec.class.isAssignableFrom(type)) {
-            return (Compiler<T>) new DaemonJavaCompiler(workingDirProvider.getWorkingDirectory(), JdkJavaCompiler.class, new Object[]{getJavaHomeBasedJavaCompilerFactory()}, new ProcessIsolatedCompilerWorkerExecutor(workerDaemonFactory, actionExecutionSpecFactory, projectCacheDir), forkOptionsFactory, classPathRegistry);
+            // File managers are only pooled in-process, where idle ones are closed when the build session completes. Compiler daemons outlive the session
+            return (Compiler<T>) new DaemonJavaCompiler(workingDirProvider.getWorkingDirectory(), JdkJavaCompiler.class, new Object[]{getJavaHomeBasedJavaCompilerFactory(), false}, new ProcessIsolatedCompilerWorkerExecutor(workerDaemonFactory, actionExecutionSpecFactory, projectCacheDir), forkOptionsFactory, classPathRegistry);
         } else {
-            return (Compiler<T>) new JdkJavaCompiler(getJavaHomeBasedJavaCompilerFactory(), problems);
+            return (Compiler<T>) new JdkJavaCompiler(getJavaHomeBasedJavaCompilerFactory(), reuseFileManagers, problems);
         }
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.collect.Iterables;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.internal.session.BuildSessionLifecycleListener;
+
+import javax.annotation.Nullable;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.io.Closeable;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the file managers of in-process compilations open between compilations, so that a compilation with the same options and classpath as a
+ * previous one reuses the archives and platform classes that were already opened and indexed by the file manager of the previous one.
+ *
+ * <p>A file manager is only reused for a compilation with exactly the same options, since javac applies the options of each compilation to the
+ * file manager and some of them can't be reset. The length and modification time of the archives on the classpath and module path are part of the
+ * key, because a file manager does not notice when an archive it has opened is replaced. A file manager is used by a single compilation at a time.</p>
+ *
+ * <p>Idle file managers keep their archives open, so the number of archives they hold is bounded, and they are closed when the build session
+ * completes. The pool is not used on Windows, where open archives can't be replaced or deleted, nor on Java 8, where javac shares a cache of
+ * archives between all its file managers.</p>
+ */
+@NonNullApi
+public class JavacFileManagerPool implements BuildSessionLifecycleListener {
+    public static final JavacFileManagerPool INSTANCE = new JavacFileManagerPool(1000);
+
+    private final int maxIdleArchives;
+    // Least recently released first
+    private final Map<Key, List<PooledFileManager>> idle = new LinkedHashMap<>();
+    private int idleArchives;
+
+    JavacFileManagerPool(int maxIdleArchives) {
+        this.maxIdleArchives = maxIdleArchives;
+    }
+
+    static boolean canBeUsed() {
+        return JavaVersion.current().isJava9Compatible() && !OperatingSystem.current().isWindows();
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given options, which must be closed once the compilation has finished to return it to the pool.
+     */
+    PooledFileManager acquire(JavaCompiler compiler, JavaCompileSpec spec, List<String> options, @Nullable Charset charset, DiagnosticListener<? super JavaFileObject> diagnosticListener) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(charset == null ? "" : charset.name());
+        hasher.putInt(options.size());
+        for (String option : options) {
+            hasher.putString(option);
+        }
+        int archives = 0;
+        for (File file : Iterables.concat(spec.getCompileClasspath(), spec.getModulePath())) {
+            if (file.isFile()) {
+                hasher.putString(file.getAbsolutePath());
+                hasher.putLong(file.length());
+                hasher.putLong(file.lastModified());
+                archives++;
+            }
+        }
+        // Each compilation gets a new compiler instance, but file managers can be shared between the instances of a compiler class
+        Key key = new Key(compiler.getClass(), hasher.hash());
+
+        PooledFileManager fileManager = takeIdle(key);
+        if (fileManager == null) {
+            DelegatingDiagnosticListener listener = new DelegatingDiagnosticListener();
+            fileManager = new PooledFileManager(key, compiler.getStandardFileManager(listener, null, charset), listener, archives);
+        }
+        fileManager.listener.delegate = diagnosticListener;
+        return fileManager;
+    }
+
+    @Nullable
+    private synchronized PooledFileManager takeIdle(Key key) {
+        List<PooledFileManager> fileManagers = idle.get(key);
+        if (fileManagers == null) {
+            return null;
+        }
+        PooledFileManager fileManager = fileManagers.remove(fileManagers.size() - 1);
+        if (fileManagers.isEmpty()) {
+            idle.remove(key);
+        }
+        idleArchives -= fileManager.archives;
+        return fileManager;
+    }
+
+    private void release(PooledFileManager fileManager) {
+        fileManager.listener.delegate = null;
+        List<StandardJavaFileManager> evicted = new ArrayList<>();
+        synchronized (this) {
+            // Re-insert the key so that it becomes the most recently released one
+            List<PooledFileManager> fileManagers = idle.remove(fileManager.key);
+            if (fileManagers == null) {
+                fileManagers = new ArrayList<>(1);
+            }
+            fileManagers.add(fileManager);
+            idle.put(fileManager.key, fileManagers);
+            idleArchives += fileManager.archives;
+
+            Iterator<List<PooledFileManager>> iterator = idle.values().iterator();
+            while (idleArchives > maxIdleArchives && iterator.hasNext()) {
+                List<PooledFileManager> leastRecentlyReleased = iterator.next();
+                for (PooledFileManager candidate : leastRecentlyReleased) {
+                    idleArchives -= candidate.archives;
+                    evicted.add(candidate.fileManager);
+                }
+                iterator.remove();
+            }
+        }
+        CompositeStoppable.stoppable(evicted).stop();
+    }
+
+    /**
+     * Closes the idle file managers, so that their archives are not kept open between build sessions.
+     */
+    @Override
+    public void beforeComplete() {
+        List<StandardJavaFileManager> closed = new ArrayList<>();
+        synchronized (this) {
+            for (List<PooledFileManager> fileManagers : idle.values()) {
+                for (PooledFileManager fileManager : fileManagers) {
+                    closed.add(fileManager.fileManager);
+                }
+            }
+            idle.clear();
+            idleArchives = 0;
+        }
+        CompositeStoppable.stoppable(closed).stop();
+    }
+
+    /**
+     * A file manager of the pool, which is returned to the pool when closed.
+     */
+    @NonNullApi
+    final class PooledFileManager implements Closeable {
+        private final Key key;
+        private final StandardJavaFileManager fileManager;
+        private final DelegatingDiagnosticListener listener;
+        private final int archives;
+
+        private PooledFileManager(Key key, StandardJavaFileManager fileManager, DelegatingDiagnosticListener listener, int archives) {
+            this.key = key;
+            this.fileManager = fileManager;
+            this.listener = listener;
+            this.archives = archives;
+        }
+
+        StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    @NonNullApi
+    private static final class Key {
+        private final Class<?> compilerType;
+        private final HashCode hash;
+
+        Key(Class<?> compilerType, HashCode hash) {
+            this.compilerType = compilerType;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return compilerType == key.compilerType && hash.equals(key.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * compilerType.hashCode() + hash.hashCode();
+        }
+    }
+
+    /**
+     * Forwards the diagnostics reported by a pooled file manager to the compilation that is using it.
+     */
+    @NonNullApi
+    private static class DelegatingDiagnosticListener implements DiagnosticListener<JavaFileObject> {
+        @Nullable
+        private volatile DiagnosticListener<? super JavaFileObject> delegate;
+
+        @Override
+        public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+            DiagnosticListener<? super JavaFileObject> target = delegate;
+            if (target != null) {
+                target.report(diagnostic);
+            }
+        }
+    }
+}
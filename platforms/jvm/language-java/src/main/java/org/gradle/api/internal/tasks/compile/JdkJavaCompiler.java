@@ -37,6 +37,7 @@
 import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.Closeable;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.Iterator;
@@ -52,16 +53,19 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
 
     private final Context context;
     private final Factory<ContextAwareJavaCompiler> compilerFactory;
+    private final boolean reuseFileManagers;
     private final InternalProblems problemsService;
     private final DiagnosticToProblemListener diagnosticToProblemListener;
 
     @Inject
     public JdkJavaCompiler(
         Factory<ContextAwareJavaCompiler> compilerFactory,
+        boolean reuseFileManagers,
         InternalProblems problemsService
     ) {
         this.context = new Context();
         this.compilerFactory = compilerFactory;
+        this.reuseFileManagers = reuseFileManagers;
         this.problemsService = problemsService;
         this.diagnosticToProblemListener = new DiagnosticToProblemListener(problemsService.getInternalReporter(), context);
     }
@@ -104,7 +108,16 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         Charset charset = Optional.ofNullable(compileOptions.getEncoding())
             .map(Charset::forName)
             .orElse(null);
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnosticToProblemListener, null, charset);
+        StandardJavaFileManager standardFileManager;
+        Closeable fileManagerResources;
+        if (reuseFileManagers && JavacFileManagerPool.canBeUsed()) {
+            JavacFileManagerPool.PooledFileManager pooledFileManager = JavacFileManagerPool.INSTANCE.acquire(compiler, spec, options, charset, diagnosticToProblemListener);
+            standardFileManager = pooledFileManager.getFileManager();
+            fileManagerResources = pooledFileManager;
+        } else {
+            standardFileManager = compiler.getStandardFileManager(diagnosticToProblemListener, null, charset);
+            fileManagerResources = standardFileManager;
+        }
 
         Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
         boolean hasEmptySourcepaths = JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options);
@@ -122,7 +135,7 @@ private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, Api
         }
         Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
         task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
+        task = new ResourceCleaningCompilationTask(task, fileManagerResources);
         return task;
     }
 
@@ -35,6 +35,7 @@
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.HierarchicalNameSerializer;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
@@ -109,6 +110,23 @@ public ClassSetAnalysisData(Map<String, HashCode> classHashes, Map<String, Depen
         this.fullRebuildCause = fullRebuildCause;
     }
 
+    Map<String, HashCode> getClassHashes() {
+        return classHashes;
+    }
+
+    Map<String, DependentsSet> getDependentsByClass() {
+        return dependents;
+    }
+
+    Map<String, IntSet> getClassesToConstants() {
+        return classesToConstants;
+    }
+
+    @Nullable
+    String getFullRebuildCause() {
+        return fullRebuildCause;
+    }
+
     /**
      * Returns a shrunk down version of this class set, which only contains information about types that could affect the other set.
      * This is useful for reducing the size of classpath snapshots, since a classpath usually contains a lot more types than the client
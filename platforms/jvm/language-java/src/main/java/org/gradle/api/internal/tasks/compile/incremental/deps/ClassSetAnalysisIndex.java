@@ -0,0 +1,513 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental.deps;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.ints.IntSets;
+import org.gradle.api.NonNullApi;
+import org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.GeneratedResource;
+import org.gradle.internal.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An indexed binary format for {@link ClassSetAnalysisData}, which is queried in place instead of being deserialized in full.
+ *
+ * <p>The maps of the analysis are stored as tables of entries sorted by the UTF-8 bytes of their class name, so that a class is looked up with
+ * a binary search, and each class name is stored once in a string table:</p>
+ *
+ * <pre>
+ * int stringCount, int classCount, int dependentsCount, int constantsCount, int fullRebuildCause (string index or -1)
+ * int[stringCount] offsets of the strings
+ * (int name, int valueOffset)[classCount] class hashes
+ * (int name, int valueOffset)[dependentsCount] dependents
+ * (int name, int valueOffset)[constantsCount] constants
+ * strings: int length, UTF-8 bytes
+ * values
+ * </pre>
+ *
+ * <p>A class name is only decoded and interned when it is returned, and a value when it is looked up, so that only the parts of a large class set
+ * visited by the change detection are ever materialized on the heap.</p>
+ */
+@NonNullApi
+public class ClassSetAnalysisIndex {
+    private static final int HEADER_SIZE = 20;
+    private static final byte DEPENDENCY_TO_ALL = 0;
+    private static final byte DEPENDENT_CLASSES = 1;
+
+    private ClassSetAnalysisIndex() {
+    }
+
+    public static byte[] write(ClassSetAnalysisData data) throws IOException {
+        StringIndex strings = new StringIndex();
+        List<Map.Entry<String, HashCode>> classHashes = sortedByName(data.getClassHashes(), strings);
+        List<Map.Entry<String, DependentsSet>> dependents = sortedByName(data.getDependentsByClass(), strings);
+        List<Map.Entry<String, IntSet>> constants = sortedByName(data.getClassesToConstants(), strings);
+        int fullRebuildCause = data.getFullRebuildCause() == null ? -1 : strings.indexOf(data.getFullRebuildCause());
+
+        // Values are encoded first, so that all the strings they reference are known when the table of strings is written
+        ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+        DataOutputStream values = new DataOutputStream(valueBytes);
+        int[] classHashOffsets = new int[classHashes.size()];
+        for (int i = 0; i < classHashOffsets.length; i++) {
+            classHashOffsets[i] = values.size();
+            byte[] hash = classHashes.get(i).getValue().toByteArray();
+            values.writeByte(hash.length);
+            values.write(hash);
+        }
+        int[] dependentsOffsets = new int[dependents.size()];
+        for (int i = 0; i < dependentsOffsets.length; i++) {
+            dependentsOffsets[i] = values.size();
+            writeDependents(dependents.get(i).getValue(), values, strings);
+        }
+        int[] constantsOffsets = new int[constants.size()];
+        for (int i = 0; i < constantsOffsets.length; i++) {
+            constantsOffsets[i] = values.size();
+            IntSet classConstants = constants.get(i).getValue();
+            values.writeInt(classConstants.size());
+            IntIterator iterator = classConstants.iterator();
+            while (iterator.hasNext()) {
+                values.writeInt(iterator.nextInt());
+            }
+        }
+
+        List<byte[]> encodedStrings = strings.getEncodedStrings();
+        int stringsOffset = HEADER_SIZE + 4 * encodedStrings.size() + 8 * (classHashes.size() + dependents.size() + constants.size());
+        int valuesOffset = stringsOffset;
+        for (byte[] encodedString : encodedStrings) {
+            valuesOffset += 4 + encodedString.length;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(valuesOffset + values.size());
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(encodedStrings.size());
+        output.writeInt(classHashes.size());
+        output.writeInt(dependents.size());
+        output.writeInt(constants.size());
+        output.writeInt(fullRebuildCause);
+        int stringOffset = stringsOffset;
+        for (byte[] encodedString : encodedStrings) {
+            output.writeInt(stringOffset);
+            stringOffset += 4 + encodedString.length;
+        }
+        writeTable(classHashes, classHashOffsets, valuesOffset, strings, output);
+        writeTable(dependents, dependentsOffsets, valuesOffset, strings, output);
+        writeTable(constants, constantsOffsets, valuesOffset, strings, output);
+        for (byte[] encodedString : encodedStrings) {
+            output.writeInt(encodedString.length);
+            output.write(encodedString);
+        }
+        valueBytes.writeTo(output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static <V> List<Map.Entry<String, V>> sortedByName(Map<String, V> map, StringIndex strings) {
+        List<Map.Entry<String, V>> entries = new ArrayList<>(map.entrySet());
+        for (Map.Entry<String, V> entry : entries) {
+            strings.indexOf(entry.getKey());
+        }
+        entries.sort((left, right) -> compare(strings.encoded(left.getKey()), strings.encoded(right.getKey())));
+        return entries;
+    }
+
+    private static void writeDependents(DependentsSet dependentsSet, DataOutputStream values, StringIndex strings) throws IOException {
+        if (dependentsSet.isDependencyToAll()) {
+            values.writeByte(DEPENDENCY_TO_ALL);
+            values.writeInt(strings.indexOf(dependentsSet.getDescription()));
+            return;
+        }
+        values.writeByte(DEPENDENT_CLASSES);
+        writeNames(dependentsSet.getPrivateDependentClasses(), values, strings);
+        writeNames(dependentsSet.getAccessibleDependentClasses(), values, strings);
+        values.writeInt(dependentsSet.getDependentResources().size());
+        for (GeneratedResource resource : dependentsSet.getDependentResources()) {
+            values.writeByte(resource.getLocation().ordinal());
+            values.writeInt(strings.indexOf(resource.getPath()));
+        }
+    }
+
+    private static void writeNames(Collection<String> names, DataOutputStream values, StringIndex strings) throws IOException {
+        values.writeInt(names.size());
+        for (String name : names) {
+            values.writeInt(strings.indexOf(name));
+        }
+    }
+
+    private static <V> void writeTable(List<Map.Entry<String, V>> entries, int[] valueOffsets, int valuesOffset, StringIndex strings, DataOutputStream output) throws IOException {
+        for (int i = 0; i < valueOffsets.length; i++) {
+            output.writeInt(strings.indexOf(entries.get(i).getKey()));
+            output.writeInt(valuesOffset + valueOffsets[i]);
+        }
+    }
+
+    /**
+     * Returns the analysis stored in the given buffer, which is read lazily and must not change while the analysis is in use.
+     */
+    public static ClassSetAnalysisData read(ByteBuffer contents, Interner<String> stringInterner) throws IOException {
+        if (contents.limit() < HEADER_SIZE) {
+            throw new IOException("Class set analysis is truncated.");
+        }
+        int stringCount = contents.getInt(0);
+        int classCount = contents.getInt(4);
+        int dependentsCount = contents.getInt(8);
+        int constantsCount = contents.getInt(12);
+        int fullRebuildCause = contents.getInt(16);
+        long tablesEnd = HEADER_SIZE + 4L * stringCount + 8L * ((long) classCount + dependentsCount + constantsCount);
+        if (stringCount < 0 || classCount < 0 || dependentsCount < 0 || constantsCount < 0 || fullRebuildCause >= stringCount || tablesEnd > contents.limit()) {
+            throw new IOException("Class set analysis is corrupt.");
+        }
+        StringTable strings = new StringTable(contents, stringCount, stringInterner);
+        int classesOffset = HEADER_SIZE + 4 * stringCount;
+        int dependentsOffset = classesOffset + 8 * classCount;
+        int constantsOffset = dependentsOffset + 8 * dependentsCount;
+        return new ClassSetAnalysisData(
+            new IndexedMap<>(contents, strings, classesOffset, classCount, ClassSetAnalysisIndex::readHash),
+            new IndexedMap<>(contents, strings, dependentsOffset, dependentsCount, ClassSetAnalysisIndex::readDependents),
+            new IndexedMap<>(contents, strings, constantsOffset, constantsCount, ClassSetAnalysisIndex::readConstants),
+            fullRebuildCause < 0 ? null : strings.get(fullRebuildCause)
+        );
+    }
+
+    private static HashCode readHash(ByteBuffer contents, StringTable strings, int offset) {
+        byte[] hash = new byte[contents.get(offset) & 0xFF];
+        ByteBuffer encoded = contents.duplicate();
+        encoded.position(offset + 1);
+        encoded.get(hash);
+        return HashCode.fromBytes(hash);
+    }
+
+    private static DependentsSet readDependents(ByteBuffer contents, StringTable strings, int offset) {
+        if (contents.get(offset) == DEPENDENCY_TO_ALL) {
+            return DependentsSet.dependencyToAll(strings.get(contents.getInt(offset + 1)));
+        }
+        int position = offset + 1;
+        int count = contents.getInt(position);
+        ImmutableSet.Builder<String> privateClasses = ImmutableSet.builderWithExpectedSize(count);
+        for (int i = 0; i < count; i++) {
+            position += 4;
+            privateClasses.add(strings.get(contents.getInt(position)));
+        }
+        position += 4;
+        count = contents.getInt(position);
+        ImmutableSet.Builder<String> accessibleClasses = ImmutableSet.builderWithExpectedSize(count);
+        for (int i = 0; i < count; i++) {
+            position += 4;
+            accessibleClasses.add(strings.get(contents.getInt(position)));
+        }
+        position += 4;
+        count = contents.getInt(position);
+        position += 4;
+        ImmutableSet.Builder<GeneratedResource> resources = ImmutableSet.builderWithExpectedSize(count);
+        for (int i = 0; i < count; i++) {
+            GeneratedResource.Location location = GeneratedResource.Location.values()[contents.get(position)];
+            resources.add(new GeneratedResource(location, strings.get(contents.getInt(position + 1))));
+            position += 5;
+        }
+        return DependentsSet.dependents(privateClasses.build(), accessibleClasses.build(), resources.build());
+    }
+
+    private static IntSet readConstants(ByteBuffer contents, StringTable strings, int offset) {
+        int count = contents.getInt(offset);
+        if (count == 0) {
+            return IntSets.EMPTY_SET;
+        }
+        IntSet constants = new IntOpenHashSet(count);
+        for (int i = 0; i < count; i++) {
+            constants.add(contents.getInt(offset + 4 + 4 * i));
+        }
+        return constants;
+    }
+
+    /**
+     * Compares UTF-8 encoded strings by their unsigned bytes, which is the order in which the tables are searched.
+     */
+    private static int compare(byte[] left, byte[] right) {
+        int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    @NonNullApi
+    private static class StringIndex {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<byte[]> encodedStrings = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = encodedStrings.size();
+                indices.put(value, index);
+                encodedStrings.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return index;
+        }
+
+        byte[] encoded(String value) {
+            return encodedStrings.get(indexOf(value));
+        }
+
+        List<byte[]> getEncodedStrings() {
+            return encodedStrings;
+        }
+    }
+
+    /**
+     * The strings of an analysis, decoded and interned on first use.
+     */
+    @NonNullApi
+    private static class StringTable {
+        private final ByteBuffer contents;
+        private final Interner<String> stringInterner;
+        private final String[] strings;
+
+        StringTable(ByteBuffer contents, int count, Interner<String> stringInterner) {
+            this.contents = contents;
+            this.stringInterner = stringInterner;
+            this.strings = new String[count];
+        }
+
+        String get(int index) {
+            String string = strings[index];
+            if (string == null) {
+                int offset = offsetOf(index);
+                byte[] bytes = new byte[contents.getInt(offset)];
+                ByteBuffer encoded = contents.duplicate();
+                encoded.position(offset + 4);
+                encoded.get(bytes);
+                string = stringInterner.intern(new String(bytes, StandardCharsets.UTF_8));
+                strings[index] = string;
+            }
+            return string;
+        }
+
+        /**
+         * Compares the string with the given index to the given UTF-8 encoded string, without decoding it.
+         */
+        int compareTo(int index, byte[] other) {
+            int offset = offsetOf(index);
+            int length = contents.getInt(offset);
+            int commonLength = Math.min(length, other.length);
+            for (int i = 0; i < commonLength; i++) {
+                int difference = (contents.get(offset + 4 + i) & 0xFF) - (other[i] & 0xFF);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return length - other.length;
+        }
+
+        private int offsetOf(int index) {
+            return contents.getInt(HEADER_SIZE + 4 * index);
+        }
+    }
+
+    @NonNullApi
+    private interface ValueReader<V> {
+        V read(ByteBuffer contents, StringTable strings, int offset);
+    }
+
+    /**
+     * A read-only view of a table of the analysis, which looks up keys with a binary search and decodes values on each access.
+     */
+    @NonNullApi
+    private static class IndexedMap<V> extends AbstractMap<String, V> {
+        private final ByteBuffer contents;
+        private final StringTable strings;
+        private final int tableOffset;
+        private final int size;
+        private final ValueReader<V> valueReader;
+
+        IndexedMap(ByteBuffer contents, StringTable strings, int tableOffset, int size, ValueReader<V> valueReader) {
+            this.contents = contents;
+            this.strings = strings;
+            this.tableOffset = tableOffset;
+            this.size = size;
+            this.valueReader = valueReader;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Nullable
+        @Override
+        public V get(@Nullable Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : valueAt(index);
+        }
+
+        private int indexOf(@Nullable Object key) {
+            if (!(key instanceof String)) {
+                return -1;
+            }
+            byte[] encodedKey = ((String) key).getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = strings.compareTo(contents.getInt(tableOffset + 8 * middle), encodedKey);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        private String keyAt(int index) {
+            return strings.get(contents.getInt(tableOffset + 8 * index));
+        }
+
+        private V valueAt(int index) {
+            return valueReader.read(contents, strings, contents.getInt(tableOffset + 8 * index + 4));
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new KeySet();
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new EntrySet();
+        }
+
+        @NonNullApi
+        private class KeySet extends AbstractSet<String> {
+            @Override
+            public Iterator<String> iterator() {
+                return new KeyIterator();
+            }
+
+            @Override
+            public boolean contains(@Nullable Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+
+        @NonNullApi
+        private class EntrySet extends AbstractSet<Entry<String, V>> {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public boolean contains(@Nullable Object o) {
+                if (!(o instanceof Entry)) {
+                    return false;
+                }
+                Entry<?, ?> entry = (Entry<?, ?>) o;
+                V value = get(entry.getKey());
+                return value != null && value.equals(entry.getValue());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+
+        @NonNullApi
+        private class KeyIterator extends IndexIterator<String> {
+            KeyIterator() {
+                super(size);
+            }
+
+            @Override
+            String get(int index) {
+                return keyAt(index);
+            }
+        }
+
+        @NonNullApi
+        private class EntryIterator extends IndexIterator<Entry<String, V>> {
+            EntryIterator() {
+                super(size);
+            }
+
+            @Override
+            Entry<String, V> get(int index) {
+                return new SimpleImmutableEntry<>(keyAt(index), valueAt(index));
+            }
+        }
+    }
+
+    @NonNullApi
+    private static abstract class IndexIterator<T> implements Iterator<T> {
+        private final int size;
+        private int next;
+
+        IndexIterator(int size) {
+            this.size = size;
+        }
+
+        abstract T get(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            return get(next++);
+        }
+    }
+}
@@ -17,14 +17,45 @@
 package org.gradle.api.internal.tasks.compile.incremental.recomp;
 
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.tasks.compile.incremental.compilerapi.CompilerApiData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisIndex;
+import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingData;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.internal.serialize.HierarchicalNameSerializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Supplier;
 
+/**
+ * Reads and writes the data of the previous compilation.
+ *
+ * <p>The analyses of the output and of the classpath make up most of the data. They are stored in the format of {@link ClassSetAnalysisIndex},
+ * and are queried in place from the contents of the file, which are memory-mapped for large files. The rest of the data is serialized with Kryo:</p>
+ *
+ * <pre>
+ * int formatVersion
+ * int length, output analysis
+ * int length, classpath analysis
+ * annotation processing data, compiler API data
+ * </pre>
+ */
 public class PreviousCompilationAccess {
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAP_THRESHOLD = 64 * 1024;
 
     private final StringInterner interner;
 
@@ -33,18 +64,88 @@ public PreviousCompilationAccess(StringInterner interner) {
     }
 
     public PreviousCompilationData readPreviousCompilationData(File source) {
-        try (KryoBackedDecoder encoder = new KryoBackedDecoder(new FileInputStream(source))) {
-            return new PreviousCompilationData.Serializer(interner).read(encoder);
+        try {
+            ByteBuffer contents = readContents(source);
+            if (contents.getInt(0) != FORMAT_VERSION) {
+                throw new IOException("Unsupported format of previous compilation result.");
+            }
+            ByteBuffer outputSnapshotContents = section(contents, 4);
+            ByteBuffer classpathSnapshotContents = section(contents, 8 + outputSnapshotContents.limit());
+            ClassSetAnalysisData outputSnapshot = ClassSetAnalysisIndex.read(outputSnapshotContents, interner);
+            ClassSetAnalysisData classpathSnapshot = ClassSetAnalysisIndex.read(classpathSnapshotContents, interner);
+
+            ByteBuffer remainder = contents.duplicate();
+            remainder.position(12 + outputSnapshotContents.limit() + classpathSnapshotContents.limit());
+            byte[] remainderBytes = new byte[remainder.remaining()];
+            remainder.get(remainderBytes);
+            try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(remainderBytes))) {
+                HierarchicalNameSerializer hierarchicalNameSerializer = new HierarchicalNameSerializer(interner);
+                Supplier<HierarchicalNameSerializer> classNameSerializerSupplier = () -> hierarchicalNameSerializer;
+                AnnotationProcessingData annotationProcessingData = new AnnotationProcessingData.Serializer(classNameSerializerSupplier).read(decoder);
+                CompilerApiData compilerApiData = new CompilerApiData.Serializer(classNameSerializerSupplier).read(decoder);
+                return new PreviousCompilationData(outputSnapshot, annotationProcessingData, classpathSnapshot, compilerApiData);
+            }
         } catch (Exception e) {
             throw new IllegalStateException("Could not read previous compilation result.", e);
         }
     }
 
+    private static ByteBuffer readContents(File source) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(source, "r")) {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            if (size < 12) {
+                throw new EOFException("Previous compilation result is truncated.");
+            }
+            // A mapping keeps the file open until it is garbage collected, which would prevent the next compilation from replacing it on Windows
+            if (size >= MAP_THRESHOLD && !OperatingSystem.current().isWindows()) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer contents = ByteBuffer.allocate((int) size);
+            while (contents.hasRemaining()) {
+                if (channel.read(contents) < 0) {
+                    throw new EOFException("Previous compilation result is truncated.");
+                }
+            }
+            contents.flip();
+            return contents;
+        }
+    }
+
+    private static ByteBuffer section(ByteBuffer contents, int offset) throws IOException {
+        int length = contents.getInt(offset);
+        if (length < 0 || offset + 4L + length > contents.limit()) {
+            throw new IOException("Previous compilation result is corrupt.");
+        }
+        ByteBuffer section = contents.duplicate();
+        section.position(offset + 4);
+        section.limit(offset + 4 + length);
+        return section.slice();
+    }
+
     public void writePreviousCompilationData(PreviousCompilationData data, File target) {
-        try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(target))) {
-            new PreviousCompilationData.Serializer(interner).write(encoder, data);
+        File tmpFile = new File(target.getParentFile(), target.getName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                writeSection(ClassSetAnalysisIndex.write(data.getOutputSnapshot()), output);
+                writeSection(ClassSetAnalysisIndex.write(data.getClasspathSnapshot()), output);
+                KryoBackedEncoder encoder = new KryoBackedEncoder(output);
+                HierarchicalNameSerializer hierarchicalNameSerializer = new HierarchicalNameSerializer(interner);
+                Supplier<HierarchicalNameSerializer> classNameSerializerSupplier = () -> hierarchicalNameSerializer;
+                new AnnotationProcessingData.Serializer(classNameSerializerSupplier).write(encoder, data.getAnnotationProcessingData());
+                new CompilerApiData.Serializer(classNameSerializerSupplier).write(encoder, data.getCompilerApiData());
+                encoder.flush();
+            }
+            // The analysis read from the previous file may still be mapped, so the file is replaced instead of being written in place
+            Files.move(tmpFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (Exception e) {
             throw new IllegalStateException("Could not store compilation result", e);
         }
     }
+
+    private static void writeSection(byte[] section, DataOutputStream output) throws IOException {
+        output.writeInt(section.length);
+        output.write(section);
+    }
 }
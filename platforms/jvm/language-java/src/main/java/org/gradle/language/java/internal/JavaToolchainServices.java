@@ -18,9 +18,12 @@
 
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.tasks.compile.DefaultJavaCompilerFactory;
+import org.gradle.api.internal.tasks.compile.JavacFileManagerPool;
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector;
 import org.gradle.api.problems.internal.InternalProblems;
 import org.gradle.initialization.layout.ProjectCacheDir;
+import org.gradle.internal.buildoption.InternalOptions;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.service.Provides;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistrationProvider;
@@ -33,11 +36,24 @@
 import org.gradle.workers.internal.WorkerDaemonFactory;
 
 public class JavaToolchainServices extends AbstractGradleModuleServices {
+    @Override
+    public void registerBuildSessionServices(ServiceRegistration registration) {
+        registration.addProvider(new BuildSessionScopeCompileServices());
+    }
+
     @Override
     public void registerProjectServices(ServiceRegistration registration) {
         registration.addProvider(new ProjectScopeCompileServices());
     }
 
+    private static class BuildSessionScopeCompileServices implements ServiceRegistrationProvider {
+        @Provides
+        void configure(ServiceRegistration registration, ListenerManager listenerManager) {
+            // Closes the file managers that in-process compilations of the session kept open
+            listenerManager.addListener(JavacFileManagerPool.INSTANCE);
+        }
+    }
+
     private static class ProjectScopeCompileServices implements ServiceRegistrationProvider {
         @Provides
         JavaCompilerFactory createJavaCompilerFactory(
@@ -49,7 +65,8 @@ JavaCompilerFactory createJavaCompilerFactory(
             ClassPathRegistry classPathRegistry,
             ActionExecutionSpecFactory actionExecutionSpecFactory,
             InternalProblems problems,
-            ProjectCacheDir projectCacheDir
+            ProjectCacheDir projectCacheDir,
+            InternalOptions internalOptions
         ) {
             return new DefaultJavaCompilerFactory(
                 workerDirectoryProvider,
@@ -60,7 +77,8 @@ JavaCompilerFactory createJavaCompilerFactory(
                 classPathRegistry,
                 actionExecutionSpecFactory,
                 problems,
-                projectCacheDir
+                projectCacheDir,
+                internalOptions
             );
         }
     }
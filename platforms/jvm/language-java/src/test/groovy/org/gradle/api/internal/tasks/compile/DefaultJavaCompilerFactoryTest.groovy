@@ -19,6 +19,7 @@ import org.gradle.api.internal.ClassPathRegistry
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDetector
 import org.gradle.api.problems.internal.InternalProblems
 import org.gradle.initialization.layout.ProjectCacheDir
+import org.gradle.internal.buildoption.DefaultInternalOptions
 import org.gradle.process.internal.ClientExecHandleBuilderFactory
 import org.gradle.process.internal.JavaForkOptionsFactory
 import org.gradle.workers.internal.ActionExecutionSpecFactory
@@ -37,7 +38,8 @@ class DefaultJavaCompilerFactoryTest extends Specification {
         Stub(ClassPathRegistry),
         Stub(ActionExecutionSpecFactory),
         Stub(InternalProblems),
-        Stub(ProjectCacheDir)
+        Stub(ProjectCacheDir),
+        new DefaultInternalOptions([:])
     )
 
     def "creates in-process compiler when JavaCompileSpec is provided"() {
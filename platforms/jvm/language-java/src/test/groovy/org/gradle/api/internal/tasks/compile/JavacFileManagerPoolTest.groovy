@@ -0,0 +1,205 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.DiagnosticListener
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import javax.tools.ToolProvider
+import java.nio.charset.Charset
+
+class JavacFileManagerPoolTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def compiler = Mock(JavaCompiler)
+    def listener = Stub(DiagnosticListener)
+    def pool = new JavacFileManagerPool(2)
+
+    def "reuses file manager of a previous compilation with the same options and classpath"() {
+        def spec = spec(tmpDir.file("lib.jar").createFile())
+
+        when:
+        def first = pool.acquire(compiler, spec, ["-g"], null, listener)
+        first.close()
+        def second = pool.acquire(compiler, spec, ["-g"], null, listener)
+
+        then:
+        1 * compiler.getStandardFileManager(_, null, null) >> Mock(StandardJavaFileManager)
+        second.fileManager.is(first.fileManager)
+    }
+
+    def "does not reuse file manager for a compilation with #difference"() {
+        def jar = tmpDir.file("lib.jar").createFile()
+
+        when:
+        def first = pool.acquire(compiler, spec(jar), ["-g"], null, listener)
+        first.close()
+        change(jar)
+        def second = pool.acquire(compiler, spec(jar), options, null, listener)
+
+        then:
+        2 * compiler.getStandardFileManager(_, null, null) >> { Mock(StandardJavaFileManager) }
+        !second.fileManager.is(first.fileManager)
+
+        where:
+        difference                | options       | change
+        "other options"           | ["-g:none"]   | { File jar -> }
+        "a changed classpath jar" | ["-g"]        | { File jar -> jar << "changed" }
+    }
+
+    def "does not hand out a file manager that is in use"() {
+        def spec = spec(tmpDir.file("lib.jar").createFile())
+
+        when:
+        def first = pool.acquire(compiler, spec, ["-g"], null, listener)
+        def second = pool.acquire(compiler, spec, ["-g"], null, listener)
+
+        then:
+        2 * compiler.getStandardFileManager(_, null, null) >> { Mock(StandardJavaFileManager) }
+        !second.fileManager.is(first.fileManager)
+    }
+
+    def "closes least recently released file managers when idle file managers hold too many archives"() {
+        def first = Mock(StandardJavaFileManager)
+        def second = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(_, null, null) >>> [first, second]
+
+        when:
+        def firstPooled = pool.acquire(compiler, spec(tmpDir.file("a.jar").createFile(), tmpDir.file("b.jar").createFile()), ["-g"], null, listener)
+        def secondPooled = pool.acquire(compiler, spec(tmpDir.file("c.jar").createFile()), ["-g"], null, listener)
+        firstPooled.close()
+
+        then:
+        0 * first.close()
+
+        when:
+        secondPooled.close()
+
+        then:
+        1 * first.close()
+        0 * second.close()
+    }
+
+    def "forwards diagnostics of file manager to the compilation using it"() {
+        def spec = spec(tmpDir.file("lib.jar").createFile())
+        def firstListener = Mock(DiagnosticListener)
+        def secondListener = Mock(DiagnosticListener)
+        DiagnosticListener fileManagerListener = null
+        compiler.getStandardFileManager(_, null, null) >> { DiagnosticListener l, locale, charset ->
+            fileManagerListener = l
+            Mock(StandardJavaFileManager)
+        }
+
+        when:
+        pool.acquire(compiler, spec, ["-g"], null, firstListener).close()
+        pool.acquire(compiler, spec, ["-g"], null, secondListener)
+        fileManagerListener.report(null)
+
+        then:
+        0 * firstListener.report(_)
+        1 * secondListener.report(null)
+    }
+
+    def "closes idle file managers when the build session completes"() {
+        def spec = spec(tmpDir.file("lib.jar").createFile())
+        def fileManager = Mock(StandardJavaFileManager)
+        def inUseFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(_, null, null) >>> [fileManager, inUseFileManager]
+
+        when:
+        pool.acquire(compiler, spec, ["-g"], null, listener).close()
+        pool.acquire(compiler, spec(), ["-g"], null, listener)
+        pool.beforeComplete()
+
+        then:
+        1 * fileManager.close()
+        0 * inUseFileManager.close()
+
+        when:
+        pool.acquire(compiler, spec, ["-g"], null, listener)
+
+        then:
+        1 * compiler.getStandardFileManager(_, null, null) >> Mock(StandardJavaFileManager)
+    }
+
+    @Requires(UnitTestPreconditions.NotWindows)
+    def "compiles against the classpath with a reused file manager"() {
+        def javac = ToolProvider.getSystemJavaCompiler()
+        def libSource = tmpDir.file("lib-src/lib/Lib.java")
+        libSource.text = "package lib; public class Lib { public static String name() { return \"lib\"; } }"
+        def libClasses = tmpDir.file("lib-classes").createDir()
+        assert javac.run(null, null, null, "-d", libClasses.path, libSource.path) == 0
+        def jar = tmpDir.file("lib.jar")
+        libClasses.zipTo(jar)
+        def sources = tmpDir.file("src")
+        def source = sources.file("app/App.java")
+        def classes = tmpDir.file("classes").createDir()
+        def spec = new DefaultJavaCompileSpec().with {
+            compileOptions = TestUtil.newInstance(CompileOptions, TestUtil.objectFactory())
+            sourceFiles = [source]
+            sourcesRoots = [sources]
+            compileClasspath = [jar]
+            destinationDir = classes
+            annotationProcessorPath = []
+            effectiveAnnotationProcessors = [] as Set
+            classesToProcess = [] as Set
+            it
+        }
+        def fileManagers = 0
+        // Like the compilers created for in-process compilations, each compilation uses a new compiler instance
+        def compilerFactory = {
+            Stub(ContextAwareJavaCompiler) {
+                getStandardFileManager(_, _, _) >> { DiagnosticListener l, Locale locale, Charset charset ->
+                    fileManagers++
+                    javac.getStandardFileManager(l, locale, charset)
+                }
+                getTask(*_) >> { args -> javac.getTask(*args) }
+            }
+        } as Factory<ContextAwareJavaCompiler>
+
+        when:
+        source.text = "package app; public class App { String firstMethod() { return lib.Lib.name(); } }"
+        new JdkJavaCompiler(compilerFactory, true, TestUtil.problemsService()).execute(spec)
+        source.text = "package app; public class App { String secondMethod() { return lib.Lib.name(); } }"
+        new JdkJavaCompiler(compilerFactory, true, TestUtil.problemsService()).execute(spec)
+
+        then:
+        fileManagers == 1
+        def compiled = new String(classes.file("app/App.class").bytes, "ISO-8859-1")
+        compiled.contains("secondMethod")
+        !compiled.contains("firstMethod")
+
+        cleanup:
+        JavacFileManagerPool.INSTANCE.beforeComplete()
+    }
+
+    private JavaCompileSpec spec(File... classpath) {
+        return Stub(JavaCompileSpec) {
+            getCompileClasspath() >> (classpath as List)
+            getModulePath() >> []
+        }
+    }
+}
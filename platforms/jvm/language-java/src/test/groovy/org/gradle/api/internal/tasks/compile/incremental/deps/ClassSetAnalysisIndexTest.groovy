@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental.deps
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet
+import it.unimi.dsi.fastutil.ints.IntSet
+import it.unimi.dsi.fastutil.ints.IntSets
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.GeneratedResource
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.TestHashCodes
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+import static org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.DependentsSet.dependencyToAll
+import static org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.DependentsSet.dependentClasses
+import static org.gradle.api.internal.tasks.compile.incremental.compilerapi.deps.DependentsSet.dependents
+
+class ClassSetAnalysisIndexTest extends Specification {
+
+    HashCode hash = TestHashCodes.hashCodeFrom(0)
+    HashCode otherHash = TestHashCodes.hashCodeFrom(1)
+
+    def "reads analysis from index"() {
+        def resource = new GeneratedResource(GeneratedResource.Location.CLASS_OUTPUT, "META-INF/foo.txt")
+        def data = new ClassSetAnalysisData(["A": hash, "B": hash, "C": hash, "D": hash, "é.E": otherHash],
+            ["A": dependentClasses(["B", "C"] as Set, [] as Set), "B": dependents([] as Set, ["C"] as Set, [resource] as Set), "C": dependentClasses([] as Set, [] as Set), "D": dependencyToAll("reason")],
+            [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET],
+            "Because"
+        )
+
+        when:
+        def read = index(data)
+
+        then:
+        read.classHashes == data.classHashes
+        read.dependents.keySet() == data.dependents.keySet()
+        ["A", "B", "C"].each {
+            assert read.dependents[it].privateDependentClasses == data.dependents[it].privateDependentClasses
+            assert read.dependents[it].accessibleDependentClasses == data.dependents[it].accessibleDependentClasses
+            assert read.dependents[it].dependentResources == data.dependents[it].dependentResources
+            assert !read.dependents[it].dependencyToAll
+        }
+        read.dependents["D"].dependencyToAll
+        read.dependents["D"].description == "reason"
+        read.classesToConstants == [C: [1, 2] as Set, D: [] as Set]
+        read.fullRebuildCause == "Because"
+    }
+
+    def "looks up classes without reading the whole index"() {
+        def classes = (0..<1000).collect { "org.example.p${it % 10}.Class$it".toString() }
+        def data = new ClassSetAnalysisData(
+            classes.collectEntries { [it, hash] },
+            classes.collectEntries { [it, dependentClasses([] as Set, ["${it}User".toString()] as Set)] },
+            classes.collectEntries { [it, new IntOpenHashSet([it.hashCode()]) as IntSet] },
+            null
+        )
+
+        when:
+        def read = index(data)
+
+        then:
+        classes.every { read.getDependents(it).accessibleDependentClasses == ["${it}User".toString()] as Set }
+        classes.every { read.getConstants(it) == [it.hashCode()] as Set }
+        read.getDependents("org.example.Missing").empty
+        read.getConstants("org.example.Missing").empty
+        read.getDependents("org.example.p3.package-info").accessibleDependentClasses.size() == 100
+    }
+
+    def "detects changes against an analysis read from index"() {
+        def previous = new ClassSetAnalysisData(["A": hash, "B": hash, "C": hash], [:], [:], null)
+        def current = new ClassSetAnalysisData(["A": hash, "B": otherHash, "D": hash], [:], [:], null)
+
+        expect:
+        current.getChangedClassesSince(index(previous)).accessibleDependentClasses == ["B", "C"] as Set
+        index(current).getChangedClassesSince(index(previous)).accessibleDependentClasses == ["B", "C"] as Set
+    }
+
+    def "fails on corrupt index"() {
+        when:
+        ClassSetAnalysisIndex.read(ByteBuffer.wrap([0, 0, 0, 100, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, -1, -1, -1, -1] as byte[]), new StringInterner())
+
+        then:
+        thrown(IOException)
+    }
+
+    private static ClassSetAnalysisData index(ClassSetAnalysisData data) {
+        return ClassSetAnalysisIndex.read(ByteBuffer.wrap(ClassSetAnalysisIndex.write(data)), new StringInterner())
+    }
+}
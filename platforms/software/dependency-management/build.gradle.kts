@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.implementation-java")
+    id("gradlebuild.jmh")
 }
 
 description = """This project contains most of the dependency management logic of Gradle:
@@ -171,6 +172,8 @@ dependencies {
     }
     crossVersionTestDistributionRuntimeOnly(projects.distributionsCore)
     crossVersionTestImplementation(libs.jettyWebApp)
+
+    jmhImplementation(platform(projects.distributionsDependencies))
 }
 
 packageCycles {
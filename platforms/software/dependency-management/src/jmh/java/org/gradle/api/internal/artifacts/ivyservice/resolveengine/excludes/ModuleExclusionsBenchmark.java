@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.gradle.api.internal.artifacts.DefaultModuleIdentifier.newId;
+
+/**
+ * Merges and evaluates the excludes found on the dependencies of Hadoop and Spring Boot applications, the way the graph traversal does when
+ * it reaches a module through several paths.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ModuleExclusionsBenchmark {
+    private static final List<String> HADOOP_EXCLUDES = Arrays.asList(
+        "commons-logging:commons-logging", "log4j:log4j", "org.slf4j:slf4j-log4j12", "javax.servlet:servlet-api", "javax.servlet.jsp:jsp-api",
+        "org.mortbay.jetty:jetty", "org.mortbay.jetty:jetty-util", "com.sun.jersey:jersey-core", "com.sun.jersey:jersey-server",
+        "com.sun.jersey:jersey-json", "tomcat:jasper-compiler", "tomcat:jasper-runtime", "org.codehaus.jackson:jackson-core-asl",
+        "org.codehaus.jackson:jackson-mapper-asl", "net.java.dev.jets3t:jets3t", "commons-el:commons-el", "io.netty:netty", "org.apache.avro:avro",
+        "com.google.protobuf:protobuf-java", "org.apache.zookeeper:zookeeper", "com.google.guava:guava", "jdk.tools:jdk.tools"
+    );
+    private static final List<String> SPRING_EXCLUDES = Arrays.asList(
+        "commons-logging:commons-logging", "org.springframework.boot:spring-boot-starter-logging", "org.springframework.boot:spring-boot-starter-tomcat",
+        "ch.qos.logback:*", "org.apache.logging.log4j:log4j-to-slf4j", "org.junit.vintage:junit-vintage-engine", "org.hamcrest:*", "junit:junit",
+        "log4j:*", "*:slf4j-log4j12", "*:log4j", "org.slf4j:*", "javax.servlet:*", "com.vaadin.external.google:android-json"
+    );
+
+    private List<List<ExcludeMetadata>> edgeExcludes;
+    private List<ModuleIdentifier> modules;
+
+    @Setup
+    public void setUp() {
+        List<String> patterns = new ArrayList<>(HADOOP_EXCLUDES);
+        patterns.addAll(SPRING_EXCLUDES);
+        // Each edge declares a different window of the patterns, as the excludes of a dependency are usually copied from a parent POM and amended
+        edgeExcludes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int from = i % patterns.size();
+            int length = 2 + i % 11;
+            List<ExcludeMetadata> excludes = new ArrayList<>();
+            for (int j = 0; j < length; j++) {
+                excludes.add(exclude(patterns.get((from + j * 3) % patterns.size())));
+            }
+            edgeExcludes.add(excludes);
+        }
+        modules = patterns.stream()
+            .map(pattern -> pattern.replace("*", "any"))
+            .map(ModuleExclusionsBenchmark::moduleId)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void mergeAndEvaluate(Blackhole bh) {
+        // A new instance per invocation, as the caches of a single instance would make every operation after the first one a lookup
+        ModuleExclusions moduleExclusions = new ModuleExclusions();
+        ExcludeSpec inherited = moduleExclusions.nothing();
+        ExcludeSpec reached = null;
+        for (List<ExcludeMetadata> excludes : edgeExcludes) {
+            ExcludeSpec edge = moduleExclusions.excludeAny(inherited, moduleExclusions.excludeAny(excludes));
+            // A module reached through several paths is only excluded when all of them exclude it
+            reached = reached == null ? edge : moduleExclusions.excludeAll(reached, edge);
+            inherited = moduleExclusions.excludeAny(excludes);
+            for (ModuleIdentifier module : modules) {
+                bh.consume(edge.excludes(module));
+            }
+        }
+        bh.consume(reached);
+    }
+
+    private static ExcludeMetadata exclude(String pattern) {
+        return new DefaultExclude(moduleId(pattern));
+    }
+
+    private static ModuleIdentifier moduleId(String pattern) {
+        String[] parts = pattern.split(":");
+        return newId(parts[0], parts[1]);
+    }
+}
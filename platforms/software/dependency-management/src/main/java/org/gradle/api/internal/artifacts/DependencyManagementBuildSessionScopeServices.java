@@ -29,6 +29,7 @@
 import org.gradle.api.internal.attributes.DefaultAttributesFactory;
 import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchemaFactory;
 import org.gradle.api.internal.attributes.immutable.artifact.ImmutableArtifactTypeRegistryFactory;
+import org.gradle.api.internal.attributes.matching.AttributeMatchingStatistics;
 import org.gradle.api.internal.catalog.DependenciesAccessorsWorkspaceProvider;
 import org.gradle.api.internal.model.NamedObjectInstantiator;
 import org.gradle.internal.component.external.model.PreferJavaRuntimeVariant;
@@ -55,6 +56,7 @@ void configure(ServiceRegistration registration) {
         registration.add(PreferJavaRuntimeVariant.class);
         registration.add(ImmutableAttributesSchemaFactory.class);
         registration.add(ImmutableArtifactTypeRegistryFactory.class);
+        registration.add(AttributeMatchingStatistics.class);
         registration.add(AttributeSchemaServices.class);
     }
 
@@ -43,4 +43,11 @@ public interface ArtifactCacheMetadata {
      * @return Metadata store location
      */
     File getMetaDataStoreDirectory();
+
+    /**
+     * Returns the root directory for the meta-data file store of descriptors in the indexed format.
+     *
+     * @return Metadata store location
+     */
+    File getIndexedMetaDataStoreDirectory();
 }
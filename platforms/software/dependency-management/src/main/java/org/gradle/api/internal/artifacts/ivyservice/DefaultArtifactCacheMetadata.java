@@ -58,6 +58,11 @@ public File getMetaDataStoreDirectory() {
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
     }
 
+    @Override
+    public File getIndexedMetaDataStoreDirectory() {
+        return new File(createCacheRelativeDir(CacheLayout.META_DATA), "indexed-descriptors");
+    }
+
     private File createCacheRelativeDir(CacheLayout cacheLayout) {
         return cacheLayout.getPath(getCacheDir());
     }
@@ -34,6 +34,7 @@ public class ConnectionFailureRepositoryDisabler implements RepositoryDisabler {
     private static final Logger LOGGER = Logging.getLogger(ConnectionFailureRepositoryDisabler.class);
 
     private final Map<String, Throwable> disabledRepositories = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> disablingSuspended = ThreadLocal.withInitial(() -> false);
 
     @Override
     public boolean isDisabled(String repositoryId) {
@@ -53,6 +54,10 @@ public boolean tryDisableRepository(String repositoryId, Throwable reason) {
             return true;
         }
 
+        if (disablingSuspended.get()) {
+            return false;
+        }
+
         if (isCriticalFailure(reason)) {
             LOGGER.debug("Repository {} has been disabled for this build due to connectivity issues", repositoryId);
             disabledRepositories.put(repositoryId, reason);
@@ -62,6 +67,20 @@ public boolean tryDisableRepository(String repositoryId, Throwable reason) {
         return false;
     }
 
+    @Override
+    public void runWithoutDisabling(Runnable action) {
+        if (disablingSuspended.get()) {
+            action.run();
+            return;
+        }
+        disablingSuspended.set(true);
+        try {
+            action.run();
+        } finally {
+            disablingSuspended.remove();
+        }
+    }
+
     @VisibleForTesting
     public Set<String> getDisabledRepositories() {
         return disabledRepositories.keySet();
@@ -42,6 +42,12 @@ public interface RepositoryDisabler {
      */
     boolean tryDisableRepository(String repositoryId, Throwable throwable);
 
+    /**
+     * Runs the given action without disabling any repository for the failures of the requests that the action makes on the current thread.
+     * Used for speculative requests, whose failures are ignored unless the request is made again.
+     */
+    void runWithoutDisabling(Runnable action);
+
     enum NoOpDisabler implements RepositoryDisabler {
         INSTANCE;
 
@@ -59,5 +65,10 @@ public Optional<Throwable> getDisabledReason(String repositoryId) {
         public boolean tryDisableRepository(String repositoryId, Throwable throwable) {
             return false;
         }
+
+        @Override
+        public void runWithoutDisabling(Runnable action) {
+            action.run();
+        }
     }
 }
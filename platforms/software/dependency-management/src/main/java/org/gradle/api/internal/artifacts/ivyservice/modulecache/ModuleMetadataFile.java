@@ -0,0 +1,244 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.collect.Interner;
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * The format of a cached module descriptor file.
+ *
+ * <p>The file starts with a table of the distinct strings of the descriptor, followed by the serialized descriptor in which each string is replaced
+ * by its index in the table:</p>
+ *
+ * <pre>
+ * int stringCount
+ * int bodyOffset
+ * int[stringCount] offsets of the strings
+ * for each string: int length, UTF-8 bytes
+ * body
+ * </pre>
+ *
+ * <p>The table is read in place from the file contents, which are memory-mapped for large files, and a string is only decoded and interned the first
+ * time it is referenced. The group, module and version of the dependencies of a descriptor are usually shared by many entries, so this replaces most
+ * string decoding and interning with a lookup in an array. A {@link Descriptor} also gives access to the strings and to the identifier of the module
+ * without decoding the rest of the descriptor.</p>
+ */
+@NonNullApi
+class ModuleMetadataFile {
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    private static final int HEADER_SIZE = 8;
+
+    private ModuleMetadataFile() {
+    }
+
+    static void write(File file, Encoder.EncodeAction<Encoder> action) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        StringTableEncoder encoder;
+        try (KryoBackedEncoder bodyEncoder = new KryoBackedEncoder(body)) {
+            encoder = new StringTableEncoder(bodyEncoder);
+            action.write(encoder);
+        }
+
+        List<String> strings = encoder.getStrings();
+        byte[][] encodedStrings = new byte[strings.size()][];
+        int offset = HEADER_SIZE + 4 * strings.size();
+        int[] offsets = new int[strings.size()];
+        for (int i = 0; i < encodedStrings.length; i++) {
+            encodedStrings[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            offsets[i] = offset;
+            offset += 4 + encodedStrings[i].length;
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(strings.size());
+            output.writeInt(offset);
+            for (int stringOffset : offsets) {
+                output.writeInt(stringOffset);
+            }
+            for (byte[] encodedString : encodedStrings) {
+                output.writeInt(encodedString.length);
+                output.write(encodedString);
+            }
+            body.writeTo(output);
+        }
+    }
+
+    static <T> T read(File file, Interner<String> stringInterner, Decoder.DecodeAction<Decoder, T> action) throws Exception {
+        return open(file, stringInterner).decode(action);
+    }
+
+    static Descriptor open(File file, Interner<String> stringInterner) throws IOException {
+        return new Descriptor(readContents(file), stringInterner);
+    }
+
+    private static ByteBuffer readContents(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new EOFException("Module metadata file is truncated: " + file);
+            }
+            // A mapping keeps the file open until it is garbage collected, which would prevent cache cleanup from deleting it on Windows
+            if (size >= MAP_THRESHOLD && !OperatingSystem.current().isWindows()) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer contents = ByteBuffer.allocate((int) size);
+            while (contents.hasRemaining()) {
+                if (channel.read(contents) < 0) {
+                    throw new EOFException("Module metadata file is truncated: " + file);
+                }
+            }
+            contents.flip();
+            return contents;
+        }
+    }
+
+    /**
+     * A view of the contents of a descriptor file. The strings are decoded and interned on first use.
+     */
+    @NonNullApi
+    static class Descriptor implements IntFunction<String> {
+        private final ByteBuffer contents;
+        private final Interner<String> stringInterner;
+        private final String[] strings;
+        private final int bodyOffset;
+
+        private Descriptor(ByteBuffer contents, Interner<String> stringInterner) throws IOException {
+            this.contents = contents;
+            this.stringInterner = stringInterner;
+            int count = contents.getInt(0);
+            this.bodyOffset = contents.getInt(4);
+            if (count < 0 || bodyOffset < HEADER_SIZE + 4L * count || bodyOffset > contents.limit()) {
+                throw new IOException("Module metadata file is corrupt.");
+            }
+            this.strings = new String[count];
+        }
+
+        int getStringCount() {
+            return strings.length;
+        }
+
+        String getString(int index) {
+            return apply(index);
+        }
+
+        /**
+         * Returns the group of the module, which {@link ModuleMetadataSerializer} writes after the type of the descriptor.
+         */
+        String getGroup() throws IOException {
+            return getString(readIdentifierString(0));
+        }
+
+        /**
+         * Returns the name of the module, which {@link ModuleMetadataSerializer} writes after the group.
+         */
+        String getModule() throws IOException {
+            return getString(readIdentifierString(1));
+        }
+
+        private int readIdentifierString(int position) throws IOException {
+            try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteBufferInputStream(body()), 16)) {
+                decoder.readByte();
+                for (int i = 0; i < position; i++) {
+                    decoder.readSmallInt();
+                }
+                return decoder.readSmallInt();
+            }
+        }
+
+        <T> T decode(Decoder.DecodeAction<Decoder, T> action) throws Exception {
+            try (StringTableDecoder decoder = new StringTableDecoder(new KryoBackedDecoder(new ByteBufferInputStream(body())), this)) {
+                return action.read(decoder);
+            }
+        }
+
+        private ByteBuffer body() {
+            ByteBuffer body = contents.duplicate();
+            body.position(bodyOffset);
+            return body;
+        }
+
+        @Override
+        public String apply(int index) {
+            String string = strings[index];
+            if (string == null) {
+                int offset = contents.getInt(HEADER_SIZE + 4 * index);
+                int length = contents.getInt(offset);
+                byte[] bytes = new byte[length];
+                ByteBuffer encoded = contents.duplicate();
+                encoded.position(offset + 4);
+                encoded.get(bytes);
+                string = stringInterner.intern(new String(bytes, StandardCharsets.UTF_8));
+                strings[index] = string;
+            }
+            return string;
+        }
+    }
+
+    @NonNullApi
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
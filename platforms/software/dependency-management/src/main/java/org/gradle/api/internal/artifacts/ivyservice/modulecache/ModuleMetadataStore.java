@@ -27,6 +27,7 @@
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.util.HashMap;
@@ -38,15 +39,21 @@ public class ModuleMetadataStore {
     private final ModuleMetadataSerializer moduleMetadataSerializer;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
     private final Interner<String> stringInterner;
+    private final boolean indexed;
 
+    /**
+     * @param indexed whether the descriptors are stored in the {@link ModuleMetadataFile} format, rather than as a plain serialized descriptor
+     */
     public ModuleMetadataStore(PathKeyFileStore metaDataStore,
                                ModuleMetadataSerializer moduleMetadataSerializer,
                                ImmutableModuleIdentifierFactory moduleIdentifierFactory,
-                               Interner<String> stringInterner) {
+                               Interner<String> stringInterner,
+                               boolean indexed) {
         this.metaDataStore = metaDataStore;
         this.moduleMetadataSerializer = moduleMetadataSerializer;
         this.moduleIdentifierFactory = moduleIdentifierFactory;
         this.stringInterner = stringInterner;
+        this.indexed = indexed;
     }
 
     public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component) {
@@ -54,6 +61,9 @@ public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponent
         LocallyAvailableResource resource = metaDataStore.get(filePath);
         if (resource != null) {
             try {
+                if (indexed) {
+                    return readIndexed(resource.getFile(), component.getComponentId());
+                }
                 try (StringDeduplicatingDecoder decoder = new StringDeduplicatingDecoder(new KryoBackedDecoder(new FileInputStream(resource.getFile())), stringInterner)) {
                     return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, new HashMap<>());
                 }
@@ -68,6 +78,10 @@ public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryK
         String[] filePath = getFilePath(component);
         return metaDataStore.add(PATH_JOINER.join(filePath), moduleDescriptorFile -> {
             try {
+                if (indexed) {
+                    ModuleMetadataFile.write(moduleDescriptorFile, encoder -> moduleMetadataSerializer.write(encoder, metadata, new HashMap<>()));
+                    return;
+                }
                 try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(moduleDescriptorFile))) {
                     moduleMetadataSerializer.write(encoder, metadata, new HashMap<>());
                 }
@@ -77,6 +91,15 @@ public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryK
         });
     }
 
+    private MutableModuleComponentResolveMetadata readIndexed(File file, ModuleComponentIdentifier componentId) throws Exception {
+        ModuleMetadataFile.Descriptor descriptor = ModuleMetadataFile.open(file, stringInterner);
+        // Check the identifier in place, before decoding the descriptor
+        if (!descriptor.getGroup().equals(componentId.getGroup()) || !descriptor.getModule().equals(componentId.getModule())) {
+            throw new IllegalStateException("Module metadata file contains the descriptor of " + descriptor.getGroup() + ":" + descriptor.getModule() + ".");
+        }
+        return descriptor.decode(decoder -> moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, new HashMap<>()));
+    }
+
     private String[] getFilePath(ModuleComponentAtRepositoryKey componentId) {
         ModuleComponentIdentifier moduleComponentIdentifier = componentId.getComponentId();
         return new String[] {
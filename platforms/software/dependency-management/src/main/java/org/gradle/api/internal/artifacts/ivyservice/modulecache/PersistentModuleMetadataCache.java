@@ -27,6 +27,7 @@
 import org.gradle.api.internal.artifacts.repositories.metadata.IvyMutableModuleMetadataFactory;
 import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory;
 import org.gradle.cache.IndexedCache;
+import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
 import org.gradle.internal.hash.ChecksumService;
@@ -36,8 +37,18 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.internal.BuildCommencedTimeProvider;
 
+import java.io.File;
+
 public class PersistentModuleMetadataCache extends AbstractModuleMetadataCache {
 
+    /**
+     * Stores the descriptors in the {@link ModuleMetadataFile} format, which is read in place rather than decoded string by string.
+     * <p>
+     * The descriptors and their index are kept apart from the default ones, so that switching the flag does not invalidate the cache of the other format.
+     */
+    public static final InternalFlag INDEXED_DESCRIPTORS = new InternalFlag("org.gradle.internal.dependency-resolution.indexed-module-metadata");
+
+    private final String cacheName;
     private IndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache;
     private final ModuleMetadataStore moduleMetadataStore;
     private final ArtifactCacheLockingAccessCoordinator artifactCacheLockingManager;
@@ -53,10 +64,13 @@ public PersistentModuleMetadataCache(
         IvyMutableModuleMetadataFactory ivyMetadataFactory,
         Interner<String> stringInterner,
         ModuleSourcesSerializer moduleSourcesSerializer,
-        ChecksumService checksumService
+        ChecksumService checksumService,
+        boolean indexedDescriptors
     ) {
         super(timeProvider);
-        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, capabilitySelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner);
+        File storeDirectory = indexedDescriptors ? artifactCacheMetadata.getIndexedMetaDataStoreDirectory() : artifactCacheMetadata.getMetaDataStoreDirectory();
+        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, storeDirectory), new ModuleMetadataSerializer(attributeContainerSerializer, capabilitySelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner, indexedDescriptors);
+        this.cacheName = indexedDescriptors ? "indexed-module-metadata" : "module-metadata";
         this.artifactCacheLockingManager = cacheAccessCoordinator;
     }
 
@@ -68,7 +82,7 @@ private IndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> g
     }
 
     private IndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> initCache() {
-        return artifactCacheLockingManager.createCache("module-metadata", new RevisionKeySerializer(), new ModuleMetadataCacheEntrySerializer());
+        return artifactCacheLockingManager.createCache(cacheName, new RevisionKeySerializer(), new ModuleMetadataCacheEntrySerializer());
     }
 
     @Override
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
 import com.google.common.collect.Interner;
+import org.gradle.api.NonNullApi;
 import org.gradle.internal.serialize.Decoder;
 
 import javax.annotation.Nullable;
@@ -24,6 +25,10 @@
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * Interns the strings read from the delegate.
+ */
+@NonNullApi
 class StringDeduplicatingDecoder implements Decoder, Closeable {
     private final Decoder delegate;
     private final Interner<String> stringInterner;
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.serialize.Decoder;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.IntFunction;
+
+/**
+ * Reads the strings written by a {@link StringTableEncoder}, by looking up their index in a table of strings.
+ */
+@NonNullApi
+class StringTableDecoder implements Decoder, Closeable {
+    private final Decoder delegate;
+    private final IntFunction<String> strings;
+
+    StringTableDecoder(Decoder delegate, IntFunction<String> strings) {
+        this.delegate = delegate;
+        this.strings = strings;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return delegate.getInputStream();
+    }
+
+    @Override
+    public long readLong() throws EOFException, IOException {
+        return delegate.readLong();
+    }
+
+    @Override
+    public long readSmallLong() throws EOFException, IOException {
+        return delegate.readSmallLong();
+    }
+
+    @Override
+    public int readInt() throws EOFException, IOException {
+        return delegate.readInt();
+    }
+
+    @Override
+    public int readSmallInt() throws EOFException, IOException {
+        return delegate.readSmallInt();
+    }
+
+    @Nullable
+    @Override
+    public Integer readNullableSmallInt() throws IOException {
+        return delegate.readNullableSmallInt();
+    }
+
+    @Override
+    public short readShort() throws EOFException, IOException {
+        return delegate.readShort();
+    }
+
+    @Override
+    public float readFloat() throws EOFException, IOException {
+        return delegate.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws EOFException, IOException {
+        return delegate.readDouble();
+    }
+
+    @Override
+    public boolean readBoolean() throws EOFException, IOException {
+        return delegate.readBoolean();
+    }
+
+    @Override
+    public String readString() throws EOFException, IOException {
+        return strings.apply(delegate.readSmallInt());
+    }
+
+    @Override
+    @Nullable
+    public String readNullableString() throws EOFException, IOException {
+        int index = delegate.readSmallInt();
+        return index == 0 ? null : strings.apply(index - 1);
+    }
+
+    @Override
+    public byte readByte() throws EOFException, IOException {
+        return delegate.readByte();
+    }
+
+    @Override
+    public void readBytes(byte[] buffer) throws EOFException, IOException {
+        delegate.readBytes(buffer);
+    }
+
+    @Override
+    public void readBytes(byte[] buffer, int offset, int count) throws EOFException, IOException {
+        delegate.readBytes(buffer, offset, count);
+    }
+
+    @Override
+    public byte[] readBinary() throws EOFException, IOException {
+        return delegate.readBinary();
+    }
+
+    @Override
+    public void skipBytes(long count) throws EOFException, IOException {
+        delegate.skipBytes(count);
+    }
+
+    @Override
+    public <T> T decodeChunked(DecodeAction<Decoder, T> decodeAction) throws EOFException, Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void skipChunked() throws EOFException, IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        ((Closeable) delegate).close();
+    }
+}
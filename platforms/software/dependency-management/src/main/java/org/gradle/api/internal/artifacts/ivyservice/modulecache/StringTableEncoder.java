@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.serialize.AbstractEncoder;
+import org.gradle.internal.serialize.Encoder;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces each string written to the delegate with its index in a table of the distinct strings written so far.
+ *
+ * @see StringTableDecoder
+ */
+@NonNullApi
+class StringTableEncoder extends AbstractEncoder {
+    private final Encoder delegate;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    StringTableEncoder(Encoder delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the distinct strings written, in the order of their indices.
+     */
+    List<String> getStrings() {
+        return strings;
+    }
+
+    @Override
+    public void writeByte(byte value) throws IOException {
+        delegate.writeByte(value);
+    }
+
+    @Override
+    public void writeBytes(byte[] bytes, int offset, int count) throws IOException {
+        delegate.writeBytes(bytes, offset, count);
+    }
+
+    @Override
+    public void writeBinary(byte[] bytes, int offset, int count) throws IOException {
+        delegate.writeBinary(bytes, offset, count);
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        delegate.writeLong(value);
+    }
+
+    @Override
+    public void writeSmallLong(long value) throws IOException {
+        delegate.writeSmallLong(value);
+    }
+
+    @Override
+    public void writeInt(int value) throws IOException {
+        delegate.writeInt(value);
+    }
+
+    @Override
+    public void writeSmallInt(int value) throws IOException {
+        delegate.writeSmallInt(value);
+    }
+
+    @Override
+    public void writeShort(short value) throws IOException {
+        delegate.writeShort(value);
+    }
+
+    @Override
+    public void writeFloat(float value) throws IOException {
+        delegate.writeFloat(value);
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        delegate.writeDouble(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        delegate.writeBoolean(value);
+    }
+
+    @Override
+    public void writeString(CharSequence value) throws IOException {
+        delegate.writeSmallInt(indexOf(value.toString()));
+    }
+
+    @Override
+    public void writeNullableString(@Nullable CharSequence value) throws IOException {
+        // 0 marks a null string, so that a nullable string takes the same space as a non-null one
+        delegate.writeSmallInt(value == null ? 0 : indexOf(value.toString()) + 1);
+    }
+
+    private int indexOf(String value) {
+        Integer index = indices.get(value);
+        if (index == null) {
+            index = strings.size();
+            indices.put(value, index);
+            strings.add(value);
+        }
+        return index;
+    }
+}
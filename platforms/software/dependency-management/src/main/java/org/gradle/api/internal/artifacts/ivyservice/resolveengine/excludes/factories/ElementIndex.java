@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
+
+import org.gradle.api.NonNullApi;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns dense integer ids to the modules, groups or module names referenced by excludes, so that sets of them can be represented as
+ * {@link IndexedSet bit sets}.
+ *
+ * <p>Ids are never reused, so the index grows with the number of distinct elements seen by the excludes of a build, which is bounded by the
+ * number of distinct modules of its dependency graphs.</p>
+ */
+@NonNullApi
+public final class ElementIndex<T> {
+    private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Object[] elements = new Object[64];
+    private int size;
+
+    /**
+     * Returns a set with the same elements as the given set, which is the given set itself when it is already backed by this index.
+     */
+    public IndexedSet<T> copyOf(Set<T> set) {
+        if (set instanceof IndexedSet && ((IndexedSet<T>) set).getIndex() == this) {
+            return (IndexedSet<T>) set;
+        }
+        BitSet bits = new BitSet();
+        for (T element : set) {
+            bits.set(idOf(element));
+        }
+        return new IndexedSet<>(this, bits);
+    }
+
+    int idOf(T element) {
+        Integer id = ids.get(element);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(element);
+            if (id == null) {
+                id = size;
+                if (size == elements.length) {
+                    elements = Arrays.copyOf(elements, size * 2);
+                }
+                // The element must be visible before its id is, as other threads look up the element of an id they have found in the map
+                elements[size++] = element;
+                ids.put(element, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the id of the given element, or -1 when it has not been seen yet and so cannot be part of any set.
+     */
+    int find(@Nullable Object element) {
+        if (element == null) {
+            return -1;
+        }
+        Integer id = ids.get(element);
+        return id == null ? -1 : id;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int id) {
+        return (T) elements[id];
+    }
+}
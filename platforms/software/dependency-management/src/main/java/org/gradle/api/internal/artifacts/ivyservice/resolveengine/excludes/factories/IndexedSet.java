@@ -0,0 +1,183 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
+
+import com.google.common.collect.Sets;
+import org.gradle.api.NonNullApi;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable set of elements of an {@link ElementIndex}, represented by the bits of their ids.
+ *
+ * <p>Unions, intersections and comparisons of sets backed by the same index are computed on the bits, without hashing any element.</p>
+ */
+@NonNullApi
+public final class IndexedSet<T> extends AbstractSet<T> {
+    private final ElementIndex<T> index;
+    private final BitSet bits;
+    private final int size;
+    private int hashCode;
+
+    IndexedSet(ElementIndex<T> index, BitSet bits) {
+        this.index = index;
+        this.bits = bits;
+        this.size = bits.cardinality();
+    }
+
+    /**
+     * Returns the union of the given sets.
+     */
+    public static <T> Set<T> union(Collection<? extends Set<T>> sets) {
+        ElementIndex<T> index = commonIndex(sets);
+        if (index != null) {
+            BitSet bits = new BitSet();
+            for (Set<T> set : sets) {
+                bits.or(((IndexedSet<T>) set).bits);
+            }
+            return new IndexedSet<>(index, bits);
+        }
+        Set<T> union = new HashSet<>();
+        for (Set<T> set : sets) {
+            union.addAll(set);
+        }
+        return union;
+    }
+
+    /**
+     * Returns the intersection of the given sets.
+     */
+    public static <T> Set<T> intersection(Set<T> left, Set<T> right) {
+        if (left instanceof IndexedSet && right instanceof IndexedSet && ((IndexedSet<T>) left).index == ((IndexedSet<T>) right).index) {
+            BitSet bits = (BitSet) ((IndexedSet<T>) left).bits.clone();
+            bits.and(((IndexedSet<T>) right).bits);
+            return new IndexedSet<>(((IndexedSet<T>) left).index, bits);
+        }
+        Set<T> common = Sets.newHashSet(left);
+        common.retainAll(right);
+        return common;
+    }
+
+    @Nullable
+    private static <T> ElementIndex<T> commonIndex(Collection<? extends Set<T>> sets) {
+        ElementIndex<T> index = null;
+        for (Set<T> set : sets) {
+            if (!(set instanceof IndexedSet)) {
+                return null;
+            }
+            ElementIndex<T> setIndex = ((IndexedSet<T>) set).index;
+            if (index == null) {
+                index = setIndex;
+            } else if (index != setIndex) {
+                return null;
+            }
+        }
+        return index;
+    }
+
+    ElementIndex<T> getIndex() {
+        return index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        int id = index.find(o);
+        return id >= 0 && bits.get(id);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ElementIterator<>(index, bits);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof IndexedSet && ((IndexedSet<?>) c).index == index) {
+            BitSet missing = (BitSet) ((IndexedSet<?>) c).bits.clone();
+            missing.andNot(bits);
+            return missing.isEmpty();
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof IndexedSet && ((IndexedSet<?>) o).index == index) {
+            return bits.equals(((IndexedSet<?>) o).bits);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // Must be the sum of the hash codes of the elements, as for any set, so it is computed once on demand
+        int result = hashCode;
+        if (result == 0 && size > 0) {
+            result = super.hashCode();
+            hashCode = result;
+        }
+        return result;
+    }
+
+    @NonNullApi
+    private static class ElementIterator<T> implements Iterator<T> {
+        private final ElementIndex<T> index;
+        private final BitSet bits;
+        private int next;
+
+        private ElementIterator(ElementIndex<T> index, BitSet bits) {
+            this.index = index;
+            this.bits = bits;
+            this.next = bits.nextSetBit(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public T next() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            T element = index.get(next);
+            next = bits.nextSetBit(next + 1);
+            return element;
+        }
+    }
+}
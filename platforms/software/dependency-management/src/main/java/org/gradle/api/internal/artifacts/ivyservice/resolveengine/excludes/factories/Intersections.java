@@ -281,10 +281,7 @@ private IntersectGroupSetWithGroupSet() {
 
         @Override
         public ExcludeSpec doIntersect(GroupSetExclude left, GroupSetExclude right, ExcludeFactory factory) {
-            Set<String> groups = left.getGroups();
-            Set<String> common = Sets.newHashSet(right.getGroups());
-            common.retainAll(groups);
-            return factory.fromGroups(common);
+            return factory.fromGroups(IndexedSet.intersection(left.getGroups(), right.getGroups()));
         }
     }
 
@@ -440,10 +437,7 @@ private IntersectModuleIdSetWithModuleIdSet() {
 
         @Override
         public ExcludeSpec doIntersect(ModuleIdSetExclude left, ModuleIdSetExclude right, ExcludeFactory factory) {
-            Set<ModuleIdentifier> moduleIds = left.getModuleIds();
-            Set<ModuleIdentifier> common = Sets.newHashSet(right.getModuleIds());
-            common.retainAll(moduleIds);
-            return factory.fromModuleIds(common);
+            return factory.fromModuleIds(IndexedSet.intersection(left.getModuleIds(), right.getModuleIds()));
         }
     }
 
@@ -479,8 +473,7 @@ private IntersectModuleSetWithModuleSet() {
 
         @Override
         public ExcludeSpec doIntersect(ModuleSetExclude left, ModuleSetExclude right, ExcludeFactory factory) {
-            Set<String> modules = Sets.newHashSet(left.getModules());
-            modules.retainAll(right.getModules());
+            Set<String> modules = IndexedSet.intersection(left.getModules(), right.getModules());
             if (modules.isEmpty()) {
                 return factory.nothing();
             }
@@ -17,6 +17,7 @@
 
 import com.google.common.collect.ImmutableSet;
 import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ElementIndex;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeEverything;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeNothing;
@@ -33,6 +34,11 @@
 import java.util.Set;
 
 public class DefaultExcludeFactory implements ExcludeFactory {
+    // Set excludes are backed by bit sets over these indexes, so that the algebra can merge and compare them without hashing their elements
+    private final ElementIndex<ModuleIdentifier> moduleIdIndex = new ElementIndex<>();
+    private final ElementIndex<String> groupIndex = new ElementIndex<>();
+    private final ElementIndex<String> moduleIndex = new ElementIndex<>();
+
     @Override
     public ExcludeNothing nothing() {
         return DefaultExcludeNothing.get();
@@ -85,16 +91,16 @@ public ExcludeSpec ivyPatternExclude(ModuleIdentifier moduleId, @Nullable IvyArt
 
     @Override
     public ModuleIdSetExclude moduleIdSet(Set<ModuleIdentifier> modules) {
-        return DefaultModuleIdSetExclude.of(modules);
+        return DefaultModuleIdSetExclude.of(moduleIdIndex.copyOf(modules));
     }
 
     @Override
     public GroupSetExclude groupSet(Set<String> groups) {
-        return new DefaultGroupSetExclude(groups);
+        return new DefaultGroupSetExclude(groupIndex.copyOf(groups));
     }
 
     @Override
     public ModuleSetExclude moduleSet(Set<String> modules) {
-        return new DefaultModuleSetExclude(modules);
+        return new DefaultModuleSetExclude(moduleIndex.copyOf(modules));
     }
 }
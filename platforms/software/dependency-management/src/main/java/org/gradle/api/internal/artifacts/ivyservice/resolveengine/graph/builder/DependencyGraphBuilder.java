@@ -19,7 +19,9 @@
 import com.google.common.collect.Sets;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.internal.artifacts.ComponentSelectorConverter;
 import org.gradle.api.internal.artifacts.ResolvedVersionConstraint;
@@ -27,6 +29,7 @@
 import org.gradle.api.internal.artifacts.dsl.ImmutableModuleReplacements;
 import org.gradle.api.internal.artifacts.ivyservice.ResolutionParameters;
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionApplicator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryDisabler;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
@@ -40,6 +43,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.ModuleConflictHandler;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.PotentialConflict;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.VersionConflictException;
+import org.gradle.api.internal.artifacts.repositories.resolver.MavenUniqueSnapshotComponentIdentifier;
 import org.gradle.api.internal.attributes.AttributeDesugaring;
 import org.gradle.api.internal.attributes.AttributeSchemaServices;
 import org.gradle.api.internal.attributes.AttributesFactory;
@@ -47,6 +51,8 @@
 import org.gradle.api.internal.attributes.matching.AttributeMatcher;
 import org.gradle.api.internal.capabilities.CapabilityInternal;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.component.local.model.LocalComponentGraphResolveState;
 import org.gradle.internal.component.local.model.LocalVariantGraphResolveState;
 import org.gradle.internal.component.model.ComponentGraphResolveMetadata;
@@ -57,14 +63,20 @@
 import org.gradle.internal.component.resolution.failure.ResolutionFailureHandler;
 import org.gradle.internal.component.resolution.failure.exception.AbstractResolutionFailureException;
 import org.gradle.internal.deprecation.DeprecationLogger;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.operations.BuildOperationConstraint;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -75,6 +87,8 @@
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class DependencyGraphBuilder {
@@ -84,6 +98,11 @@ public class DependencyGraphBuilder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
 
+    /**
+     * Fetches component metadata in the background while the graph is traversed, see {@link PrefetchingComponentMetaDataResolver}.
+     */
+    private static final InternalFlag PIPELINED_METADATA_FETCHING = new InternalFlag("org.gradle.internal.dependency-resolution.pipelined-metadata-fetching");
+
     private final ModuleExclusions moduleExclusions;
     private final AttributesFactory attributesFactory;
     private final AttributeSchemaServices attributeSchemaServices;
@@ -94,6 +113,9 @@ public class DependencyGraphBuilder {
     private final VersionParser versionParser;
     private final GraphVariantSelector variantSelector;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final InternalOptions internalOptions;
+    private final SelectedComponentsCache selectedComponentsCache;
+    private final RepositoryDisabler repositoryDisabler;
 
     @Inject
     public DependencyGraphBuilder(
@@ -106,7 +128,10 @@ public DependencyGraphBuilder(
         ComponentIdGenerator idGenerator,
         VersionParser versionParser,
         GraphVariantSelector variantSelector,
-        BuildOperationExecutor buildOperationExecutor
+        BuildOperationExecutor buildOperationExecutor,
+        InternalOptions internalOptions,
+        SelectedComponentsCache selectedComponentsCache,
+        RepositoryDisabler repositoryDisabler
     ) {
         this.moduleExclusions = moduleExclusions;
         this.attributesFactory = attributesFactory;
@@ -118,6 +143,9 @@ public DependencyGraphBuilder(
         this.versionParser = versionParser;
         this.variantSelector = variantSelector;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.internalOptions = internalOptions;
+        this.selectedComponentsCache = selectedComponentsCache;
+        this.repositoryDisabler = repositoryDisabler;
     }
 
     public void resolve(
@@ -141,12 +169,12 @@ public void resolve(
         ModuleConflictHandler moduleConflictHandler = new DefaultConflictHandler(moduleConflictResolver, moduleReplacements);
         CapabilitiesConflictHandler capabilitiesConflictHandler = new DefaultCapabilitiesConflictHandler(capabilityConflictResolvers);
 
-        ResolveState resolveState = new ResolveState(
+        Function<ComponentMetaDataResolver, ResolveState> resolveStateFactory = metaDataResolver -> new ResolveState(
             idGenerator,
             rootComponent,
             rootVariant,
             componentIdResolver,
-            componentMetaDataResolver,
+            metaDataResolver,
             edgeFilter,
             moduleExclusions,
             componentSelectorConverter,
@@ -164,17 +192,90 @@ public void resolve(
             variantSelector
         );
 
-        traverseGraph(resolveState);
+        ResolveState resolveState;
+        if (internalOptions.getOption(PIPELINED_METADATA_FETCHING).get()) {
+            resolveState = traverseGraphWhileFetchingMetadata(resolveStateFactory, componentMetaDataResolver, hashRootVariant(rootComponent, rootVariant));
+        } else {
+            resolveState = resolveStateFactory.apply(componentMetaDataResolver);
+            traverseGraph(resolveState, null);
+        }
 
         validateGraph(resolveState, failingOnDynamicVersions, failingOnChangingVersions, conflictResolution, failureResolutions);
 
         assembleResult(resolveState, modelVisitor);
     }
 
+    /**
+     * Traverses the dependency graph while the metadata of the components that the traversal is about to visit is fetched by other threads.
+     *
+     * The metadata of the components selected by the last resolution with the same inputs is fetched right away, as the graph is likely to select them again.
+     */
+    private ResolveState traverseGraphWhileFetchingMetadata(Function<ComponentMetaDataResolver, ResolveState> resolveStateFactory, ComponentMetaDataResolver componentMetaDataResolver, HashCode rootVariantHash) {
+        List<ModuleComponentIdentifier> previouslySelected = selectedComponentsCache.get(rootVariantHash);
+        AtomicReference<ResolveState> resolveState = new AtomicReference<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        buildOperationExecutor.runAll((BuildOperationQueue<RunnableBuildOperation> queue) -> {
+            try {
+                PrefetchingComponentMetaDataResolver metaDataResolver = new PrefetchingComponentMetaDataResolver(componentMetaDataResolver, versionSelectorScheme, repositoryDisabler, queue);
+                for (ModuleComponentIdentifier component : previouslySelected) {
+                    metaDataResolver.prefetch(component);
+                }
+                resolveState.set(resolveStateFactory.apply(metaDataResolver));
+                traverseGraph(resolveState.get(), metaDataResolver);
+            } catch (RuntimeException e) {
+                // Rethrow the failure as is, rather than as a failure to populate the queue
+                failure.set(e);
+            } finally {
+                // Do not wait for speculative fetches that the traversal did not use
+                queue.cancel();
+            }
+        }, BuildOperationConstraint.UNCONSTRAINED);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        List<ModuleComponentIdentifier> selected = selectedExternalComponents(resolveState.get());
+        if (!new HashSet<>(selected).equals(new HashSet<>(previouslySelected))) {
+            selectedComponentsCache.put(rootVariantHash, selected);
+        }
+        return resolveState.get();
+    }
+
+    /**
+     * Hashes the identity of the root variant of a resolution, which is the key of the components remembered for the resolution.
+     * The dependencies of the variant are not part of the key, so that a resolution replaces the components remembered for its variant
+     * when its dependencies change, and the components selected before the change are still used as a hint.
+     */
+    private static HashCode hashRootVariant(LocalComponentGraphResolveState rootComponent, LocalVariantGraphResolveState rootVariant) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(rootComponent.getId().getDisplayName());
+        hasher.putString(rootVariant.getName());
+        return hasher.hash();
+    }
+
+    /**
+     * Collects the external components selected by the graph whose metadata was requested by their own id.
+     */
+    private static List<ModuleComponentIdentifier> selectedExternalComponents(ResolveState resolveState) {
+        List<ModuleComponentIdentifier> components = new ArrayList<>();
+        for (ModuleResolveState module : resolveState.getModules()) {
+            ComponentState selected = module.getSelected();
+            if (selected == null || module.isVirtualPlatform() || !selected.alreadyResolved() || selected.getMetadataResolveFailure() != null) {
+                continue;
+            }
+            // The metadata of a unique snapshot is requested through the id of the snapshot version
+            ComponentIdentifier componentId = selected.getComponentId();
+            if (componentId instanceof ModuleComponentIdentifier && !(componentId instanceof MavenUniqueSnapshotComponentIdentifier)) {
+                components.add((ModuleComponentIdentifier) componentId);
+            }
+        }
+        return components;
+    }
+
     /**
      * Traverses the dependency graph, resolving conflicts and building the paths from the root configuration.
      */
-    private void traverseGraph(final ResolveState resolveState) {
+    private void traverseGraph(final ResolveState resolveState, @Nullable PrefetchingComponentMetaDataResolver prefetcher) {
         resolveState.onMoreSelected(resolveState.getRoot());
         final List<EdgeState> dependencies = new ArrayList<>();
 
@@ -203,9 +304,9 @@ private void traverseGraph(final ResolveState resolveState) {
                 // Initialize and collect any new outgoing edges of this node
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
-                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState);
+                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState, prefetcher);
                 node.collectEndorsedStrictVersions(dependencies);
-                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState);
+                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, prefetcher);
             } else {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 if (moduleConflictHandler.hasConflicts()) {
@@ -273,14 +374,21 @@ private boolean resolveEdges(
         final List<EdgeState> dependencies,
         final Spec<EdgeState> edgeFilter,
         final boolean recomputeSelectors,
-        final ResolveState resolveState
+        final ResolveState resolveState,
+        @Nullable final PrefetchingComponentMetaDataResolver prefetcher
     ) {
         if (dependencies.isEmpty()) {
             return false;
         }
         if (performSelectionSerially(dependencies, edgeFilter, resolveState, recomputeSelectors)) {
-            maybeDownloadMetadataInParallel(node, dependencies, edgeFilter, buildOperationExecutor, resolveState.getComponentMetadataResolver());
-            attachToTargetRevisionsSerially(dependencies, edgeFilter);
+            if (prefetcher != null) {
+                prefetchMetadata(dependencies, edgeFilter, prefetcher);
+                attachToTargetRevisionsSerially(dependencies, edgeFilter);
+                prefetchMetadataOfNextTargets(dependencies, edgeFilter, prefetcher);
+            } else {
+                maybeDownloadMetadataInParallel(node, dependencies, edgeFilter, buildOperationExecutor, resolveState.getComponentMetadataResolver());
+                attachToTargetRevisionsSerially(dependencies, edgeFilter);
+            }
             return true;
         } else {
             return false;
@@ -384,6 +492,37 @@ private static void maybeDownloadMetadataInParallel(NodeState node, List<EdgeSta
         }
     }
 
+    private static void prefetchMetadata(List<EdgeState> edges, Spec<EdgeState> edgeFilter, PrefetchingComponentMetaDataResolver prefetcher) {
+        for (EdgeState edge : edges) {
+            if (!edgeFilter.isSatisfiedBy(edge)) {
+                continue;
+            }
+            ComponentState targetComponent = edge.getTargetComponent();
+            if (targetComponent != null && targetComponent.isSelected() && !targetComponent.alreadyResolved()) {
+                prefetcher.prefetch(targetComponent.getComponentId());
+            }
+        }
+    }
+
+    /**
+     * Looks ahead of the traversal, by fetching the metadata of the components that the nodes which were just attached are likely to depend on.
+     */
+    private static void prefetchMetadataOfNextTargets(List<EdgeState> edges, Spec<EdgeState> edgeFilter, PrefetchingComponentMetaDataResolver prefetcher) {
+        for (EdgeState edge : edges) {
+            if (!edgeFilter.isSatisfiedBy(edge)) {
+                continue;
+            }
+            ComponentState targetComponent = edge.getTargetComponent();
+            if (targetComponent != null && targetComponent.isSelected() && targetComponent.alreadyResolved()) {
+                for (NodeState targetNode : targetComponent.getNodes()) {
+                    if (targetNode.isSelected()) {
+                        prefetcher.prefetchDependencyTargets(targetNode);
+                    }
+                }
+            }
+        }
+    }
+
     private static void attachToTargetRevisionsSerially(List<EdgeState> edges, Spec<EdgeState> edgeFilter) {
         // the following only needs to be done serially to preserve ordering of dependencies in the graph: we have visited the edges
         // but we still didn't add the result to the queue. Doing it from resolve threads would result in non-reproducible graphs, where
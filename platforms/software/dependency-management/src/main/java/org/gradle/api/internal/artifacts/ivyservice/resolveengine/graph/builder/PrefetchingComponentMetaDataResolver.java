@@ -0,0 +1,198 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryDisabler;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link ComponentMetaDataResolver} that resolves metadata in the background while the graph is traversed.
+ *
+ * Metadata is fetched for the target of an edge as soon as the target is selected, and speculatively for the targets of the dependencies
+ * of newly selected nodes, when those dependencies ask for a fixed version. The graph is still traversed by a single thread, which only
+ * waits when it needs the metadata of a component that is still being fetched.
+ *
+ * A fetched result is only used for requests without override metadata, which are the same requests that were made in the background,
+ * so the resolved graph is the same as when resolving serially.
+ *
+ * Fetches made in the background may never be used, so they do not disable repositories when they fail, and their failures are ignored.
+ * When the traversal needs the metadata of a component whose fetch failed, the metadata is resolved again by the traversal thread,
+ * which reports the failure and disables the repository as when resolving serially.
+ */
+class PrefetchingComponentMetaDataResolver implements ComponentMetaDataResolver {
+    private final ComponentMetaDataResolver delegate;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final RepositoryDisabler repositoryDisabler;
+    private final BuildOperationQueue<RunnableBuildOperation> queue;
+    private final ConcurrentMap<ComponentIdentifier, FetchMetadataOperation> fetches = new ConcurrentHashMap<>();
+    private final Set<NodeState> nodesWithPrefetchedDependencies = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    PrefetchingComponentMetaDataResolver(ComponentMetaDataResolver delegate, VersionSelectorScheme versionSelectorScheme, RepositoryDisabler repositoryDisabler, BuildOperationQueue<RunnableBuildOperation> queue) {
+        this.delegate = delegate;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.repositoryDisabler = repositoryDisabler;
+        this.queue = queue;
+    }
+
+    @Override
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        if (componentOverrideMetadata == DefaultComponentOverrideMetadata.EMPTY) {
+            FetchMetadataOperation fetch = fetches.get(identifier);
+            if (fetch != null) {
+                fetch.applyTo(result);
+                return;
+            }
+        }
+        delegate.resolve(identifier, componentOverrideMetadata, result);
+    }
+
+    @Override
+    public boolean isFetchingMetadataCheap(ComponentIdentifier identifier) {
+        return delegate.isFetchingMetadataCheap(identifier);
+    }
+
+    /**
+     * Starts fetching the metadata of the given component, unless it is cheap to fetch or already being fetched.
+     */
+    void prefetch(ComponentIdentifier identifier) {
+        if (fetches.containsKey(identifier) || delegate.isFetchingMetadataCheap(identifier)) {
+            return;
+        }
+        FetchMetadataOperation fetch = new FetchMetadataOperation(identifier);
+        if (fetches.putIfAbsent(identifier, fetch) == null) {
+            queue.add(fetch);
+        }
+    }
+
+    /**
+     * Starts fetching the metadata of the components that the dependencies of the given node are likely to select.
+     * Must be called by the thread that traverses the graph.
+     */
+    void prefetchDependencyTargets(NodeState node) {
+        if (!nodesWithPrefetchedDependencies.add(node)) {
+            return;
+        }
+        for (DependencyMetadata dependency : node.getAllDependencies()) {
+            if (dependency.isConstraint()) {
+                continue;
+            }
+            ComponentIdentifier target = fixedVersionTarget(dependency.getSelector());
+            if (target != null) {
+                prefetch(target);
+            }
+        }
+    }
+
+    @Nullable
+    private ComponentIdentifier fixedVersionTarget(ComponentSelector selector) {
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        VersionConstraint constraint = moduleSelector.getVersionConstraint();
+        String version = constraint.getRequiredVersion();
+        if (version.isEmpty()
+            || !constraint.getPreferredVersion().isEmpty()
+            || !constraint.getRejectedVersions().isEmpty()
+            || !(constraint.getStrictVersion().isEmpty() || constraint.getStrictVersion().equals(version))
+            || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getModuleIdentifier(), version);
+    }
+
+    private class FetchMetadataOperation implements RunnableBuildOperation {
+        private final ComponentIdentifier identifier;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+        private Throwable failure;
+
+        FetchMetadataOperation(ComponentIdentifier identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            if (started.compareAndSet(false, true)) {
+                repositoryDisabler.runWithoutDisabling(this::fetch);
+            }
+        }
+
+        private void fetch() {
+            try {
+                delegate.resolve(identifier, DefaultComponentOverrideMetadata.EMPTY, result);
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        void applyTo(BuildableComponentResolveResult target) {
+            if (started.compareAndSet(false, true)) {
+                // Still queued, possibly behind speculative fetches, so do not wait for a worker
+                fetch();
+            } else {
+                try {
+                    done.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+                if (failure != null || result.getFailure() != null) {
+                    // The failure of a background fetch did not disable the repository, so resolve again to handle the failure as when resolving serially
+                    delegate.resolve(identifier, DefaultComponentOverrideMetadata.EMPTY, target);
+                    return;
+                }
+            }
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+            result.applyTo(target);
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Resolve " + identifier);
+        }
+    }
+}
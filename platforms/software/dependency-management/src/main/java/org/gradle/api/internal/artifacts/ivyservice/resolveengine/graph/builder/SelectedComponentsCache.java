@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.NonNullApi;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.scopes.BuildTreeScopedCacheBuilderFactory;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Remembers, across builds of a build tree, the external components that were selected by the last resolution of each root variant.
+ *
+ * <p>The components are only used as a hint of which component metadata to fetch before the graph traversal asks for it, so an entry that is
+ * out of date never changes the result of a resolution: it only causes some metadata to be fetched for nothing. Whether cached metadata can
+ * still be used, for example for a changing module, is decided by the resolvers as for any other request.</p>
+ *
+ * <p>The cache lives in the project cache directory of the build tree, and each resolution replaces the entry of its root variant,
+ * so the cache only grows with the number of variants that the build tree resolves.</p>
+ *
+ * <p>This is part of the pipelined metadata fetching of {@link DependencyGraphBuilder}, and is only used when that is enabled.
+ * It is not a cache of resolution results: every resolution still traverses the whole graph.</p>
+ */
+@NonNullApi
+public class SelectedComponentsCache implements Stoppable {
+    private final BuildTreeScopedCacheBuilderFactory cacheBuilderFactory;
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+
+    @Nullable
+    private OpenCache openCache;
+
+    public SelectedComponentsCache(BuildTreeScopedCacheBuilderFactory cacheBuilderFactory, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        this.cacheBuilderFactory = cacheBuilderFactory;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+    }
+
+    private synchronized OpenCache getCache() {
+        if (openCache == null) {
+            PersistentCache persistentCache = cacheBuilderFactory
+                .createCacheBuilder("selectedComponents")
+                .withDisplayName("selected components")
+                .withInitialLockMode(FileLockManager.LockMode.OnDemand) // Don't need to lock anything until we use the caches
+                .open();
+            openCache = new OpenCache(persistentCache, persistentCache.createIndexedCache(IndexedCacheParameters.of("selectedComponents", new HashCodeSerializer(), new ComponentsSerializer(moduleIdentifierFactory))));
+        }
+        return openCache;
+    }
+
+    /**
+     * Returns the components selected by the last resolution of the given root variant, or an empty list when there is none.
+     */
+    public List<ModuleComponentIdentifier> get(HashCode rootVariant) {
+        OpenCache cache = getCache();
+        List<ModuleComponentIdentifier> components = cache.persistentCache.useCache(() -> cache.components.getIfPresent(rootVariant));
+        return components == null ? ImmutableList.of() : components;
+    }
+
+    /**
+     * Replaces the components selected by the last resolution of the given root variant.
+     */
+    public void put(HashCode rootVariant, List<ModuleComponentIdentifier> components) {
+        OpenCache cache = getCache();
+        cache.persistentCache.useCache(() -> cache.components.put(rootVariant, components));
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (openCache != null) {
+            openCache.persistentCache.close();
+        }
+    }
+
+    @NonNullApi
+    private static class OpenCache {
+        private final PersistentCache persistentCache;
+        private final IndexedCache<HashCode, List<ModuleComponentIdentifier>> components;
+
+        private OpenCache(PersistentCache persistentCache, IndexedCache<HashCode, List<ModuleComponentIdentifier>> components) {
+            this.persistentCache = persistentCache;
+            this.components = components;
+        }
+    }
+
+    @NonNullApi
+    private static class ComponentsSerializer extends AbstractSerializer<List<ModuleComponentIdentifier>> {
+        private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+
+        private ComponentsSerializer(ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+            this.moduleIdentifierFactory = moduleIdentifierFactory;
+        }
+
+        @Override
+        public void write(Encoder encoder, List<ModuleComponentIdentifier> value) throws Exception {
+            encoder.writeSmallInt(value.size());
+            for (ModuleComponentIdentifier component : value) {
+                encoder.writeString(component.getGroup());
+                encoder.writeString(component.getModule());
+                encoder.writeString(component.getVersion());
+            }
+        }
+
+        @Override
+        public List<ModuleComponentIdentifier> read(Decoder decoder) throws Exception {
+            int size = decoder.readSmallInt();
+            ImmutableList.Builder<ModuleComponentIdentifier> components = ImmutableList.builderWithExpectedSize(size);
+            for (int i = 0; i < size; i++) {
+                String group = decoder.readString();
+                String module = decoder.readString();
+                String version = decoder.readString();
+                components.add(DefaultModuleComponentIdentifier.newId(moduleIdentifierFactory.module(group, module), version));
+            }
+            return components.build();
+        }
+    }
+}
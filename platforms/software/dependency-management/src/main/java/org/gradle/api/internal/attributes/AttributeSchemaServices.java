@@ -20,6 +20,7 @@
 import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchemaFactory;
 import org.gradle.api.internal.attributes.immutable.artifact.ImmutableArtifactTypeRegistryFactory;
 import org.gradle.api.internal.attributes.matching.AttributeMatcher;
+import org.gradle.api.internal.attributes.matching.AttributeMatchingStatistics;
 import org.gradle.api.internal.attributes.matching.CachingAttributeSelectionSchema;
 import org.gradle.api.internal.attributes.matching.DefaultAttributeMatcher;
 import org.gradle.api.internal.attributes.matching.DefaultAttributeSelectionSchema;
@@ -39,6 +40,7 @@ public class AttributeSchemaServices {
     private final ImmutableAttributesSchemaFactory attributesSchemaFactory;
     private final ImmutableArtifactTypeRegistryFactory artifactTypeRegistryFactory;
     private final InMemoryCacheFactory cacheFactory;
+    private final AttributeMatchingStatistics statistics;
 
     private final InMemoryLoadingCache<ImmutableAttributesSchema, AttributeMatcher> matchers;
 
@@ -46,11 +48,13 @@ public class AttributeSchemaServices {
     public AttributeSchemaServices(
         ImmutableAttributesSchemaFactory attributesSchemaFactory,
         ImmutableArtifactTypeRegistryFactory artifactTypeRegistryFactory,
-        InMemoryCacheFactory cacheFactory
+        InMemoryCacheFactory cacheFactory,
+        AttributeMatchingStatistics statistics
     ) {
         this.attributesSchemaFactory = attributesSchemaFactory;
         this.artifactTypeRegistryFactory = artifactTypeRegistryFactory;
         this.cacheFactory = cacheFactory;
+        this.statistics = statistics;
 
         this.matchers = cacheFactory.createIdentityCache(this::createMatcher);
     }
@@ -69,11 +73,19 @@ public ImmutableArtifactTypeRegistryFactory getArtifactTypeRegistryFactory() {
         return artifactTypeRegistryFactory;
     }
 
+    /**
+     * Get the hit and miss counts of the caches of the matchers returned by {@link #getMatcher}.
+     */
+    public AttributeMatchingStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Given a consumer and producer attribute schema, returns a matcher that can
      * be used to match attributes from the two schemas.
      * <p>
-     * Returned matchers are cached and reused for the same input schemas.
+     * Returned matchers are cached and reused for the same input schemas, for the
+     * whole build session, so the decisions they cache are shared by all projects.
      */
     public AttributeMatcher getMatcher(ImmutableAttributesSchema consumer, ImmutableAttributesSchema producer) {
         ImmutableAttributesSchema merged = attributesSchemaFactory.concat(consumer, producer);
@@ -84,9 +96,11 @@ private DefaultAttributeMatcher createMatcher(ImmutableAttributesSchema schema)
         return new DefaultAttributeMatcher(
             new CachingAttributeSelectionSchema(
                 new DefaultAttributeSelectionSchema(schema),
-                cacheFactory
+                cacheFactory,
+                statistics
             ),
-            cacheFactory
+            cacheFactory,
+            statistics
         );
     }
 
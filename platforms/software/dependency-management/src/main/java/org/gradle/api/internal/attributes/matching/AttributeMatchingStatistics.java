@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.attributes.matching;
+
+import org.gradle.StartParameter;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the hits and misses of the caches of the attribute matchers of a build session.
+ *
+ * <p>The counts are logged when the session ends if the {@code org.gradle.internal.attributes.matching.stats} system property is set.</p>
+ */
+@ServiceScope(Scope.BuildSession.class)
+public class AttributeMatchingStatistics implements Closeable {
+    private static final Logger LOGGER = Logging.getLogger(AttributeMatchingStatistics.class);
+    private static final InternalFlag LOG_STATISTICS = new InternalFlag("org.gradle.internal.attributes.matching.stats");
+
+    private final boolean logStatistics;
+
+    private final CacheStatistics candidateLists = new CacheStatistics("candidate lists");
+    private final CacheStatistics candidates = new CacheStatistics("candidates");
+    private final CacheStatistics values = new CacheStatistics("values");
+    private final CacheStatistics disambiguations = new CacheStatistics("disambiguations");
+
+    public AttributeMatchingStatistics(StartParameter startParameter) {
+        this.logStatistics = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs()).getOption(LOG_STATISTICS).get();
+    }
+
+    /**
+     * The selections among multiple candidates.
+     */
+    public CacheStatistics getCandidateLists() {
+        return candidateLists;
+    }
+
+    /**
+     * The compatibility checks of a candidate with the requested attributes.
+     */
+    public CacheStatistics getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * The compatibility checks of a candidate value with a requested value.
+     */
+    public CacheStatistics getValues() {
+        return values;
+    }
+
+    /**
+     * The executions of the disambiguation rules of an attribute.
+     */
+    public CacheStatistics getDisambiguations() {
+        return disambiguations;
+    }
+
+    @Override
+    public void close() {
+        if (logStatistics) {
+            for (CacheStatistics statistics : new CacheStatistics[]{candidateLists, candidates, values, disambiguations}) {
+                LOGGER.lifecycle("Attribute matching {}: {} hits, {} misses", statistics.displayName, statistics.getHits(), statistics.getMisses());
+            }
+        }
+    }
+
+    public static class CacheStatistics {
+        private final String displayName;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private CacheStatistics(String displayName) {
+            this.displayName = displayName;
+        }
+
+        void request() {
+            requests.increment();
+        }
+
+        void miss() {
+            misses.increment();
+        }
+
+        public long getHits() {
+            return requests.sum() - misses.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+    }
+}
@@ -18,11 +18,14 @@
 
 import org.gradle.api.attributes.Attribute;
 import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.Cast;
 import org.gradle.internal.model.InMemoryLoadingCache;
 import org.gradle.internal.model.InMemoryCacheFactory;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -36,15 +39,20 @@ public class CachingAttributeSelectionSchema implements AttributeSelectionSchema
 
     private final InMemoryLoadingCache<ExtraAttributesKey, Attribute<?>[]> extraAttributesCache;
     private final InMemoryLoadingCache<MatchValueKey<?>, Boolean> matchValueCache;
+    private final InMemoryLoadingCache<DisambiguateKey<?>, Optional<Set<?>>> disambiguateCache;
+    private final AttributeMatchingStatistics statistics;
 
     public CachingAttributeSelectionSchema(
         AttributeSelectionSchema delegate,
-        InMemoryCacheFactory cacheFactory
+        InMemoryCacheFactory cacheFactory,
+        AttributeMatchingStatistics statistics
     ) {
         this.delegate = delegate;
+        this.statistics = statistics;
 
         this.extraAttributesCache = cacheFactory.create(this::doCollectExtraAttributes);
         this.matchValueCache = cacheFactory.create(this::doMatchValue);
+        this.disambiguateCache = cacheFactory.create(this::doDisambiguate);
     }
 
     @Override
@@ -55,18 +63,73 @@ public boolean hasAttribute(Attribute<?> attribute) {
     @Nullable
     @Override
     public <T> Set<T> disambiguate(Attribute<T> attribute, @Nullable T requested, Set<T> candidates) {
-        return delegate.disambiguate(attribute, requested, candidates);
+        // The same values are disambiguated over and over for the variants of different components, so the outcome of the rules is
+        // remembered for the lifetime of the schema, as is done for compatibility
+        statistics.getDisambiguations().request();
+        return Cast.uncheckedCast(disambiguateCache.get(new DisambiguateKey<>(attribute, requested, candidates)).orElse(null));
+    }
+
+    private <T> Optional<Set<?>> doDisambiguate(DisambiguateKey<T> key) {
+        statistics.getDisambiguations().miss();
+        return Optional.ofNullable(delegate.disambiguate(key.attribute, key.requested, key.candidates));
     }
 
     @Override
     public <T> boolean matchValue(Attribute<T> attribute, T requested, T candidate) {
+        statistics.getValues().request();
         return matchValueCache.get(new MatchValueKey<>(attribute, requested, candidate));
     }
 
     private <T> boolean doMatchValue(MatchValueKey<T> key) {
+        statistics.getValues().miss();
         return delegate.matchValue(key.attribute, key.requested, key.candidate);
     }
 
+    private static class DisambiguateKey<T> {
+        private final Attribute<T> attribute;
+        @Nullable
+        private final T requested;
+        private final Set<T> candidates;
+
+        private final int hashCode;
+
+        private DisambiguateKey(Attribute<T> attribute, @Nullable T requested, Set<T> candidates) {
+            this.attribute = attribute;
+            this.requested = requested;
+            this.candidates = candidates;
+
+            this.hashCode = computeHashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            DisambiguateKey<?> that = (DisambiguateKey<?>) o;
+            return hashCode == that.hashCode &&
+                attribute.equals(that.attribute) &&
+                Objects.equals(requested, that.requested) &&
+                candidates.equals(that.candidates);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        private int computeHashCode() {
+            int result = attribute.hashCode();
+            result = 31 * result + Objects.hashCode(requested);
+            result = 31 * result + candidates.hashCode();
+            return result;
+        }
+    }
+
     private static class MatchValueKey<T> {
         private final Attribute<T> attribute;
         private final T requested;
@@ -52,12 +52,15 @@ public class DefaultAttributeMatcher implements AttributeMatcher {
      */
     private final InMemoryLoadingCache<CachedQuery, int[]> cachedQueries;
     private final InMemoryLoadingCache<MatchingCandidateCacheKey, Boolean> matchingCandidatesCache;
+    private final AttributeMatchingStatistics statistics;
 
     public DefaultAttributeMatcher(
         AttributeSelectionSchema schema,
-        InMemoryCacheFactory cacheFactory
+        InMemoryCacheFactory cacheFactory,
+        AttributeMatchingStatistics statistics
     ) {
         this.schema = schema;
+        this.statistics = statistics;
         this.cachedQueries = cacheFactory.create(this::doMatchMultipleCandidates);
         this.matchingCandidatesCache = cacheFactory.create(this::doIsMatchingCandidate);
     }
@@ -70,10 +73,12 @@ public <T> boolean isMatchingValue(Attribute<T> attribute, T candidate, T reques
     @Override
     public boolean isMatchingCandidate(ImmutableAttributes candidate, ImmutableAttributes requested) {
         MatchingCandidateCacheKey key = new MatchingCandidateCacheKey(candidate, requested);
+        statistics.getCandidates().request();
         return matchingCandidatesCache.get(key);
     }
 
     private boolean doIsMatchingCandidate(MatchingCandidateCacheKey k) {
+        statistics.getCandidates().miss();
         return allCommonAttributesSatisfy(k.candidate, k.requested, schema::matchValue);
     }
 
@@ -190,11 +195,13 @@ public <T extends HasAttributes> List<T> matchMultipleCandidates(Collection<? ex
         // attributes-to-disambiguate are derived. When retrieving a result from the cache, we use the resulting
         // indices to index back into the original candidates list.
         CachedQuery query = CachedQuery.from(requested, candidateList);
+        statistics.getCandidateLists().request();
         int[] indices = cachedQueries.get(query);
         return CachedQuery.getMatchesFromCandidateIndices(indices, candidateList);
     }
 
     private int[] doMatchMultipleCandidates(CachedQuery key) {
+        statistics.getCandidateLists().miss();
         AttributeMatchingExplanationBuilder explanationBuilder = AttributeMatchingExplanationBuilder.logging();
         int[] matches = new MultipleCandidateMatcher<>(schema, key.candidates, key.requestedAttributes, explanationBuilder).getMatches();
         LOGGER.debug("Selected matches {} from candidates {} for {}", Ints.asList(matches), key.candidates, key.requestedAttributes);
@@ -51,4 +51,17 @@ class DefaultArtifactCacheMetadataTest extends Specification {
         then:
         metadataStore == new File(testCacheDir, CacheLayout.META_DATA.key + '/descriptors')
     }
+
+    def "calculates indexed metadata store directory"() {
+        given:
+        TestFile testCacheDir = temporaryFolder.file("test/cache")
+        cache.baseDirForCrossVersionCache(CacheLayout.MODULES.key) >> testCacheDir
+
+        when:
+        def metaData = new DefaultArtifactCacheMetadata(cache)
+        File metadataStore = metaData.getIndexedMetaDataStoreDirectory()
+
+        then:
+        metadataStore == new File(testCacheDir, CacheLayout.META_DATA.key + '/indexed-descriptors')
+    }
 }
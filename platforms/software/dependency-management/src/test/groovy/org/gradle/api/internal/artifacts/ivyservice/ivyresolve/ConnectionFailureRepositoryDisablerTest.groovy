@@ -72,6 +72,25 @@ class ConnectionFailureRepositoryDisablerTest extends Specification {
         'HttpErrorStatusCodeException with status ' | createUnauthorizedException()
     }
 
+    def "does not disable repository while disabling is suspended on the current thread"() {
+        when:
+        boolean disabled = true
+        disabler.runWithoutDisabling {
+            disabled = disabler.tryDisableRepository('abc', createTimeoutException())
+        }
+
+        then:
+        !disabled
+        disabler.disabledRepositories.empty
+
+        when:
+        disabled = disabler.tryDisableRepository('abc', createTimeoutException())
+
+        then:
+        disabled
+        disabler.disabledRepositories == ['abc'] as Set
+    }
+
     static RuntimeException createInternalServerException() {
         createHttpErrorStatusCodeException(500)
     }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import com.google.common.collect.Interner
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.internal.SimpleMapInterner
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleMetadataFileTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def file = temporaryFolder.file("descriptor.bin")
+
+    def "reads values written to the file"() {
+        when:
+        ModuleMetadataFile.write(file, { Encoder encoder ->
+            encoder.writeString("org.test")
+            encoder.writeSmallInt(12)
+            encoder.writeNullableString(null)
+            encoder.writeNullableString("été")
+            encoder.writeString("org.test")
+            encoder.writeBoolean(true)
+            encoder.writeLong(Long.MAX_VALUE)
+        } as Encoder.EncodeAction)
+        def values = ModuleMetadataFile.read(file, SimpleMapInterner.notThreadSafe(), { Decoder decoder ->
+            [decoder.readString(), decoder.readSmallInt(), decoder.readNullableString(), decoder.readNullableString(), decoder.readString(), decoder.readBoolean(), decoder.readLong()]
+        } as Decoder.DecodeAction)
+
+        then:
+        values == ["org.test", 12, null, "été", "org.test", true, Long.MAX_VALUE]
+    }
+
+    def "writes each distinct string once"() {
+        when:
+        ModuleMetadataFile.write(file, { Encoder encoder ->
+            1000.times { encoder.writeString("org.some.long.group.name") }
+        } as Encoder.EncodeAction)
+
+        then:
+        file.length() < 1100
+    }
+
+    def "interns each distinct string once when it is used"() {
+        def interner = Mock(Interner)
+
+        given:
+        ModuleMetadataFile.write(file, { Encoder encoder ->
+            encoder.writeString("unused")
+            encoder.writeString("group")
+            encoder.writeString("group")
+        } as Encoder.EncodeAction)
+
+        when:
+        def values = ModuleMetadataFile.read(file, interner, { Decoder decoder ->
+            decoder.readSmallInt()
+            [decoder.readString(), decoder.readString()]
+        } as Decoder.DecodeAction)
+
+        then:
+        values == ["group", "group"]
+        1 * interner.intern("group") >> "group"
+        0 * interner._
+    }
+
+    def "reads large files"() {
+        def strings = (0..<20000).collect { "string-$it".toString() }
+
+        when:
+        ModuleMetadataFile.write(file, { Encoder encoder ->
+            strings.each { encoder.writeString(it) }
+            strings.each { encoder.writeString(it) }
+        } as Encoder.EncodeAction)
+        def values = ModuleMetadataFile.read(file, SimpleMapInterner.notThreadSafe(), { Decoder decoder ->
+            (0..<strings.size() * 2).collect { decoder.readString() }
+        } as Decoder.DecodeAction)
+
+        then:
+        file.length() > 64 * 1024
+        values == strings + strings
+    }
+
+    def "gives access to the strings and the module identifier without decoding the descriptor"() {
+        def interner = Mock(Interner)
+
+        given:
+        ModuleMetadataFile.write(file, { Encoder encoder ->
+            encoder.writeByte((byte) 2)
+            encoder.writeString("org.test")
+            encoder.writeString("module")
+            encoder.writeString("1.0")
+            encoder.writeString("org.test")
+        } as Encoder.EncodeAction)
+
+        when:
+        def descriptor = ModuleMetadataFile.open(file, interner)
+
+        then:
+        descriptor.stringCount == 3
+        descriptor.module == "module"
+        descriptor.group == "org.test"
+        descriptor.getString(2) == "1.0"
+        1 * interner.intern("module") >> "module"
+        1 * interner.intern("org.test") >> "org.test"
+        1 * interner.intern("1.0") >> "1.0"
+        0 * interner._
+
+        when:
+        def values = descriptor.decode({ Decoder decoder ->
+            [decoder.readByte(), decoder.readString(), decoder.readString(), decoder.readString(), decoder.readString()]
+        } as Decoder.DecodeAction)
+
+        then:
+        values == [(byte) 2, "org.test", "module", "1.0", "org.test"]
+        0 * interner._
+    }
+
+    def "fails on truncated file"() {
+        given:
+        file.bytes = [0, 0, 0, 3] as byte[]
+
+        when:
+        ModuleMetadataFile.read(file, SimpleMapInterner.notThreadSafe(), { Decoder decoder -> decoder.readString() } as Decoder.DecodeAction)
+
+        then:
+        thrown(EOFException)
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.resource.local.LocallyAvailableResource
 import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.internal.serialize.Encoder
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.internal.SimpleMapInterner
 import org.junit.Rule
@@ -39,7 +40,7 @@ class ModuleMetadataStoreTest extends Specification {
     }
     def moduleComponentIdentifier = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org.test", "testArtifact"), "1.0")
     def serializer = Mock(ModuleMetadataSerializer)
-    @Subject ModuleMetadataStore store = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, SimpleMapInterner.notThreadSafe())
+    @Subject ModuleMetadataStore store = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, SimpleMapInterner.notThreadSafe(), false)
     def mavenMetadataFactory = DependencyManagementTestUtil.mavenMetadataFactory()
 
     def "getModuleDescriptorFile returns null for not cached descriptors"() {
@@ -69,4 +70,59 @@ class ModuleMetadataStoreTest extends Specification {
         };
         1 * serializer.write(_, descriptor, _)
     }
+
+    def "reads descriptor written in the indexed format"() {
+        setup:
+        def indexedStore = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, SimpleMapInterner.notThreadSafe(), true)
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def descriptor = mavenMetadataFactory.create(moduleComponentIdentifier, []).asImmutable()
+        def key = new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier)
+        def readDescriptor = mavenMetadataFactory.create(moduleComponentIdentifier, [])
+
+        when:
+        indexedStore.putModuleDescriptor(key, descriptor)
+        def result = indexedStore.getModuleDescriptor(key)
+
+        then:
+        1 * pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(descriptorFile); fileStoreEntry
+        }
+        1 * serializer.write(_, descriptor, _) >> { encoder, metadata, cache ->
+            encoder.writeByte((byte) 2)
+            encoder.writeString("org.test")
+            encoder.writeString("testArtifact")
+            encoder.writeString("1.0")
+        }
+        1 * pathKeyFileStore.get("org.test", "testArtifact", "1.0", "repositoryId", "descriptor.bin") >> fileStoreEntry
+        _ * fileStoreEntry.getFile() >> descriptorFile
+        1 * serializer.read(_, moduleIdentifierFactory, _) >> { decoder, factory, cache ->
+            assert decoder.readByte() == (byte) 2
+            assert decoder.readString() == "org.test"
+            readDescriptor
+        }
+        result == readDescriptor
+    }
+
+    def "fails to read indexed descriptor of another module"() {
+        setup:
+        def indexedStore = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, SimpleMapInterner.notThreadSafe(), true)
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        ModuleMetadataFile.write(descriptorFile, { encoder ->
+            encoder.writeByte((byte) 2)
+            encoder.writeString("org.other")
+            encoder.writeString("testArtifact")
+            encoder.writeString("1.0")
+        } as Encoder.EncodeAction)
+
+        when:
+        indexedStore.getModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier))
+
+        then:
+        1 * pathKeyFileStore.get(*_) >> fileStoreEntry
+        _ * fileStoreEntry.getFile() >> descriptorFile
+        _ * fileStoreEntry.getDisplayName() >> "descriptor"
+        0 * serializer.read(*_)
+        def e = thrown(RuntimeException)
+        e.cause.message == "Module metadata file contains the descriptor of org.other:testArtifact."
+    }
 }
@@ -33,6 +33,7 @@ import org.gradle.api.internal.artifacts.dependencies.DefaultMutableVersionConst
 import org.gradle.api.internal.artifacts.dsl.ImmutableModuleReplacements
 import org.gradle.api.internal.artifacts.ivyservice.ResolutionParameters
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DefaultDependencySubstitutionApplicator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryDisabler
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
@@ -46,12 +47,15 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.Dependen
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.DependencyGraphBuilder
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.SelectedComponentsCache
 import org.gradle.api.internal.artifacts.publish.DefaultPublishArtifact
 import org.gradle.api.internal.attributes.AttributeDesugaring
 import org.gradle.api.internal.attributes.ImmutableAttributes
 import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema
 import org.gradle.api.specs.Spec
 import org.gradle.internal.Describables
+import org.gradle.internal.buildoption.DefaultInternalOptions
+import org.gradle.internal.buildoption.InternalOptions
 import org.gradle.internal.component.external.descriptor.DefaultExclude
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.ImmutableCapabilities
@@ -140,21 +144,39 @@ class DependencyGraphBuilderTest extends Specification {
 
     def variantSelector = new GraphVariantSelector(AttributeTestUtil.services(), DependencyManagementTestUtil.newFailureHandler())
 
-    DependencyGraphBuilder builder = new DependencyGraphBuilder(
-        moduleExclusions,
-        AttributeTestUtil.attributesFactory(),
-        AttributeTestUtil.services(),
-        desugaring,
-        versionSelectorScheme,
-        versionComparator,
-        new ComponentIdGenerator(),
-        new VersionParser(),
-        variantSelector,
-        buildOperationProcessor
-    )
+    DependencyGraphBuilder builder = newBuilder(buildOperationProcessor, new DefaultInternalOptions([:]), Stub(SelectedComponentsCache))
 
     def root = rootProject()
 
+    private DependencyGraphBuilder newBuilder(BuildOperationExecutor buildOperationExecutor, InternalOptions internalOptions, SelectedComponentsCache selectedComponentsCache) {
+        return new DependencyGraphBuilder(
+            moduleExclusions,
+            AttributeTestUtil.attributesFactory(),
+            AttributeTestUtil.services(),
+            desugaring,
+            versionSelectorScheme,
+            versionComparator,
+            new ComponentIdGenerator(),
+            new VersionParser(),
+            variantSelector,
+            buildOperationExecutor,
+            internalOptions,
+            selectedComponentsCache,
+            RepositoryDisabler.NoOpDisabler.INSTANCE
+        )
+    }
+
+    private DependencyGraphBuilder newPipelinedBuilder(SelectedComponentsCache selectedComponentsCache = Stub(SelectedComponentsCache)) {
+        def buildOperationExecutor = Stub(BuildOperationExecutor) {
+            runAll(_, _) >> { args ->
+                args[0].execute(Stub(BuildOperationQueue) {
+                    add(_) >> { ops -> ops[0].run(null) }
+                })
+            }
+        }
+        return newBuilder(buildOperationExecutor, new DefaultInternalOptions(["org.gradle.internal.dependency-resolution.pipelined-metadata-fetching": "true"]), selectedComponentsCache)
+    }
+
     private TestGraphVisitor resolve(Spec<? super DependencyMetadata> edgeFilter = { true }) {
         def graphVisitor = new TestGraphVisitor()
 
@@ -199,6 +221,74 @@ class DependencyGraphBuilderTest extends Specification {
         result.components == ids(root, a, b, c)
     }
 
+    def "resolves metadata of each component once when fetching metadata in the background"() {
+        given:
+        builder = newPipelinedBuilder()
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+        traverses b, d
+        doesNotResolve c, d
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        result.components == ids(root, a, b, c, d)
+    }
+
+    def "fetches metadata of the components selected by the previous resolution before traversing the graph"() {
+        given:
+        def selectedComponentsCache = Mock(SelectedComponentsCache)
+        builder = newPipelinedBuilder(selectedComponentsCache)
+        def a = revision("a")
+        def c = revision("c")
+        selectorResolvesTo(dependsOn(root, a.metadata.moduleVersionId), a.id, a.metadata.moduleVersionId)
+        selectorResolvesTo(dependsOn(a, c.metadata.moduleVersionId), c.id, c.metadata.moduleVersionId)
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * selectedComponentsCache.get(_) >> [c.id, a.id]
+
+        then:
+        1 * metaDataResolver.resolve(c.id, _, _) >> { id, override, BuildableComponentResolveResult r -> r.resolved(c, Stub(ComponentGraphSpecificResolveState)) }
+
+        then:
+        1 * metaDataResolver.resolve(a.id, _, _) >> { id, override, BuildableComponentResolveResult r -> r.resolved(a, Stub(ComponentGraphSpecificResolveState)) }
+
+        then:
+        0 * selectedComponentsCache.put(_, _)
+        result.components == ids(root, a, c)
+    }
+
+    def "remembers the components selected when fetching metadata in the background"() {
+        given:
+        def selectedComponentsCache = Mock(SelectedComponentsCache)
+        builder = newPipelinedBuilder(selectedComponentsCache)
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * selectedComponentsCache.get(_) >> []
+        1 * selectedComponentsCache.put(_, { it as Set == [a.id, b.id, c.id] as Set })
+    }
+
     def "honors component replacements"() {
         given:
         def a = revision('a') // a->c
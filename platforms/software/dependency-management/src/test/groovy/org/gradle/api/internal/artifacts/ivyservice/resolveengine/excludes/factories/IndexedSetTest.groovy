@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories
+
+import spock.lang.Specification
+
+class IndexedSetTest extends Specification {
+    def index = new ElementIndex<String>()
+
+    def "behaves as a set of the elements it was created from"() {
+        def set = index.copyOf(["a", "b", "c"] as Set)
+
+        expect:
+        set.size() == 3
+        set.contains("a")
+        !set.contains("d")
+        !set.contains(null)
+        set as List == ["a", "b", "c"]
+        set == ["c", "b", "a"] as Set
+        ["c", "b", "a"] as Set == set
+        set.hashCode() == (["a", "b", "c"] as Set).hashCode()
+    }
+
+    def "reuses sets backed by the same index"() {
+        def set = index.copyOf(["a", "b"] as Set)
+
+        expect:
+        index.copyOf(set).is(set)
+        !new ElementIndex<String>().copyOf(set).is(set)
+        new ElementIndex<String>().copyOf(set) == set
+    }
+
+    def "computes union of #left and #right"() {
+        expect:
+        IndexedSet.union([index.copyOf(left as Set), index.copyOf(right as Set)]) == expected as Set
+        IndexedSet.union([index.copyOf(left as Set), right as Set]) == expected as Set
+
+        where:
+        left       | right      | expected
+        []         | []         | []
+        ["a"]      | []         | ["a"]
+        ["a", "b"] | ["b", "c"] | ["a", "b", "c"]
+        ["a"]      | ["d"]      | ["a", "d"]
+    }
+
+    def "computes intersection of #left and #right"() {
+        expect:
+        IndexedSet.intersection(index.copyOf(left as Set), index.copyOf(right as Set)) == expected as Set
+        IndexedSet.intersection(index.copyOf(left as Set), right as Set) == expected as Set
+
+        where:
+        left            | right      | expected
+        []              | ["a"]      | []
+        ["a"]           | ["b"]      | []
+        ["a", "b"]      | ["b", "c"] | ["b"]
+        ["a", "b", "c"] | ["c", "a"] | ["a", "c"]
+    }
+
+    def "sets backed by the same index are equal when they have the same elements"() {
+        def set = index.copyOf(["a", "b"] as Set)
+
+        expect:
+        set == index.copyOf(["b", "a"] as Set)
+        set != index.copyOf(["a"] as Set)
+        set.containsAll(index.copyOf(["a"] as Set))
+        !index.copyOf(["a"] as Set).containsAll(set)
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.dependencies.DefaultImmutableVersionConstraint
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConnectionFailureRepositoryDisabler
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.model.ComponentGraphResolveState
+import org.gradle.internal.component.model.ComponentGraphSpecificResolveState
+import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
+import spock.lang.Specification
+
+import static org.gradle.internal.component.external.model.DefaultModuleComponentSelector.newSelector
+
+class PrefetchingComponentMetaDataResolverTest extends Specification {
+    def delegate = Mock(ComponentMetaDataResolver)
+    List<RunnableBuildOperation> queued = []
+    def queue = Stub(BuildOperationQueue) {
+        add(_) >> { RunnableBuildOperation operation -> queued << operation }
+    }
+    def repositoryDisabler = new ConnectionFailureRepositoryDisabler()
+    def resolver = new PrefetchingComponentMetaDataResolver(delegate, new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser()), repositoryDisabler, queue)
+    def id = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("group", "a"), "1.0")
+    def state = Stub(ComponentGraphResolveState)
+
+    def "uses metadata fetched in the background"() {
+        when:
+        resolver.prefetch(id)
+        queued*.run(null)
+
+        then:
+        1 * delegate.isFetchingMetadataCheap(id) >> false
+        1 * delegate.resolve(id, DefaultComponentOverrideMetadata.EMPTY, _) >> { args -> args[2].resolved(state, Stub(ComponentGraphSpecificResolveState)) }
+
+        when:
+        def result = resolve(DefaultComponentOverrideMetadata.EMPTY)
+
+        then:
+        result.state == state
+        0 * delegate._
+    }
+
+    def "fetches metadata on the calling thread when the fetch has not started yet"() {
+        given:
+        delegate.isFetchingMetadataCheap(id) >> false
+        resolver.prefetch(id)
+
+        when:
+        def result = resolve(DefaultComponentOverrideMetadata.EMPTY)
+        queued*.run(null)
+
+        then:
+        result.state == state
+        1 * delegate.resolve(id, DefaultComponentOverrideMetadata.EMPTY, _) >> { args -> args[2].resolved(state, Stub(ComponentGraphSpecificResolveState)) }
+    }
+
+    def "ignores failure to fetch metadata in the background and resolves again on the thread that uses the metadata"() {
+        given:
+        def failure = new RuntimeException("broken")
+        delegate.isFetchingMetadataCheap(id) >> false
+
+        when:
+        resolver.prefetch(id)
+        queued*.run(null)
+
+        then:
+        1 * delegate.resolve(id, DefaultComponentOverrideMetadata.EMPTY, _) >> { throw failure }
+        noExceptionThrown()
+
+        when:
+        resolve(DefaultComponentOverrideMetadata.EMPTY)
+
+        then:
+        1 * delegate.resolve(id, DefaultComponentOverrideMetadata.EMPTY, _) >> { throw failure }
+        def e = thrown(RuntimeException)
+        e == failure
+    }
+
+    def "resolves again on the thread that uses the metadata when the background fetch produced a failed result"() {
+        given:
+        delegate.isFetchingMetadataCheap(id) >> false
+
+        when:
+        resolver.prefetch(id)
+        queued*.run(null)
+
+        then:
+        1 * delegate.resolve(id, DefaultComponentOverrideMetadata.EMPTY, _) >> { args -> args[2].failed(new ModuleVersionResolveException(id, new RuntimeException("broken"))) }
+
+        when:
+        def result = resolve(DefaultComponentOverrideMetadata.EMPTY)
+
+        then:
+        1 * delegate.resolve(id, DefaultComponentOverrideMetadata.EMPTY, _) >> { args -> args[2].resolved(state, Stub(ComponentGraphSpecificResolveState)) }
+        result.state == state
+    }
+
+    def "background fetches do not disable repositories"() {
+        given:
+        def connectionFailure = new RuntimeException("Could not resolve module", new InterruptedIOException("Read time out"))
+        delegate.isFetchingMetadataCheap(id) >> false
+        delegate.resolve(id, _, _) >> { args ->
+            repositoryDisabler.tryDisableRepository("repo", connectionFailure)
+            args[2].failed(new ModuleVersionResolveException(id, new RuntimeException("broken")))
+        }
+
+        when:
+        resolver.prefetch(id)
+        queued*.run(null)
+
+        then:
+        repositoryDisabler.disabledRepositories.empty
+
+        when:
+        resolve(DefaultComponentOverrideMetadata.EMPTY)
+
+        then:
+        repositoryDisabler.disabledRepositories == ["repo"] as Set
+    }
+
+    def "does not use fetched metadata for a request with override metadata"() {
+        given:
+        delegate.isFetchingMetadataCheap(id) >> false
+        resolver.prefetch(id)
+        queued*.run(null)
+        def overrideMetadata = DefaultComponentOverrideMetadata.EMPTY.withChanging()
+
+        when:
+        resolve(overrideMetadata)
+
+        then:
+        1 * delegate.resolve(id, overrideMetadata, _) >> { args -> args[2].resolved(state, Stub(ComponentGraphSpecificResolveState)) }
+    }
+
+    def "does not fetch metadata that is cheap to fetch or already fetched"() {
+        given:
+        def other = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("group", "b"), "1.0")
+        delegate.isFetchingMetadataCheap(id) >> false
+        delegate.isFetchingMetadataCheap(other) >> true
+
+        when:
+        resolver.prefetch(id)
+        resolver.prefetch(id)
+        resolver.prefetch(other)
+
+        then:
+        queued.size() == 1
+    }
+
+    def "fetches metadata of dependencies with a fixed version"() {
+        given:
+        delegate.isFetchingMetadataCheap(_) >> false
+        def node = Stub(NodeState) {
+            getAllDependencies() >> [
+                dependency("fixed", "1.0", "", ""),
+                dependency("strict", "1.0", "1.0", ""),
+                dependency("range", "[1.0,2.0)", "", ""),
+                dependency("dynamic", "1.+", "", ""),
+                dependency("latest", "latest.release", "", ""),
+                dependency("stricter", "1.0", "1.1", ""),
+                dependency("preferred", "", "", "1.0"),
+                dependency("constraint", "1.0", "", "", true)
+            ]
+        }
+
+        when:
+        resolver.prefetchDependencyTargets(node)
+        resolver.prefetchDependencyTargets(node)
+
+        then:
+        queued.size() == 2
+    }
+
+    private BuildableComponentResolveResult resolve(ComponentOverrideMetadata overrideMetadata) {
+        def result = new DefaultBuildableComponentResolveResult()
+        resolver.resolve(id, overrideMetadata, result)
+        return result
+    }
+
+    private DependencyMetadata dependency(String name, String requiredVersion, String strictVersion, String preferredVersion, boolean constraint = false) {
+        def versionConstraint = new DefaultImmutableVersionConstraint(preferredVersion, requiredVersion, strictVersion, [], null)
+        return Stub(DependencyMetadata) {
+            getSelector() >> newSelector(DefaultModuleIdentifier.newId("group", name), versionConstraint)
+            isConstraint() >> constraint
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.gradle.api.attributes.AttributeDisambiguationRule
 import org.gradle.api.attributes.CompatibilityCheckDetails
 import org.gradle.api.attributes.MultipleCandidatesDetails
 import org.gradle.api.internal.attributes.AttributeContainerInternal
+import org.gradle.api.internal.attributes.AttributeSchemaServices
 import org.gradle.api.internal.attributes.DefaultAttributesSchema
 import org.gradle.api.internal.attributes.ImmutableAttributes
 import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema
@@ -213,6 +214,52 @@ class DefaultAttributeMatcherTest extends Specification {
         matcher.matchMultipleCandidates([candidate1, candidate2, candidate3], requested) == [candidate1]
     }
 
+    static class CountingChooseBest implements AttributeDisambiguationRule<String> {
+        static int executions
+
+        @Override
+        void execute(MultipleCandidatesDetails<String> details) {
+            executions++
+            details.closestMatch("best")
+        }
+    }
+
+    def "runs disambiguation rules once for the same candidate values"() {
+        given:
+        CountingChooseBest.executions = 0
+        def usage = Attribute.of("usage", String)
+        def services = AttributeTestUtil.services()
+        def matcher = newMatcher(services) {
+            attribute(usage).disambiguationRules.add(CountingChooseBest)
+            accept(usage, "requested", "best")
+            accept(usage, "requested", "compatible")
+        }
+
+        def candidate1 = attributes(usage: "best", other: "1")
+        def candidate2 = attributes(usage: "compatible", other: "1")
+        def candidate3 = attributes(usage: "best", other: "2")
+        def candidate4 = attributes(usage: "compatible", other: "2")
+        def requested = attributes(usage: "requested")
+
+        when:
+        def first = matcher.matchMultipleCandidates([candidate1, candidate2], requested)
+        def second = matcher.matchMultipleCandidates([candidate3, candidate4], requested)
+        def third = matcher.matchMultipleCandidates([candidate3, candidate4], requested)
+
+        then:
+        first == [candidate1]
+        second == [candidate3]
+        third == [candidate3]
+        CountingChooseBest.executions == 1
+
+        and:
+        def statistics = services.statistics
+        statistics.candidateLists.misses == 2
+        statistics.candidateLists.hits == 1
+        statistics.disambiguations.misses == 1
+        statistics.disambiguations.hits == 1
+    }
+
     def "prefers match with superset of matching attributes"() {
         given:
         def matcher = newMatcher {
@@ -543,12 +590,15 @@ class DefaultAttributeMatcherTest extends Specification {
     }
 
     private AttributeMatcher newMatcher(@DelegatesTo(TestSchema) Closure<?> action = {}) {
+        newMatcher(AttributeTestUtil.services(), action)
+    }
+
+    private AttributeMatcher newMatcher(AttributeSchemaServices services, @DelegatesTo(TestSchema) Closure<?> action) {
         def mutable = new TestSchema()
 
         action.delegate = mutable
         action(mutable)
 
-        def services = AttributeTestUtil.services()
         def immutable = services.getSchemaFactory().create(mutable)
         services.getMatcher(immutable, ImmutableAttributesSchema.EMPTY)
     }
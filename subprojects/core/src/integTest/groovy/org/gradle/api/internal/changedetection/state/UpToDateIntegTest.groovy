@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection.state
 
 import org.gradle.integtests.fixtures.AbstractIntegrationSpec
 import org.gradle.integtests.fixtures.ToBeFixedForConfigurationCache
+import org.gradle.util.GradleVersion
 import spock.lang.Issue
 
 import java.nio.file.Files
@@ -301,4 +302,33 @@ public abstract class CreateEmptyDirectory extends DefaultTask {
         "@InputDirectory" | "DirectoryProperty"   | "input"           | "getInput().file('input.txt').get().asFile.text"
         "@InputFile"      | "RegularFileProperty" | "input/input.txt" | "getInput().get().asFile.text"
     }
+
+    def "task history is kept in the log-structured execution history"() {
+        buildFile """
+            tasks.register("copyInput", Copy) {
+                from "input"
+                into layout.buildDirectory.dir("output")
+            }
+        """
+        def inputFile = file("input/input.txt")
+        inputFile.text = "first"
+
+        when:
+        run "copyInput", "-Dorg.gradle.internal.execution-history.log-structured=true"
+        then:
+        executedAndNotSkipped ":copyInput"
+        file(".gradle/${GradleVersion.current().version}/executionHistory/executionHistory.log").directory
+
+        when:
+        run "copyInput", "-Dorg.gradle.internal.execution-history.log-structured=true"
+        then:
+        skipped ":copyInput"
+
+        when:
+        inputFile.text = "second"
+        run "copyInput", "-Dorg.gradle.internal.execution-history.log-structured=true"
+        then:
+        executedAndNotSkipped ":copyInput"
+        file("build/output/input.txt").text == "second"
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.DefaultFilePermissions;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.DefaultZipCompressor;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the time to write a large archive of compressible files, like the class files and resources of a big jar,
+ * with the entries deflated one after the other or on several threads.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ZipCopyActionBenchmark {
+
+    @Param({"10000"})
+    int fileCount;
+
+    @Param({"1", "4", "8"})
+    int threads;
+
+    private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+    private ManagedExecutor executor;
+    private List<FileCopyDetailsInternal> files;
+    private File zipFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        String[] words = {"public", "class", "void", "return", "org/gradle/api", "java/lang/String", "Ljava/util/List;", "<init>", "Code", "LineNumberTable"};
+        files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            StringBuilder content = new StringBuilder();
+            int size = 512 + random.nextInt(32 * 1024);
+            while (content.length() < size) {
+                content.append(words[random.nextInt(words.length)]).append(random.nextInt(100)).append(' ');
+            }
+            files.add(file("org/gradle/package" + i % 100 + "/Class" + i + ".class", content.toString().getBytes("UTF-8")));
+        }
+        zipFile = Files.createTempFile("benchmark", ".zip").toFile();
+        executor = threads > 1 ? executorFactory.create("Zip entry compression", threads) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorFactory.stop();
+        zipFile.delete();
+    }
+
+    @Benchmark
+    public void writeArchive() {
+        ZipCopyAction action = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), "UTF-8", false, executor);
+        CopyActionProcessingStream stream = processingAction -> files.forEach(processingAction::processFile);
+        action.execute(stream);
+    }
+
+    private static FileCopyDetailsInternal file(String path, byte[] content) {
+        RelativePath relativePath = RelativePath.parse(true, path);
+        DefaultFilePermissions permissions = new DefaultFilePermissions(0644);
+        return (FileCopyDetailsInternal) Proxy.newProxyInstance(ZipCopyActionBenchmark.class.getClassLoader(), new Class<?>[]{FileCopyDetailsInternal.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isDirectory":
+                    return false;
+                case "getRelativePath":
+                    return relativePath;
+                case "getPermissions":
+                    return permissions;
+                case "getSize":
+                    return (long) content.length;
+                case "getLastModified":
+                    return 0L;
+                case "copyTo":
+                    ((OutputStream) args[0]).write(content);
+                    return null;
+                case "toString":
+                    return path;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
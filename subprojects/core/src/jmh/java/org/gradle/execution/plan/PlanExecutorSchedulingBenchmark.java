@@ -0,0 +1,183 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.initialization.DefaultBuildCancellationToken;
+import org.gradle.internal.build.ExecutionResult;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.Stat;
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.resources.ResourceLock;
+import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.gradle.internal.work.DefaultWorkerLimits;
+import org.gradle.internal.work.WorkerLimits;
+import org.gradle.util.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.gradle.internal.snapshot.CaseSensitivity.CASE_SENSITIVE;
+
+/**
+ * Measures the overhead of scheduling a plan of tiny nodes that do no work, so the time is spent selecting nodes, acquiring locks and marking nodes as finished.
+ *
+ * The nodes are spread across a number of projects and lock the task execution lock of their project, like task nodes do.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class PlanExecutorSchedulingBenchmark {
+
+    @Param({"50000"})
+    int nodeCount;
+
+    @Param({"1", "100"})
+    int projectCount;
+
+    @Param({"independent", "layered"})
+    String shape;
+
+    @Param({"4", "64"})
+    int workers;
+
+    private DefaultResourceLockCoordinationService coordinationService;
+    private DefaultWorkerLeaseService workerLeaseService;
+    private DefaultPlanExecutor planExecutor;
+    private DefaultExecutionPlan executionPlan;
+    private FinalizedExecutionPlan finalizedPlan;
+
+    @Setup(Level.Trial)
+    public void setupExecutor() {
+        WorkerLimits workerLimits = new DefaultWorkerLimits(workers);
+        coordinationService = new DefaultResourceLockCoordinationService();
+        workerLeaseService = new DefaultWorkerLeaseService(coordinationService, workerLimits);
+        workerLeaseService.startProjectExecution(true);
+        planExecutor = new DefaultPlanExecutor(workerLimits, new DefaultExecutorFactory(), workerLeaseService, new DefaultBuildCancellationToken(), coordinationService, new DefaultInternalOptions(Collections.emptyMap()));
+    }
+
+    @Setup(Level.Invocation)
+    public void setupPlan() {
+        List<ResourceLock> projectLocks = new ArrayList<>(projectCount);
+        for (int i = 0; i < projectCount; i++) {
+            projectLocks.add(workerLeaseService.getTaskExecutionLock(Path.ROOT, Path.path(":project" + i)));
+        }
+
+        Random random = new Random(1234L);
+        List<SyntheticNode> nodes = new ArrayList<>(nodeCount);
+        // Nodes of the layered graph depend on two nodes of the previous layer
+        int layerWidth = 1000;
+        for (int i = 0; i < nodeCount; i++) {
+            SyntheticNode node = new SyntheticNode(i, projectLocks.get(random.nextInt(projectCount)));
+            if (shape.equals("layered") && i >= layerWidth) {
+                int previousLayerStart = (i / layerWidth - 1) * layerWidth;
+                node.addDependencySuccessor(nodes.get(previousLayerStart + random.nextInt(layerWidth)));
+                node.addDependencySuccessor(nodes.get(previousLayerStart + random.nextInt(layerWidth)));
+            }
+            nodes.add(node);
+        }
+
+        ExecutionNodeAccessHierarchies accessHierarchies = new ExecutionNodeAccessHierarchies(CASE_SENSITIVE, new UnusedStat());
+        executionPlan = new DefaultExecutionPlan(
+            Path.ROOT.getPath(),
+            null,
+            new OrdinalGroupFactory(),
+            new TaskDependencyResolver(Collections.emptyList()),
+            accessHierarchies.getOutputHierarchy(),
+            accessHierarchies.getDestroyableHierarchy(),
+            coordinationService
+        );
+        executionPlan.addEntryNodes(nodes);
+        executionPlan.determineExecutionPlan();
+        finalizedPlan = executionPlan.finalizePlan();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownPlan() {
+        executionPlan.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownExecutor() {
+        planExecutor.stop();
+    }
+
+    @Benchmark
+    public void executePlan() {
+        ExecutionResult<Void> result = workerLeaseService.runAsWorkerThread(() -> planExecutor.process(finalizedPlan.asWorkSource(), node -> {
+        }));
+        result.rethrow();
+    }
+
+    private static class SyntheticNode extends CreationOrderedNode {
+        private final int id;
+        private final ResourceLock projectLock;
+
+        SyntheticNode(int id, ResourceLock projectLock) {
+            this.id = id;
+            this.projectLock = projectLock;
+        }
+
+        @Nullable
+        @Override
+        public Throwable getNodeFailure() {
+            return null;
+        }
+
+        @Override
+        public void resolveDependencies(TaskDependencyResolver dependencyResolver) {
+        }
+
+        @Override
+        public ResourceLock getProjectToLock() {
+            return projectLock;
+        }
+
+        @Override
+        public String toString() {
+            return "node " + id;
+        }
+    }
+
+    private static class UnusedStat implements Stat {
+        @Override
+        public int getUnixMode(File f) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileMetadata stat(File f) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
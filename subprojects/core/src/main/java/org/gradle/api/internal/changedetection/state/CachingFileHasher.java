@@ -30,6 +30,7 @@
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.InterningStringSerializer;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class CachingFileHasher implements FileHasher {
@@ -76,6 +77,13 @@ public HashCode hash(File file, long length, long lastModified) {
         return snapshot(file, length, lastModified).getHash();
     }
 
+    @Nullable
+    @Override
+    public HashCode hashIfKnown(File file, long length, long lastModified) {
+        FileInfo info = cachedSnapshot(file.getAbsolutePath(), length, lastModified);
+        return info == null ? null : info.getHash();
+    }
+
     private FileInfo snapshot(File file) {
         FileMetadata fileMetadata = fileSystem.stat(file);
         return snapshot(file, fileMetadata.getLength(), fileMetadata.getLastModified());
@@ -83,12 +91,9 @@ private FileInfo snapshot(File file) {
 
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
-        if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp)) {
-            FileInfo info = cache.getIfPresent(absolutePath);
-
-            if (info != null && length == info.length && timestamp == info.timestamp) {
-                return info;
-            }
+        FileInfo cachedInfo = cachedSnapshot(absolutePath, length, timestamp);
+        if (cachedInfo != null) {
+            return cachedInfo;
         }
 
         HashCode hash = delegate.hash(file);
@@ -98,6 +103,18 @@ private FileInfo snapshot(File file, long length, long timestamp) {
         return info;
     }
 
+    @Nullable
+    private FileInfo cachedSnapshot(String absolutePath, long length, long timestamp) {
+        if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp)) {
+            FileInfo info = cache.getIfPresent(absolutePath);
+
+            if (info != null && length == info.length && timestamp == info.timestamp) {
+                return info;
+            }
+        }
+        return null;
+    }
+
     public void discard(String path) {
         cache.remove(path);
     }
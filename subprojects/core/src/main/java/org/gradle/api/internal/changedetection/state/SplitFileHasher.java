@@ -20,6 +20,7 @@
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 /**
@@ -54,4 +55,14 @@ public HashCode hash(File file, long length, long lastModified) {
             return localHasher.hash(file, length, lastModified);
         }
     }
+
+    @Nullable
+    @Override
+    public HashCode hashIfKnown(File file, long length, long lastModified) {
+        if (globalCacheLocations.isInsideGlobalCache(file.getPath())) {
+            return globalHasher.hashIfKnown(file, length, lastModified);
+        } else {
+            return localHasher.hashIfKnown(file, length, lastModified);
+        }
+    }
 }
@@ -42,10 +42,14 @@
 import org.gradle.api.internal.file.copy.CopySpecResolver;
 import org.gradle.api.internal.file.copy.CopySpecSource;
 import org.gradle.api.internal.file.copy.DefaultCopySpec;
+import org.gradle.api.internal.file.copy.DestinationManifest;
 import org.gradle.api.internal.provider.PropertyFactory;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.instrumentation.api.annotations.NotToBeReplacedByLazyProperty;
 import org.gradle.internal.instrumentation.api.annotations.ToBeReplacedByLazyProperty;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -55,6 +59,7 @@
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.io.File;
 import java.io.FilterReader;
 import java.util.Map;
 import java.util.Set;
@@ -70,6 +75,9 @@
 @DisableCachingByDefault(because = "Abstract super-class, not to be instantiated directly")
 public abstract class AbstractCopyTask extends ConventionTask implements CopySpec, CopySpecSource {
 
+    // Only copies the files that changed since the previous execution of the task, see DestinationManifest
+    private static final InternalFlag INCREMENTAL_COPY = new InternalFlag("org.gradle.internal.copy.incremental");
+
     private final CopySpecInternal rootSpec;
     private final CopySpecInternal mainSpec;
 
@@ -154,6 +162,16 @@ protected PropertyFactory getPropertyFactory() {
         throw new UnsupportedOperationException();
     }
 
+    @Inject
+    protected InternalOptions getInternalOptions() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected FileHasher getFileHasher() {
+        throw new UnsupportedOperationException();
+    }
+
     @TaskAction
     protected void copy() {
         CopyActionExecuter copyActionExecuter = createCopyActionExecuter();
@@ -162,6 +180,17 @@ protected void copy() {
         setDidWork(didWork.getDidWork());
     }
 
+    /**
+     * Returns the manifest of the files copied to the given directory by the previous execution of this task, or null when incremental copies are disabled.
+     */
+    @Nullable
+    DestinationManifest loadDestinationManifest(File destinationDir) {
+        if (!getInternalOptions().getOption(INCREMENTAL_COPY).get()) {
+            return null;
+        }
+        return DestinationManifest.load(new File(getTemporaryDir(), "destination-manifest.bin"), destinationDir, getFileHasher());
+    }
+
     protected CopyActionExecuter createCopyActionExecuter() {
         Instantiator instantiator = getInstantiator();
         FileSystem fileSystem = getFileSystem();
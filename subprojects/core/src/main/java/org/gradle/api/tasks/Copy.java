@@ -77,7 +77,7 @@ protected CopyAction createCopyAction() {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
+        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir), loadDestinationManifest(destinationDir));
     }
 
     @Override
@@ -79,7 +79,7 @@ protected CopyAction createCopyAction() {
         }
         return new SyncCopyActionDecorator(
             destinationDir,
-            new FileCopyAction(getFileLookup().getFileResolver(destinationDir)),
+            new FileCopyAction(getFileLookup().getFileResolver(destinationDir), loadDestinationManifest(destinationDir)),
             preserveInDestination,
             getDeleter(),
             getDirectoryFileTreeFactory()
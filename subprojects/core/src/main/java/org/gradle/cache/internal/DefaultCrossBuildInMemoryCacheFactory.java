@@ -46,6 +46,8 @@
  * Note that this implementation currently retains strong references to keys and values during the whole lifetime of a build session.
  *
  * Uses a simple algorithm to collect unused values, by retaining strong references to all keys and values used during the current build session, and the previous build session. All other values are referenced only by soft references.
+ *
+ * When the heap fills up between builds, the values retained from the previous session are released early, see {@link HeapPressureListener}.
  */
 @ThreadSafe
 public class DefaultCrossBuildInMemoryCacheFactory implements CrossBuildInMemoryCacheFactory {
@@ -104,7 +106,7 @@ public <V> CrossBuildInMemoryCache<Class<?>, V> newClassMap() {
         return map;
     }
 
-    private abstract static class AbstractCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener {
+    private abstract static class AbstractCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener, HeapPressureListener {
         private final ConcurrentHashMap<K, Lazy<V>> valuesForThisSession = new ConcurrentHashMap<>();
 
         @Override
@@ -119,10 +121,18 @@ public void clear() {
             discardRetainedValues();
         }
 
+        @Override
+        public void onHeapPressure(HeapPressure pressure) {
+            // Values used by the current session are kept, so that a value is not recreated during a session
+            releaseRetainedValues(pressure);
+        }
+
         protected abstract void retainValuesFromCurrentSession(Stream<V> values);
 
         protected abstract void discardRetainedValues();
 
+        protected abstract void releaseRetainedValues(HeapPressure pressure);
+
         /**
          * Must be thread-safe.
          */
@@ -234,6 +244,17 @@ protected void discardRetainedValues() {
             allValues.clear();
         }
 
+        @Override
+        protected void releaseRetainedValues(HeapPressure pressure) {
+            // Values from the previous session become softly referenced, so the garbage collector can reclaim them when it needs to
+            synchronized (valuesForPreviousSession) {
+                valuesForPreviousSession.clear();
+            }
+            if (pressure == HeapPressure.HIGH) {
+                allValues.clear();
+            }
+        }
+
         @Override
         protected void retainValue(K key, V v) {
             allValues.put(key, new SoftReference<>(v));
@@ -268,6 +289,11 @@ protected void discardRetainedValues() {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        protected void releaseRetainedValues(HeapPressure pressure) {
+            // Values are released together with the ClassLoader of their key
+        }
+
         @Override
         protected void retainValue(Class<?> key, V v) {
             getCacheScope(key).put(key, v);
@@ -288,7 +314,7 @@ private Map<Class<?>, V> getCacheScope(Class<?> type) {
         }
     }
 
-    private static class CrossBuildCacheRetainingDataFromPreviousBuild<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener {
+    private static class CrossBuildCacheRetainingDataFromPreviousBuild<K, V> implements CrossBuildInMemoryCache<K, V>, BuildSessionLifecycleListener, HeapPressureListener {
         private final ManualEvictionInMemoryCache<K, V> delegate = new ManualEvictionInMemoryCache<>();
         private final ConcurrentMap<K, Boolean> keysFromPreviousBuild = new ConcurrentHashMap<>();
         private final ConcurrentMap<K, Boolean> keysFromCurrentBuild = new ConcurrentHashMap<>();
@@ -343,5 +369,17 @@ public void beforeComplete() {
             keysFromPreviousBuild.putAll(keysFromCurrentBuild);
             keysFromCurrentBuild.clear();
         }
+
+        @Override
+        public void onHeapPressure(HeapPressure pressure) {
+            if (pressure == HeapPressure.HIGH) {
+                clear();
+            } else {
+                // Only keep the entries used by the previous build, and not those used by the build before it
+                Set<K> keysToRetain = new HashSet<>(keysFromPreviousBuild.keySet());
+                keysToRetain.addAll(keysFromCurrentBuild.keySet());
+                delegate.retainAll(keysToRetain);
+            }
+        }
     }
 }
@@ -35,11 +35,13 @@
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -67,7 +69,7 @@ public int compare(Node node1, Node node2) {
     };
 
     private final Set<Node> waitingToStartNodes = new HashSet<>();
-    private final ExecutionQueue readyNodes = new ExecutionQueue();
+    private final ExecutionQueue readyNodes;
     private final List<Throwable> failures = new ArrayList<>();
     private final List<DiagnosticEvent> diagnosticEvents = new ArrayList<>();
     private final String displayName;
@@ -81,9 +83,13 @@ public int compare(Node node1, Node node2) {
     private final QueryableExecutionPlan contents;
 
     private final Set<Node> runningNodes = newIdentityHashSet();
+    // The project locks that could not be acquired during the current scan of the ready nodes
+    private final Set<ResourceLock> unavailableProjectLocks = newIdentityHashSet();
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    @Nullable
+    private final CriticalPathScheduling criticalPathScheduling;
 
     // When true, there may be nodes that are both ready and "selectable", which means their project and resources are able to be locked
     // When false, there are definitely no nodes that are "selectable"
@@ -101,6 +107,24 @@ public DefaultFinalizedExecutionPlan(
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
         Consumer<LocalTaskNode> completionHandler
+    ) {
+        this(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, contents, completionHandler, null);
+    }
+
+    /**
+     * Creates a plan that starts the ready nodes with the longest estimated remaining critical path first, when a task duration history is given.
+     */
+    public DefaultFinalizedExecutionPlan(
+        String displayName,
+        OrdinalNodeAccess ordinalNodeAccess,
+        ExecutionNodeAccessHierarchy outputHierarchy,
+        ExecutionNodeAccessHierarchy destroyableHierarchy,
+        ResourceLockCoordinationService lockCoordinator,
+        List<Node> scheduledNodes,
+        boolean continueOnFailure,
+        QueryableExecutionPlan contents,
+        Consumer<LocalTaskNode> completionHandler,
+        @Nullable TaskDurationHistory durationHistory
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -110,6 +134,13 @@ public DefaultFinalizedExecutionPlan(
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        if (durationHistory != null) {
+            this.criticalPathScheduling = new CriticalPathScheduling(durationHistory, scheduledNodes);
+            this.readyNodes = new ExecutionQueue(criticalPathScheduling.executionOrder());
+        } else {
+            this.criticalPathScheduling = null;
+            this.readyNodes = new ExecutionQueue(NODE_EXECUTION_ORDER);
+        }
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -147,10 +178,14 @@ public WorkSource<Node> asWorkSource() {
     @Override
     public void close() {
         lockCoordinator.removeLockReleaseListener(resourceUnlockListener);
+        if (criticalPathScheduling != null) {
+            criticalPathScheduling.reportMakespan(displayName);
+        }
         waitingToStartNodes.clear();
         readyNodes.clear();
         runningNodes.clear();
         reachableCache.clear();
+        unavailableProjectLocks.clear();
     }
 
     private void resourceUnlocked(ResourceLock resourceLock) {
@@ -238,6 +273,9 @@ public Selection<Node> selectNext() {
         }
 
         List<ResourceLock> resources = new ArrayList<>();
+        // Locks cannot be released by other threads while this thread holds the state lock, so a project lock that is not available
+        // stays unavailable for the rest of the scan, and the other nodes of the project do not need to be attempted
+        unavailableProjectLocks.clear();
         readyNodes.restart();
         while (readyNodes.hasNext()) {
             Node node = readyNodes.next();
@@ -262,6 +300,7 @@ public Selection<Node> selectNext() {
                     // The node is ready to execute and its pre-execution nodes have not been scheduled, so do this now
                     node.visitPreExecutionNodes(prepareNode -> {
                         prepareNode.setIndex(node.getIndex());
+                        inheritCriticalPath(prepareNode, node);
                         prepareNode.require();
                         prepareNode.updateAllDependenciesComplete();
                         node.addDependencySuccessor(prepareNode);
@@ -276,7 +315,7 @@ public Selection<Node> selectNext() {
                 }
 
                 // Node is ready to execute and all dependencies and pre-execution nodes have completed
-                if (attemptToStart(node, resources)) {
+                if (!isProjectUnavailable(node) && attemptToStart(node, resources)) {
                     readyNodes.remove();
                     waitingToStartNodes.remove(node);
                     node.getConsumerState().started();
@@ -302,6 +341,11 @@ public Selection<Node> selectNext() {
         return Selection.noWorkReadyToStart();
     }
 
+    private boolean isProjectUnavailable(Node node) {
+        ResourceLock projectLock = node.getProjectToLock();
+        return projectLock != null && unavailableProjectLocks.contains(projectLock);
+    }
+
     private void addNodeToPlan(Node node) {
         maybeNodeReady(node);
         maybeWaitingForNewNode(node, "runtime");
@@ -322,6 +366,9 @@ private boolean attemptToStart(Node node, List<ResourceLock> resources) {
         }
 
         node.startExecution(this::recordNodeExecutionStarted);
+        if (criticalPathScheduling != null) {
+            criticalPathScheduling.started(node);
+        }
         if (mutations.hasValidationProblem()) {
             invalidNodeRunning = true;
         }
@@ -337,6 +384,7 @@ private void releaseLocks(List<ResourceLock> resources) {
     private boolean tryAcquireLocksForNode(Node node, List<ResourceLock> resources) {
         if (!tryLockProjectFor(node, resources)) {
             LOGGER.debug("Cannot acquire project lock for node {}", node);
+            unavailableProjectLocks.add(node.getProjectToLock());
             return false;
         } else if (!tryLockSharedResourceFor(node, resources)) {
             LOGGER.debug("Cannot acquire shared resource lock for node {}", node);
@@ -547,6 +595,9 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
         lockCoordinator.assertHasStateLock();
         try {
             runningNodes.remove(node);
+            if (criticalPathScheduling != null) {
+                criticalPathScheduling.finished(node, failure == null && !node.isFailed());
+            }
 
             if (failure != null) {
                 node.setExecutionFailure(failure);
@@ -567,6 +618,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
                     postNode.setIndex(node.getIndex());
+                    inheritCriticalPath(postNode, node);
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
@@ -586,6 +638,12 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
         }
     }
 
+    private void inheritCriticalPath(Node node, Node from) {
+        if (criticalPathScheduling != null) {
+            criticalPathScheduling.inherit(node, from);
+        }
+    }
+
     private void maybeNodeReady(Node node) {
         if (node.allDependenciesComplete()) {
             maybeNodesSelectable = true;
@@ -679,12 +737,16 @@ public boolean allExecutionComplete() {
     }
 
     /**
-     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER}.
+     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER} unless critical path scheduling is used.
      */
     static class ExecutionQueue {
-        private final Set<Node> nodes = new TreeSet<>(NODE_EXECUTION_ORDER);
+        private final Set<Node> nodes;
         private Iterator<Node> current;
 
+        ExecutionQueue(Comparator<Node> order) {
+            this.nodes = new TreeSet<>(order);
+        }
+
         public void clear() {
             nodes.clear();
             current = null;
@@ -738,6 +800,122 @@ public void insert(Node node) {
         }
     }
 
+    /**
+     * Ranks ready nodes by the estimated duration of the longest chain of work that cannot start before the node completes,
+     * based on the task durations recorded by earlier builds, and records the durations of the tasks of this build.
+     *
+     * The estimates only change the order in which ready nodes are attempted, so dependencies, must-run-after and finalizer relationships,
+     * resource locks and conflicts between nodes are honored as before. Priority nodes are still attempted first, and nodes with the same estimate
+     * are attempted in the usual order.
+     */
+    private static class CriticalPathScheduling {
+        private final TaskDurationHistory durationHistory;
+        // The estimated remaining critical path of each node in milliseconds, including the node itself
+        private final Map<Node, Long> criticalPaths = new IdentityHashMap<>();
+        private final Map<Node, Long> startTimes = new IdentityHashMap<>();
+        private final long predictedMakespanMillis;
+        private final int tasksWithoutHistory;
+        private long firstStartNanos = -1;
+        private long lastFinishNanos = -1;
+
+        CriticalPathScheduling(TaskDurationHistory durationHistory, List<Node> scheduledNodes) {
+            this.durationHistory = durationHistory;
+            Map<Node, Long> ownDurations = new IdentityHashMap<>();
+            List<Long> knownDurations = new ArrayList<>();
+            int unknown = 0;
+            for (Node node : scheduledNodes) {
+                if (node instanceof LocalTaskNode) {
+                    Long duration = durationHistory.getEstimatedDurationMillis(taskPathOf((LocalTaskNode) node));
+                    if (duration != null) {
+                        ownDurations.put(node, duration);
+                        knownDurations.add(duration);
+                    } else {
+                        unknown++;
+                    }
+                }
+            }
+            this.tasksWithoutHistory = unknown;
+            // Tasks that have not run before are assumed to take as long as an average task
+            long defaultDuration = knownDurations.isEmpty() ? 0 : knownDurations.stream().mapToLong(Long::longValue).sum() / knownDurations.size();
+
+            // Dependencies are scheduled before the nodes that depend on them, so visit the nodes in reverse order
+            long longestPath = 0;
+            for (int i = scheduledNodes.size() - 1; i >= 0; i--) {
+                Node node = scheduledNodes.get(i);
+                long ownDuration = node instanceof LocalTaskNode ? ownDurations.getOrDefault(node, defaultDuration) : 0;
+                long longestDependent = 0;
+                for (Node dependent : node.getDependencyPredecessors()) {
+                    longestDependent = Math.max(longestDependent, criticalPaths.getOrDefault(dependent, 0L));
+                }
+                for (Node finalizer : node.getFinalizers()) {
+                    longestDependent = Math.max(longestDependent, criticalPaths.getOrDefault(finalizer, 0L));
+                }
+                long criticalPath = ownDuration + longestDependent;
+                criticalPaths.put(node, criticalPath);
+                longestPath = Math.max(longestPath, criticalPath);
+            }
+            this.predictedMakespanMillis = longestPath;
+        }
+
+        Comparator<Node> executionOrder() {
+            return (node1, node2) -> {
+                if (node1.isPriority() != node2.isPriority()) {
+                    return node1.isPriority() ? -1 : 1;
+                }
+                int byCriticalPath = Long.compare(criticalPathOf(node2), criticalPathOf(node1));
+                if (byCriticalPath != 0) {
+                    return byCriticalPath;
+                }
+                return NODE_EXECUTION_ORDER.compare(node1, node2);
+            };
+        }
+
+        private long criticalPathOf(Node node) {
+            return criticalPaths.getOrDefault(node, 0L);
+        }
+
+        /**
+         * Nodes added to the plan while it executes, such as pre- and post-execution nodes, take the estimate of the node they were added for.
+         * Must be called before the node is added to the queue, as the estimate of a node in the queue must not change.
+         */
+        void inherit(Node node, Node from) {
+            criticalPaths.putIfAbsent(node, criticalPathOf(from));
+        }
+
+        void started(Node node) {
+            long now = System.nanoTime();
+            if (firstStartNanos < 0) {
+                firstStartNanos = now;
+            }
+            if (node instanceof LocalTaskNode) {
+                startTimes.put(node, now);
+            }
+        }
+
+        void finished(Node node, boolean successful) {
+            long now = System.nanoTime();
+            lastFinishNanos = now;
+            Long startTime = startTimes.remove(node);
+            // Skipped, up-to-date and cached executions say nothing about how long the task takes when it has work to do
+            if (startTime != null && successful && !((LocalTaskNode) node).getTask().getState().getSkipped()) {
+                durationHistory.recordDuration(taskPathOf((LocalTaskNode) node), TimeUnit.NANOSECONDS.toMillis(now - startTime));
+            }
+        }
+
+        void reportMakespan(String displayName) {
+            if (firstStartNanos < 0 || lastFinishNanos < 0) {
+                return;
+            }
+            long actualMakespanMillis = TimeUnit.NANOSECONDS.toMillis(lastFinishNanos - firstStartNanos);
+            LOGGER.info("Critical path scheduling for {}: predicted makespan {} ms, actual makespan {} ms ({} tasks without recorded duration).",
+                displayName, predictedMakespanMillis, actualMakespanMillis, tasksWithoutHistory);
+        }
+
+        private static String taskPathOf(LocalTaskNode node) {
+            return node.getTask().getIdentityPath().toString();
+        }
+    }
+
     private interface DiagnosticEvent {
         String message();
     }
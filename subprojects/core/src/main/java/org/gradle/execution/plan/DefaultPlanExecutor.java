@@ -366,14 +366,13 @@ public void run() {
                     releaseLeaseOnCompletion = false;
                 }
 
-                while (true) {
-                    WorkItem workItem = getNextItem(workerLease);
-                    if (workItem == null) {
-                        break;
-                    }
+                WorkItem workItem = getNextItem(workerLease, null);
+                while (workItem != null) {
                     Object selected = workItem.selection.getItem();
                     LOGGER.info("{} ({}) started.", selected, Thread.currentThread());
-                    execute(selected, workItem.plan, workItem.executor);
+                    Throwable failure = execute(selected, workItem.executor);
+                    // Mark the item as finished and select the next item while holding the state lock once, rather than acquiring it twice
+                    workItem = getNextItem(workerLease, new FinishedItem(selected, workItem.plan, failure));
                 }
 
                 if (releaseLeaseOnCompletion) {
@@ -388,15 +387,30 @@ public void run() {
          * Selects an item that's ready to execute and executes the provided action against it. If no item is ready, blocks until some
          * can be executed.
          *
+         * @param finished the item this worker has just executed, if any. It is marked as finished before selecting the next item.
          * @return The next item to execute or {@code null} when there are no items remaining
          */
         @Nullable
-        private WorkItem getNextItem(final WorkerLease workerLease) {
+        private WorkItem getNextItem(final WorkerLease workerLease, @Nullable FinishedItem finished) {
             final MutableReference<WorkItem> selected;
-            stats.startSelect();
+            final MutableReference<FinishedItem> toMarkFinished = MutableReference.of(finished);
+            if (finished != null) {
+                stats.startMarkFinished();
+            } else {
+                stats.startSelect();
+            }
             try {
                 selected = MutableReference.empty();
                 coordinationService.withStateLock(resourceLockState -> {
+                    FinishedItem finishedItem = toMarkFinished.get();
+                    if (finishedItem != null) {
+                        toMarkFinished.set(null);
+                        // Use a nested state transform, so the release listeners for the locks released by the finished item run
+                        // before the next item is selected. Other plans waiting for these locks may only become selectable then.
+                        coordinationService.withStateLock(() -> markFinished(finishedItem));
+                        stats.finishMarkFinished();
+                        stats.startSelect();
+                    }
                     stats.finishWaitingForNextItem();
                     if (cancellationToken.isCancellationRequested()) {
                         queue.cancelExecution();
@@ -451,38 +465,42 @@ private WorkItem getNextItem(final WorkerLease workerLease) {
             return selected.get();
         }
 
-        private void execute(Object selected, WorkSource<Object> executionPlan, Action<Object> worker) {
-            Throwable failure = null;
+        @Nullable
+        private Throwable execute(Object selected, Action<Object> worker) {
+            stats.startExecute();
             try {
-                stats.startExecute();
-                try {
-                    worker.execute(selected);
-                } catch (Throwable t) {
-                    failure = t;
-                } finally {
-                    stats.finishExecute();
-                }
+                worker.execute(selected);
+                return null;
+            } catch (Throwable t) {
+                return t;
             } finally {
-                markFinished(selected, executionPlan, failure);
+                stats.finishExecute();
             }
         }
 
-        private void markFinished(Object selected, WorkSource<Object> executionPlan, @Nullable Throwable failure) {
-            stats.startMarkFinished();
+        private void markFinished(FinishedItem finished) {
+            coordinationService.assertHasStateLock();
             try {
-                coordinationService.withStateLock(() -> {
-                    try {
-                        executionPlan.finishedExecuting(selected, failure);
-                    } catch (Throwable t) {
-                        queue.abortAllAndFail(t);
-                    }
-                    // Notify other threads that the item is finished as this may unblock further work
-                    // or this might be the last item in the queue
-                    coordinationService.notifyStateChange();
-                });
-            } finally {
-                stats.finishMarkFinished();
+                finished.plan.finishedExecuting(finished.item, finished.failure);
+            } catch (Throwable t) {
+                queue.abortAllAndFail(t);
             }
+            // Notify other threads that the item is finished as this may unblock further work
+            // or this might be the last item in the queue
+            coordinationService.notifyStateChange();
+        }
+    }
+
+    private static class FinishedItem {
+        final Object item;
+        final WorkSource<Object> plan;
+        @Nullable
+        final Throwable failure;
+
+        FinishedItem(Object item, WorkSource<Object> plan, @Nullable Throwable failure) {
+            this.item = item;
+            this.plan = plan;
+            this.failure = failure;
         }
     }
 
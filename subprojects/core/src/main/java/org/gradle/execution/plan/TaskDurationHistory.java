@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+
+/**
+ * Durations of the tasks executed by earlier builds, keyed by the identity path of the task.
+ *
+ * The recorded duration of a task is an exponential moving average over the executions that did work, so that a single slow or fast execution only moves the estimate slightly.
+ */
+@ServiceScope(Scope.BuildSession.class)
+public class TaskDurationHistory implements Closeable {
+    private static final int IN_MEMORY_CACHE_SIZE = 10000;
+    /**
+     * The weight of the latest execution in the moving average.
+     */
+    private static final double LATEST_EXECUTION_WEIGHT = 0.2;
+
+    private final PersistentCache cache;
+    private final IndexedCache<String, Long> durations;
+
+    public TaskDurationHistory(ScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
+        this.cache = cacheBuilderFactory.createCacheBuilder("taskDurations")
+            .withDisplayName("task duration history")
+            .withInitialLockMode(FileLockManager.LockMode.OnDemand)
+            .open();
+        this.durations = cache.createIndexedCache(IndexedCacheParameters.of("durations", BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.LONG_SERIALIZER)
+            .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(IN_MEMORY_CACHE_SIZE, true))
+        );
+    }
+
+    /**
+     * Returns the estimated duration of the task with the given identity path in milliseconds, or {@code null} when the task has not been executed before.
+     */
+    @Nullable
+    public Long getEstimatedDurationMillis(String taskPath) {
+        return durations.getIfPresent(taskPath);
+    }
+
+    /**
+     * Records an execution of the task with the given identity path that did work.
+     */
+    public void recordDuration(String taskPath, long durationMillis) {
+        Long previous = durations.getIfPresent(taskPath);
+        durations.put(taskPath, previous == null
+            ? durationMillis
+            : Math.round(previous + LATEST_EXECUTION_WEIGHT * (durationMillis - previous)));
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+}
@@ -36,6 +36,7 @@
 import org.gradle.cache.scopes.BuildTreeScopedCacheBuilderFactory;
 import org.gradle.deployment.internal.DefaultDeploymentRegistry;
 import org.gradle.deployment.internal.PendingChangesManager;
+import org.gradle.execution.plan.TaskDurationHistory;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.initialization.GradleUserHomeDirProvider;
@@ -139,6 +140,11 @@ BuildSessionScopeFileTimeStampInspector createFileTimeStampInspector(BuildTreeSc
         return new BuildSessionScopeFileTimeStampInspector(workDir);
     }
 
+    @Provides
+    TaskDurationHistory createTaskDurationHistory(BuildTreeScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
+        return new TaskDurationHistory(cacheBuilderFactory, inMemoryCacheDecoratorFactory);
+    }
+
     @Provides
     UserScopeId createUserScopeId(PersistentScopeIdLoader persistentScopeIdLoader) {
         return persistentScopeIdLoader.getUser();
@@ -18,10 +18,14 @@
 
 import org.gradle.api.internal.CollectionCallbackActionDecorator;
 import org.gradle.api.internal.DefaultCollectionCallbackActionDecorator;
+import org.gradle.api.internal.file.archive.ParallelZipCompression;
+import org.gradle.api.internal.file.archive.ParallelZipExtraction;
 import org.gradle.configuration.internal.DefaultDynamicCallContextTracker;
 import org.gradle.configuration.internal.DefaultListenerBuildOperationDecorator;
 import org.gradle.configuration.internal.DynamicCallContextTracker;
 import org.gradle.configuration.internal.ListenerBuildOperationDecorator;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.code.DefaultUserCodeApplicationContext;
 import org.gradle.internal.code.UserCodeApplicationContext;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -37,6 +41,7 @@
 import org.gradle.internal.operations.logging.LoggingBuildOperationProgressBroadcaster;
 import org.gradle.internal.operations.notify.BuildOperationNotificationBridge;
 import org.gradle.internal.operations.notify.BuildOperationNotificationValve;
+import org.gradle.internal.operations.trace.BuildOperationLatencyMetrics;
 import org.gradle.internal.operations.trace.BuildOperationTrace;
 import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
@@ -50,6 +55,15 @@
 import org.gradle.internal.work.WorkerLimits;
 
 public class CoreCrossBuildSessionServices implements ServiceRegistrationProvider {
+    /**
+     * Extracts the entries of a zip archive on at most as many threads as there are workers, once the visitor of the archive asks for the first extracted file.
+     */
+    public static final InternalFlag PARALLEL_ZIP_EXTRACTION = new InternalFlag("org.gradle.internal.archive.parallel-extraction");
+
+    /**
+     * Deflates the entries of zip archives on at most as many threads as there are workers, shared by all the archive tasks, when the archive would be the same.
+     */
+    public static final InternalFlag PARALLEL_ZIP_COMPRESSION = new InternalFlag("org.gradle.internal.archives.parallel-compression");
 
     @Provides
     void configure(ServiceRegistration registration) {
@@ -63,6 +77,18 @@ WorkerLimits createWorkerLimits(CrossBuildSessionParameters buildSessionParamete
         return new DefaultWorkerLimits(buildSessionParameters.getStartParameter().getMaxWorkerCount());
     }
 
+    @Provides
+    ParallelZipExtraction createParallelZipExtraction(CrossBuildSessionParameters buildSessionParameters, ExecutorFactory executorFactory, WorkerLimits workerLimits) {
+        boolean enabled = new DefaultInternalOptions(buildSessionParameters.getStartParameter().getSystemPropertiesArgs()).getOption(PARALLEL_ZIP_EXTRACTION).get();
+        return enabled ? ParallelZipExtraction.withMaxThreads(executorFactory, workerLimits.getMaxWorkerCount()) : ParallelZipExtraction.DISABLED;
+    }
+
+    @Provides
+    ParallelZipCompression createParallelZipCompression(CrossBuildSessionParameters buildSessionParameters, ExecutorFactory executorFactory, WorkerLimits workerLimits) {
+        boolean enabled = new DefaultInternalOptions(buildSessionParameters.getStartParameter().getSystemPropertiesArgs()).getOption(PARALLEL_ZIP_COMPRESSION).get();
+        return enabled ? ParallelZipCompression.withMaxThreads(executorFactory, workerLimits.getMaxWorkerCount()) : ParallelZipCompression.DISABLED;
+    }
+
     @Provides
     BuildOperationExecutor createBuildOperationExecutor(
         BuildOperationRunner buildOperationRunner,
@@ -101,8 +127,13 @@ LoggingBuildOperationProgressBroadcaster createLoggingBuildOperationProgressBroa
     }
 
     @Provides
-    BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buildOperationListenerManager, CrossBuildSessionParameters buildSessionParameters) {
-        return new BuildOperationTrace(buildSessionParameters.getStartParameter(), buildOperationListenerManager);
+    BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buildOperationListenerManager, CrossBuildSessionParameters buildSessionParameters, ExecutorFactory executorFactory) {
+        return new BuildOperationTrace(buildSessionParameters.getStartParameter(), buildOperationListenerManager, executorFactory);
+    }
+
+    @Provides
+    BuildOperationLatencyMetrics createBuildOperationLatencyMetrics(BuildOperationListenerManager buildOperationListenerManager, CrossBuildSessionParameters buildSessionParameters) {
+        return new BuildOperationLatencyMetrics(buildSessionParameters.getStartParameter(), buildOperationListenerManager);
     }
 
     @Provides
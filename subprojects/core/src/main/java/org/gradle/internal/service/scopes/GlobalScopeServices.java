@@ -197,8 +197,10 @@ InstanceGenerator createInstantiator(InstantiatorFactory instantiatorFactory) {
     }
 
     @Provides
-    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory) {
-        return new CleaningInMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory, ListenerManager listenerManager) {
+        CleaningInMemoryCacheDecoratorFactory cacheDecoratorFactory = new CleaningInMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+        listenerManager.addListener(cacheDecoratorFactory);
+        return cacheDecoratorFactory;
     }
 
     @Provides
@@ -21,6 +21,7 @@
 import net.rubygrapefruit.platform.file.FileSystems;
 import org.apache.tools.ant.DirectoryScanner;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.StartParameterInternal;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.BuildSessionScopeFileTimeStampInspector;
 import org.gradle.api.internal.changedetection.state.CachingFileHasher;
@@ -44,10 +45,14 @@
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
 import org.gradle.initialization.RootBuildLifecycleListener;
 import org.gradle.internal.build.BuildAddedListener;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
 import org.gradle.internal.buildoption.IntegerInternalOption;
 import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.FileCollectionSnapshotter;
@@ -75,6 +80,7 @@
 import org.gradle.internal.nativeintegration.services.NativeServices;
 import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.service.PrivateService;
 import org.gradle.internal.service.Provides;
 import org.gradle.internal.service.ServiceRegistration;
@@ -87,6 +93,7 @@
 import org.gradle.internal.vfs.VirtualFileSystem;
 import org.gradle.internal.vfs.impl.DefaultFileSystemAccess;
 import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy;
+import org.gradle.internal.vfs.impl.PersistentSnapshotHierarchy;
 import org.gradle.internal.watch.registry.FileWatcherRegistryFactory;
 import org.gradle.internal.watch.registry.impl.DarwinFileWatcherRegistryFactory;
 import org.gradle.internal.watch.registry.impl.LinuxFileWatcherRegistryFactory;
@@ -98,11 +105,18 @@
 import org.gradle.internal.watch.vfs.impl.FileWatchingFilter;
 import org.gradle.internal.watch.vfs.impl.WatchingNotSupportedVirtualFileSystem;
 import org.gradle.internal.watch.vfs.impl.WatchingVirtualFileSystem;
+import org.gradle.internal.work.WorkerLeaseRegistry;
+import org.gradle.internal.work.WorkerLeaseService;
 
 import java.io.File;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock;
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
 import static org.gradle.internal.snapshot.CaseSensitivity.CASE_INSENSITIVE;
 import static org.gradle.internal.snapshot.CaseSensitivity.CASE_SENSITIVE;
 
@@ -117,6 +131,29 @@ public class VirtualFileSystemServices extends AbstractGradleModuleServices {
     private static final int DEFAULT_MAX_HIERARCHIES_TO_WATCH = 50;
     public static final IntegerInternalOption MAX_HIERARCHIES_TO_WATCH_PROPERTY = new IntegerInternalOption("org.gradle.vfs.watch.hierarchies.max", DEFAULT_MAX_HIERARCHIES_TO_WATCH);
     private static final int FILE_HASHER_MEMORY_CACHE_SIZE = 400000;
+    /**
+     * Hashes the files of a directory concurrently while snapshotting, on threads which each hold a worker lease while hashing.
+     */
+    public static final InternalFlag PARALLEL_SNAPSHOTTING_PROPERTY = new InternalFlag("org.gradle.vfs.parallel-snapshotting");
+    /**
+     * Packs the regular file children of snapshotted directories into arrays, trading memory for re-creating the file snapshots on access.
+     */
+    public static final InternalFlag COMPACT_CHILDREN_PROPERTY = new InternalFlag("org.gradle.vfs.compact-children");
+    /**
+     * Files in the build at least this many megabytes large are memory mapped for hashing, non-positive values disable mapping.
+     * Disabled by default.
+     */
+    public static final IntegerInternalOption MAPPED_HASHING_THRESHOLD_PROPERTY = new IntegerInternalOption("org.gradle.vfs.hash.mapping-threshold-mb", 0);
+    /**
+     * Hashes memory mapped files in parallel chunks, with a tree hash that differs from the hash of the content as a stream.
+     * Only applies when mapping is enabled with {@link #MAPPED_HASHING_THRESHOLD_PROPERTY}.
+     */
+    public static final InternalFlag PARALLEL_CHUNKED_HASHING_PROPERTY = new InternalFlag("org.gradle.vfs.hash.parallel-chunks");
+    /**
+     * Stores the regular file snapshots of the virtual file system when the daemon stops, so that the first build of the next daemon
+     * does not hash unchanged files again.
+     */
+    public static final InternalFlag PERSIST_SNAPSHOTS_PROPERTY = new InternalFlag("org.gradle.vfs.persist-snapshots");
 
     public static boolean isDropVfs(InternalOptions options) {
         return options.getOption(VFS_DROP_PROPERTY).get();
@@ -236,6 +273,30 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
             return virtualFileSystem;
         }
 
+        @Provides
+        PersistentSnapshotHierarchy createPersistentSnapshotHierarchy(
+            GlobalScopedCacheBuilderFactory cacheBuilderFactory,
+            FileSystem fileSystem,
+            VirtualFileSystem virtualFileSystem,
+            ListenerManager listenerManager
+        ) {
+            CaseSensitivity caseSensitivity = fileSystem.isCaseSensitive() ? CASE_SENSITIVE : CASE_INSENSITIVE;
+            File stateFile = new File(cacheBuilderFactory.baseDirForCache("vfs"), "snapshots.bin");
+            PersistentSnapshotHierarchy persistentSnapshotHierarchy = new PersistentSnapshotHierarchy(stateFile, caseSensitivity, virtualFileSystem);
+            listenerManager.addListener(new RootBuildLifecycleListener() {
+                @Override
+                public void afterStart() {
+                }
+
+                @Override
+                public void beforeComplete() {
+                    // After the first build using them, the virtual file system or the file hash caches know about the unchanged files
+                    persistentSnapshotHierarchy.discardRestored();
+                }
+            });
+            return persistentSnapshotHierarchy;
+        }
+
         @Provides
         FileSystemAccess createFileSystemAccess(
             FileHasher hasher,
@@ -326,6 +387,13 @@ CrossBuildFileHashCache createCrossBuildFileHashCache(BuildTreeScopedCacheBuilde
             return new CrossBuildFileHashCache(cacheBuilderFactory, inMemoryCacheDecoratorFactory, CrossBuildFileHashCache.Kind.FILE_HASHES);
         }
 
+        @Provides
+        @PrivateService
+        WorkerLeaseHashingExecutor createHashingExecutor(ExecutorFactory executorFactory, WorkerLeaseService workerLeaseService, ResourceLockCoordinationService coordinationService) {
+            // Threads are only started once files are hashed concurrently
+            return new WorkerLeaseHashingExecutor(executorFactory.create("File hasher", workerLeaseService.getMaxWorkerCount()), workerLeaseService, coordinationService);
+        }
+
         @Provides
         FileHasher createFileHasher(
             GlobalCacheLocations globalCacheLocations,
@@ -335,10 +403,23 @@ FileHasher createFileHasher(
             FileSystem fileSystem,
             StreamHasher streamHasher,
             StringInterner stringInterner,
-            FileHasherStatistics.Collector statisticsCollector
+            FileHasherStatistics.Collector statisticsCollector,
+            PersistentSnapshotHierarchy persistentSnapshotHierarchy,
+            StartParameterInternal startParameter,
+            WorkerLeaseHashingExecutor hashingExecutor
         ) {
-            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
-            return new SplitFileHasher(globalHasher, localHasher, globalCacheLocations);
+            InternalOptions internalOptions = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
+            int mappingThresholdMegabytes = internalOptions.getOption(MAPPED_HASHING_THRESHOLD_PROPERTY).get();
+            long mappingThreshold = mappingThresholdMegabytes > 0 ? mappingThresholdMegabytes * 1024L * 1024L : DefaultFileHasher.NO_MAPPING;
+            boolean hashInChunks = mappingThreshold != DefaultFileHasher.NO_MAPPING && internalOptions.getOption(PARALLEL_CHUNKED_HASHING_PROPERTY).get();
+            DefaultFileHasher fileHasher = new DefaultFileHasher(streamHasher, mappingThreshold, hashInChunks ? hashingExecutor : null);
+            // Tree hashes are kept apart from stream hashes, so changing the option does not mix both for the same file
+            String cacheName = hashInChunks ? "treeFileHashes" : "fileHashes";
+            CachingFileHasher localHasher = new CachingFileHasher(fileHasher, cacheAccess, stringInterner, fileTimeStampInspector, cacheName, fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            FileHasher hasher = new SplitFileHasher(globalHasher, localHasher, globalCacheLocations);
+            return internalOptions.getOption(PERSIST_SNAPSHOTS_PROPERTY).get()
+                ? persistentSnapshotHierarchy.decorate(hasher, fileTimeStampInspector::timestampCanBeUsedToDetectFileChange)
+                : hasher;
         }
 
         @Provides
@@ -349,8 +430,11 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             VirtualFileSystem root,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            StartParameterInternal startParameter,
+            WorkerLeaseHashingExecutor hashingExecutor
         ) {
+            InternalOptions internalOptions = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
             DefaultFileSystemAccess buildSessionsScopedVirtualFileSystem = new DefaultFileSystemAccess(
                 hasher,
                 stringInterner,
@@ -358,6 +442,8 @@ FileSystemAccess createFileSystemAccess(
                 root,
                 writeListener,
                 statisticsCollector,
+                internalOptions.getOption(PARALLEL_SNAPSHOTTING_PROPERTY).get() ? hashingExecutor : null,
+                internalOptions.getOption(COMPACT_CHILDREN_PROPERTY).get(),
                 DirectoryScanner.getDefaultExcludes()
             );
 
@@ -418,4 +504,66 @@ ResourceSnapshotterCacheService createResourceSnapshotterCacheService(
             return new SplitResourceSnapshotterCacheService(globalCache, localCache, globalCacheLocations);
         }
     }
+
+    /**
+     * Runs file hashing only on threads that hold a worker lease, so hashing shares the worker limit with the running work.
+     *
+     * When no worker lease is available, the task is not run.
+     * The directory snapshotter and the chunked file hasher then run the task on the thread that needs the hash.
+     */
+    static class WorkerLeaseHashingExecutor extends AbstractExecutorService implements Stoppable {
+        private final ManagedExecutor delegate;
+        private final WorkerLeaseService workerLeaseService;
+        private final ResourceLockCoordinationService coordinationService;
+
+        WorkerLeaseHashingExecutor(ManagedExecutor delegate, WorkerLeaseService workerLeaseService, ResourceLockCoordinationService coordinationService) {
+            this.delegate = delegate;
+            this.workerLeaseService = workerLeaseService;
+            this.coordinationService = coordinationService;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                WorkerLeaseRegistry.WorkerLease workerLease = workerLeaseService.newWorkerLease();
+                if (coordinationService.withStateLock(tryLock(workerLease))) {
+                    try {
+                        command.run();
+                    } finally {
+                        coordinationService.withStateLock(unlock(workerLease));
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
 }
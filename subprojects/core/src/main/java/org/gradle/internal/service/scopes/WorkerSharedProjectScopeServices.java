@@ -31,6 +31,7 @@
 import org.gradle.api.internal.file.FilePropertyFactory;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.archive.DecompressionCoordinator;
+import org.gradle.api.internal.file.archive.ParallelZipExtraction;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.api.internal.model.DefaultObjectFactory;
@@ -101,7 +102,8 @@ protected FileOperations createFileOperations(
             ProviderFactory providers,
             TaskDependencyFactory taskDependencyFactory,
             DecompressionCoordinator decompressionCoordinator,
-            TemporaryFileProvider temporaryFileProvider
+            TemporaryFileProvider temporaryFileProvider,
+            ParallelZipExtraction parallelZipExtraction
     ) {
         return new DefaultFileOperations(
                 fileResolver,
@@ -118,7 +120,8 @@ protected FileOperations createFileOperations(
                 taskDependencyFactory,
                 providers,
                 decompressionCoordinator,
-                temporaryFileProvider
+                temporaryFileProvider,
+                parallelZipExtraction
         );
     }
 
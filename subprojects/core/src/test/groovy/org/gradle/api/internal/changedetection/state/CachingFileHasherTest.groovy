@@ -129,6 +129,36 @@ class CachingFileHasherTest extends Specification {
         0 * _
     }
 
+    def "returns known hash without hashing the file"() {
+        def stat = fileSystem.stat(file)
+
+        when:
+        def result = hasher.hashIfKnown(file, stat.length, stat.lastModified)
+
+        then:
+        result == hash
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(hash, stat.length, stat.lastModified)
+        0 * _
+    }
+
+    def "does not hash file when hash is not known"() {
+        def stat = fileSystem.stat(file)
+
+        when:
+        def result = hasher.hashIfKnown(file, stat.length, stat.lastModified)
+
+        then:
+        result == null
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(oldHash, stat.length, 124)
+        0 * _
+    }
+
     def "does not load cached value when timestamp cannot be used to detect change"() {
         def stat = fileSystem.stat(file)
 
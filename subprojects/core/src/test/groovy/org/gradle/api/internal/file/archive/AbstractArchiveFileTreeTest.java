@@ -26,6 +26,8 @@
 import org.junit.Test;
 import spock.lang.Issue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -42,6 +44,7 @@
 import static org.gradle.api.tasks.AntBuilderAwareUtil.assertSetContainsForAllTypes;
 import static org.gradle.util.internal.WrapUtil.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Abstract base class for all tests of {@link AbstractArchiveFileTree} implementations which tests common
@@ -142,6 +145,93 @@ public void doesNotOverwriteFilesOnSecondVisit() {
         contentFile.assertHasNotChangedSince(snapshot);
     }
 
+    @Test
+    public void visitsExpandedArchiveFromExpandedDirectory() throws IOException {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.file("file2.txt").write("content");
+        archiveFileToRoot(getArchiveFile());
+
+        List<File> extracted = extractAll();
+        assertEquals(2, extracted.size());
+        File expandedDir = extractedFile(extracted, "file2.txt").getParentFile();
+        assertTrue(new File(expandedDir.getParentFile(), expandedDir.getName() + ".entries").isFile());
+
+        assertEquals(toList("content", "content"), readAll());
+        assertVisits(getTree(), toList("subdir/file1.txt", "file2.txt"), toList("subdir"));
+    }
+
+    @Test
+    public void extractsFilesAgainWhenChangedInExpandedDirectory() throws IOException {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.file("file2.txt").write("content");
+        archiveFileToRoot(getArchiveFile());
+
+        List<File> extracted = extractAll();
+        File longerFile = extractedFile(extracted, "file1.txt");
+        FileUtils.write(longerFile, "changed content", Charset.defaultCharset());
+        File sameLengthFile = extractedFile(extracted, "file2.txt");
+        long lastModified = sameLengthFile.lastModified();
+        FileUtils.write(sameLengthFile, "changed", Charset.defaultCharset());
+        assertTrue(sameLengthFile.setLastModified(lastModified - 2000));
+
+        assertEquals(toList("content", "content"), readAll());
+        extractAll();
+        assertEquals("content", FileUtils.readFileToString(longerFile, Charset.defaultCharset()));
+        assertEquals("content", FileUtils.readFileToString(sameLengthFile, Charset.defaultCharset()));
+        assertVisits(getTree(), toList("subdir/file1.txt", "file2.txt"), toList("subdir"));
+    }
+
+    @Test
+    public void extractsFilesAgainWhenDeletedFromExpandedDirectory() throws IOException {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.file("file2.txt").write("content");
+        archiveFileToRoot(getArchiveFile());
+
+        List<File> extracted = extractAll();
+        assertTrue(extracted.get(0).delete());
+
+        extractAll();
+        assertEquals("content", FileUtils.readFileToString(extracted.get(0), Charset.defaultCharset()));
+        assertEquals(toList("content", "content"), readAll());
+    }
+
+    private List<File> extractAll() {
+        List<File> files = new ArrayList<>();
+        getTree().visit(new FileVisitor() {
+            @Override
+            public void visitDir(FileVisitDetails dirDetails) {
+                dirDetails.getFile();
+            }
+
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                files.add(fileDetails.getFile());
+            }
+        });
+        return files;
+    }
+
+    private static File extractedFile(List<File> extracted, String name) {
+        return extracted.stream().filter(file -> file.getName().equals(name)).findFirst().orElseThrow(AssertionError::new);
+    }
+
+    private List<String> readAll() {
+        List<String> contents = new ArrayList<>();
+        getTree().visit(new FileVisitor() {
+            @Override
+            public void visitDir(FileVisitDetails dirDetails) {
+            }
+
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                fileDetails.copyTo(content);
+                contents.add(new String(content.toByteArray(), Charset.defaultCharset()));
+            }
+        });
+        return contents;
+    }
+
     @Test
     public void visitsContentsOfArchiveFile() {
         rootDir.file("subdir/file1.txt").write("content");
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.junit.After;
+
+/**
+ * Runs the tests of {@link ZipFileTreeTest} with the entries extracted on several threads.
+ */
+public class ParallelZipFileTreeTest extends ZipFileTreeTest {
+    private DefaultExecutorFactory executorFactory;
+
+    @Override
+    protected ParallelZipExtraction parallelZipExtraction() {
+        // Called while the test is constructed, before the fields of this class are initialized
+        executorFactory = new DefaultExecutorFactory();
+        return ParallelZipExtraction.withMaxThreads(executorFactory, 4);
+    }
+
+    @After
+    public void stopExecutors() {
+        executorFactory.stop();
+    }
+}
@@ -25,12 +25,15 @@ import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.internal.file.copy.DefaultZipCompressor
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
 import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.archive.ZipTestFixture
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.Executor
+
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
 import static org.hamcrest.CoreMatchers.equalTo
 
@@ -143,6 +146,62 @@ class ZipCopyActionTest extends Specification {
         e.cause.is(failure)
     }
 
+    def "writes the same archive when entries are deflated in parallel"() {
+        def executorFactory = new DefaultExecutorFactory()
+        def compressor = new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED)
+        def sequentialZip = tmpDir.getTestDirectory().file("sequential.zip")
+        def parallelZip = tmpDir.getTestDirectory().file("parallel.zip")
+        def files = [dir("dir")] + (1..50).collect { file("dir/file$it") } + [dir("dir/sub"), file("dir/sub/file")]
+
+        when:
+        visitor = new ZipCopyAction(sequentialZip, compressor, new DocumentationRegistry(), encoding, false)
+        zip(files as FileCopyDetailsInternal[])
+        visitor = new ZipCopyAction(parallelZip, compressor, new DocumentationRegistry(), encoding, false, executorFactory.create("compression", 4))
+        zip(files as FileCopyDetailsInternal[])
+
+        then:
+        parallelZip.bytes == sequentialZip.bytes
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    def "deflates the entries that the executor does not get to on the writing thread"() {
+        def compressor = new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED)
+        def sequentialZip = tmpDir.getTestDirectory().file("sequential.zip")
+        def parallelZip = tmpDir.getTestDirectory().file("parallel.zip")
+        def files = (1..10).collect { file("dir/file$it") }
+        def ignoringExecutor = { Runnable task -> } as Executor
+
+        when:
+        visitor = new ZipCopyAction(sequentialZip, compressor, new DocumentationRegistry(), encoding, false)
+        zip(files as FileCopyDetailsInternal[])
+        visitor = new ZipCopyAction(parallelZip, compressor, new DocumentationRegistry(), encoding, false, ignoringExecutor)
+        zip(files as FileCopyDetailsInternal[])
+
+        then:
+        parallelZip.bytes == sequentialZip.bytes
+    }
+
+    def "wraps failure to add element when entries are deflated in parallel"() {
+        def executorFactory = new DefaultExecutorFactory()
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file2", failure)
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipArchiveOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, executorFactory.create("compression", 4))
+
+        when:
+        zip(file("dir/file1"), brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+        !zipFile.exists()
+
+        cleanup:
+        executorFactory.stop()
+    }
+
     private void zip(final FileCopyDetailsInternal... files) {
         visitor.execute(new CopyActionProcessingStream() {
             void process(CopyActionProcessingStreamAction action) {
@@ -46,7 +46,12 @@ private ZipFileTree zipTree(File archiveFile) {
             directoryFileTreeFactory(),
             fileHasher(),
             TestDecompressionCoordinators.decompressionCoordinator(tempDirProvider.getTestDirectory().createDir("cache-dir")),
-            TestFiles.tmpDirTemporaryFileProvider(tempDirProvider.getTestDirectory()));
+            TestFiles.tmpDirTemporaryFileProvider(tempDirProvider.getTestDirectory()),
+            parallelZipExtraction());
+    }
+
+    protected ParallelZipExtraction parallelZipExtraction() {
+        return ParallelZipExtraction.DISABLED;
     }
 
     @Override
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.file.copy
 
 import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFilePermissions
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -44,6 +45,75 @@ class FileCopyActionTest extends Specification {
         )
     }
 
+    def "does not copy files that did not change since the previous copy"() {
+        def source = tmpDir.file("src/a.txt").createFile()
+        source.text = "content"
+        def manifestFile = tmpDir.file("manifest.bin")
+        def copied = []
+
+        when:
+        visit(new FileCopyAction(TestFiles.resolver(destDir), DestinationManifest.load(manifestFile, destDir, TestFiles.fileHasher())), sourceFile("a.txt", source, copied))
+        def result = visit(new FileCopyAction(TestFiles.resolver(destDir), DestinationManifest.load(manifestFile, destDir, TestFiles.fileHasher())), sourceFile("a.txt", source, copied))
+
+        then:
+        copied == ["a.txt"]
+        !result.didWork
+        new File(destDir, "a.txt").text == "content"
+    }
+
+    def "copies file again when the #changed changed since the previous copy"() {
+        def source = tmpDir.file("src/a.txt").createFile()
+        source.text = "content"
+        def target = new File(destDir, "a.txt")
+        def manifestFile = tmpDir.file("manifest.bin")
+        def copied = []
+
+        when:
+        visit(new FileCopyAction(TestFiles.resolver(destDir), DestinationManifest.load(manifestFile, destDir, TestFiles.fileHasher())), sourceFile("a.txt", source, copied))
+        (changed == "source" ? source : target).text = "changed content"
+        def result = visit(new FileCopyAction(TestFiles.resolver(destDir), DestinationManifest.load(manifestFile, destDir, TestFiles.fileHasher())), sourceFile("a.txt", source, copied))
+
+        then:
+        copied == ["a.txt", "a.txt"]
+        result.didWork
+        target.text == source.text
+
+        where:
+        changed << ["source", "target"]
+    }
+
+    def "copies all files when the previous copy did not complete"() {
+        def source = tmpDir.file("src/a.txt").createFile()
+        source.text = "content"
+        def manifestFile = tmpDir.file("manifest.bin")
+        def copied = []
+
+        when:
+        visit(new FileCopyAction(TestFiles.resolver(destDir), DestinationManifest.load(manifestFile, destDir, TestFiles.fileHasher())), sourceFile("a.txt", source, copied))
+        DestinationManifest.load(manifestFile, destDir, TestFiles.fileHasher())
+        visit(new FileCopyAction(TestFiles.resolver(destDir), DestinationManifest.load(manifestFile, destDir, TestFiles.fileHasher())), sourceFile("a.txt", source, copied))
+
+        then:
+        copied == ["a.txt", "a.txt"]
+    }
+
+    private FileCopyDetailsInternal sourceFile(String path, File source, List<String> copied) {
+        def details = Stub(FileCopyDetailsInternal)
+        details.relativePath >> RelativePath.parse(true, path)
+        details.directory >> false
+        details.unfilteredSourceFile >> source
+        details.size >> { source.length() }
+        details.lastModified >> { source.lastModified() }
+        details.permissions >> new DefaultFilePermissions(0644)
+        details.copyTo(_ as File) >> { File target ->
+            target.parentFile.mkdirs()
+            target.bytes = source.bytes
+            copied << path
+            true
+        }
+        return details
+    }
+
     private FileCopyDetailsInternal file(final RelativePath relativePath, final File targetFile) {
         final FileCopyDetailsInternal details = Mock(FileCopyDetailsInternal)
         _ * details.relativePath >> relativePath
@@ -50,6 +50,25 @@ class DefaultCrossBuildInMemoryCacheFactoryTest extends AbstractCrossBuildInMemo
         0 * function._
     }
 
+    def "releases values from the previous session under high heap pressure"() {
+        def function = Mock(Function)
+
+        when:
+        def cache = factory.newCache()
+        cache.get("a", function)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+
+        then:
+        1 * function.apply("a") >> new Object()
+
+        when:
+        listenerManager.getBroadcaster(HeapPressureListener).onHeapPressure(HeapPressureListener.HeapPressure.HIGH)
+        cache.get("a", function)
+
+        then:
+        1 * function.apply("a") >> new Object()
+    }
+
     def "creates a cache whose keys are classes"() {
         def a = new Object()
         def b = new Object()
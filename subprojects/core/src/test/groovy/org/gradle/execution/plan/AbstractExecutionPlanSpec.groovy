@@ -56,6 +56,14 @@ abstract class AbstractExecutionPlanSpec extends Specification {
         return locks.findAll { it.locked }.collect { it.project } as Set
     }
 
+    protected int failedLockAttempts(ProjectInternal project) {
+        return locks.find { it.project.is(project) }.failedAttempts
+    }
+
+    protected void resetFailedLockAttempts() {
+        locks.each { it.failedAttempts = 0 }
+    }
+
     protected void recordLocks(Closure cl) {
         acquired.clear()
         cl()
@@ -163,6 +171,7 @@ abstract class AbstractExecutionPlanSpec extends Specification {
         final Thread owner = Thread.currentThread()
         final ProjectInternal project
         boolean locked
+        int failedAttempts
         final Collection<MockLock> locks
 
         MockLock(ProjectInternal project, Collection<MockLock> locks) {
@@ -178,6 +187,7 @@ abstract class AbstractExecutionPlanSpec extends Specification {
         @Override
         boolean tryLock() {
             if (!locks.contains(this) && locked) {
+                failedAttempts++
                 return false
             }
             locked = true
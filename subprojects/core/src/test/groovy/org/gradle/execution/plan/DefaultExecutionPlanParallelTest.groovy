@@ -32,11 +32,16 @@ import org.gradle.api.tasks.OutputDirectory
 import org.gradle.api.tasks.OutputFile
 import org.gradle.api.tasks.OutputFiles
 import org.gradle.api.tasks.TaskAction
+import org.gradle.cache.CacheDecorator
+import org.gradle.cache.internal.DefaultUnscopedCacheBuilderFactory
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory
+import org.gradle.cache.internal.scopes.DefaultGlobalScopedCacheBuilderFactory
 import org.gradle.composite.internal.BuildTreeWorkGraphController
 import org.gradle.internal.file.Stat
 import org.gradle.internal.operations.TestBuildOperationRunner
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.precondition.Requires
+import org.gradle.testfixtures.internal.TestInMemoryCacheFactory
 import org.gradle.test.preconditions.UnitTestPreconditions
 import org.gradle.util.Path
 import org.gradle.util.internal.ToBeImplemented
@@ -973,6 +978,45 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         !taskNode3.task.project.is(taskNode4.task.project)
     }
 
+    def "does not attempt to lock an unavailable project again for other nodes of the project while selecting"() {
+        given:
+        def projectA = project(project, "a")
+        def projectB = project(project, "b")
+
+        def fooA = task("foo", project: projectA)
+        def barA = task("bar", project: projectA)
+        def bazA = task("baz", project: projectA)
+        def fooB = task("foo", project: projectB)
+
+        when:
+        addToGraphAndPopulate(fooA, barA, bazA, fooB)
+        selectNextTaskNode()
+
+        then:
+        lockedProjects == [projectA] as Set
+
+        when:
+        def failedAttemptsPerSelection = []
+        def next = null
+        while (!(next instanceof LocalTaskNode)) {
+            resetFailedLockAttempts()
+            next = selectNextNode()
+            failedAttemptsPerSelection << failedLockAttempts(projectA)
+            if (!(next instanceof LocalTaskNode)) {
+                coordinator.withStateLock {
+                    if (next instanceof SelfExecutingNode) {
+                        next.execute(null)
+                    }
+                    finalizedPlan.finishedExecuting(next, null)
+                }
+            }
+        }
+
+        then:
+        next.task == fooB
+        failedAttemptsPerSelection.every { it <= 1 }
+    }
+
     def "a non-async task can start while an async task from the same project is waiting for work to complete"() {
         given:
         def bar = task("bar", type: Async)
@@ -1051,6 +1095,52 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         secondTask == b
     }
 
+    def "starts tasks with the longest estimated critical path first when task durations are known"() {
+        given:
+        def cacheBuilderFactory = new DefaultGlobalScopedCacheBuilderFactory(file("caches"), new DefaultUnscopedCacheBuilderFactory(new TestInMemoryCacheFactory()))
+        def inMemoryCacheDecoratorFactory = Stub(InMemoryCacheDecoratorFactory) {
+            decorator(_, _) >> Stub(CacheDecorator) {
+                decorate(_, _, _, _, _) >> { args -> args[2] }
+            }
+        }
+        def history = new TaskDurationHistory(cacheBuilderFactory, inMemoryCacheDecoratorFactory)
+        history.recordDuration(":a", 10_000)
+        history.recordDuration(":b", 100_000)
+        history.recordDuration(":c", 100_000)
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        executionPlan = new DefaultExecutionPlan(Path.ROOT.toString(), taskNodeFactory, new OrdinalGroupFactory(), dependencyResolver, accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator, history)
+        Task a = task("a", type: Async)
+        Task b = task("b", type: Async)
+        Task c = task("c", type: Async, dependsOn: [b])
+
+        when:
+        addToGraphAndPopulate(a, c)
+        def firstTaskNode = selectNextTaskNode()
+        def secondTaskNode = selectNextTaskNode()
+
+        then:
+        firstTaskNode.task == b
+        secondTaskNode.task == a
+        assertNoWorkReadyToStart()
+
+        when:
+        finishedExecuting(firstTaskNode)
+        finishedExecuting(secondTaskNode)
+
+        then:
+        selectNextTask() == c
+
+        when:
+        history.close()
+        def reloaded = new TaskDurationHistory(cacheBuilderFactory, inMemoryCacheDecoratorFactory)
+
+        then:
+        // The durations recorded for this build are averaged with the earlier ones
+        reloaded.getEstimatedDurationMillis(":a") < 10_000
+        reloaded.getEstimatedDurationMillis(":b") < 100_000
+        reloaded.getEstimatedDurationMillis(":c") == 100_000
+    }
+
     def "task is not available for execution until all of its dependencies that are executed in parallel complete"() {
         given:
         Task a = task("a", type: Async)
@@ -25,6 +25,7 @@ import org.gradle.initialization.BuildCancellationToken
 import org.gradle.internal.buildoption.DefaultInternalOptions
 import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.resources.ResourceLock
 import org.gradle.internal.work.DefaultWorkerLimits
 import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.internal.work.WorkerLeaseService
@@ -113,4 +114,53 @@ class DefaultPlanExecutorTest extends Specification {
         1 * workSource.collectFailures([])
         0 * workSource._
     }
+
+    def "marks an item finished and runs lock release listeners before selecting the next item"() {
+        def node1 = Mock(LocalTaskNode)
+        def node2 = Mock(LocalTaskNode)
+        def releasedLock = Mock(ResourceLock)
+        def releaseListener = Mock(Action)
+        coordinationService.addLockReleaseListener(releaseListener)
+        _ * cancellationHandler.isCancellationRequested() >> false
+        _ * workerLease.tryLock() >> true
+
+        when:
+        def result = executor.process(workSource, worker)
+
+        then:
+        result.failures.empty
+        1 * workerLeaseService.currentWorkerLease >> workerLease
+
+        then:
+        1 * workSource.executionState() >> WorkSource.State.MaybeWorkReadyToStart
+        1 * workSource.selectNext() >> WorkSource.Selection.of(node1)
+        1 * worker.execute(node1)
+
+        then:
+        1 * workSource.finishedExecuting(node1, null) >> {
+            coordinationService.current.registerUnlocked(releasedLock)
+        }
+
+        then:
+        1 * releaseListener.execute(releasedLock)
+
+        then:
+        1 * workSource.executionState() >> WorkSource.State.MaybeWorkReadyToStart
+        1 * workSource.selectNext() >> WorkSource.Selection.of(node2)
+        1 * worker.execute(node2)
+
+        then:
+        1 * workSource.finishedExecuting(node2, null)
+
+        then:
+        1 * workSource.executionState() >> WorkSource.State.NoMoreWorkToStart
+
+        then:
+        3 * workSource.allExecutionComplete() >> true
+        1 * workSource.collectFailures([])
+        0 * workSource._
+
+        cleanup:
+        coordinationService.removeLockReleaseListener(releaseListener)
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.execution.plan
+
+import org.gradle.cache.CacheDecorator
+import org.gradle.cache.internal.DefaultUnscopedCacheBuilderFactory
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory
+import org.gradle.cache.internal.scopes.DefaultGlobalScopedCacheBuilderFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.TestInMemoryCacheFactory
+import org.junit.Rule
+import spock.lang.Specification
+
+class TaskDurationHistoryTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def cacheBuilderFactory = new DefaultGlobalScopedCacheBuilderFactory(temporaryFolder.file("caches"), new DefaultUnscopedCacheBuilderFactory(new TestInMemoryCacheFactory()))
+    def inMemoryCacheDecoratorFactory = Stub(InMemoryCacheDecoratorFactory) {
+        decorator(_, _) >> Stub(CacheDecorator) {
+            decorate(_, _, _, _, _) >> { args -> args[2] }
+        }
+    }
+
+    def "uses the first recorded duration as the estimate"() {
+        def history = newHistory()
+
+        when:
+        history.recordDuration(":a", 10_000)
+
+        then:
+        history.getEstimatedDurationMillis(":a") == 10_000
+        history.getEstimatedDurationMillis(":b") == null
+    }
+
+    def "a single fast execution only moves the estimate slightly"() {
+        def history = newHistory()
+        history.recordDuration(":a", 10_000)
+
+        when:
+        history.recordDuration(":a", 0)
+
+        then:
+        history.getEstimatedDurationMillis(":a") == 8_000
+
+        when:
+        history.recordDuration(":a", 13_000)
+
+        then:
+        history.getEstimatedDurationMillis(":a") == 9_000
+    }
+
+    def "keeps durations across sessions"() {
+        def history = newHistory()
+        history.recordDuration(":a", 10_000)
+        history.recordDuration(":b", 500)
+
+        when:
+        history.close()
+        def reloaded = newHistory()
+
+        then:
+        reloaded.getEstimatedDurationMillis(":a") == 10_000
+        reloaded.getEstimatedDurationMillis(":b") == 500
+    }
+
+    private TaskDurationHistory newHistory() {
+        new TaskDurationHistory(cacheBuilderFactory, inMemoryCacheDecoratorFactory)
+    }
+}
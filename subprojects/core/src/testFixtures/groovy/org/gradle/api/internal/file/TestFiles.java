@@ -17,6 +17,7 @@
 
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.archive.ParallelZipExtraction;
 import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.file.temp.DefaultTemporaryFileProvider;
@@ -178,7 +179,8 @@ public static FileOperations fileOperations(File basedDir, TemporaryFileProvider
             taskDependencyFactory(),
             providerFactory(),
             TestDecompressionCoordinators.decompressionCoordinator(temporaryFileProvider.newTemporaryDirectory("cache-dir")),
-            temporaryFileProvider
+            temporaryFileProvider,
+            ParallelZipExtraction.DISABLED
         );
     }
 
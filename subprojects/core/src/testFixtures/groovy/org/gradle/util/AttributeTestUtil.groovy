@@ -18,6 +18,7 @@ package org.gradle.util
 
 import groovy.transform.stc.ClosureParams
 import groovy.transform.stc.SimpleType
+import org.gradle.StartParameter
 import org.gradle.api.attributes.Attribute
 import org.gradle.api.attributes.AttributesSchema
 import org.gradle.api.internal.attributes.AttributeSchemaServices
@@ -29,6 +30,7 @@ import org.gradle.api.internal.attributes.ImmutableAttributes
 import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema
 import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchemaFactory
 import org.gradle.api.internal.attributes.immutable.artifact.ImmutableArtifactTypeRegistryFactory
+import org.gradle.api.internal.attributes.matching.AttributeMatchingStatistics
 
 class AttributeTestUtil {
 
@@ -106,7 +108,8 @@ class AttributeTestUtil {
         new AttributeSchemaServices(
             new ImmutableAttributesSchemaFactory(TestUtil.inMemoryCacheFactory()),
             new ImmutableArtifactTypeRegistryFactory(TestUtil.inMemoryCacheFactory(), attributesFactory()),
-            TestUtil.inMemoryCacheFactory()
+            TestUtil.inMemoryCacheFactory(),
+            new AttributeMatchingStatistics(new StartParameter())
         )
     }
 }
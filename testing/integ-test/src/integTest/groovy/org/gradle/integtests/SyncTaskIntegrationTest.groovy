@@ -704,6 +704,79 @@ class SyncTaskIntegrationTest extends AbstractIntegrationSpec implements StableC
         )
     }
 
+    def "incremental sync only copies changed files and removes deleted and extra files"() {
+        given:
+        defaultSourceFileTree()
+        buildFile '''
+            task sync(type: Sync) {
+                into 'dest'
+                from 'source'
+            }
+        '''.stripIndent()
+
+        when:
+        run 'sync', '-Dorg.gradle.internal.copy.incremental=true'
+
+        then:
+        file('dest').assertHasDescendants(
+            'dir1/file1.txt',
+            'dir2/subdir/file2.txt',
+            'dir2/file3.txt',
+            'emptyDir'
+        )
+
+        when:
+        def unchanged = file('dest/dir2/subdir/file2.txt').snapshot()
+        file('source/dir1/file1.txt').text = 'changed'
+        file('source/dir2/file3.txt').delete()
+        file('dest/extra.txt').createFile()
+        run 'sync', '-Dorg.gradle.internal.copy.incremental=true'
+
+        then:
+        executedAndNotSkipped ':sync'
+        file('dest').assertHasDescendants(
+            'dir1/file1.txt',
+            'dir2/subdir/file2.txt',
+            'emptyDir'
+        )
+        file('dest/dir1/file1.txt').text == 'changed'
+        file('dest/dir2/subdir/file2.txt').assertHasNotChangedSince(unchanged)
+    }
+
+    def "incremental sync copies filtered files again when the filter changes"() {
+        given:
+        file('source').create {
+            file('filtered.txt').text = 'version=@version@'
+            file('other.txt').text = 'other'
+        }
+        buildFile '''
+            def version = providers.systemProperty('version').get()
+            task sync(type: Sync) {
+                into 'dest'
+                from('source') {
+                    filter { it.replace('@version@', version) }
+                }
+                inputs.property('version', version)
+            }
+        '''.stripIndent()
+
+        when:
+        run 'sync', '-Dorg.gradle.internal.copy.incremental=true', '-Dversion=1'
+
+        then:
+        file('dest').assertHasDescendants('filtered.txt', 'other.txt')
+        file('dest/filtered.txt').text == 'version=1'
+
+        when:
+        file('source/other.txt').delete()
+        run 'sync', '-Dorg.gradle.internal.copy.incremental=true', '-Dversion=2'
+
+        then:
+        executedAndNotSkipped ':sync'
+        file('dest').assertHasDescendants('filtered.txt')
+        file('dest/filtered.txt').text == 'version=2'
+    }
+
     def defaultSourceFileTree() {
         file('source').create {
             dir1 { file 'file1.txt' }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.performance.experiment.java
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.annotations.RunFor
+import org.gradle.performance.annotations.Scenario
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+import org.gradle.profiler.BuildContext
+import org.gradle.profiler.BuildMutator
+import org.gradle.profiler.InvocationSettings
+
+import static org.gradle.performance.annotations.ScenarioType.PER_WEEK
+import static org.gradle.performance.results.OperatingSystem.LINUX
+
+@RunFor(
+    @Scenario(type = PER_WEEK, operatingSystems = [LINUX], testProjects = ["largeJavaMultiProjectNoBuildSrc"])
+)
+class ConfigurationCacheCompressionPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    def "assemble #action configuration cache state (compression comparison)"() {
+        given:
+        runner.testGroup = "configuration cache compression"
+        ["lz", "deflate"].each { compression ->
+            runner.buildSpec {
+                displayName(compression)
+                addBuildMutator { invocationSettings -> configurationCacheStateMutatorFor(invocationSettings, action) }
+                invocation {
+                    args("-Dorg.gradle.configuration-cache.internal.compression=$compression")
+                }
+            }
+        }
+        runner.baseline {
+            displayName("none")
+            addBuildMutator { invocationSettings -> configurationCacheStateMutatorFor(invocationSettings, action) }
+            invocation {
+                args("-Dorg.gradle.configuration-cache.internal.compression=none")
+            }
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+
+        where:
+        action << ["storing", "loading"]
+    }
+
+    @Override
+    protected void defaultSpec(GradleBuildExperimentSpec.GradleBuilder builder) {
+        super.defaultSpec(builder)
+        builder.warmUpCount = 5
+        builder.invocationCount = 20
+        builder.invocation {
+            tasksToRun("assemble")
+            args("--configuration-cache")
+        }
+    }
+
+    private static BuildMutator configurationCacheStateMutatorFor(InvocationSettings invocationSettings, String action) {
+        return new BuildMutator() {
+            @Override
+            void beforeBuild(BuildContext context) {
+                if (action == "storing") {
+                    new File(invocationSettings.projectDir, ".gradle/configuration-cache").deleteDir()
+                }
+            }
+        }
+    }
+}
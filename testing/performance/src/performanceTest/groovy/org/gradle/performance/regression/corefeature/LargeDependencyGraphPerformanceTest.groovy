@@ -71,4 +71,27 @@ class LargeDependencyGraphPerformanceTest extends AbstractCrossVersionPerformanc
         parallel << [false, true, false, true]
         locking << [false, false, true, true]
     }
+
+    def "resolve large dependency graph while fetching metadata in the background (parallel = #parallel)"() {
+        startServer()
+
+        given:
+        runner.tasksToRun = ['resolveDependencies']
+        runner.args = ['-PuseHttp', "-PhttpPort=${serverPort}", '-PnoExcludes', '-Dorg.gradle.internal.dependency-resolution.pipelined-metadata-fetching=true']
+        if (parallel) {
+            runner.args += '--parallel'
+        }
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+
+        cleanup:
+        stopServer()
+
+        where:
+        parallel << [false, true]
+    }
 }